@@ -0,0 +1,105 @@
+package simplejdbc.processor;
+
+import java.util.List;
+
+/** What the processor learned of one `@SqlRow` type: how to create it, and its columns. */
+final class RowModel {
+
+  enum Creation {
+    /** Through a constructor taking every column, in order. */
+    CONSTRUCTOR,
+    /** Through a no-argument constructor, with every column's field then assigned. */
+    FIELDS
+  }
+
+  final String packageName;
+  final String typeName;
+  final String generatedName;
+  final Creation creation;
+  final List<Column> columns;
+  /** Whether every column can be read back from an instance, for `toArguments()`. */
+  final boolean readable;
+
+  RowModel(
+      String packageName,
+      String typeName,
+      String generatedName,
+      Creation creation,
+      List<Column> columns) {
+    this.packageName = packageName;
+    this.typeName = typeName;
+    this.generatedName = generatedName;
+    this.creation = creation;
+    this.columns = columns;
+    this.readable = columns.stream().allMatch(column -> column.accessor != null);
+  }
+
+  static final class Column {
+    final String name;
+    final String label;
+    final ColumnType type;
+    /** The enum's qualified name, for `ColumnType.ENUM` columns. */
+    final String enumType;
+    /** The expression reading the column from an instance, e.g. `getId()`, or null if none. */
+    final String accessor;
+
+    Column(String name, String label, ColumnType type, String enumType, String accessor) {
+      this.name = name;
+      this.label = label;
+      this.type = type;
+      this.enumType = enumType;
+      this.accessor = accessor;
+    }
+
+    /** @return the column's Java type, as written in source */
+    String javaType() {
+      return type == ColumnType.ENUM ? enumType : type.javaType;
+    }
+  }
+
+  /** The Java types a column may have, and how each is read from a `ResultSet`. */
+  enum ColumnType {
+    BOOLEAN("boolean", "getBoolean", null),
+    BYTE("byte", "getByte", null),
+    SHORT("short", "getShort", null),
+    INT("int", "getInt", null),
+    LONG("long", "getLong", null),
+    FLOAT("float", "getFloat", null),
+    DOUBLE("double", "getDouble", null),
+    BOXED_BOOLEAN("java.lang.Boolean", "getBoolean", "boolean"),
+    BOXED_BYTE("java.lang.Byte", "getByte", "byte"),
+    BOXED_SHORT("java.lang.Short", "getShort", "short"),
+    BOXED_INT("java.lang.Integer", "getInt", "int"),
+    BOXED_LONG("java.lang.Long", "getLong", "long"),
+    BOXED_FLOAT("java.lang.Float", "getFloat", "float"),
+    BOXED_DOUBLE("java.lang.Double", "getDouble", "double"),
+    STRING("java.lang.String", "getString", null),
+    BIG_DECIMAL("java.math.BigDecimal", "getBigDecimal", null),
+    BYTES("byte[]", "getBytes", null),
+    INSTANT("java.time.Instant", "getTimestamp", null),
+    LOCAL_DATE_TIME("java.time.LocalDateTime", "getTimestamp", null),
+    LOCAL_DATE("java.time.LocalDate", "getDate", null),
+    LOCAL_TIME("java.time.LocalTime", "getTime", null),
+    ENUM(null, "getString", null);
+
+    final String javaType;
+    final String getter;
+    /** For boxed types, the primitive read before checking `wasNull()`. */
+    final String primitive;
+
+    ColumnType(String javaType, String getter, String primitive) {
+      this.javaType = javaType;
+      this.getter = getter;
+      this.primitive = primitive;
+    }
+
+    static ColumnType forDeclaredType(String qualifiedName) {
+      for (ColumnType type : values()) {
+        if (qualifiedName.equals(type.javaType)) {
+          return type;
+        }
+      }
+      return null;
+    }
+  }
+}
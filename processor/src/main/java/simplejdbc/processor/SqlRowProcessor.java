@@ -0,0 +1,344 @@
+package simplejdbc.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import simplejdbc.processor.RowModel.Column;
+import simplejdbc.processor.RowModel.ColumnType;
+import simplejdbc.processor.RowModel.Creation;
+
+/**
+ * Generates, for each `@SqlRow` type, a `<Type>SqlRow` class which reads instances from result
+ * rows and writes them as statement arguments, in plain Java: no reflection, and no lambdas.
+ */
+@SupportedAnnotationTypes(SqlRowProcessor.SQL_ROW)
+public final class SqlRowProcessor extends AbstractProcessor {
+
+  static final String SQL_ROW = "simplejdbc.SqlRow";
+  private static final String SQL_COLUMN = "simplejdbc.SqlColumn";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        try {
+          RowModel model = analyse((TypeElement) element);
+          if (!model.readable) {
+            processingEnv
+                .getMessager()
+                .printMessage(Diagnostic.Kind.WARNING, unreadableWarning(model), element);
+          }
+          write(model, element);
+        } catch (InvalidSqlRowException ex) {
+          processingEnv
+              .getMessager()
+              .printMessage(Diagnostic.Kind.ERROR, ex.getMessage(), ex.element);
+        } catch (IOException ex) {
+          processingEnv
+              .getMessager()
+              .printMessage(Diagnostic.Kind.ERROR, "failed to write SqlRow: " + ex, element);
+        }
+      }
+    }
+    return true;
+  }
+
+  private static String unreadableWarning(RowModel model) {
+    return String.format(
+        "toArguments() not generated for @SqlRow %s, as no getter or non-private field reads"
+            + " column(s) %s",
+        model.typeName,
+        model.columns.stream()
+            .filter(column -> column.accessor == null)
+            .map(column -> column.name)
+            .collect(Collectors.joining(", ")));
+  }
+
+  private void write(RowModel model, Element origin) throws IOException {
+    String qualifiedName =
+        model.packageName.isEmpty()
+            ? model.generatedName
+            : model.packageName + "." + model.generatedName;
+    JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, origin);
+    try (Writer writer = file.openWriter()) {
+      writer.write(SqlRowWriter.write(model));
+    }
+  }
+
+  private RowModel analyse(TypeElement type) throws InvalidSqlRowException {
+    boolean record = isRecord(type);
+    check(record || type.getKind() == ElementKind.CLASS, type, "@SqlRow must annotate a class");
+    check(
+        type.getNestingKind() == NestingKind.TOP_LEVEL
+            || (type.getNestingKind() == NestingKind.MEMBER
+                && (record || type.getModifiers().contains(Modifier.STATIC))),
+        type,
+        "@SqlRow classes must be top-level or static nested classes");
+    check(
+        !type.getModifiers().contains(Modifier.PRIVATE), type, "@SqlRow types must not be private");
+    check(
+        !type.getModifiers().contains(Modifier.ABSTRACT),
+        type,
+        "@SqlRow types must not be abstract");
+    check(type.getTypeParameters().isEmpty(), type, "@SqlRow types must not be generic");
+
+    List<ExecutableElement> constructors =
+        ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+            .filter(constructor -> !constructor.getModifiers().contains(Modifier.PRIVATE))
+            .collect(Collectors.toList());
+    List<ExecutableElement> withParameters =
+        constructors.stream()
+            .filter(constructor -> !constructor.getParameters().isEmpty())
+            .collect(Collectors.toList());
+    Creation creation;
+    List<Column> columns = new ArrayList<>();
+    if (record) {
+      List<String> components = recordComponentNames(type);
+      ExecutableElement canonical =
+          withParameters.stream()
+              .filter(constructor -> parameterNames(constructor).equals(components))
+              .findFirst()
+              .orElseThrow(
+                  () -> new InvalidSqlRowException(type, "record has no canonical constructor"));
+      for (VariableElement parameter : canonical.getParameters()) {
+        columns.add(column(type, parameter, true));
+      }
+      creation = Creation.CONSTRUCTOR;
+    } else if (withParameters.size() == 1) {
+      for (VariableElement parameter : withParameters.get(0).getParameters()) {
+        columns.add(column(type, parameter, false));
+      }
+      creation = Creation.CONSTRUCTOR;
+    } else {
+      check(
+          withParameters.isEmpty(),
+          type,
+          "@SqlRow classes must have at most one non-private constructor with parameters");
+      check(
+          !constructors.isEmpty(),
+          type,
+          "@SqlRow classes need a non-private constructor, with parameters or without");
+      for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+          continue;
+        }
+        check(
+            !modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.FINAL),
+            field,
+            "fields of @SqlRow classes without a constructor taking them must be non-private and"
+                + " non-final");
+        columns.add(column(type, field, false));
+      }
+      creation = Creation.FIELDS;
+    }
+    check(!columns.isEmpty(), type, "@SqlRow types must have at least one column");
+
+    String packageName =
+        processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    return new RowModel(
+        packageName,
+        type.getQualifiedName().toString(),
+        generatedName(type) + "SqlRow",
+        creation,
+        columns);
+  }
+
+  private Column column(TypeElement type, VariableElement element, boolean record)
+      throws InvalidSqlRowException {
+    String name = element.getSimpleName().toString();
+    String label = sqlColumnLabel(element);
+    if (label == null && !record) {
+      // A constructor parameter's column may also be named on the field it is assigned to
+      label =
+          ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+              .filter(field -> field.getSimpleName().contentEquals(name))
+              .map(this::sqlColumnLabel)
+              .filter(fieldLabel -> fieldLabel != null)
+              .findFirst()
+              .orElse(null);
+    }
+    TypeMirror javaType = element.asType();
+    ColumnType columnType = columnType(javaType);
+    check(
+        columnType != null,
+        element,
+        String.format("unsupported type %s of @SqlRow column %s", javaType, name));
+    String enumType =
+        columnType == ColumnType.ENUM
+            ? ((TypeElement) ((DeclaredType) javaType).asElement()).getQualifiedName().toString()
+            : null;
+    return new Column(
+        name,
+        label == null ? snakeCase(name) : label,
+        columnType,
+        enumType,
+        record ? name + "()" : accessor(type, name, columnType));
+  }
+
+  private static ColumnType columnType(TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return ColumnType.BOOLEAN;
+      case BYTE:
+        return ColumnType.BYTE;
+      case SHORT:
+        return ColumnType.SHORT;
+      case INT:
+        return ColumnType.INT;
+      case LONG:
+        return ColumnType.LONG;
+      case FLOAT:
+        return ColumnType.FLOAT;
+      case DOUBLE:
+        return ColumnType.DOUBLE;
+      case ARRAY:
+        return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE
+            ? ColumnType.BYTES
+            : null;
+      case DECLARED:
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        if (element.getKind() == ElementKind.ENUM) {
+          return ColumnType.ENUM;
+        }
+        return ColumnType.forDeclaredType(element.getQualifiedName().toString());
+      default:
+        return null;
+    }
+  }
+
+  /** @return how the generated code reads the named property from an instance, or null */
+  private static String accessor(TypeElement type, String name, ColumnType columnType) {
+    String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    List<String> getters = new ArrayList<>();
+    getters.add("get" + capitalized);
+    if (columnType == ColumnType.BOOLEAN || columnType == ColumnType.BOXED_BOOLEAN) {
+      getters.add("is" + capitalized);
+    }
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      if (getters.contains(method.getSimpleName().toString())
+          && method.getParameters().isEmpty()
+          && !method.getModifiers().contains(Modifier.PRIVATE)
+          && !method.getModifiers().contains(Modifier.STATIC)) {
+        return method.getSimpleName() + "()";
+      }
+    }
+    for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      if (field.getSimpleName().contentEquals(name)
+          && !field.getModifiers().contains(Modifier.PRIVATE)
+          && !field.getModifiers().contains(Modifier.STATIC)) {
+        return name;
+      }
+    }
+    return null;
+  }
+
+  private String sqlColumnLabel(Element element) {
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(SQL_COLUMN)) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value :
+            annotation.getElementValues().entrySet()) {
+          if (value.getKey().getSimpleName().contentEquals("value")) {
+            return (String) value.getValue().getValue();
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  // Records (and their components) aren't known to the Java 8 API this is compiled against
+  private static boolean isRecord(TypeElement type) {
+    return type.getKind().name().equals("RECORD");
+  }
+
+  private static List<String> recordComponentNames(TypeElement type) {
+    return type.getEnclosedElements().stream()
+        .filter(element -> element.getKind().name().equals("RECORD_COMPONENT"))
+        .map(element -> element.getSimpleName().toString())
+        .collect(Collectors.toList());
+  }
+
+  private static List<String> parameterNames(ExecutableElement constructor) {
+    return constructor.getParameters().isEmpty()
+        ? Collections.emptyList()
+        : constructor.getParameters().stream()
+            .map(parameter -> parameter.getSimpleName().toString())
+            .collect(Collectors.toList());
+  }
+
+  /** @return e.g. `Outer_Order` for a class `Order` nested in `Outer` */
+  private static String generatedName(TypeElement type) {
+    String name = type.getSimpleName().toString();
+    Element enclosing = type.getEnclosingElement();
+    while (enclosing instanceof TypeElement) {
+      name = enclosing.getSimpleName() + "_" + name;
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return name;
+  }
+
+  /** @return e.g. `customer_id` for `customerId`, or `http_status` for `HTTPStatus` */
+  static String snakeCase(String name) {
+    StringBuilder snake = new StringBuilder();
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (Character.isUpperCase(c) && i > 0) {
+        char previous = name.charAt(i - 1);
+        boolean nextIsLower = i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1));
+        if (!Character.isUpperCase(previous) || nextIsLower) {
+          snake.append('_');
+        }
+      }
+      snake.append(Character.toLowerCase(c));
+    }
+    return snake.toString();
+  }
+
+  private static void check(boolean predicate, Element element, String message)
+      throws InvalidSqlRowException {
+    if (!predicate) {
+      throw new InvalidSqlRowException(element, message);
+    }
+  }
+
+  private static final class InvalidSqlRowException extends Exception {
+    private final transient Element element;
+
+    private InvalidSqlRowException(Element element, String message) {
+      super(message);
+      this.element = element;
+    }
+  }
+}
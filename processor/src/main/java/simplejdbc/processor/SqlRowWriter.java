@@ -0,0 +1,243 @@
+package simplejdbc.processor;
+
+import java.util.List;
+import simplejdbc.processor.RowModel.Column;
+import simplejdbc.processor.RowModel.ColumnType;
+import simplejdbc.processor.RowModel.Creation;
+
+/**
+ * Writes the source of a `<Type>SqlRow` class. Every name is fully qualified, so that nothing
+ * clashes with the row type's own names, and the code is plain Java 8: no lambdas, and no lookups
+ * beyond finding each column's index once per result.
+ */
+final class SqlRowWriter {
+
+  private final RowModel model;
+  private final StringBuilder out = new StringBuilder();
+
+  private SqlRowWriter(RowModel model) {
+    this.model = model;
+  }
+
+  static String write(RowModel model) {
+    return new SqlRowWriter(model).write();
+  }
+
+  private String write() {
+    String type = model.typeName;
+    String name = model.generatedName;
+    line(0, "// Generated by simplejdbc.processor.SqlRowProcessor from %s. Do not edit.", type);
+    if (!model.packageName.isEmpty()) {
+      line(0, "package %s;", model.packageName);
+    }
+    line(0, "");
+    line(0, "public final class %s", name);
+    line(2, "implements simplejdbc.SimpleJdbc.QueryRowResultExtractor<%s> {", type);
+    line(0, "");
+    line(1, "public static final %s INSTANCE = new %s();", name, name);
+    line(0, "");
+    line(1, "private static final java.lang.String[] COLUMNS = {%s};", columnLabels());
+    line(1, "private static final ListExtractor LIST = new ListExtractor();");
+    line(0, "");
+    line(1, "// The indexes of the result last extracted from, found once per result, not per row");
+    line(1, "private volatile Indexes last;");
+    line(0, "");
+    line(1, "private %s() {}", name);
+    line(0, "");
+    line(1, "/** @return an extractor of every row, finding each column's index only once */");
+    line(
+        1,
+        "public static simplejdbc.SimpleJdbc.QueryResultExtractor<java.util.List<%s>> list() {",
+        type);
+    line(2, "return LIST;");
+    line(1, "}");
+    line(0, "");
+    line(1, "/** @return the column labels, in the order of `toArguments()` */");
+    line(1, "public static java.lang.String[] columns() {");
+    line(2, "return COLUMNS.clone();");
+    line(1, "}");
+    if (model.readable) {
+      writeToArguments();
+    }
+    line(0, "");
+    line(1, "@Override");
+    line(1, "public %s extract(simplejdbc.QueryRowResult row)", type);
+    line(3, "throws java.sql.SQLException {");
+    line(2, "java.sql.ResultSet resultSet = row.toResultSet();");
+    line(2, "Indexes cached = last;");
+    line(2, "if (cached == null || cached.resultSet.get() != resultSet) {");
+    line(3, "cached = new Indexes(resultSet, indexes(resultSet));");
+    line(3, "last = cached;");
+    line(2, "}");
+    line(2, "return read(resultSet, cached.indexes);");
+    line(1, "}");
+    line(0, "");
+    line(1, "private static int[] indexes(java.sql.ResultSet resultSet)");
+    line(3, "throws java.sql.SQLException {");
+    line(2, "int[] indexes = new int[COLUMNS.length];");
+    line(2, "for (int i = 0; i < indexes.length; i++) {");
+    line(3, "indexes[i] = resultSet.findColumn(COLUMNS[i]);");
+    line(2, "}");
+    line(2, "return indexes;");
+    line(1, "}");
+    writeRead();
+    line(0, "");
+    line(1, "private static final class Indexes {");
+    line(2, "// Weakly held, so as not to keep a result alive once it has been read");
+    line(2, "final java.lang.ref.WeakReference<java.sql.ResultSet> resultSet;");
+    line(2, "final int[] indexes;");
+    line(0, "");
+    line(2, "Indexes(java.sql.ResultSet resultSet, int[] indexes) {");
+    line(3, "this.resultSet = new java.lang.ref.WeakReference<java.sql.ResultSet>(resultSet);");
+    line(3, "this.indexes = indexes;");
+    line(2, "}");
+    line(1, "}");
+    line(0, "");
+    line(1, "private static final class ListExtractor");
+    line(3, "implements simplejdbc.SimpleJdbc.QueryResultExtractor<java.util.List<%s>> {", type);
+    line(2, "@Override");
+    line(2, "public java.util.List<%s> extract(simplejdbc.QueryResult result)", type);
+    line(4, "throws java.sql.SQLException {");
+    line(3, "java.util.List<%s> rows = new java.util.ArrayList<%s>();", type, type);
+    line(3, "int[] indexes = null;");
+    line(3, "while (result.next()) {");
+    line(4, "java.sql.ResultSet resultSet = result.toResultSet();");
+    line(4, "if (indexes == null) {");
+    line(5, "indexes = indexes(resultSet);");
+    line(4, "}");
+    line(4, "rows.add(read(resultSet, indexes));");
+    line(3, "}");
+    line(3, "return rows;");
+    line(2, "}");
+    line(1, "}");
+    line(0, "}");
+    return out.toString();
+  }
+
+  private void writeToArguments() {
+    line(0, "");
+    line(1, "/** @return the row's values, in the order of `columns()` */");
+    line(1, "public static java.lang.Object[] toArguments(%s row) {", model.typeName);
+    List<Column> columns = model.columns;
+    for (int i = 0; i < columns.size(); i++) {
+      Column column = columns.get(i);
+      line(2, "%s v%d = row.%s;", column.javaType(), i, column.accessor);
+    }
+    line(2, "return new java.lang.Object[] {");
+    for (int i = 0; i < columns.size(); i++) {
+      line(3, "%s%s", argument(columns.get(i).type, "v" + i), i + 1 < columns.size() ? "," : "");
+    }
+    line(2, "};");
+    line(1, "}");
+  }
+
+  /** Bytes have no parameter setter, so are bound as the next type up. */
+  private static String argument(ColumnType type, String value) {
+    switch (type) {
+      case BYTE:
+        return "(short) " + value;
+      case BOXED_BYTE:
+        return String.format(
+            "%s == null ? null : java.lang.Short.valueOf(%s.shortValue())", value, value);
+      case BYTES:
+        return String.format("%s == null ? null : java.nio.ByteBuffer.wrap(%s)", value, value);
+      case ENUM:
+        return String.format("%s == null ? null : %s.name()", value, value);
+      default:
+        return value;
+    }
+  }
+
+  private void writeRead() {
+    String type = model.typeName;
+    List<Column> columns = model.columns;
+    line(0, "");
+    line(1, "private static %s read(java.sql.ResultSet resultSet, int[] indexes)", type);
+    line(3, "throws java.sql.SQLException {");
+    for (int i = 0; i < columns.size(); i++) {
+      writeColumnRead(columns.get(i), i);
+    }
+    if (model.creation == Creation.CONSTRUCTOR) {
+      StringBuilder arguments = new StringBuilder();
+      for (int i = 0; i < columns.size(); i++) {
+        arguments.append(i == 0 ? "" : ", ").append('v').append(i);
+      }
+      line(2, "return new %s(%s);", type, arguments);
+    } else {
+      line(2, "%s row = new %s();", type, type);
+      for (int i = 0; i < columns.size(); i++) {
+        line(2, "row.%s = v%d;", columns.get(i).name, i);
+      }
+      line(2, "return row;");
+    }
+    line(1, "}");
+  }
+
+  private void writeColumnRead(Column column, int i) {
+    ColumnType type = column.type;
+    String javaType = column.javaType();
+    String get = String.format("resultSet.%s(indexes[%d])", type.getter, i);
+    if (type.primitive != null) {
+      line(2, "%s p%d = %s;", type.primitive, i, get);
+      line(2, "%s v%d = resultSet.wasNull() ? null : %s.valueOf(p%d);", javaType, i, javaType, i);
+      return;
+    }
+    String conversion;
+    switch (type) {
+      case INSTANT:
+        conversion = "toInstant()";
+        break;
+      case LOCAL_DATE_TIME:
+        conversion = "toLocalDateTime()";
+        break;
+      case LOCAL_DATE:
+        conversion = "toLocalDate()";
+        break;
+      case LOCAL_TIME:
+        conversion = "toLocalTime()";
+        break;
+      case ENUM:
+        line(2, "java.lang.String s%d = %s;", i, get);
+        line(2, "%s v%d = s%d == null ? null : %s.valueOf(s%d);", javaType, i, i, javaType, i);
+        return;
+      default:
+        line(2, "%s v%d = %s;", javaType, i, get);
+        return;
+    }
+    line(2, "java.sql.%s s%d = %s;", sqlType(type), i, get);
+    line(2, "%s v%d = s%d == null ? null : s%d.%s;", javaType, i, i, i, conversion);
+  }
+
+  private static String sqlType(ColumnType type) {
+    switch (type) {
+      case LOCAL_DATE:
+        return "Date";
+      case LOCAL_TIME:
+        return "Time";
+      default:
+        return "Timestamp";
+    }
+  }
+
+  private String columnLabels() {
+    StringBuilder labels = new StringBuilder();
+    for (Column column : model.columns) {
+      if (labels.length() > 0) {
+        labels.append(", ");
+      }
+      labels.append('"').append(escape(column.label)).append('"');
+    }
+    return labels.toString();
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private void line(int indent, String format, Object... args) {
+    for (int i = 0; i < indent; i++) {
+      out.append("  ");
+    }
+    out.append(args.length == 0 ? format : String.format(format, args)).append('\n');
+  }
+}
@@ -0,0 +1,138 @@
+package simplejdbc.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class SqlRowProcessorTest {
+
+  @Test
+  void constructorClass_generatesExtractorAndArguments() throws IOException {
+    Compilation compilation =
+        javac()
+            .withProcessors(new SqlRowProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "demo.Order",
+                    "package demo;",
+                    "",
+                    "@simplejdbc.SqlRow",
+                    "public class Order {",
+                    "  private final long id;",
+                    "  @simplejdbc.SqlColumn(\"cust\") private final Long customerId;",
+                    "",
+                    "  public Order(long id, Long customerId) {",
+                    "    this.id = id;",
+                    "    this.customerId = customerId;",
+                    "  }",
+                    "",
+                    "  public long getId() { return id; }",
+                    "  public Long getCustomerId() { return customerId; }",
+                    "}"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    String generated =
+        compilation.generatedSourceFile("demo.OrderSqlRow").get().getCharContent(true).toString();
+    assertThat(generated).contains("COLUMNS = {\"id\", \"cust\"};");
+    assertThat(generated).contains("long v0 = resultSet.getLong(indexes[0]);");
+    assertThat(generated)
+        .contains("java.lang.Long v1 = resultSet.wasNull() ? null : java.lang.Long.valueOf(p1);");
+    assertThat(generated).contains("return new demo.Order(v0, v1);");
+    assertThat(generated).contains("java.lang.Object[] toArguments(demo.Order row)");
+    assertThat(generated).contains("if (cached == null || cached.resultSet.get() != resultSet) {");
+  }
+
+  @Test
+  void unreadableColumn_warnsThatToArgumentsIsNotGenerated() throws IOException {
+    Compilation compilation =
+        javac()
+            .withProcessors(new SqlRowProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "demo.Order",
+                    "package demo;",
+                    "",
+                    "@simplejdbc.SqlRow",
+                    "public class Order {",
+                    "  private final long id;",
+                    "  private final Long customerId;",
+                    "",
+                    "  public Order(long id, Long customerId) {",
+                    "    this.id = id;",
+                    "    this.customerId = customerId;",
+                    "  }",
+                    "",
+                    "  public long getId() { return id; }",
+                    "}"));
+
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .hadWarningContaining(
+            "toArguments() not generated for @SqlRow demo.Order, as no getter or non-private"
+                + " field reads column(s) customerId");
+    String generated =
+        compilation.generatedSourceFile("demo.OrderSqlRow").get().getCharContent(true).toString();
+    assertThat(generated).doesNotContain("toArguments(demo.Order row)");
+  }
+
+  @Test
+  void fieldClass_assignsFields() throws IOException {
+    Compilation compilation =
+        javac()
+            .withProcessors(new SqlRowProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "demo.Customer",
+                    "package demo;",
+                    "",
+                    "public class Customer {",
+                    "  @simplejdbc.SqlRow",
+                    "  public static class Row {",
+                    "    public int id;",
+                    "    String fullName;",
+                    "  }",
+                    "}"));
+
+    assertThat(compilation).succeededWithoutWarnings();
+    String generated =
+        compilation
+            .generatedSourceFile("demo.Customer_RowSqlRow")
+            .get()
+            .getCharContent(true)
+            .toString();
+    assertThat(generated).contains("COLUMNS = {\"id\", \"full_name\"};");
+    assertThat(generated).contains("row.fullName = v1;");
+  }
+
+  @Test
+  void unsupportedColumnType_fails() {
+    Compilation compilation =
+        javac()
+            .withProcessors(new SqlRowProcessor())
+            .compile(
+                JavaFileObjects.forSourceLines(
+                    "demo.Bad",
+                    "package demo;",
+                    "",
+                    "@simplejdbc.SqlRow",
+                    "class Bad {",
+                    "  Object value;",
+                    "}"));
+
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining("unsupported type java.lang.Object of @SqlRow column value");
+  }
+
+  @Test
+  void snakeCase() {
+    assertThat(SqlRowProcessor.snakeCase("id")).isEqualTo("id");
+    assertThat(SqlRowProcessor.snakeCase("customerId")).isEqualTo("customer_id");
+    assertThat(SqlRowProcessor.snakeCase("HTTPStatus")).isEqualTo("http_status");
+  }
+}
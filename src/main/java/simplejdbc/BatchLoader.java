@@ -0,0 +1,245 @@
+package simplejdbc;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static simplejdbc.Util.check;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import simplejdbc.SimpleJdbc.QueryResultExtractor;
+import simplejdbc.SimpleJdbc.QueryRowResultExtractor;
+
+/**
+ * Loads rows by key, combining the lookups of concurrent callers into one query: keys given to
+ * `load()` are collected for a short while (or until there are enough of them), then loaded all at
+ * once through the SQL's in-list, and each caller's future completed with its own row.
+ *
+ * <pre>{@code
+ * BatchLoader<Long, Person> people =
+ *     jdbc.batchLoader(
+ *         "select * from person where id in (:ids)",
+ *         row -> row.getLong("id"),
+ *         row -> new Person(row.getLong("id"), row.getString("name")));
+ *
+ * Optional<Person> person = people.load(123L).join();
+ * }</pre>
+ *
+ * <p>Batches are queried on a shared pool of (at most 64) threads, so outside of any transaction
+ * (or deadline) of their callers; should over 1024 batches be waiting for a thread, further batches
+ * fail. A batch which fails fails the future of every key in it. Instances are
+ * thread-safe, and meant to be shared: create one per query, not per call.
+ *
+ * @param <K> the type of key, which must be equal to the keys read back from the rows
+ * @param <V> the type of row
+ * @see SimpleJdbc#batchLoader(String, QueryRowResultExtractor, QueryRowResultExtractor)
+ */
+public final class BatchLoader<K, V> {
+
+  private static final class Scheduler {
+    // Batches block on I/O for the life of a query, so there are plenty of threads, but not so
+    // many that a slow database has each hold a connection; beyond them batches queue, and beyond
+    // the queue they are rejected. Idle threads are reclaimed after a minute
+    private static final int MAX_THREADS = 64;
+    private static final int MAX_QUEUED_BATCHES = 1024;
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+    private static final ExecutorService BATCHES = createBatches();
+
+    private static ExecutorService createBatches() {
+      ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(
+              MAX_THREADS,
+              MAX_THREADS,
+              1,
+              MINUTES,
+              new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES),
+              Util.daemonThreadFactory("simplejdbc-batch-loader"));
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+      ScheduledThreadPoolExecutor executor =
+          new ScheduledThreadPoolExecutor(
+              1, Util.daemonThreadFactory("simplejdbc-batch-loader-timer"));
+      // Batches which fill up are loaded before their timer is due
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+
+  private final PreparedQuery query;
+  private final QueryRowResultExtractor<K> keyExtractor;
+  private final QueryRowResultExtractor<V> rowMapper;
+  private final long maxDelayNanos;
+  private final int maxBatchSize;
+  private final Object lock = new Object();
+  private Map<K, CompletableFuture<Optional<V>>> pending = new LinkedHashMap<>();
+  private ScheduledFuture<?> timer;
+
+  BatchLoader(
+      PreparedQuery query,
+      QueryRowResultExtractor<K> keyExtractor,
+      QueryRowResultExtractor<V> rowMapper,
+      BatchLoaderConfig config) {
+    check(
+        query.getParameterNames().size() == 1,
+        "batch loader SQL must have exactly one named parameter, for the keys");
+    this.query = query;
+    this.keyExtractor = Objects.requireNonNull(keyExtractor, "key extractor must not be null");
+    this.rowMapper = Objects.requireNonNull(rowMapper, "row mapper must not be null");
+    this.maxDelayNanos = config.getMaxDelay().toNanos();
+    this.maxBatchSize = config.getMaxBatchSize();
+  }
+
+  /**
+   * Loads the row with the given key, together with those of other calls made about the same
+   * time. A key already waiting to be loaded shares the same future.
+   *
+   * @param key the row's key
+   * @return the row, or empty if there is none, once its batch has been loaded
+   */
+  public CompletableFuture<Optional<V>> load(K key) {
+    Objects.requireNonNull(key, "key must not be null");
+    Map<K, CompletableFuture<Optional<V>>> full = null;
+    CompletableFuture<Optional<V>> future;
+    synchronized (lock) {
+      future = pending.get(key);
+      if (future != null) {
+        return future;
+      }
+      future = new CompletableFuture<>();
+      pending.put(key, future);
+      if (pending.size() >= maxBatchSize) {
+        full = takePending();
+      } else if (pending.size() == 1) {
+        Map<K, CompletableFuture<Optional<V>>> batch = pending;
+        timer = Scheduler.TIMER.schedule(() -> flush(batch), maxDelayNanos, NANOSECONDS);
+      }
+    }
+    if (full != null) {
+      dispatch(full);
+    }
+    return future;
+  }
+
+  /**
+   * @return a view of this loader for one unit of work (e.g. a request), which loads each key at
+   *     most once, handing later calls the same future. Keys which fail to load are retried.
+   */
+  public Scope<K, V> scope() {
+    return new Scope<>(this);
+  }
+
+  private Map<K, CompletableFuture<Optional<V>>> takePending() {
+    Map<K, CompletableFuture<Optional<V>>> batch = pending;
+    pending = new LinkedHashMap<>();
+    if (timer != null) {
+      timer.cancel(false);
+      timer = null;
+    }
+    return batch;
+  }
+
+  private void flush(Map<K, CompletableFuture<Optional<V>>> batch) {
+    synchronized (lock) {
+      // The batch may have filled up, and been taken, since this timer was set
+      if (pending != batch) {
+        return;
+      }
+      takePending();
+    }
+    dispatch(batch);
+  }
+
+  private void dispatch(Map<K, CompletableFuture<Optional<V>>> batch) {
+    try {
+      Scheduler.BATCHES.execute(() -> load(batch));
+    } catch (RejectedExecutionException ex) {
+      SimpleJdbcException rejected =
+          new SimpleJdbcException("batch not loaded, as too many batches are waiting to load", ex);
+      batch.values().forEach(future -> future.completeExceptionally(rejected));
+    }
+  }
+
+  private void load(Map<K, CompletableFuture<Optional<V>>> batch) {
+    Map<K, V> rows = new HashMap<>();
+    Set<K> repeated = new HashSet<>();
+    QueryResultExtractor<Void> extractor =
+        queryResult -> {
+          while (queryResult.next()) {
+            K key = keyExtractor.extract(queryResult);
+            if (rows.putIfAbsent(key, rowMapper.extract(queryResult)) != null) {
+              repeated.add(key);
+            }
+          }
+          return null;
+        };
+    try {
+      query.select(extractor, new ArrayList<>(batch.keySet()));
+    } catch (RuntimeException | Error ex) {
+      batch.values().forEach(future -> future.completeExceptionally(ex));
+      return;
+    }
+    batch.forEach(
+        (key, future) -> {
+          if (repeated.contains(key)) {
+            future.completeExceptionally(
+                new SimpleJdbcException(
+                    "expected at most one row for key " + key + ", but got multiple"));
+          } else {
+            future.complete(Optional.ofNullable(rows.get(key)));
+          }
+        });
+  }
+
+  /**
+   * A `BatchLoader` for one unit of work, which remembers the future of each key it has loaded.
+   * Thread-safe.
+   */
+  public static final class Scope<K, V> {
+    private final BatchLoader<K, V> loader;
+    private final Map<K, CompletableFuture<Optional<V>>> loaded = new ConcurrentHashMap<>();
+
+    private Scope(BatchLoader<K, V> loader) {
+      this.loader = loader;
+    }
+
+    /**
+     * @param key the row's key
+     * @return the row, or empty if there is none, loaded at most once within this scope
+     * @see BatchLoader#load(Object)
+     */
+    public CompletableFuture<Optional<V>> load(K key) {
+      Objects.requireNonNull(key, "key must not be null");
+      CompletableFuture<Optional<V>> future = loaded.get(key);
+      if (future == null) {
+        CompletableFuture<Optional<V>> loading = loader.load(key);
+        future = loaded.putIfAbsent(key, loading);
+        if (future == null) {
+          future = loading;
+          loading.whenComplete(
+              (row, ex) -> {
+                if (ex != null) {
+                  loaded.remove(key, loading);
+                }
+              });
+        }
+      }
+      return future;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for a `BatchLoader`: how long it collects keys for, and how many it collects at most,
+ * before loading them with one query. Instances are immutable; each `with` method returns a
+ * modified copy.
+ *
+ * <pre>{@code
+ * BatchLoaderConfig config =
+ *     BatchLoaderConfig.defaults().withMaxDelay(Duration.ofMillis(5)).withMaxBatchSize(500);
+ * }</pre>
+ */
+public final class BatchLoaderConfig {
+
+  private static final BatchLoaderConfig DEFAULTS =
+      new BatchLoaderConfig(Duration.ofMillis(2), 100);
+
+  private final Duration maxDelay;
+  private final int maxBatchSize;
+
+  private BatchLoaderConfig(Duration maxDelay, int maxBatchSize) {
+    this.maxDelay = maxDelay;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Collects keys for up to 2 milliseconds after the first, or until 100 have been collected.
+   *
+   * @return the default settings
+   */
+  public static BatchLoaderConfig defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * @param maxDelay how long after its first key a batch is loaded, at the latest; the most a
+   *     caller's lookup is delayed so that others may join it
+   * @return a copy of these settings with the given maximum delay
+   */
+  public BatchLoaderConfig withMaxDelay(Duration maxDelay) {
+    Objects.requireNonNull(maxDelay, "max delay must not be null");
+    check(!maxDelay.isNegative(), "max delay must not be negative");
+    return new BatchLoaderConfig(maxDelay, maxBatchSize);
+  }
+
+  /**
+   * @param maxBatchSize the most distinct keys loaded by one query; a batch is loaded as soon as
+   *     it is full
+   * @return a copy of these settings with the given maximum batch size
+   */
+  public BatchLoaderConfig withMaxBatchSize(int maxBatchSize) {
+    check(maxBatchSize > 0, "max batch size must be greater than zero");
+    return new BatchLoaderConfig(maxDelay, maxBatchSize);
+  }
+
+  public Duration getMaxDelay() {
+    return maxDelay;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+}
@@ -0,0 +1,120 @@
+package simplejdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import simplejdbc.ParameterSetters.ParameterSetter;
+
+/**
+ * The parameter setters resolved for one statement and one signature of parameter types, so that
+ * binding a row costs an array index per parameter instead of a setter lookup.
+ */
+final class BindingPlan {
+
+  private final ParameterSetters parameterSetters;
+  private final int version;
+  private final Class<?>[] signature;
+  private final ParameterSetter<?>[] setters;
+
+  private BindingPlan(
+      ParameterSetters parameterSetters, Class<?>[] signature, List<Object> parameters) {
+    this.parameterSetters = parameterSetters;
+    this.version = parameterSetters.getVersion();
+    this.signature = signature;
+    this.setters = new ParameterSetter<?>[parameters.size()];
+    for (int i = 0; i < setters.length; i++) {
+      setters[i] = parameterSetters.getSetter(parameters.get(i));
+    }
+  }
+
+  private BindingPlan(BindingPlan plan, ParameterSetter<?>[] setters) {
+    this.parameterSetters = plan.parameterSetters;
+    this.version = plan.version;
+    this.signature = plan.signature;
+    this.setters = setters;
+  }
+
+  /**
+   * A copy of this plan which binds `null` parameters as the given SQL types (one per parameter,
+   * e.g. from `ParameterMetaData`), rather than as `Types.NULL`, which not every driver accepts.
+   */
+  BindingPlan withNullTypes(int[] sqlTypes) {
+    ParameterSetter<?>[] typed = setters.clone();
+    for (int i = 0; i < typed.length; i++) {
+      if (signature[i] == null) {
+        int sqlType = sqlTypes[i];
+        typed[i] = (stmt, index, ignored) -> stmt.setNull(index, sqlType);
+      }
+    }
+    return new BindingPlan(this, typed);
+  }
+
+  /** Whether the parameters have exactly the types this plan was resolved for. */
+  boolean matches(List<Object> parameters) {
+    if (version != parameterSetters.getVersion() || parameters.size() != signature.length) {
+      return false;
+    }
+    for (int i = 0; i < signature.length; i++) {
+      Object parameter = parameters.get(i);
+      if (signature[i] != (parameter == null ? null : parameter.getClass())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  void apply(PreparedStatement stmt, List<Object> parameters) throws SQLException {
+    apply(stmt, 0, parameters);
+  }
+
+  /** Binds the parameters to the bind sites following the first `offset` ones. */
+  void apply(PreparedStatement stmt, int offset, List<Object> parameters) throws SQLException {
+    for (int i = 0; i < setters.length; i++) {
+      // Each setter was resolved for the class of the parameter now at its index
+      @SuppressWarnings("unchecked")
+      ParameterSetter<Object> setter = (ParameterSetter<Object>) setters[i];
+      setter.set(stmt, offset + i + 1, parameters.get(i));
+    }
+  }
+
+  private static Class<?>[] signatureOf(List<Object> parameters) {
+    Class<?>[] signature = new Class<?>[parameters.size()];
+    for (int i = 0; i < signature.length; i++) {
+      Object parameter = parameters.get(i);
+      signature[i] = parameter == null ? null : parameter.getClass();
+    }
+    return signature;
+  }
+
+  /**
+   * The binding plans of one statement (a parsed SQL template, or a prepared handle), by parameter
+   * type signature. The plan used last is tried first, without allocating, as a statement is mostly
+   * run with the same parameter types.
+   */
+  static final class Plans {
+    // A statement sees few signatures, bar unpadded `in` lists of many lengths
+    private static final int MAX_PLANS = 16;
+
+    private final LruCache<List<Class<?>>, BindingPlan> plans = new LruCache<>(MAX_PLANS);
+    private volatile BindingPlan last;
+
+    BindingPlan get(ParameterSetters parameterSetters, List<Object> parameters) {
+      BindingPlan plan = last;
+      if (plan != null && plan.parameterSetters == parameterSetters && plan.matches(parameters)) {
+        return plan;
+      }
+      Class<?>[] signature = signatureOf(parameters);
+      List<Class<?>> key = Arrays.asList(signature);
+      plan = plans.get(key);
+      if (plan == null
+          || plan.parameterSetters != parameterSetters
+          || plan.version != parameterSetters.getVersion()) {
+        plan = new BindingPlan(parameterSetters, signature, parameters);
+        plans.put(key, plan);
+      }
+      last = plan;
+      return plan;
+    }
+  }
+}
@@ -0,0 +1,638 @@
+package simplejdbc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static simplejdbc.Util.check;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The rows of a query, buffered outside of the Java heap: first in direct memory, up to a budget,
+ * and beyond that in a temporary file. The rows can be read any number of times, by any number of
+ * cursors, until the result is closed.
+ *
+ * <p>Each value is stored in a compact binary form of what `ResultSet.getObject()` returned for
+ * it, and read back through the usual `QueryRowResult` getters (custom `ColumnExtractors` don't
+ * apply, as there is no `ResultSet` left to extract from).
+ *
+ * <pre>{@code
+ * try (BufferedResult rows = jdbc.query(sql).select(QueryResultExtractors.buffered())) {
+ *   BufferedResult.Cursor cursor = rows.cursor();
+ *   while (cursor.next()) {
+ *     cursor.getLong("id");
+ *   }
+ * }
+ * }</pre>
+ */
+public final class BufferedResult implements AutoCloseable {
+
+  static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+  private static final int SEGMENT_SIZE = 1024 * 1024;
+
+  private static final byte NULL = 0;
+  private static final byte BOOLEAN = 1;
+  private static final byte INT = 2;
+  private static final byte LONG = 3;
+  private static final byte FLOAT = 4;
+  private static final byte DOUBLE = 5;
+  private static final byte DECIMAL = 6;
+  private static final byte STRING = 7;
+  private static final byte BYTES = 8;
+  private static final byte TIMESTAMP = 9;
+  private static final byte DATE = 10;
+  private static final byte TIME = 11;
+  private static final byte UUID_VALUE = 12;
+
+  private final Map<String, Integer> columnIndexes;
+  private final int columnCount;
+  private final long rowCount;
+  private final List<Segment> segments;
+  private final FileChannel spillFile;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private BufferedResult(
+      Map<String, Integer> columnIndexes,
+      int columnCount,
+      long rowCount,
+      List<Segment> segments,
+      FileChannel spillFile) {
+    this.columnIndexes = columnIndexes;
+    this.columnCount = columnCount;
+    this.rowCount = rowCount;
+    this.segments = segments;
+    this.spillFile = spillFile;
+  }
+
+  static BufferedResult from(QueryResult queryResult, long memoryBudget) throws SQLException {
+    check(memoryBudget >= 0, "memory budget must not be negative");
+    try (Writer writer = new Writer(memoryBudget)) {
+      Map<String, Integer> columnIndexes = null;
+      int columnCount = 0;
+      long rowCount = 0;
+      while (queryResult.next()) {
+        ResultSet resultSet = queryResult.toResultSet();
+        if (columnIndexes == null) {
+          ResultSetMetaData metaData = resultSet.getMetaData();
+          columnCount = metaData.getColumnCount();
+          columnIndexes = new HashMap<>();
+          for (int i = columnCount; i >= 1; i--) {
+            // Like ResultSet, labels are matched case-insensitively, and the first one wins
+            columnIndexes.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i - 1);
+          }
+        }
+        writer.writeRow(resultSet, columnCount);
+        rowCount++;
+      }
+      return writer.finish(
+          columnIndexes == null ? Collections.emptyMap() : columnIndexes, columnCount, rowCount);
+    } catch (IOException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+  }
+
+  /** @return the number of rows */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /** @return a new cursor, positioned before the first row */
+  public Cursor cursor() {
+    checkOpen();
+    return new Cursor();
+  }
+
+  /**
+   * Releases the buffered rows: the direct memory is kept for reuse by later buffered results, and
+   * the temporary file is deleted. Cursors cannot be read once the result is closed, so it must not
+   * be closed while another thread is still reading it.
+   */
+  @Override
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    for (Segment segment : segments) {
+      if (segment.memory != null) {
+        SegmentPool.release(segment.memory);
+      }
+    }
+    if (spillFile != null) {
+      try {
+        spillFile.close();
+      } catch (IOException ex) {
+        throw new SimpleJdbcException(ex);
+      }
+    }
+  }
+
+  private void checkOpen() {
+    check(!closed.get(), "buffered result is closed");
+  }
+
+  /**
+   * Some rows, encoded one after another: either held in direct memory, or written to the spill
+   * file at a position.
+   */
+  private static final class Segment {
+    private final ByteBuffer memory;
+    private final long position;
+    private final int length;
+
+    private Segment(ByteBuffer memory, long position, int length) {
+      this.memory = memory;
+      this.position = position;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Direct memory is only returned to the system once its buffer is garbage collected, so the
+   * segments of closed results are kept here, up to the default budget's worth, for the next
+   * results to fill rather than allocating more.
+   */
+  private static final class SegmentPool {
+    private static final int MAX_POOLED = (int) (DEFAULT_MEMORY_BUDGET / SEGMENT_SIZE);
+    private static final ConcurrentLinkedQueue<ByteBuffer> FREE = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    static ByteBuffer acquire(int size) {
+      if (size == SEGMENT_SIZE) {
+        ByteBuffer segment = FREE.poll();
+        if (segment != null) {
+          POOLED.decrementAndGet();
+          segment.clear();
+          return segment;
+        }
+      }
+      return ByteBuffer.allocateDirect(size);
+    }
+
+    static void release(ByteBuffer segment) {
+      // Segments sized for a single large row are left to the garbage collector
+      if (segment.capacity() != SEGMENT_SIZE) {
+        return;
+      }
+      if (POOLED.incrementAndGet() <= MAX_POOLED) {
+        FREE.add(segment);
+      } else {
+        POOLED.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Reads the buffered rows, one at a time. Not thread-safe, but cursors are independent. Rows
+   * spilled to the temporary file are read a segment at a time into a buffer of the cursor's own.
+   */
+  public final class Cursor implements QueryRowResult {
+    private final int[] valueOffsets = new int[columnCount];
+    private int segmentIndex = -1;
+    private int rowEnd;
+    private ByteBuffer segment;
+    private boolean inMemory;
+    private ByteBuffer readBuffer;
+    private boolean onRow;
+
+    private Cursor() {}
+
+    public boolean next() {
+      checkOpen();
+      onRow = false;
+      while (segment == null || rowEnd >= segment.limit()) {
+        if (++segmentIndex >= segments.size()) {
+          segment = null;
+          segmentIndex = segments.size();
+          return false;
+        }
+        load(segments.get(segmentIndex));
+        rowEnd = 0;
+      }
+      onRow = true;
+      int offset = rowEnd;
+      for (int i = 0; i < columnCount; i++) {
+        valueOffsets[i] = offset;
+        offset += encodedLength(segment, offset);
+      }
+      rowEnd = offset;
+      return true;
+    }
+
+    private void load(Segment next) {
+      inMemory = next.memory != null;
+      if (inMemory) {
+        segment = next.memory;
+        return;
+      }
+      if (readBuffer == null || readBuffer.capacity() < next.length) {
+        readBuffer = ByteBuffer.allocate(Math.max(SEGMENT_SIZE, next.length));
+      }
+      readBuffer.clear();
+      readBuffer.limit(next.length);
+      try {
+        while (readBuffer.hasRemaining()) {
+          if (spillFile.read(readBuffer, next.position + readBuffer.position()) < 0) {
+            throw new SimpleJdbcException("buffered rows are missing from the temporary file");
+          }
+        }
+      } catch (IOException ex) {
+        throw new SimpleJdbcException(ex);
+      }
+      readBuffer.flip();
+      segment = readBuffer;
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) {
+      checkOpen();
+      check(onRow, "cursor is not positioned on a row");
+      Integer index = columnIndexes.get(columnLabel.toLowerCase(Locale.ROOT));
+      check(index != null, "no such column: " + columnLabel);
+      int offset = valueOffsets[index];
+      if (type == InputStream.class && inMemory && segment.get(offset) == BYTES) {
+        // Stream binary values straight out of direct memory, rather than copying them first. Rows
+        // read from the temporary file are copied, as the cursor's buffer is reused.
+        ByteBuffer value = segment.duplicate();
+        value.limit(offset + 5 + segment.getInt(offset + 1)).position(offset + 5);
+        return type.cast(new ByteBufferInputStream(value.slice()));
+      }
+      return convert(decode(segment, offset), type, columnLabel);
+    }
+
+    /**
+     * @throws SimpleJdbcException always, as the rows were buffered and there is no `ResultSet`
+     */
+    @Override
+    public ResultSet toResultSet() {
+      throw new SimpleJdbcException("buffered rows have no underlying ResultSet");
+    }
+
+    @Override
+    public OptionalView opt() {
+      return () -> this;
+    }
+  }
+
+  private static int encodedLength(ByteBuffer buffer, int offset) {
+    switch (buffer.get(offset)) {
+      case NULL:
+        return 1;
+      case BOOLEAN:
+        return 2;
+      case INT:
+      case FLOAT:
+        return 5;
+      case LONG:
+      case DOUBLE:
+      case DATE:
+      case TIME:
+        return 9;
+      case TIMESTAMP:
+        return 13;
+      case UUID_VALUE:
+        return 17;
+      case DECIMAL:
+        return 9 + buffer.getInt(offset + 5);
+      case STRING:
+      case BYTES:
+        return 5 + buffer.getInt(offset + 1);
+      default:
+        throw new IllegalStateException("corrupt buffered row");
+    }
+  }
+
+  private static Object decode(ByteBuffer buffer, int offset) {
+    byte tag = buffer.get(offset);
+    int at = offset + 1;
+    switch (tag) {
+      case NULL:
+        return null;
+      case BOOLEAN:
+        return buffer.get(at) != 0;
+      case INT:
+        return buffer.getInt(at);
+      case LONG:
+        return buffer.getLong(at);
+      case FLOAT:
+        return buffer.getFloat(at);
+      case DOUBLE:
+        return buffer.getDouble(at);
+      case DECIMAL:
+        return new BigDecimal(
+            new BigInteger(bytes(buffer, at + 8, buffer.getInt(at + 4))), buffer.getInt(at));
+      case STRING:
+        return new String(bytes(buffer, at + 4, buffer.getInt(at)), UTF_8);
+      case BYTES:
+        return bytes(buffer, at + 4, buffer.getInt(at));
+      case TIMESTAMP:
+        Timestamp timestamp = new Timestamp(buffer.getLong(at));
+        timestamp.setNanos(buffer.getInt(at + 8));
+        return timestamp;
+      case DATE:
+        return new Date(buffer.getLong(at));
+      case TIME:
+        return new Time(buffer.getLong(at));
+      case UUID_VALUE:
+        return new UUID(buffer.getLong(at), buffer.getLong(at + 8));
+      default:
+        throw new IllegalStateException("corrupt buffered row");
+    }
+  }
+
+  private static byte[] bytes(ByteBuffer buffer, int offset, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer source = buffer.duplicate();
+    source.position(offset);
+    source.get(bytes);
+    return bytes;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T convert(Object value, Class<T> type, String columnLabel) {
+    if (value == null || type.isInstance(value)) {
+      return (T) value;
+    }
+    Object converted = null;
+    if (value instanceof Number) {
+      converted = convertNumber((Number) value, type);
+    } else if (value instanceof Boolean) {
+      if (type == Integer.class || type == Short.class || type == Long.class) {
+        converted = convertNumber((Boolean) value ? 1 : 0, type);
+      }
+    } else if (value instanceof Timestamp) {
+      Timestamp timestamp = (Timestamp) value;
+      if (type == Instant.class) {
+        converted = timestamp.toInstant();
+      } else if (type == LocalDateTime.class) {
+        converted = timestamp.toLocalDateTime();
+      } else if (type == LocalDate.class) {
+        converted = timestamp.toLocalDateTime().toLocalDate();
+      } else if (type == LocalTime.class) {
+        converted = timestamp.toLocalDateTime().toLocalTime();
+      }
+    } else if (value instanceof byte[] && type == InputStream.class) {
+      converted = new ByteArrayInputStream((byte[]) value);
+    } else if (value instanceof Date && type == LocalDate.class) {
+      converted = ((Date) value).toLocalDate();
+    } else if (value instanceof Time && type == LocalTime.class) {
+      converted = ((Time) value).toLocalTime();
+    } else if (value instanceof String) {
+      String string = (String) value;
+      if (type == Reader.class) {
+        converted = new StringReader(string);
+      } else if (type == Character.class && string.length() == 1) {
+        converted = string.charAt(0);
+      } else if (type == Boolean.class) {
+        converted = Boolean.valueOf(string);
+      } else if (Number.class.isAssignableFrom(type)) {
+        converted = convertNumber(new BigDecimal(string.trim()), type);
+      }
+    }
+    if (converted == null && type == String.class && !(value instanceof byte[])) {
+      converted = value.toString();
+    }
+    if (converted == null) {
+      throw new SimpleJdbcException(
+          String.format(
+              "buffered column '%s' holds a %s, which cannot be read as %s",
+              columnLabel, value.getClass().getSimpleName(), type.getSimpleName()));
+    }
+    return (T) converted;
+  }
+
+  private static Object convertNumber(Number number, Class<?> type) {
+    if (type == Integer.class) {
+      return number.intValue();
+    } else if (type == Long.class) {
+      return number.longValue();
+    } else if (type == Short.class) {
+      return number.shortValue();
+    } else if (type == Double.class) {
+      return number.doubleValue();
+    } else if (type == Float.class) {
+      return number.floatValue();
+    } else if (type == BigDecimal.class) {
+      return number instanceof BigDecimal ? number : new BigDecimal(number.toString());
+    } else if (type == Boolean.class) {
+      return number.intValue() != 0;
+    }
+    return null;
+  }
+
+  /**
+   * Encodes rows into direct memory segments, spilling to a temporary file through a reused heap
+   * buffer once the budget is spent.
+   */
+  private static final class Writer implements AutoCloseable {
+    private final long memoryBudget;
+    private final List<Segment> segments = new ArrayList<>();
+    private ByteBuffer row = ByteBuffer.allocate(4096);
+    private ByteBuffer segment;
+    private boolean spilling;
+    private ByteBuffer spillBuffer;
+    private long directBytes;
+    private FileChannel spillFile;
+    private long spillBytes;
+    private boolean finished;
+
+    private Writer(long memoryBudget) {
+      this.memoryBudget = memoryBudget;
+    }
+
+    void writeRow(ResultSet resultSet, int columnCount) throws SQLException, IOException {
+      row.clear();
+      for (int i = 1; i <= columnCount; i++) {
+        writeValue(resultSet.getObject(i), resultSet, i);
+      }
+      row.flip();
+      if (segment == null || segment.remaining() < row.remaining()) {
+        newSegment(Math.max(SEGMENT_SIZE, row.remaining()));
+      }
+      segment.put(row);
+    }
+
+    private void writeValue(Object value, ResultSet resultSet, int column)
+        throws SQLException {
+      if (value == null) {
+        ensure(1).put(NULL);
+      } else if (value instanceof Boolean) {
+        ensure(2).put(BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+      } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        ensure(5).put(INT).putInt(((Number) value).intValue());
+      } else if (value instanceof Long) {
+        ensure(9).put(LONG).putLong((Long) value);
+      } else if (value instanceof Float) {
+        ensure(5).put(FLOAT).putFloat((Float) value);
+      } else if (value instanceof Double) {
+        ensure(9).put(DOUBLE).putDouble((Double) value);
+      } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+        BigDecimal decimal =
+            value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal((BigInteger) value);
+        byte[] unscaled = decimal.unscaledValue().toByteArray();
+        ensure(9 + unscaled.length)
+            .put(DECIMAL)
+            .putInt(decimal.scale())
+            .putInt(unscaled.length)
+            .put(unscaled);
+      } else if (value instanceof String || value instanceof Character) {
+        writeLengthPrefixed(STRING, value.toString().getBytes(UTF_8));
+      } else if (value instanceof Clob) {
+        Clob clob = (Clob) value;
+        writeLengthPrefixed(STRING, clob.getSubString(1, (int) clob.length()).getBytes(UTF_8));
+      } else if (value instanceof byte[]) {
+        writeLengthPrefixed(BYTES, (byte[]) value);
+      } else if (value instanceof Blob) {
+        Blob blob = (Blob) value;
+        writeLengthPrefixed(BYTES, blob.getBytes(1, (int) blob.length()));
+      } else if (value instanceof Timestamp) {
+        writeTimestamp((Timestamp) value);
+      } else if (value instanceof Date) {
+        ensure(9).put(DATE).putLong(((Date) value).getTime());
+      } else if (value instanceof Time) {
+        ensure(9).put(TIME).putLong(((Time) value).getTime());
+      } else if (value instanceof LocalDateTime) {
+        writeTimestamp(Timestamp.valueOf((LocalDateTime) value));
+      } else if (value instanceof OffsetDateTime) {
+        writeTimestamp(Timestamp.from(((OffsetDateTime) value).toInstant()));
+      } else if (value instanceof Instant) {
+        writeTimestamp(Timestamp.from((Instant) value));
+      } else if (value instanceof LocalDate) {
+        ensure(9).put(DATE).putLong(Date.valueOf((LocalDate) value).getTime());
+      } else if (value instanceof LocalTime) {
+        ensure(9).put(TIME).putLong(Time.valueOf((LocalTime) value).getTime());
+      } else if (value instanceof UUID) {
+        UUID uuid = (UUID) value;
+        ensure(17)
+            .put(UUID_VALUE)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits());
+      } else {
+        throw new SimpleJdbcException(
+            String.format(
+                "buffered() does not support column '%s' of type %s",
+                resultSet.getMetaData().getColumnLabel(column),
+                value.getClass().getName()));
+      }
+    }
+
+    private void writeTimestamp(Timestamp timestamp) {
+      ensure(13).put(TIMESTAMP).putLong(timestamp.getTime()).putInt(timestamp.getNanos());
+    }
+
+    private void writeLengthPrefixed(byte tag, byte[] bytes) {
+      ensure(5 + bytes.length).put(tag).putInt(bytes.length).put(bytes);
+    }
+
+    private ByteBuffer ensure(int bytes) {
+      if (row.remaining() < bytes) {
+        ByteBuffer larger =
+            ByteBuffer.allocate(Math.max(row.capacity() * 2, row.position() + bytes));
+        row.flip();
+        larger.put(row);
+        row = larger;
+      }
+      return row;
+    }
+
+    private void newSegment(int size) throws IOException {
+      sealSegment();
+      spilling = directBytes + size > memoryBudget;
+      if (!spilling) {
+        segment = SegmentPool.acquire(size);
+        directBytes += size;
+      } else {
+        if (spillFile == null) {
+          Path path = Files.createTempFile("simplejdbc-buffer", ".bin");
+          spillFile =
+              FileChannel.open(
+                  path,
+                  StandardOpenOption.READ,
+                  StandardOpenOption.WRITE,
+                  StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        if (spillBuffer == null || spillBuffer.capacity() < size) {
+          spillBuffer = ByteBuffer.allocate(size);
+        }
+        spillBuffer.clear();
+        segment = spillBuffer;
+      }
+    }
+
+    private void sealSegment() throws IOException {
+      if (segment == null) {
+        return;
+      }
+      segment.flip();
+      if (spilling) {
+        int length = segment.remaining();
+        while (segment.hasRemaining()) {
+          spillFile.write(segment, spillBytes + segment.position());
+        }
+        segments.add(new Segment(null, spillBytes, length));
+        spillBytes += length;
+      } else {
+        segments.add(new Segment(segment, 0, segment.limit()));
+      }
+      segment = null;
+    }
+
+    BufferedResult finish(Map<String, Integer> columnIndexes, int columnCount, long rowCount)
+        throws IOException {
+      sealSegment();
+      finished = true;
+      return new BufferedResult(
+          columnIndexes, columnCount, rowCount, Collections.unmodifiableList(segments), spillFile);
+    }
+
+    @Override
+    public void close() throws IOException {
+      // Only reached without finishing should extraction fail part way through
+      if (finished) {
+        return;
+      }
+      for (Segment sealed : segments) {
+        if (sealed.memory != null) {
+          SegmentPool.release(sealed.memory);
+        }
+      }
+      if (segment != null && !spilling) {
+        SegmentPool.release(segment);
+      }
+      if (spillFile != null) {
+        spillFile.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package simplejdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Presents the rows of several result sets, opened one after another, as a single `QueryResult`.
+ * Each result set (and its statement) is closed as soon as its rows are exhausted.
+ */
+class ChainedQueryResult extends QueryResult implements AutoCloseable {
+
+  interface ResultSetSource {
+    ResultSet open() throws SQLException;
+  }
+
+  private final Iterator<ResultSetSource> sources;
+  private ResultSet current;
+
+  ChainedQueryResult(List<ResultSetSource> sources, ColumnExtractors columnExtractors) {
+    super(columnExtractors);
+    this.sources = sources.iterator();
+  }
+
+  @Override
+  public boolean next() {
+    try {
+      while (true) {
+        if (current != null && current.next()) {
+          return true;
+        }
+        closeCurrent();
+        if (!sources.hasNext()) {
+          return false;
+        }
+        current = sources.next().open();
+      }
+    } catch (SQLException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+  }
+
+  @Override
+  public ResultSet toResultSet() {
+    return current;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    closeCurrent();
+  }
+
+  private void closeCurrent() throws SQLException {
+    if (current == null) {
+      return;
+    }
+    Statement statement = current.getStatement();
+    current.close();
+    current = null;
+    if (statement != null) {
+      statement.close();
+    }
+  }
+}
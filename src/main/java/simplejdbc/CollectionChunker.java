@@ -0,0 +1,80 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a set of bindings whose collection binding is too large to expand into a single statement
+ * (e.g. beyond the driver's bind parameter limit, or Oracle's 1000 element `in` list limit) into
+ * several sets of bindings, each with a slice of the collection.
+ */
+class CollectionChunker {
+
+  private CollectionChunker() {}
+
+  static List<Map<String, ?>> split(Map<String, ?> bindings, int maxCollectionSize) {
+    return split(bindings, maxCollectionSize, InListPadding.none());
+  }
+
+  /**
+   * Splits the bindings such that the oversized collection, once padded, expands to no more than
+   * `maxCollectionSize` bind sites per chunk.
+   */
+  @SuppressWarnings("rawtypes")
+  static List<Map<String, ?>> split(
+      Map<String, ?> bindings, int maxCollectionSize, InListPadding inListPadding) {
+    check(maxCollectionSize > 0, "max collection size must be greater than zero");
+    String oversizedName = null;
+    for (Map.Entry<String, ?> binding : bindings.entrySet()) {
+      Object value = binding.getValue();
+      if (value instanceof Collection
+          && inListPadding.paddedSize(((Collection) value).size()) > maxCollectionSize) {
+        check(
+            oversizedName == null,
+            String.format(
+                "only one collection binding may exceed the chunk size, but both :%s and :%s do",
+                oversizedName, binding.getKey()));
+        oversizedName = binding.getKey();
+      }
+    }
+    if (oversizedName == null) {
+      return Collections.singletonList(bindings);
+    }
+
+    int chunkSize = chunkSize(maxCollectionSize, inListPadding);
+    List<?> values = new ArrayList<>((Collection<?>) bindings.get(oversizedName));
+    List<Map<String, ?>> chunks = new ArrayList<>();
+    for (int from = 0; from < values.size(); from += chunkSize) {
+      Map<String, Object> chunk = new HashMap<>(bindings);
+      chunk.put(oversizedName, values.subList(from, Math.min(from + chunkSize, values.size())));
+      chunks.add(chunk);
+    }
+    return chunks;
+  }
+
+  /** @return the most elements which, once padded, expand to at most `maxCollectionSize` */
+  private static int chunkSize(int maxCollectionSize, InListPadding inListPadding) {
+    check(
+        inListPadding.paddedSize(1) <= maxCollectionSize,
+        "in-list padding expands even a single element beyond the max collection size of "
+            + maxCollectionSize);
+    // Padded sizes only grow with the size, so search for the largest which fits
+    int low = 1;
+    int high = maxCollectionSize;
+    while (low < high) {
+      int mid = low + (high - low + 1) / 2;
+      if (inListPadding.paddedSize(mid) <= maxCollectionSize) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+}
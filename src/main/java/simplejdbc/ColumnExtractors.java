@@ -2,6 +2,8 @@ package simplejdbc;
 
 import static java.lang.String.format;
 
+import java.io.InputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.ResultSet;
@@ -65,7 +67,9 @@ class ColumnExtractors {
             (rs, label) -> {
               Time extracted = rs.getTime(label);
               return extracted == null ? null : extracted.toLocalTime();
-            });
+            })
+        .registerExtractor(InputStream.class, ResultSet::getBinaryStream)
+        .registerExtractor(Reader.class, ResultSet::getCharacterStream);
   }
 
   private ColumnExtractors() {}
@@ -0,0 +1,99 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the adaptive concurrency limit of `SimpleJdbc.limitConcurrency()`. Instances are
+ * immutable; each `with` method returns a modified copy.
+ *
+ * <pre>{@code
+ * ConcurrencyLimit limit = ConcurrencyLimit.defaults().withMaxLimit(50).withMaxWait(Duration.ZERO);
+ * }</pre>
+ */
+public final class ConcurrencyLimit {
+
+  private static final ConcurrencyLimit DEFAULTS =
+      new ConcurrencyLimit(20, 1, 200, Duration.ofMillis(50));
+
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final Duration maxWait;
+
+  private ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, Duration maxWait) {
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.maxWait = maxWait;
+  }
+
+  /**
+   * Starts by allowing 20 operations at once, adapting between 1 and 200 as latency changes.
+   * Operations over the limit wait up to 50 milliseconds for another to complete.
+   *
+   * @return the default settings
+   */
+  public static ConcurrencyLimit defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * @param initialLimit the number of operations allowed at once, before any have been measured
+   * @return a copy of these settings with the given initial limit
+   */
+  public ConcurrencyLimit withInitialLimit(int initialLimit) {
+    check(
+        initialLimit >= minLimit && initialLimit <= maxLimit,
+        "initial limit must be between min and max limit");
+    return new ConcurrencyLimit(initialLimit, minLimit, maxLimit, maxWait);
+  }
+
+  /**
+   * @param minLimit the fewest operations allowed at once, however slow the database becomes
+   * @return a copy of these settings with the given minimum limit
+   */
+  public ConcurrencyLimit withMinLimit(int minLimit) {
+    check(minLimit > 0, "min limit must be greater than zero");
+    check(minLimit <= maxLimit, "min limit must not be greater than max limit");
+    return new ConcurrencyLimit(Math.max(initialLimit, minLimit), minLimit, maxLimit, maxWait);
+  }
+
+  /**
+   * @param maxLimit the most operations allowed at once, however fast the database is
+   * @return a copy of these settings with the given maximum limit
+   */
+  public ConcurrencyLimit withMaxLimit(int maxLimit) {
+    check(maxLimit >= minLimit, "max limit must not be less than min limit");
+    return new ConcurrencyLimit(Math.min(initialLimit, maxLimit), minLimit, maxLimit, maxWait);
+  }
+
+  /**
+   * @param maxWait how long an operation over the limit waits for another to complete before it
+   *     is rejected, or zero to reject it immediately
+   * @return a copy of these settings with the given maximum wait
+   */
+  public ConcurrencyLimit withMaxWait(Duration maxWait) {
+    Objects.requireNonNull(maxWait, "max wait must not be null");
+    check(!maxWait.isNegative(), "max wait must not be negative");
+    return new ConcurrencyLimit(initialLimit, minLimit, maxLimit, maxWait);
+  }
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public Duration getMaxWait() {
+    return maxWait;
+  }
+}
@@ -0,0 +1,22 @@
+package simplejdbc;
+
+/**
+ * Thrown when an operation is rejected, rather than run, because the database is already serving
+ * as many operations from this `SimpleJdbc` as its concurrency limit allows.
+ */
+public class ConcurrencyLimitExceededException extends SimpleJdbcException {
+
+  private final int limit;
+
+  ConcurrencyLimitExceededException(int limit, long waitedMillis) {
+    super(
+        String.format(
+            "concurrency limit of %d reached; rejected after waiting %d ms", limit, waitedMillis));
+    this.limit = limit;
+  }
+
+  /** @return the concurrency limit at the time the operation was rejected */
+  public int getLimit() {
+    return limit;
+  }
+}
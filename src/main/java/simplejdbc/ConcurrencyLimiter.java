@@ -0,0 +1,158 @@
+package simplejdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the operations in flight at once, adapting the bound to the latency they see (after TCP
+ * Vegas). While operations run about as fast as they do unloaded, the limit rises; as they slow,
+ * queueing within the database is inferred, and the limit falls. A timed out operation cuts the
+ * limit sharply. Operations over the limit wait briefly for another to finish, and are otherwise
+ * rejected, so that load beyond what the database can serve is shed rather than queued.
+ */
+final class ConcurrencyLimiter {
+
+  // Every so often, the no-load latency is measured afresh, so that it can rise with the data
+  private static final int PROBE_MULTIPLIER = 30;
+  private static final double TIMEOUT_BACKOFF = 0.9;
+  // The statements run by the operation holding a place on this thread, so that the latency seen
+  // is the database's, not that of the caller's work between statements or of waiting to connect
+  private static final ThreadLocal<Sample> SAMPLE = new ThreadLocal<>();
+
+  private static final class Sample {
+    private long nanos;
+    private int statements;
+  }
+
+  private final ConcurrencyLimit config;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+  private double limit;
+  private int inFlight;
+  private long noLoadNanos;
+  private long samplesSinceProbe;
+
+  ConcurrencyLimiter(ConcurrencyLimit config) {
+    this.config = config;
+    this.limit = config.getInitialLimit();
+  }
+
+  /**
+   * Runs `fn` once within the limit.
+   *
+   * @throws ConcurrencyLimitExceededException if the limit stays reached for the whole max wait
+   */
+  <T> T run(Supplier<T> fn) {
+    int inFlightAtStart = acquire();
+    Sample previous = SAMPLE.get();
+    Sample sample = new Sample();
+    SAMPLE.set(sample);
+    boolean timedOut = false;
+    try {
+      return fn.get();
+    } catch (QueryTimeoutException ex) {
+      timedOut = true;
+      throw ex;
+    } finally {
+      if (previous == null) {
+        SAMPLE.remove();
+      } else {
+        SAMPLE.set(previous);
+      }
+      long latencyNanos = sample.statements == 0 ? -1 : sample.nanos / sample.statements;
+      release(latencyNanos, inFlightAtStart, timedOut);
+    }
+  }
+
+  /** Records the execution time of a statement run by the operation (if any) on this thread. */
+  static void recordStatement(long nanos) {
+    Sample sample = SAMPLE.get();
+    if (sample != null) {
+      sample.nanos += nanos;
+      sample.statements++;
+    }
+  }
+
+  int getLimit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int acquire() {
+    long startedAt = System.nanoTime();
+    long remaining = config.getMaxWait().toNanos();
+    lock.lock();
+    try {
+      while (inFlight >= (int) limit) {
+        if (remaining <= 0) {
+          throw new ConcurrencyLimitExceededException(
+              (int) limit, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+        remaining = released.awaitNanos(remaining);
+      }
+      return ++inFlight;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SimpleJdbcException("interrupted waiting for the concurrency limit", ex);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(long latencyNanos, int inFlightAtStart, boolean timedOut) {
+    lock.lock();
+    try {
+      inFlight--;
+      int previous = (int) limit;
+      limit = adapt(latencyNanos, inFlightAtStart, timedOut);
+      int increase = (int) limit - previous;
+      if (increase > 0) {
+        released.signalAll();
+      } else {
+        released.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** @param latencyNanos the operation's mean statement latency, or -1 should it run none */
+  private double adapt(long latencyNanos, int inFlightAtStart, boolean timedOut) {
+    if (timedOut) {
+      return Math.max(config.getMinLimit(), limit * TIMEOUT_BACKOFF);
+    }
+    if (latencyNanos < 0) {
+      return limit;
+    }
+    if (noLoadNanos == 0
+        || latencyNanos < noLoadNanos
+        || ++samplesSinceProbe >= PROBE_MULTIPLIER * (long) limit) {
+      noLoadNanos = latencyNanos;
+      samplesSinceProbe = 0;
+    }
+    // With under half the limit in use, latency says nothing about whether it is too high
+    if (inFlightAtStart * 2 < limit) {
+      return limit;
+    }
+    // The number of operations estimated to be queued rather than served by the database
+    double queued = Math.ceil(limit * (1 - (double) noLoadNanos / Math.max(1, latencyNanos)));
+    double step = Math.max(1, Math.log10(limit));
+    double adapted;
+    if (queued <= step) {
+      adapted = limit + 6 * step;
+    } else if (queued < 3 * step) {
+      adapted = limit + step;
+    } else if (queued > 6 * step) {
+      adapted = limit - step;
+    } else {
+      return limit;
+    }
+    return Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), adapted));
+  }
+}
@@ -0,0 +1,433 @@
+package simplejdbc;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static simplejdbc.Util.check;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+
+/**
+ * A pool of physical connections, held in a lock-free bag.
+ *
+ * <p>Each connection's state is claimed by compare-and-set, so borrowing takes no lock. A borrowing
+ * thread first tries the connection it last returned (which, for a thread making call after call,
+ * is almost always free), then scans the others, then opens a new one if the pool has room, and
+ * only then waits for one to be handed over directly by a returning thread.
+ */
+final class ConnectionPool implements AutoCloseable {
+
+  private static final int NOT_IN_USE = 0;
+  private static final int IN_USE = 1;
+  private static final int REMOVED = 2;
+
+  private static final long MAX_HOUSEKEEPING_PERIOD_MILLIS = 30_000;
+  private static final long MIN_HOUSEKEEPING_PERIOD_MILLIS = 100;
+  // Waiters wake at least this often, to notice connections removed (making room to open
+  // another) or the pool being closed
+  private static final long MAX_WAIT_SLICE_NANOS = MILLISECONDS.toNanos(50);
+
+  static final class Entry {
+    final Connection connection;
+    private final AtomicInteger state;
+    private final long createdAt;
+    private final long lifetimeNanos;
+    private volatile long lastUsed;
+    // The session state the connection was opened with, restored as it is returned
+    private final boolean autoCommit;
+    private final int isolation;
+    private final boolean readOnly;
+    private final String catalog;
+    // Whether the borrower may have changed the session state, so that it must be checked
+    private boolean dirty;
+
+    private Entry(Connection connection, int state, long lifetimeNanos) throws SQLException {
+      this.connection = connection;
+      this.state = new AtomicInteger(state);
+      this.createdAt = System.nanoTime();
+      this.lifetimeNanos = lifetimeNanos;
+      this.lastUsed = createdAt;
+      this.autoCommit = connection.getAutoCommit();
+      this.isolation = connection.getTransactionIsolation();
+      this.readOnly = connection.isReadOnly();
+      this.catalog = connection.getCatalog();
+    }
+
+    private boolean isExpired(long now) {
+      return lifetimeNanos > 0 && now - createdAt >= lifetimeNanos;
+    }
+
+    /**
+     * Marks the connection's session state as about to be changed (e.g. by `transactionally()`),
+     * so that it is restored as the connection is returned. Checking the state of every returned
+     * connection would cost a round trip each with some drivers (e.g. PostgreSQL's
+     * `getTransactionIsolation()`).
+     */
+    void markDirty() {
+      dirty = true;
+    }
+
+    /**
+     * Undoes any change to the session state of a connection marked dirty, so that the next
+     * borrower gets the connection as it was opened.
+     *
+     * @return whether the state could be restored
+     */
+    private boolean resetState() {
+      if (!dirty) {
+        return true;
+      }
+      dirty = false;
+      try {
+        if (connection.getAutoCommit() != autoCommit) {
+          if (!connection.getAutoCommit()) {
+            connection.rollback();
+          }
+          connection.setAutoCommit(autoCommit);
+        }
+        if (connection.getTransactionIsolation() != isolation) {
+          connection.setTransactionIsolation(isolation);
+        }
+        if (connection.isReadOnly() != readOnly) {
+          connection.setReadOnly(readOnly);
+        }
+        if (catalog != null && !catalog.equals(connection.getCatalog())) {
+          connection.setCatalog(catalog);
+        }
+        return true;
+      } catch (SQLException ex) {
+        return false;
+      }
+    }
+  }
+
+  private final DataSource dataSource;
+  private final PoolConfig config;
+  private final long validationSkipNanos;
+  private final int validationTimeoutSeconds;
+  private final CopyOnWriteArrayList<Entry> entries = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<Entry> lastReturned = new ThreadLocal<>();
+  private final SynchronousQueue<Entry> handoff = new SynchronousQueue<>(true);
+  // Open connections, plus slots reserved by threads in the middle of opening one
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final ScheduledExecutorService housekeeper;
+  private volatile boolean closed;
+
+  private final LongAdder connectionsCreated = new LongAdder();
+  private final LongAdder acquisitions = new LongAdder();
+  private final LongAdder acquisitionTimeouts = new LongAdder();
+  private final LongAdder acquisitionNanos = new LongAdder();
+  private final AtomicLong maxAcquisitionNanos = new AtomicLong();
+
+  ConnectionPool(DataSource dataSource, PoolConfig config) {
+    check(
+        config.getMinSize() <= config.getMaxSize(),
+        "min size must not be greater than max size");
+    this.dataSource = dataSource;
+    this.config = config;
+    this.validationSkipNanos = config.getValidationSkipWindow().toNanos();
+    this.validationTimeoutSeconds =
+        (int) Math.min(Integer.MAX_VALUE, config.getValidationTimeout().getSeconds());
+    long period = MAX_HOUSEKEEPING_PERIOD_MILLIS;
+    if (!config.getIdleTimeout().isZero()) {
+      period = Math.min(period, config.getIdleTimeout().toMillis());
+    }
+    period = Math.max(period, MIN_HOUSEKEEPING_PERIOD_MILLIS);
+    this.housekeeper =
+        Executors.newSingleThreadScheduledExecutor(
+            Util.daemonThreadFactory("simplejdbc-pool-housekeeper"));
+    housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, MILLISECONDS);
+  }
+
+  /**
+   * Borrows a connection, waiting up to the connection timeout should they all be in use, or only
+   * until the current deadline (if any) should that come first.
+   *
+   * @return the borrowed connection's entry, to be given back to `release()`
+   * @throws QueryTimeoutException if the current deadline passes while waiting
+   */
+  Entry borrow() {
+    long start = System.nanoTime();
+    long timeoutNanos = config.getConnectionTimeout().toNanos();
+    Deadline deadline = Deadline.current();
+    long deadlineNanos = deadline == null ? Long.MAX_VALUE : deadline.remainingNanos();
+    if (deadlineNanos <= 0) {
+      throw deadline.timedOut();
+    }
+    try {
+      Entry entry = acquire(start + Math.min(timeoutNanos, deadlineNanos));
+      if (entry == null) {
+        acquisitionTimeouts.increment();
+        if (deadlineNanos <= timeoutNanos) {
+          throw deadline.timedOut();
+        }
+        throw new SimpleJdbcException(
+            String.format(
+                "timed out after %d ms waiting for a connection (%d of %d in use)",
+                config.getConnectionTimeout().toMillis(),
+                size.get() - countIdle(),
+                config.getMaxSize()));
+      }
+      long elapsed = System.nanoTime() - start;
+      acquisitions.increment();
+      acquisitionNanos.add(elapsed);
+      maxAcquisitionNanos.accumulateAndGet(elapsed, Math::max);
+      return entry;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SimpleJdbcException("interrupted while waiting for a connection", ex);
+    }
+  }
+
+  /** Returns a borrowed connection to the pool, or closes it should it be closed or expired. */
+  void release(Entry entry) {
+    release(entry, null);
+  }
+
+  /**
+   * As above, but closes the connection, rather than returning it, should the failure of the call
+   * which used it be a connection error (SQLState class `08`), since the connection is then most
+   * likely broken, and the validation skipped for recently used connections would not notice.
+   *
+   * @param failure what the call using the connection threw, or `null` should it have succeeded
+   */
+  void release(Entry entry, Throwable failure) {
+    long now = System.nanoTime();
+    entry.lastUsed = now;
+    if (closed
+        || entry.isExpired(now)
+        || isConnectionError(failure)
+        || isClosed(entry.connection)
+        || !entry.resetState()) {
+      remove(entry);
+      return;
+    }
+    entry.state.set(NOT_IN_USE);
+    lastReturned.set(entry);
+    // Hand the connection straight to a thread waiting on the hand-off, if there is one. A waiter
+    // busy elsewhere (e.g. opening a connection) isn't waited for, as it scans for idle
+    // connections before it next waits
+    if (waiters.get() > 0) {
+      handoff.offer(entry);
+    }
+  }
+
+  PoolMetrics getMetrics() {
+    return new PoolMetrics(
+        entries.size(),
+        countIdle(),
+        waiters.get(),
+        connectionsCreated.sum(),
+        acquisitions.sum(),
+        acquisitionTimeouts.sum(),
+        acquisitionNanos.sum(),
+        maxAcquisitionNanos.get());
+  }
+
+  /**
+   * Closes every idle connection, and stops handing out connections. Connections in use are closed
+   * as they are returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    housekeeper.shutdownNow();
+    for (Entry entry : entries) {
+      if (entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+        remove(entry);
+      }
+    }
+  }
+
+  private Entry acquire(long deadline) throws InterruptedException {
+    while (true) {
+      check(!closed, "connection pool is closed");
+      Entry entry = tryTake();
+      if (entry == null) {
+        entry = tryOpen();
+      }
+      if (entry == null) {
+        entry = await(deadline);
+      }
+      if (entry == null || isUsable(entry)) {
+        return entry;
+      }
+      remove(entry);
+    }
+  }
+
+  private Entry tryTake() {
+    Entry last = lastReturned.get();
+    if (last != null && last.state.compareAndSet(NOT_IN_USE, IN_USE)) {
+      return last;
+    }
+    for (Entry entry : entries) {
+      if (entry.state.compareAndSet(NOT_IN_USE, IN_USE)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private Entry tryOpen() {
+    return reserveSlot(config.getMaxSize()) ? open(IN_USE) : null;
+  }
+
+  private Entry await(long deadline) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      while (true) {
+        check(!closed, "connection pool is closed");
+        // A connection may have been returned, or removed, since this thread last looked
+        Entry entry = tryTake();
+        if (entry == null) {
+          entry = tryOpen();
+        }
+        if (entry != null) {
+          return entry;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return null;
+        }
+        entry = handoff.poll(Math.min(remaining, MAX_WAIT_SLICE_NANOS), NANOSECONDS);
+        if (entry != null && entry.state.compareAndSet(NOT_IN_USE, IN_USE)) {
+          return entry;
+        }
+      }
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  private boolean isUsable(Entry entry) {
+    long now = System.nanoTime();
+    if (entry.isExpired(now)) {
+      return false;
+    }
+    // A connection used moments ago is all but certainly still alive, so skip the round trip
+    if (now - entry.lastUsed < validationSkipNanos) {
+      return true;
+    }
+    try {
+      return entry.connection.isValid(validationTimeoutSeconds);
+    } catch (SQLException ex) {
+      return false;
+    }
+  }
+
+  private boolean reserveSlot(int limit) {
+    while (true) {
+      int current = size.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (size.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /** Opens a connection into a reserved slot, releasing the slot should that fail. */
+  private Entry open(int state) {
+    try {
+      Connection connection = dataSource.getConnection();
+      long lifetimeNanos = config.getMaxLifetime().toNanos();
+      if (lifetimeNanos > 0) {
+        // Shave up to 2.5% off each lifetime, so connections opened together don't all expire
+        // together
+        lifetimeNanos -= ThreadLocalRandom.current().nextLong(lifetimeNanos / 40 + 1);
+      }
+      Entry entry;
+      try {
+        entry = new Entry(connection, state, lifetimeNanos);
+      } catch (SQLException | RuntimeException ex) {
+        connection.close();
+        throw ex;
+      }
+      entries.add(entry);
+      connectionsCreated.increment();
+      return entry;
+    } catch (SQLException ex) {
+      size.decrementAndGet();
+      throw new SimpleJdbcException(ex);
+    } catch (RuntimeException ex) {
+      size.decrementAndGet();
+      throw ex;
+    }
+  }
+
+  private void remove(Entry entry) {
+    entry.state.set(REMOVED);
+    if (entries.remove(entry)) {
+      size.decrementAndGet();
+    }
+    try {
+      entry.connection.close();
+    } catch (SQLException ignored) {
+      // The connection is being discarded, most likely because it is already broken
+    }
+  }
+
+  private void houseKeep() {
+    try {
+      long now = System.nanoTime();
+      long idleNanos = config.getIdleTimeout().toNanos();
+      for (Entry entry : entries) {
+        boolean retire =
+            entry.isExpired(now)
+                || (idleNanos > 0
+                    && now - entry.lastUsed > idleNanos
+                    && size.get() > config.getMinSize());
+        if (retire && entry.state.compareAndSet(NOT_IN_USE, REMOVED)) {
+          remove(entry);
+        }
+      }
+      while (!closed && reserveSlot(config.getMinSize())) {
+        open(NOT_IN_USE);
+      }
+    } catch (RuntimeException ignored) {
+      // e.g. the database is unreachable; the next round tries again, and borrowers see the error
+    }
+  }
+
+  private int countIdle() {
+    int idle = 0;
+    for (Entry entry : entries) {
+      if (entry.state.get() == NOT_IN_USE) {
+        idle++;
+      }
+    }
+    return idle;
+  }
+
+  private static boolean isConnectionError(Throwable failure) {
+    for (Throwable ex = failure; ex != null; ex = ex.getCause()) {
+      if (ex instanceof SQLException) {
+        String sqlState = ((SQLException) ex).getSQLState();
+        if (sqlState != null && sqlState.startsWith("08")) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean isClosed(Connection connection) {
+    try {
+      return connection.isClosed();
+    } catch (SQLException ex) {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package simplejdbc;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static simplejdbc.Util.check;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+import simplejdbc.SimpleJdbc.SqlSupplier;
+
+/**
+ * The time by which everything run on the current thread must finish, e.g. to serve a request
+ * within its SLO. Deadlines nest, with the earliest always applying, so a call's own timeout can
+ * shorten, but never extend, the time left to the request around it.
+ *
+ * <p>A deadline can also be made abortable, to cancel every statement running under it at once,
+ * e.g. the rest of a parallel query once one part of it has failed.
+ */
+final class Deadline {
+
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+  private static final long NANOS_PER_SECOND = SECONDS.toNanos(1);
+
+  private static final class Canceller {
+    private static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+    private static ScheduledThreadPoolExecutor create() {
+      ScheduledThreadPoolExecutor executor =
+          new ScheduledThreadPoolExecutor(
+              1, Util.daemonThreadFactory("simplejdbc-query-canceller"));
+      // Nearly every timer is cancelled, the statement having finished in time, so don't leave
+      // them queued until they would have fired
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+
+  private static final class Cancels {
+    // cancel() can block for a round trip (e.g. PostgreSQL opens a new connection to send it), so
+    // is run here rather than on the timer thread, which only hands it over, and so stays free to
+    // fire the other timers on time. Idle threads are reclaimed after a minute
+    private static final int MAX_THREADS = 8;
+    private static final ExecutorService INSTANCE = create();
+
+    private static ExecutorService create() {
+      ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(
+              MAX_THREADS,
+              MAX_THREADS,
+              1,
+              MINUTES,
+              new LinkedBlockingQueue<>(),
+              Util.daemonThreadFactory("simplejdbc-query-cancel"));
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+
+  private final long expiresAt;
+  // Null should the deadline only be abortable, without a time limit
+  private final Duration timeout;
+  // Null unless abortable
+  private final Abort abort;
+
+  private Deadline(long expiresAt, Duration timeout, Abort abort) {
+    this.expiresAt = expiresAt;
+    this.timeout = timeout;
+    this.abort = abort;
+  }
+
+  static Deadline current() {
+    return CURRENT.get();
+  }
+
+  /** Runs `fn` with a deadline `timeout` from now, unless the current deadline is sooner. */
+  static <T> T within(Duration timeout, Supplier<T> fn) {
+    checkTimeout(timeout);
+    Deadline previous = CURRENT.get();
+    Deadline deadline =
+        new Deadline(
+            System.nanoTime() + timeout.toNanos(),
+            timeout,
+            previous == null ? null : previous.abort);
+    if (previous != null
+        && previous.timeout != null
+        && previous.expiresAt - deadline.expiresAt <= 0) {
+      deadline = previous;
+    }
+    return runWith(deadline, fn);
+  }
+
+  /**
+   * A deadline the same as the current one (if any), but which can also be aborted, by `abort()`.
+   * Run work under it with `propagate(Deadline, Supplier)`.
+   */
+  static Deadline abortable() {
+    Deadline current = CURRENT.get();
+    return current == null
+        ? new Deadline(0, null, new Abort())
+        : new Deadline(current.expiresAt, current.timeout, new Abort());
+  }
+
+  static Duration checkTimeout(Duration timeout) {
+    Objects.requireNonNull(timeout, "timeout must not be null");
+    check(!timeout.isNegative() && !timeout.isZero(), "timeout must be greater than zero");
+    return timeout;
+  }
+
+  /**
+   * Carries the current deadline (if any) over to wherever `fn` runs, e.g. on another thread of a
+   * parallel query.
+   */
+  static <T> Supplier<T> propagate(Supplier<T> fn) {
+    Deadline deadline = CURRENT.get();
+    return deadline == null ? fn : propagate(deadline, fn);
+  }
+
+  /** Runs `fn` under the given deadline, wherever it runs. */
+  static <T> Supplier<T> propagate(Deadline deadline, Supplier<T> fn) {
+    return () -> runWith(deadline, fn);
+  }
+
+  /**
+   * @return the time left before the deadline, in nanoseconds (negative once passed), or
+   *     `Long.MAX_VALUE` should it have no time limit
+   */
+  long remainingNanos() {
+    return timeout == null ? Long.MAX_VALUE : expiresAt - System.nanoTime();
+  }
+
+  /**
+   * Throws should the current deadline (if any) have passed, e.g. while waiting for a connection.
+   *
+   * @throws QueryTimeoutException if the deadline has passed
+   */
+  static void checkCurrent() {
+    Deadline deadline = CURRENT.get();
+    if (deadline != null && deadline.remainingNanos() <= 0) {
+      throw deadline.timedOut();
+    }
+  }
+
+  QueryTimeoutException timedOut() {
+    return new QueryTimeoutException(timeout, null);
+  }
+
+  /**
+   * Cancels every statement running under this (abortable) deadline, and stops any more from
+   * starting, each failing with a `SimpleJdbcException`.
+   */
+  void abort() {
+    check(abort != null, "deadline is not abortable");
+    abort.abort();
+  }
+
+  private static <T> T runWith(Deadline deadline, Supplier<T> fn) {
+    Deadline previous = CURRENT.get();
+    CURRENT.set(deadline);
+    try {
+      return fn.get();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Runs the statement, cancelling it should the deadline pass (or be aborted) first.
+   *
+   * @throws QueryTimeoutException if the deadline passes, before or during the statement
+   */
+  <T> T enforce(PreparedStatement stmt, SqlSupplier<T> action) throws SQLException {
+    if (timeout == null) {
+      return abortably(stmt, action);
+    }
+    long remaining = expiresAt - System.nanoTime();
+    if (remaining <= 0) {
+      throw new QueryTimeoutException(timeout, null);
+    }
+    // The driver's own timeout only counts whole seconds, but backs up the cancellation below
+    long seconds = (remaining + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    stmt.setQueryTimeout((int) Math.min(Integer.MAX_VALUE, seconds));
+    Cancellation cancellation = new Cancellation(stmt);
+    ScheduledFuture<?> timer =
+        Canceller.INSTANCE.schedule(cancellation::fire, remaining, NANOSECONDS);
+    try {
+      return abortably(stmt, action);
+    } catch (SQLTimeoutException ex) {
+      throw new QueryTimeoutException(timeout, ex);
+    } catch (SQLException | RuntimeException ex) {
+      if (cancellation.fired && !(ex instanceof QueryTimeoutException)) {
+        throw new QueryTimeoutException(timeout, ex);
+      }
+      throw ex;
+    } finally {
+      cancellation.finish();
+      timer.cancel(false);
+    }
+  }
+
+  private <T> T abortably(PreparedStatement stmt, SqlSupplier<T> action) throws SQLException {
+    if (abort == null) {
+      return action.get();
+    }
+    Cancellation cancellation = new Cancellation(stmt);
+    abort.register(cancellation);
+    try {
+      return action.get();
+    } finally {
+      cancellation.finish();
+      abort.unregister(cancellation);
+    }
+  }
+
+  private static final class Abort {
+    private final Set<Cancellation> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean aborted;
+
+    private void register(Cancellation cancellation) {
+      running.add(cancellation);
+      // Checked after registering, so that abort() either sees the statement, or is seen here
+      if (aborted) {
+        running.remove(cancellation);
+        throw new SimpleJdbcException("statement not run, as its deadline was aborted");
+      }
+    }
+
+    private void unregister(Cancellation cancellation) {
+      running.remove(cancellation);
+    }
+
+    private void abort() {
+      aborted = true;
+      running.forEach(Cancellation::run);
+    }
+  }
+
+  private static final class Cancellation implements Runnable {
+    private final PreparedStatement stmt;
+    private volatile boolean fired;
+    private boolean finished;
+
+    private Cancellation(PreparedStatement stmt) {
+      this.stmt = stmt;
+    }
+
+    /** Cancels the statement on another thread, so as not to hold up the timer. */
+    private void fire() {
+      Cancels.INSTANCE.execute(this);
+    }
+
+    @Override
+    public synchronized void run() {
+      if (!finished) {
+        fired = true;
+        try {
+          stmt.cancel();
+        } catch (SQLException ignored) {
+          // The statement may have finished regardless; if not, its driver timeout still applies
+        }
+      }
+    }
+
+    /**
+     * Stops the cancellation firing, or waits for it to complete should it have fired already, so
+     * that a late `cancel()` can't land on the next statement run on the same connection.
+     */
+    private synchronized void finish() {
+      finished = true;
+    }
+  }
+}
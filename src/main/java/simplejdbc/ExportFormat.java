@@ -0,0 +1,12 @@
+package simplejdbc;
+
+/** Output formats supported by {@link QueryBuilder#exportTo}. */
+public enum ExportFormat {
+  /**
+   * Comma-separated values with a header row of column labels. Values are quoted as per RFC 4180
+   * only when needed; `null` is written as an empty field and an empty string as `""`.
+   */
+  CSV,
+  /** Newline-delimited JSON: one JSON object per row, keyed by column label. */
+  NDJSON
+}
@@ -0,0 +1,46 @@
+package simplejdbc;
+
+import java.time.Duration;
+
+/** A point-in-time snapshot of the hedging of queries by a `HedgedSimpleJdbc`. */
+public final class HedgeMetrics {
+
+  private final long queries;
+  private final long hedges;
+  private final long hedgesWon;
+  private final Duration hedgeDelay;
+
+  HedgeMetrics(long queries, long hedges, long hedgesWon, Duration hedgeDelay) {
+    this.queries = queries;
+    this.hedges = hedges;
+    this.hedgesWon = hedgesWon;
+    this.hedgeDelay = hedgeDelay;
+  }
+
+  /** @return the number of queries run with hedging, i.e. not on a pinned connection */
+  public long getQueries() {
+    return queries;
+  }
+
+  /** @return the number of queries re-issued to a second replica */
+  public long getHedges() {
+    return hedges;
+  }
+
+  /** @return the number of hedged queries whose second attempt returned first */
+  public long getHedgesWon() {
+    return hedgesWon;
+  }
+
+  /** @return the delay after which queries are currently hedged */
+  public Duration getHedgeDelay() {
+    return hedgeDelay;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "HedgeMetrics{queries=%d, hedges=%d, hedgesWon=%d, hedgeDelay=%s}",
+        queries, hedges, hedgesWon, hedgeDelay);
+  }
+}
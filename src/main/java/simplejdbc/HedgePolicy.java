@@ -0,0 +1,83 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.time.Duration;
+
+/**
+ * When a query of `SimpleJdbc.hedged()` is re-issued to another replica, and how often. Instances
+ * are immutable; each `with` method returns a modified copy.
+ *
+ * <pre>{@code
+ * HedgePolicy policy = HedgePolicy.afterObservedP95(Duration.ofMillis(20)).withMaxHedgeRatio(0.02);
+ * }</pre>
+ */
+public final class HedgePolicy {
+
+  private static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+
+  private final Duration delay;
+  private final boolean adaptive;
+  private final double maxHedgeRatio;
+
+  private HedgePolicy(Duration delay, boolean adaptive, double maxHedgeRatio) {
+    this.delay = delay;
+    this.adaptive = adaptive;
+    this.maxHedgeRatio = maxHedgeRatio;
+  }
+
+  /**
+   * Hedges queries which have not returned their first results within a fixed delay. At most 5% of
+   * queries are hedged.
+   *
+   * @param delay the time to wait for the first attempt, e.g. the query's usual p95 latency
+   * @return the policy
+   */
+  public static HedgePolicy afterDelay(Duration delay) {
+    return new HedgePolicy(checkDelay(delay), false, DEFAULT_MAX_HEDGE_RATIO);
+  }
+
+  /**
+   * Hedges queries which have taken longer than 95% of recent queries to return their first
+   * results, so that only the slowest few are re-issued. At most 5% of queries are hedged.
+   *
+   * @param initialDelay the delay to use until enough queries have run to measure their latency
+   * @return the policy
+   */
+  public static HedgePolicy afterObservedP95(Duration initialDelay) {
+    return new HedgePolicy(checkDelay(initialDelay), true, DEFAULT_MAX_HEDGE_RATIO);
+  }
+
+  /**
+   * Caps the extra load hedging puts on the replicas. Hedges are budgeted as a share of the
+   * queries run, with a small allowance for bursts, and are not sent once the budget is spent.
+   *
+   * @param maxHedgeRatio the most queries to hedge, as a share of all queries, e.g. `0.05` for 5%
+   * @return a copy of this policy with the given cap
+   */
+  public HedgePolicy withMaxHedgeRatio(double maxHedgeRatio) {
+    check(
+        maxHedgeRatio >= 0 && maxHedgeRatio <= 1, "max hedge ratio must be between 0 and 1");
+    return new HedgePolicy(delay, adaptive, maxHedgeRatio);
+  }
+
+  /** @return the fixed delay, or with {@link #isAdaptive()}, the initial delay */
+  public Duration getDelay() {
+    return delay;
+  }
+
+  /** @return whether the delay follows the observed p95 latency of queries */
+  public boolean isAdaptive() {
+    return adaptive;
+  }
+
+  /** @return the most queries to hedge, as a share of all queries */
+  public double getMaxHedgeRatio() {
+    return maxHedgeRatio;
+  }
+
+  private static Duration checkDelay(Duration delay) {
+    check(delay != null && !delay.isNegative(), "hedge delay must not be negative");
+    return delay;
+  }
+}
@@ -0,0 +1,439 @@
+package simplejdbc;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static simplejdbc.Util.check;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+
+/**
+ * A `SimpleJdbc` over several replicas of one database, which hedges queries against a slow
+ * replica. Should the first replica not have returned a query's first results within the policy's
+ * delay, the query is issued again to another replica (in turn), and whichever returns first is
+ * used. The other is cancelled with `Statement.cancel()`.
+ *
+ * <p>Only queries marked with `QueryBuilder.hedged()` are hedged, and then only when no connection
+ * is pinned to the current thread (e.g. by a transaction). Everything else, including other
+ * queries, statements and upserts, runs on the first replica.
+ *
+ * @see SimpleJdbc#hedged(List, HedgePolicy)
+ */
+public final class HedgedSimpleJdbc extends SimpleJdbc {
+
+  private static final class Scheduler {
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+    // Attempts block on I/O for the life of a query, so are run on threads created as needed
+    private static final ExecutorService HEDGES =
+        Executors.newCachedThreadPool(Util.daemonThreadFactory("simplejdbc-hedge"));
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+      ScheduledThreadPoolExecutor executor =
+          new ScheduledThreadPoolExecutor(1, Util.daemonThreadFactory("simplejdbc-hedge-timer"));
+      // Nearly every query returns before its hedge is due
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+
+  private final List<DataSource> replicas;
+  private final HedgePolicy policy;
+  private final HedgeBudget budget;
+  private final LatencyWindow latencies = new LatencyWindow();
+  private final AtomicInteger nextHedgeReplica = new AtomicInteger();
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder hedgesWon = new LongAdder();
+
+  HedgedSimpleJdbc(
+      List<DataSource> replicas,
+      HedgePolicy policy,
+      ParameterSetters parameterSetters,
+      ColumnExtractors columnExtractors) {
+    super(parameterSetters, columnExtractors);
+    check(replicas.size() >= 2, "at least two replicas are required to hedge queries");
+    replicas.forEach(replica -> Objects.requireNonNull(replica, "replica must not be null"));
+    this.replicas = new ArrayList<>(replicas);
+    this.policy = policy;
+    this.budget = new HedgeBudget(policy.getMaxHedgeRatio());
+  }
+
+  /** @return a snapshot of the queries hedged so far */
+  public HedgeMetrics getMetrics() {
+    return new HedgeMetrics(
+        queries.sum(), hedges.sum(), hedgesWon.sum(), Duration.ofNanos(hedgeDelayNanos()));
+  }
+
+  @Override
+  <T> T query(
+      String sql,
+      Map<String, ?> bindings,
+      StatementOptions options,
+      QueryResultExtractor<T> extractor) {
+    if (!options.isHedged() || connectionThreadLocal.get() != null) {
+      return super.query(sql, bindings, options, extractor);
+    }
+    return limited(
+        () -> {
+          Attempt winner = race(sql, bindings, options);
+          try {
+            return extract(winner.stmt, winner.resultSet, extractor);
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          } finally {
+            winner.close();
+          }
+        });
+  }
+
+  /**
+   * Runs the query on the first replica, and should it not have returned by the hedge delay, on
+   * another too. Both attempts run on threads of their own, so that the caller waits only for the
+   * first to return, not for the other to give up (e.g. while it waits for a connection). Only the
+   * first to return is kept; the caller must extract and close it.
+   */
+  private Attempt race(String sql, Map<String, ?> bindings, StatementOptions options) {
+    queries.increment();
+    budget.earn();
+    AtomicReference<Attempt> winner = new AtomicReference<>();
+    Attempt first = new Attempt(replicas.get(0), winner);
+    Attempt second = new Attempt(nextHedgeReplica(), winner);
+    first.rival = second;
+    second.rival = first;
+    Supplier<Boolean> attempt =
+        Deadline.propagate(() -> runAttempt(first, sql, bindings, options));
+    Supplier<Boolean> hedge =
+        Deadline.propagate(() -> runAttempt(second, sql, bindings, options));
+    // Decided once, by the timer (to send the hedge, budget permitting) or by the first attempt
+    // completing before it (not to)
+    AtomicBoolean hedgeDecided = new AtomicBoolean();
+    CompletableFuture<Boolean> firstOutcome = new CompletableFuture<>();
+    CompletableFuture<Boolean> hedgeOutcome = new CompletableFuture<>();
+    ScheduledFuture<?> timer =
+        Scheduler.TIMER.schedule(
+            () -> {
+              if (!hedgeDecided.compareAndSet(false, true)) {
+                return;
+              }
+              if (winner.get() == null && budget.trySpend()) {
+                hedges.increment();
+                Scheduler.HEDGES.execute(() -> complete(hedgeOutcome, hedge));
+              } else {
+                hedgeOutcome.complete(false);
+              }
+            },
+            hedgeDelayNanos(),
+            NANOSECONDS);
+    firstOutcome.whenComplete(
+        (won, ex) -> {
+          if (hedgeDecided.compareAndSet(false, true)) {
+            timer.cancel(false);
+            hedgeOutcome.complete(false);
+          }
+        });
+    Scheduler.HEDGES.execute(() -> complete(firstOutcome, attempt));
+    CompletableFuture<Attempt> won = new CompletableFuture<>();
+    // Settled by whichever attempt wins, or once both have lost; should neither win, the first
+    // attempt's failure is reported, unless only the hedge failed
+    BiConsumer<Boolean, Throwable> settle =
+        (ignored, ex) -> {
+          if (hasWon(firstOutcome)) {
+            won.complete(first);
+          } else if (hasWon(hedgeOutcome)) {
+            won.complete(second);
+          } else if (firstOutcome.isDone() && hedgeOutcome.isDone()) {
+            Throwable failure =
+                failureOf(firstOutcome.isCompletedExceptionally() ? firstOutcome : hedgeOutcome);
+            // Neither failed only if both were cancelled, the caller having been interrupted
+            won.completeExceptionally(
+                failure != null ? failure : new SimpleJdbcException("query was cancelled"));
+          }
+        };
+    firstOutcome.whenComplete(settle);
+    hedgeOutcome.whenComplete(settle);
+    try {
+      Attempt result = won.get();
+      if (result == second) {
+        hedgesWon.increment();
+      }
+      // Run on another thread, so recorded here for the caller's concurrency limit (if any)
+      ConcurrencyLimiter.recordStatement(result.executionNanos);
+      return result;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      first.cancel();
+      second.cancel();
+      // Should an attempt win regardless, its results are no longer wanted
+      won.thenAccept(Attempt::close);
+      throw new SimpleJdbcException("interrupted while waiting for a query", ex);
+    } catch (ExecutionException ex) {
+      throw ex.getCause() instanceof RuntimeException
+          ? (RuntimeException) ex.getCause()
+          : new SimpleJdbcException(ex.getCause());
+    }
+  }
+
+  private boolean runAttempt(
+      Attempt attempt, String sql, Map<String, ?> bindings, StatementOptions options) {
+    try {
+      return attempt.run(sql, bindings, options);
+    } catch (SQLException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+  }
+
+  private static void complete(CompletableFuture<Boolean> future, Supplier<Boolean> fn) {
+    try {
+      future.complete(fn.get());
+    } catch (Throwable ex) {
+      future.completeExceptionally(ex);
+    }
+  }
+
+  private static boolean hasWon(CompletableFuture<Boolean> outcome) {
+    return outcome.isDone() && !outcome.isCompletedExceptionally() && outcome.join();
+  }
+
+  private static Throwable failureOf(CompletableFuture<?> future) {
+    try {
+      future.join();
+      return null;
+    } catch (CompletionException ex) {
+      return ex.getCause();
+    }
+  }
+
+  private DataSource nextHedgeReplica() {
+    int others = replicas.size() - 1;
+    return replicas.get(1 + Math.floorMod(nextHedgeReplica.getAndIncrement(), others));
+  }
+
+  private long hedgeDelayNanos() {
+    if (policy.isAdaptive()) {
+      long p95 = latencies.p95Nanos();
+      if (p95 >= 0) {
+        return p95;
+      }
+    }
+    return policy.getDelay().toNanos();
+  }
+
+  @Override
+  int statement(String sql, Map<String, ?> bindings) {
+    return withConnection(conn -> statement(conn, sql, bindings));
+  }
+
+  @Override
+  int[] batchStatement(String sql, List<Map<String, ?>> batchedBindings) {
+    return withConnection(conn -> batchStatement(conn, sql, batchedBindings));
+  }
+
+  @Override
+  boolean canOpenConnections() {
+    return connectionThreadLocal.get() == null;
+  }
+
+  @Override
+  <T> T withConnection(Function<Connection, T> fn) {
+    if (connectionThreadLocal.get() != null) {
+      return fn.apply(connectionThreadLocal.get());
+    }
+    return limited(
+        () -> {
+          Deadline.checkCurrent();
+          try (Connection conn = replicas.get(0).getConnection()) {
+            Deadline.checkCurrent();
+            connectionThreadLocal.set(conn);
+            return fn.apply(conn);
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          } finally {
+            connectionThreadLocal.set(null);
+          }
+        });
+  }
+
+  /** One attempt at a query on one replica, up to the point its first results are returned. */
+  private final class Attempt {
+    private final DataSource replica;
+    private final AtomicReference<Attempt> winner;
+    private Attempt rival;
+    private Connection conn;
+    private PreparedStatement stmt;
+    private ResultSet resultSet;
+    private long executionNanos;
+    private boolean cancelled;
+    private boolean closed;
+
+    private Attempt(DataSource replica, AtomicReference<Attempt> winner) {
+      this.replica = replica;
+      this.winner = winner;
+    }
+
+    /**
+     * @return `true` if this attempt won, its results then being the caller's to extract and
+     *     close, or `false` if it lost, and has closed its resources
+     */
+    boolean run(String sql, Map<String, ?> bindings, StatementOptions options)
+        throws SQLException {
+      long startedAt = System.nanoTime();
+      try {
+        conn = replica.getConnection();
+        stmt = prepare(conn, sql, bindings, options);
+        if (!start()) {
+          close();
+          return false;
+        }
+        long executedAt = System.nanoTime();
+        resultSet = timed(stmt, stmt::executeQuery);
+        executionNanos = System.nanoTime() - executedAt;
+      } catch (SQLException | RuntimeException ex) {
+        close();
+        if (isCancelled()) {
+          return false;
+        }
+        throw ex;
+      }
+      if (policy.isAdaptive()) {
+        latencies.record(System.nanoTime() - startedAt);
+      }
+      if (winner.compareAndSet(null, this)) {
+        rival.cancel();
+        return true;
+      }
+      close();
+      return false;
+    }
+
+    /** @return `false` if the rival has already won, and so this attempt needn't run */
+    private synchronized boolean start() {
+      return !cancelled;
+    }
+
+    private synchronized boolean isCancelled() {
+      return cancelled;
+    }
+
+    /** Stops this attempt, cancelling its statement should it be running. */
+    private synchronized void cancel() {
+      cancelled = true;
+      if (stmt != null && !closed) {
+        try {
+          stmt.cancel();
+        } catch (SQLException ignored) {
+          // The statement may have finished regardless, and will be closed by its own thread
+        }
+      }
+    }
+
+    /**
+     * Closes the attempt's resources, holding the lock so that a late `cancel()` can't land on the
+     * connection once it has been handed back to the replica's pool.
+     */
+    private synchronized void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (AutoCloseable resource : Arrays.asList(resultSet, stmt, conn)) {
+        if (resource != null) {
+          try {
+            resource.close();
+          } catch (Exception ignored) {
+            // The attempt is being discarded, or its results have already been extracted
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Earns each query a fraction of a hedge, up to a small allowance for bursts, so that over time
+   * no more than the policy's ratio of queries are hedged.
+   */
+  private static final class HedgeBudget {
+    private static final long HEDGE_COST = 1000;
+    private static final long MAX_BALANCE = 10 * HEDGE_COST;
+
+    private final long earnedPerQuery;
+    private final AtomicLong balance;
+
+    private HedgeBudget(double maxHedgeRatio) {
+      this.earnedPerQuery = Math.round(maxHedgeRatio * HEDGE_COST);
+      this.balance = new AtomicLong(earnedPerQuery == 0 ? 0 : MAX_BALANCE);
+    }
+
+    private void earn() {
+      long current;
+      do {
+        current = balance.get();
+        if (earnedPerQuery == 0 || current >= MAX_BALANCE) {
+          return;
+        }
+      } while (!balance.compareAndSet(current, Math.min(MAX_BALANCE, current + earnedPerQuery)));
+    }
+
+    private boolean trySpend() {
+      long current;
+      do {
+        current = balance.get();
+        if (current < HEDGE_COST) {
+          return false;
+        }
+      } while (!balance.compareAndSet(current, current - HEDGE_COST));
+      return true;
+    }
+  }
+
+  /** The latencies of the most recent queries, from which their p95 is recomputed periodically. */
+  private static final class LatencyWindow {
+    private static final int SIZE = 1024;
+    private static final int RECOMPUTE_EVERY = 128;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private volatile long p95Nanos = -1;
+
+    private void record(long nanos) {
+      long n = count.getAndIncrement();
+      samples.set((int) (n % SIZE), nanos);
+      if ((n + 1) % RECOMPUTE_EVERY == 0) {
+        long[] sorted = new long[(int) Math.min(n + 1, SIZE)];
+        for (int i = 0; i < sorted.length; i++) {
+          sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        p95Nanos = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+      }
+    }
+
+    /** @return the p95 latency, or -1 until enough queries have run to measure it */
+    private long p95Nanos() {
+      return p95Nanos;
+    }
+  }
+}
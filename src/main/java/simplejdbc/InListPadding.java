@@ -0,0 +1,91 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Decides how many bind sites a collection binding (e.g. `where id in (:ids)`) is expanded to.
+ *
+ * <p>Without padding, every distinct collection size yields a distinct SQL string, which defeats
+ * prepared statement caches on both the client and the database. Padding rounds the size up to a
+ * bucket, filling the spare bind sites with repeats of the last value, so that only a handful of
+ * statement shapes are ever produced.
+ *
+ * <p>Note that repeating a value is only harmless where duplicates don't matter, such as `in (...)`
+ * lists.
+ */
+public final class InListPadding {
+
+  private static final InListPadding NONE = new InListPadding(size -> size);
+
+  private static final InListPadding POWERS_OF_TWO =
+      new InListPadding(
+          size -> size <= 1 || size > (1 << 30) ? size : Integer.highestOneBit(size - 1) << 1);
+
+  private final IntUnaryOperator paddedSize;
+
+  private InListPadding(IntUnaryOperator paddedSize) {
+    this.paddedSize = paddedSize;
+  }
+
+  /**
+   * Collections are expanded to exactly as many bind sites as they have elements.
+   *
+   * @return the (default) non-padding strategy
+   */
+  public static InListPadding none() {
+    return NONE;
+  }
+
+  /**
+   * Rounds collection sizes up to the next power of two (1, 2, 4, 8, 16, ...), so a collection of N
+   * elements produces one of at most log2(N) statement shapes.
+   *
+   * @return the power-of-two padding strategy
+   */
+  public static InListPadding powersOfTwo() {
+    return POWERS_OF_TWO;
+  }
+
+  /**
+   * Rounds collection sizes up to the next of the given sizes. Collections larger than the largest
+   * size are rounded up to a multiple of it.
+   *
+   * @param sizes the bucket sizes, e.g. `10, 50, 100, 500, 1000`
+   * @return a padding strategy using the given buckets
+   */
+  public static InListPadding ladder(int... sizes) {
+    check(sizes != null && sizes.length > 0, "at least one ladder size is required");
+    int[] rungs = Arrays.stream(sizes).sorted().distinct().toArray();
+    check(rungs[0] > 0, "ladder sizes must be greater than zero");
+    int largest = rungs[rungs.length - 1];
+    return new InListPadding(
+        size -> {
+          if (size == 0) {
+            return 0;
+          }
+          int index = Arrays.binarySearch(rungs, size);
+          if (index >= 0) {
+            return rungs[index];
+          }
+          int insertionPoint = -index - 1;
+          if (insertionPoint < rungs.length) {
+            return rungs[insertionPoint];
+          }
+          long rounded = ((size + (long) largest - 1) / largest) * largest;
+          return rounded > Integer.MAX_VALUE ? size : (int) rounded;
+        });
+  }
+
+  /**
+   * Returns the number of bind sites a collection of the given size is expanded to.
+   *
+   * @param size the number of elements in the collection
+   * @return the padded number of bind sites; never less than `size`
+   */
+  public int paddedSize(int size) {
+    return paddedSize.applyAsInt(size);
+  }
+}
@@ -5,11 +5,14 @@ import static simplejdbc.Util.TABLE_NAME_REGEX;
 import static simplejdbc.Util.check;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.TreeMap;
+import simplejdbc.SimpleJdbc.QueryRowResultExtractor;
 
 public class InsertBuilder {
 
@@ -21,12 +24,15 @@ public class InsertBuilder {
       implements Insert,
           InsertInto,
           InsertIntoSet,
+          InsertColumns,
           BatchInsert,
           BatchInsertInto,
           BatchInsertIntoSet {
     private final SimpleJdbc jdbc;
     private String tableName;
-    private Map<String, Object> columnValues = new HashMap<>();
+    private String[] columnNames;
+    // Sorted, so that inserts setting the same columns always share the same SQL text
+    private Map<String, Object> columnValues = new TreeMap<>();
     private final List<Map<String, ?>> batch = new ArrayList<>();
 
     private Builder(SimpleJdbc jdbc) {
@@ -45,19 +51,40 @@ public class InsertBuilder {
 
     @Override
     public Builder set(String columnName, Object value) {
-      check(columnName != null && !columnName.isEmpty(), "column name is required");
-      check(
-          COLUMN_NAME_REGEX.asPredicate().test(columnName),
-          "insert() does not support column names which contain spaces or special characters. Use statement() instead.");
+      checkColumnName(columnName);
       check(!(value instanceof Collection), "value must not be a collection type");
       columnValues.put(columnName, value);
       return this;
     }
 
+    @Override
+    public Builder columns(String... columnNames) {
+      check(columnNames != null && columnNames.length > 0, "at least one column is required");
+      for (String columnName : columnNames) {
+        checkColumnName(columnName);
+      }
+      check(
+          new HashSet<>(Arrays.asList(columnNames)).size() == columnNames.length,
+          "each column may only be given once");
+      this.columnNames = columnNames.clone();
+      return this;
+    }
+
+    @Override
+    public PreparedInsert prepare() {
+      StringJoiner insertFragment = new StringJoiner(", ", "insert into " + tableName + " (", ")");
+      StringJoiner valuesFragment = new StringJoiner(", ", " values (", ")");
+      for (String columnName : columnNames) {
+        insertFragment.add(columnName);
+        valuesFragment.add("?");
+      }
+      return new PreparedInsert(jdbc, "" + insertFragment + valuesFragment, columnNames.length);
+    }
+
     @Override
     public Builder addBatch() {
       batch.add(columnValues);
-      columnValues = new HashMap<>();
+      columnValues = new TreeMap<>();
       return this;
     }
 
@@ -75,6 +102,77 @@ public class InsertBuilder {
       return jdbc.statement(buildSql(columnValues), columnValues);
     }
 
+    @Override
+    public <T> T executeReturningKeys(
+        QueryRowResultExtractor<T> keyExtractor, String... keyColumns) {
+      checkKeyColumns(keyColumns);
+      return jdbc.statementReturningKeys(
+          buildSql(columnValues),
+          columnValues,
+          keyColumns,
+          QueryResultExtractors.exactlyOne(keyExtractor));
+    }
+
+    @Override
+    public long executeReturningLongKey(String keyColumn) {
+      return executeReturningKeys(row -> row.toResultSet().getLong(keyColumn), keyColumn);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> executeBatchReturningKeys(
+        QueryRowResultExtractor<T> keyExtractor, String... keyColumns) {
+      checkKeyColumns(keyColumns);
+      if (batch.isEmpty()) {
+        return new ArrayList<>();
+      }
+      return jdbc.batchStatementReturningKeys(
+          buildSql((Map<String, Object>) batch.get(0)),
+          batch,
+          keyColumns,
+          QueryResultExtractors.list(keyExtractor));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long[] executeBatchReturningLongKeys(String keyColumn) {
+      checkKeyColumns(keyColumn);
+      if (batch.isEmpty()) {
+        return new long[0];
+      }
+      return jdbc.batchStatementReturningKeys(
+          buildSql((Map<String, Object>) batch.get(0)),
+          batch,
+          new String[] {keyColumn},
+          queryResult -> {
+            long[] keys = new long[batch.size()];
+            int count = 0;
+            while (queryResult.next()) {
+              if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+              }
+              keys[count++] = queryResult.toResultSet().getLong(keyColumn);
+            }
+            return count == keys.length ? keys : Arrays.copyOf(keys, count);
+          });
+    }
+
+    private static void checkColumnName(String columnName) {
+      check(columnName != null && !columnName.isEmpty(), "column name is required");
+      check(
+          COLUMN_NAME_REGEX.asPredicate().test(columnName),
+          "insert() does not support column names which contain spaces or special characters. Use statement() instead.");
+    }
+
+    private void checkKeyColumns(String... keyColumns) {
+      check(keyColumns != null && keyColumns.length > 0, "at least one key column is required");
+      for (String keyColumn : keyColumns) {
+        check(
+            keyColumn != null && COLUMN_NAME_REGEX.asPredicate().test(keyColumn),
+            "key column names must not be blank or contain spaces or special characters");
+      }
+    }
+
     private String buildSql(Map<String, Object> columnValues) {
       StringJoiner insertFragment = new StringJoiner(", ", "insert into " + tableName + " (", ")");
       StringJoiner valuesFragment = new StringJoiner(", ", " values (", ")");
@@ -87,16 +185,105 @@ public class InsertBuilder {
     }
   }
 
+  /**
+   * An insert whose SQL has been built once, up front, for a fixed list of columns. Values are
+   * given positionally, in the order of the columns. Immutable (bar its cache of binding plans),
+   * and safe to share between threads.
+   */
+  public static final class PreparedInsert {
+    private final SimpleJdbc jdbc;
+    private final String sql;
+    private final int columnCount;
+    private final BindingPlan.Plans plans = new BindingPlan.Plans();
+
+    private PreparedInsert(SimpleJdbc jdbc, String sql, int columnCount) {
+      this.jdbc = jdbc;
+      this.sql = sql;
+      this.columnCount = columnCount;
+    }
+
+    /**
+     * @param values the value of each column, in the order given to `columns()`
+     * @return the number of rows inserted
+     */
+    public int execute(Object... values) {
+      checkValues(values);
+      return jdbc.positionalStatement(sql, plans, values);
+    }
+
+    /**
+     * @param rows the values of each row to insert, each in the order given to `columns()`
+     * @return the update counts, one per row
+     */
+    public int[] executeBatch(List<Object[]> rows) {
+      check(rows != null, "rows must not be null");
+      if (rows.isEmpty()) {
+        return new int[0];
+      }
+      rows.forEach(this::checkValues);
+      return jdbc.positionalBatchStatement(sql, plans, rows);
+    }
+
+    /** @return the SQL, with a `?` bind site per column */
+    public String getSql() {
+      return sql;
+    }
+
+    private void checkValues(Object[] values) {
+      check(
+          values != null && values.length == columnCount,
+          String.format(
+              "expected %d values, but got %d", columnCount, values == null ? 0 : values.length));
+      for (Object value : values) {
+        check(!(value instanceof Collection), "value must not be a collection type");
+      }
+    }
+  }
+
   public interface Insert {
     InsertInto into(String tableName);
   }
 
   public interface InsertInto {
     InsertIntoSet set(String columnName, Object value);
+
+    /**
+     * Fixes the columns to insert, so that the statement can be prepared once and then executed
+     * many times with different values.
+     *
+     * @param columnNames the columns, in the order their values will be given
+     * @return the columns, ready to prepare
+     */
+    InsertColumns columns(String... columnNames);
   }
 
-  public interface InsertIntoSet extends InsertInto {
+  public interface InsertColumns {
+    PreparedInsert prepare();
+  }
+
+  public interface InsertIntoSet {
+    InsertIntoSet set(String columnName, Object value);
+
     int execute();
+
+    /**
+     * Executes the insert, returning the keys the database generated for the given columns (e.g.
+     * an identity column or sequence default) without a second round trip.
+     *
+     * @param keyExtractor maps the row of generated keys
+     * @param keyColumns the names of the generated columns to return
+     * @param <T> the type returned by the key extractor
+     * @return the mapped generated keys
+     */
+    <T> T executeReturningKeys(QueryRowResultExtractor<T> keyExtractor, String... keyColumns);
+
+    /**
+     * Executes the insert, returning the numeric key the database generated for the given column.
+     *
+     * @param keyColumn the name of the generated column, e.g. `id`
+     * @return the generated key
+     */
+    long executeReturningLongKey(String keyColumn);
   }
 
   public interface BatchInsert {
@@ -107,6 +294,27 @@ public class InsertBuilder {
     BatchInsertIntoSet set(String columnName, Object value);
 
     int[] executeBatch();
+
+    /**
+     * Executes the batch, returning the keys the database generated for the given columns, in
+     * batch order, without a second round trip.
+     *
+     * @param keyExtractor maps each row of generated keys
+     * @param keyColumns the names of the generated columns to return
+     * @param <T> the type returned by the key extractor
+     * @return the mapped generated keys, one per batch entry
+     */
+    <T> List<T> executeBatchReturningKeys(
+        QueryRowResultExtractor<T> keyExtractor, String... keyColumns);
+
+    /**
+     * Executes the batch, returning the numeric keys the database generated for the given column,
+     * in batch order.
+     *
+     * @param keyColumn the name of the generated column, e.g. `id`
+     * @return the generated keys, one per batch entry
+     */
+    long[] executeBatchReturningLongKeys(String keyColumn);
   }
 
   public interface BatchInsertIntoSet {
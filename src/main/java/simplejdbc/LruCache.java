@@ -0,0 +1,92 @@
+package simplejdbc;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A map which keeps roughly its most recently used entries, evicting entries not used lately once
+ * it grows past its limit. Safe to share between threads, and read without locking, since it is
+ * read on every execution of a statement.
+ *
+ * <p>Eviction is by the clock algorithm: a read marks its entry used (writing only should it not
+ * already be marked), and a sweep, run by one adding thread at a time, evicts the unmarked entries
+ * it passes while clearing the marks of the others.
+ */
+final class LruCache<K, V> {
+
+  private static final class Node<V> {
+    private final V value;
+    private volatile boolean used;
+
+    private Node(V value) {
+      this.value = value;
+    }
+  }
+
+  private final int maxSize;
+  private final ConcurrentHashMap<K, Node<V>> entries = new ConcurrentHashMap<>();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+  // The clock hand, only moved by the thread sweeping
+  private Iterator<Node<V>> hand;
+
+  LruCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  V get(K key) {
+    Node<V> node = entries.get(key);
+    if (node == null) {
+      return null;
+    }
+    if (!node.used) {
+      node.used = true;
+    }
+    return node.value;
+  }
+
+  void put(K key, V value) {
+    entries.put(key, new Node<>(value));
+    evictIfFull();
+  }
+
+  /** Adds the value unless the key already has one, returning the value now held for the key. */
+  V putIfAbsent(K key, V value) {
+    Node<V> existing = entries.putIfAbsent(key, new Node<>(value));
+    if (existing != null) {
+      return existing.value;
+    }
+    evictIfFull();
+    return value;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void evictIfFull() {
+    if (entries.size() <= maxSize || !sweeping.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      // Entries marked used are spared once per lap, so within two laps enough are evicted,
+      // however often they are read meanwhile
+      for (int step = 0; entries.size() > maxSize; step++) {
+        if (hand == null || !hand.hasNext()) {
+          hand = entries.values().iterator();
+          if (!hand.hasNext()) {
+            return;
+          }
+        }
+        Node<V> node = hand.next();
+        if (node.used && step < 2 * maxSize) {
+          node.used = false;
+        } else {
+          hand.remove();
+        }
+      }
+    } finally {
+      sweeping.set(false);
+    }
+  }
+}
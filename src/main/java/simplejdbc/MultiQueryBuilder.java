@@ -0,0 +1,138 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import simplejdbc.SimpleJdbc.QueryResultExtractor;
+import simplejdbc.UpsertBuilder.Dialect;
+
+/**
+ * Collects several independent queries to be run together on one connection. Where the driver
+ * accepts multiple statements in one SQL text, they're sent to the database in a single round trip
+ * and their result sets walked in turn; otherwise they're run one after the other.
+ *
+ * <pre>{@code
+ * MultiQueryBuilder queries = jdbc.multiQuery();
+ * MultiQueryBuilder.Result<List<String>> names = queries.add("select name from a", list(...));
+ * MultiQueryBuilder.Result<Long> count = queries.add("select count(*) from b", exactlyOne(...));
+ * queries.execute();
+ * names.get();
+ * }</pre>
+ */
+public class MultiQueryBuilder {
+
+  private final SimpleJdbc jdbc;
+  private final List<Result<?>> queries = new ArrayList<>();
+
+  MultiQueryBuilder(SimpleJdbc jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  /**
+   * @param sql a query without bind parameters
+   * @param extractor extracts the query's results
+   * @param <T> the type returned by the extractor
+   * @return a handle to the extracted result, available once executed
+   */
+  public <T> Result<T> add(String sql, QueryResultExtractor<T> extractor) {
+    return add(sql, Collections.emptyMap(), extractor);
+  }
+
+  /**
+   * @param sql a query with named parameters
+   * @param bindings the values of the named parameters
+   * @param extractor extracts the query's results
+   * @param <T> the type returned by the extractor
+   * @return a handle to the extracted result, available once executed
+   */
+  public <T> Result<T> add(
+      String sql, Map<String, ?> bindings, QueryResultExtractor<T> extractor) {
+    check(sql != null && !sql.trim().isEmpty(), "sql must not be null or blank");
+    Objects.requireNonNull(bindings, "bindings (map) must not be null");
+    Objects.requireNonNull(extractor, "extractor must not be null");
+    Result<T> result = new Result<>(stripTrailingSemicolon(sql), bindings, extractor);
+    queries.add(result);
+    return result;
+  }
+
+  /** Runs every query added so far, making each one's extracted result available. */
+  public void execute() {
+    check(!queries.isEmpty(), "must add() at least one query");
+    jdbc.multiQuery(queries);
+  }
+
+  /** Whether the driver will run several `;`-separated statements given in a single SQL text. */
+  static boolean supportsMultiStatementText(DatabaseMetaData metaData) throws SQLException {
+    if (!metaData.supportsMultipleResultSets()) {
+      return false;
+    }
+    switch (Dialect.fromProductName(metaData.getDatabaseProductName())) {
+      case POSTGRESQL:
+      case SQL_SERVER:
+        return true;
+      case MYSQL:
+        // Connector/J rejects multi-statement text unless explicitly enabled
+        String url = metaData.getURL();
+        return url != null && url.contains("allowMultiQueries=true");
+      default:
+        return false;
+    }
+  }
+
+  private static String stripTrailingSemicolon(String sql) {
+    int end = sql.length();
+    while (end > 0) {
+      char c = sql.charAt(end - 1);
+      if (c != ';' && !Character.isWhitespace(c)) {
+        break;
+      }
+      end--;
+    }
+    return sql.substring(0, end);
+  }
+
+  /**
+   * The result of one query of a multi-query.
+   *
+   * @param <T> the type returned by the query's extractor
+   */
+  public static final class Result<T> {
+    private final String sql;
+    private final Map<String, ?> bindings;
+    private final QueryResultExtractor<T> extractor;
+    private boolean done;
+    private T value;
+
+    private Result(String sql, Map<String, ?> bindings, QueryResultExtractor<T> extractor) {
+      this.sql = sql;
+      this.bindings = bindings;
+      this.extractor = extractor;
+    }
+
+    /** @return the extracted result of the query */
+    public T get() {
+      check(done, "multi-query has not been executed yet");
+      return value;
+    }
+
+    String getSql() {
+      return sql;
+    }
+
+    Map<String, ?> getBindings() {
+      return bindings;
+    }
+
+    T extract(QueryResult queryResult) throws SQLException {
+      value = extractor.extract(queryResult);
+      done = true;
+      return value;
+    }
+  }
+}
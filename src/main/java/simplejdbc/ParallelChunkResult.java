@@ -0,0 +1,122 @@
+package simplejdbc;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Presents the rows of chunks queried in parallel, each buffered as a `BufferedResult`, as a single
+ * `QueryResult`, in chunk order. Each chunk's buffer is released once its rows are exhausted.
+ *
+ * <p>Should any chunk fail, the chunks yet to start are not run, and the statements still running
+ * under the (abortable) deadline are cancelled. Closing the result early does the same.
+ */
+class ParallelChunkResult extends QueryResult implements AutoCloseable {
+
+  private final List<CompletableFuture<BufferedResult>> chunks;
+  private final Deadline deadline;
+  private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+  private volatile boolean closed;
+  private int nextChunk;
+  private BufferedResult current;
+  private BufferedResult.Cursor cursor;
+
+  ParallelChunkResult(
+      List<CompletableFuture<BufferedResult>> chunks,
+      Deadline deadline,
+      ColumnExtractors columnExtractors) {
+    super(columnExtractors);
+    this.chunks = chunks;
+    this.deadline = deadline;
+    for (CompletableFuture<BufferedResult> chunk : chunks) {
+      chunk.whenComplete(
+          (rows, ex) -> {
+            if (ex != null) {
+              failed(ex instanceof CompletionException ? ex.getCause() : ex);
+            } else if (closed) {
+              // Finished after the rows were no longer wanted
+              rows.close();
+            }
+          });
+    }
+  }
+
+  @Override
+  public boolean next() {
+    while (true) {
+      if (cursor != null && cursor.next()) {
+        return true;
+      }
+      closeCurrent();
+      if (nextChunk == chunks.size()) {
+        return false;
+      }
+      current = await(chunks.get(nextChunk++));
+      cursor = current.cursor();
+    }
+  }
+
+  @Override
+  public <T> T getObject(String columnLabel, Class<T> type) {
+    return cursor.getObject(columnLabel, type);
+  }
+
+  /**
+   * @throws SimpleJdbcException always, as the rows were buffered and there is no `ResultSet`
+   */
+  @Override
+  public ResultSet toResultSet() {
+    throw new SimpleJdbcException("rows of parallel chunks are buffered, without a ResultSet");
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    closeCurrent();
+    cancelRest();
+    for (CompletableFuture<BufferedResult> chunk : chunks) {
+      BufferedResult rows = chunk.isCompletedExceptionally() ? null : chunk.getNow(null);
+      if (rows != null) {
+        rows.close();
+      }
+    }
+  }
+
+  private BufferedResult await(CompletableFuture<BufferedResult> chunk) {
+    try {
+      return chunk.join();
+    } catch (CompletionException | CancellationException ex) {
+      // Report the chunk which failed first, rather than one cancelled or aborted because of it
+      Throwable cause = firstFailure.get();
+      if (cause == null) {
+        cause = ex instanceof CompletionException ? ex.getCause() : ex;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new SimpleJdbcException(cause);
+    }
+  }
+
+  private void failed(Throwable cause) {
+    if (!(cause instanceof CancellationException) && firstFailure.compareAndSet(null, cause)) {
+      cancelRest();
+    }
+  }
+
+  private void cancelRest() {
+    chunks.forEach(chunk -> chunk.cancel(false));
+    deadline.abort();
+  }
+
+  private void closeCurrent() {
+    if (current != null) {
+      current.close();
+      current = null;
+      cursor = null;
+    }
+  }
+}
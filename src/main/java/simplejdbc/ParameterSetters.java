@@ -1,6 +1,13 @@
 package simplejdbc;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -11,8 +18,14 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ParameterSetters {
 
@@ -20,7 +33,14 @@ public class ParameterSetters {
     void set(PreparedStatement preparedStatement, int index, T value) throws SQLException;
   }
 
+  private static final ParameterSetter<Object> NULL_SETTER =
+      (preparedStatement, index, ignored) -> preparedStatement.setNull(index, Types.NULL);
+
   private final Map<Class<?>, ParameterSetter<?>> setterMap = new HashMap<>();
+  // Setters resolved through a supertype, by the concrete class bound
+  private final Map<Class<?>, ParameterSetter<?>> supertypeSetters = new ConcurrentHashMap<>();
+  // Bumped on every registration, so that setters resolved (and cached) earlier can be refreshed
+  private volatile int version;
 
   private ParameterSetters() {}
 
@@ -44,26 +64,125 @@ public class ParameterSetters {
         .registerSetter(
             LocalDate.class, (ps, index, value) -> ps.setDate(index, Date.valueOf(value)))
         .registerSetter(
-            LocalTime.class, (ps, index, value) -> ps.setTime(index, Time.valueOf(value)));
+            LocalTime.class, (ps, index, value) -> ps.setTime(index, Time.valueOf(value)))
+        .registerSetter(InputStream.class, PreparedStatement::setBinaryStream)
+        .registerSetter(Reader.class, PreparedStatement::setCharacterStream)
+        .registerSetter(ByteBuffer.class, ParameterSetters::setByteBuffer)
+        .registerSetter(Path.class, ParameterSetters::setPath)
+        .registerSetter(SqlArray.class, ParameterSetters::setArray);
+  }
+
+  private static void setArray(PreparedStatement ps, int index, SqlArray value)
+      throws SQLException {
+    Object[] elements = new Object[value.getElements().size()];
+    int i = 0;
+    for (Object element : value.getElements()) {
+      elements[i++] = toJdbcArrayElement(element);
+    }
+    ps.setArray(index, ps.getConnection().createArrayOf(value.getTypeName(), elements));
+  }
+
+  /** Drivers only understand `java.sql` date/time types inside arrays. */
+  private static Object toJdbcArrayElement(Object element) {
+    if (element instanceof Instant) {
+      return Timestamp.from((Instant) element);
+    }
+    if (element instanceof LocalDateTime) {
+      return Timestamp.valueOf((LocalDateTime) element);
+    }
+    if (element instanceof LocalDate) {
+      return Date.valueOf((LocalDate) element);
+    }
+    if (element instanceof LocalTime) {
+      return Time.valueOf((LocalTime) element);
+    }
+    if (element instanceof Character) {
+      return element.toString();
+    }
+    return element;
+  }
+
+  private static void setByteBuffer(PreparedStatement ps, int index, ByteBuffer value)
+      throws SQLException {
+    InputStream stream =
+        value.hasArray()
+            ? new ByteArrayInputStream(
+                value.array(), value.arrayOffset() + value.position(), value.remaining())
+            : new ByteBufferInputStream(value);
+    ps.setBinaryStream(index, stream, (long) value.remaining());
+  }
+
+  /**
+   * Streams the file to the driver, opening it only once the driver starts reading, and closing it
+   * once the driver has read it all, or else once the statement has run.
+   */
+  private static void setPath(PreparedStatement ps, int index, Path value) throws SQLException {
+    long size;
+    try {
+      size = Files.size(value);
+    } catch (IOException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+    ps.setBinaryStream(index, PathInputStream.bind(value, size), size);
   }
 
   public <T> ParameterSetters registerSetter(Class<T> type, ParameterSetter<T> setter) {
     setterMap.put(type, setter);
+    supertypeSetters.clear();
+    version++;
     return this;
   }
 
   @SuppressWarnings("unchecked")
   public <T> ParameterSetter<T> getSetter(T value) {
     if (value == null) {
-      return (preparedStatement, index, ignored) -> preparedStatement.setNull(index, Types.NULL);
+      return (ParameterSetter<T>) NULL_SETTER;
     }
     ParameterSetter<?> setter = setterMap.get(value.getClass());
+    if (setter == null) {
+      setter = supertypeSetters.computeIfAbsent(value.getClass(), this::findSupertypeSetter);
+    }
     if (setter == null) {
       throw new UnsupportedParameterTypeException(value.getClass());
     }
     return (ParameterSetter<T>) setter;
   }
 
+  int getVersion() {
+    return version;
+  }
+
+  /**
+   * Types such as `InputStream`, `ByteBuffer` and `Path` are almost never bound as themselves, but
+   * as one of their (often JDK-internal) implementations, so fall back to the most specific
+   * registered supertype: the nearest superclass, then the nearest interface (breadth first), and
+   * `Object` last.
+   */
+  private ParameterSetter<?> findSupertypeSetter(Class<?> type) {
+    for (Class<?> c = type.getSuperclass(); c != null && c != Object.class; c = c.getSuperclass()) {
+      ParameterSetter<?> setter = setterMap.get(c);
+      if (setter != null) {
+        return setter;
+      }
+    }
+    Deque<Class<?>> interfaces = new ArrayDeque<>();
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      interfaces.addAll(Arrays.asList(c.getInterfaces()));
+    }
+    Set<Class<?>> seen = new HashSet<>();
+    while (!interfaces.isEmpty()) {
+      Class<?> c = interfaces.removeFirst();
+      if (seen.add(c)) {
+        ParameterSetter<?> setter = setterMap.get(c);
+        if (setter != null) {
+          return setter;
+        }
+        interfaces.addAll(Arrays.asList(c.getInterfaces()));
+      }
+    }
+    return setterMap.get(Object.class);
+  }
+
   private static class UnsupportedParameterTypeException extends SimpleJdbcException {
     public UnsupportedParameterTypeException(Class<?> type) {
       super(String.format("No registered parameter setter for type '%s'", type.getSimpleName()));
@@ -14,42 +14,137 @@ public class ParameterizedQuery {
   private static final Pattern PARAM_REGEX =
       Pattern.compile("(?!\\B'[^']*)(?<!:):(\\w+)(?![^']*'\\B)");
 
-  @SuppressWarnings("rawtypes")
   static ParameterizedQuery from(String query, Map<String, ?> bindings) {
-    Objects.requireNonNull(query, "query is required, but was null");
-    Objects.requireNonNull(bindings, "bindings required, but was null");
+    return from(query, bindings, InListPadding.none());
+  }
+
+  static ParameterizedQuery from(
+      String query, Map<String, ?> bindings, InListPadding inListPadding) {
+    return parse(query).bind(bindings, inListPadding);
+  }
 
-    StringBuffer sb = new StringBuffer();
-    List<Object> parameters = new ArrayList<>();
+  /**
+   * Locates the named parameters in the query once, so that the query can then be bound to many
+   * sets of bindings (e.g. the rows of a batch) without scanning the SQL again.
+   */
+  static Template parse(String query) {
+    Objects.requireNonNull(query, "query is required, but was null");
+    List<String> segments = new ArrayList<>();
+    List<String> names = new ArrayList<>();
     Matcher m = PARAM_REGEX.matcher(query);
+    int last = 0;
     while (m.find()) {
-      String param = m.group(1);
-      if (!bindings.containsKey(param)) {
-        throw new MissingParameterBindingException(param);
-      }
-      Object value = bindings.get(param);
-      if (value instanceof Collection) {
-        StringJoiner multiParam = new StringJoiner(",");
-        for (Object subValue : (Collection) value) {
-          multiParam.add("?");
-          parameters.add(subValue);
+      segments.add(query.substring(last, m.start()));
+      names.add(m.group(1));
+      last = m.end();
+    }
+    segments.add(query.substring(last));
+    return new Template(segments, names);
+  }
+
+  /** Parsed templates for the most recently used SQL texts. */
+  static final class Templates {
+    // Generous for the statements of a typical application, while bounding memory should SQL
+    // text be generated dynamically
+    private static final int MAX_TEMPLATES = 2048;
+
+    private final LruCache<String, Template> templates = new LruCache<>(MAX_TEMPLATES);
+
+    Template get(String query) {
+      Objects.requireNonNull(query, "query is required, but was null");
+      Template template = templates.get(query);
+      return template != null ? template : templates.putIfAbsent(query, parse(query));
+    }
+  }
+
+  static class Template {
+    private final List<String> segments;
+    private final List<String> parameterNames;
+    // The SQL of every query bound from this template with no collection to expand
+    private final String scalarSql;
+    private final BindingPlan.Plans plans = new BindingPlan.Plans();
+
+    private Template(List<String> segments, List<String> parameterNames) {
+      this.segments = segments;
+      this.parameterNames = parameterNames;
+      this.scalarSql = String.join("?", segments);
+    }
+
+    /** @return the parameter names, in order of appearance (repeated names appear repeatedly) */
+    List<String> getParameterNames() {
+      return parameterNames;
+    }
+
+    /** @return the binding plans of the queries bound from this template */
+    BindingPlan.Plans getPlans() {
+      return plans;
+    }
+
+    /**
+     * Binds the parameters in order of appearance. Unless a binding is a collection, to be expanded
+     * into a bind site per element, the SQL text is the same for every set of bindings, so is
+     * built only once.
+     */
+    ParameterizedQuery bind(Map<String, ?> bindings, InListPadding inListPadding) {
+      Objects.requireNonNull(bindings, "bindings required, but was null");
+      List<Object> parameters = new ArrayList<>(parameterNames.size());
+      for (String param : parameterNames) {
+        if (!bindings.containsKey(param)) {
+          throw new MissingParameterBindingException(param);
+        }
+        Object value = bindings.get(param);
+        if (value instanceof Collection) {
+          return bindExpanding(bindings, inListPadding);
         }
-        m.appendReplacement(sb, multiParam.toString());
-      } else {
         parameters.add(value);
-        m.appendReplacement(sb, "?");
       }
+      return new ParameterizedQuery(scalarSql, parameters, this);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ParameterizedQuery bindExpanding(
+        Map<String, ?> bindings, InListPadding inListPadding) {
+      StringBuilder sb = new StringBuilder(segments.get(0));
+      List<Object> parameters = new ArrayList<>(parameterNames.size());
+      for (int p = 0; p < parameterNames.size(); p++) {
+        String param = parameterNames.get(p);
+        if (!bindings.containsKey(param)) {
+          throw new MissingParameterBindingException(param);
+        }
+        Object value = bindings.get(param);
+        if (value instanceof Collection) {
+          StringJoiner multiParam = new StringJoiner(",");
+          Object lastValue = null;
+          for (Object subValue : (Collection) value) {
+            multiParam.add("?");
+            parameters.add(subValue);
+            lastValue = subValue;
+          }
+          int size = ((Collection) value).size();
+          int paddedSize = inListPadding.paddedSize(size);
+          for (int i = size; i < paddedSize; i++) {
+            multiParam.add("?");
+            parameters.add(lastValue);
+          }
+          sb.append(multiParam);
+        } else {
+          parameters.add(value);
+          sb.append('?');
+        }
+        sb.append(segments.get(p + 1));
+      }
+      return new ParameterizedQuery(sb.toString(), parameters, this);
     }
-    m.appendTail(sb);
-    return new ParameterizedQuery(sb.toString(), parameters);
   }
 
   private final String query;
   private final List<Object> parameters;
+  private final Template template;
 
-  ParameterizedQuery(String query, List<Object> parameters) {
+  ParameterizedQuery(String query, List<Object> parameters, Template template) {
     this.query = query;
     this.parameters = parameters;
+    this.template = template;
   }
 
   public String getSql() {
@@ -60,6 +155,11 @@ public class ParameterizedQuery {
     return parameters;
   }
 
+  /** @return the template this query was bound from */
+  Template getTemplate() {
+    return template;
+  }
+
   public static class MissingParameterBindingException extends SimpleJdbcException {
     MissingParameterBindingException(String param) {
       super(String.format("no binding provided for parameter :%s", param));
@@ -0,0 +1,120 @@
+package simplejdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a file bound as a parameter. The file is only opened once the driver starts reading, and
+ * is closed as soon as the driver has read as many bytes as the file had when bound (drivers given
+ * a length read exactly that, without reading on to the end), since the caller never sees the
+ * stream to close it. Should the driver stop short, e.g. as the statement fails, the stream is
+ * closed by `closeBound()` once the statement has run.
+ */
+class PathInputStream extends InputStream {
+
+  // The streams bound by each thread since its last statement ran
+  private static final ThreadLocal<List<PathInputStream>> BOUND = new ThreadLocal<>();
+
+  private final Path path;
+  private long remaining;
+  private InputStream in;
+  private boolean done;
+
+  private PathInputStream(Path path, long size) {
+    this.path = path;
+    this.remaining = size;
+  }
+
+  /** Creates a stream of the file, to be closed by `closeBound()` should the driver not read it. */
+  static PathInputStream bind(Path path, long size) {
+    PathInputStream stream = new PathInputStream(path, size);
+    List<PathInputStream> bound = BOUND.get();
+    if (bound == null) {
+      bound = new ArrayList<>();
+      BOUND.set(bound);
+    }
+    bound.add(stream);
+    return stream;
+  }
+
+  /** Closes every stream this thread has bound, once the statement they were bound to has run. */
+  static void closeBound() {
+    List<PathInputStream> bound = BOUND.get();
+    if (bound == null) {
+      return;
+    }
+    BOUND.remove();
+    for (PathInputStream stream : bound) {
+      try {
+        stream.close();
+      } catch (IOException ignored) {
+        // Only read, so there is nothing to lose
+      }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (done) {
+      return -1;
+    }
+    int b = open().read();
+    if (b < 0 || --remaining <= 0) {
+      close();
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if (done) {
+      return -1;
+    }
+    int count = open().read(bytes, offset, length);
+    if (count < 0 || (remaining -= count) <= 0) {
+      close();
+    }
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (done) {
+      return 0;
+    }
+    long skipped = open().skip(n);
+    if ((remaining -= skipped) <= 0) {
+      close();
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return done ? 0 : open().available();
+  }
+
+  @Override
+  public void close() throws IOException {
+    done = true;
+    if (in != null) {
+      InputStream opened = in;
+      in = null;
+      opened.close();
+    }
+  }
+
+  private InputStream open() throws IOException {
+    if (in == null) {
+      in = Files.newInputStream(path);
+    }
+    return in;
+  }
+}
@@ -0,0 +1,218 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for the connection pool of `SimpleJdbc.pooled()`. Instances are immutable; each `with`
+ * method returns a modified copy.
+ *
+ * <pre>{@code
+ * PoolConfig config = PoolConfig.defaults().withMaxSize(4).withIdleTimeout(Duration.ofMinutes(1));
+ * }</pre>
+ */
+public final class PoolConfig {
+
+  private static final PoolConfig DEFAULTS =
+      new PoolConfig(
+          0,
+          10,
+          Duration.ofSeconds(30),
+          Duration.ofMinutes(10),
+          Duration.ofMinutes(30),
+          Duration.ofMillis(500),
+          Duration.ofSeconds(5));
+
+  private final int minSize;
+  private final int maxSize;
+  private final Duration connectionTimeout;
+  private final Duration idleTimeout;
+  private final Duration maxLifetime;
+  private final Duration validationSkipWindow;
+  private final Duration validationTimeout;
+
+  private PoolConfig(
+      int minSize,
+      int maxSize,
+      Duration connectionTimeout,
+      Duration idleTimeout,
+      Duration maxLifetime,
+      Duration validationSkipWindow,
+      Duration validationTimeout) {
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.connectionTimeout = connectionTimeout;
+    this.idleTimeout = idleTimeout;
+    this.maxLifetime = maxLifetime;
+    this.validationSkipWindow = validationSkipWindow;
+    this.validationTimeout = validationTimeout;
+  }
+
+  /**
+   * No idle connections are kept open at minimum, and at most 10 are open at once. Borrowing waits
+   * up to 30 seconds; connections are closed after 10 minutes idle or 30 minutes open, and are
+   * validated on borrow unless used within the last 500 milliseconds.
+   *
+   * @return the default settings
+   */
+  public static PoolConfig defaults() {
+    return DEFAULTS;
+  }
+
+  /**
+   * @param minSize the number of connections to keep open, even when idle; must be no greater
+   *     than the max size once the pool is created
+   * @return a copy of this config with the given minimum size
+   */
+  public PoolConfig withMinSize(int minSize) {
+    check(minSize >= 0, "min size must not be negative");
+    return new PoolConfig(
+        minSize,
+        maxSize,
+        connectionTimeout,
+        idleTimeout,
+        maxLifetime,
+        validationSkipWindow,
+        validationTimeout);
+  }
+
+  /**
+   * @param maxSize the most connections to have open at once
+   * @return a copy of this config with the given maximum size
+   */
+  public PoolConfig withMaxSize(int maxSize) {
+    check(maxSize > 0, "max size must be greater than zero");
+    return new PoolConfig(
+        minSize,
+        maxSize,
+        connectionTimeout,
+        idleTimeout,
+        maxLifetime,
+        validationSkipWindow,
+        validationTimeout);
+  }
+
+  /**
+   * @param connectionTimeout how long to wait for a connection, when all are in use, before failing
+   * @return a copy of this config with the given connection timeout
+   */
+  public PoolConfig withConnectionTimeout(Duration connectionTimeout) {
+    checkPositive(connectionTimeout, "connection timeout");
+    return new PoolConfig(
+        minSize,
+        maxSize,
+        connectionTimeout,
+        idleTimeout,
+        maxLifetime,
+        validationSkipWindow,
+        validationTimeout);
+  }
+
+  /**
+   * @param idleTimeout how long a connection may sit unused before it is closed (while the pool is
+   *     above its minimum size), or zero to keep idle connections open
+   * @return a copy of this config with the given idle timeout
+   */
+  public PoolConfig withIdleTimeout(Duration idleTimeout) {
+    checkNotNegative(idleTimeout, "idle timeout");
+    return new PoolConfig(
+        minSize,
+        maxSize,
+        connectionTimeout,
+        idleTimeout,
+        maxLifetime,
+        validationSkipWindow,
+        validationTimeout);
+  }
+
+  /**
+   * @param maxLifetime how long a connection may be open before it is retired, or zero for no limit
+   * @return a copy of this config with the given maximum lifetime
+   */
+  public PoolConfig withMaxLifetime(Duration maxLifetime) {
+    checkNotNegative(maxLifetime, "max lifetime");
+    return new PoolConfig(
+        minSize,
+        maxSize,
+        connectionTimeout,
+        idleTimeout,
+        maxLifetime,
+        validationSkipWindow,
+        validationTimeout);
+  }
+
+  /**
+   * @param validationSkipWindow how recently a connection must have been used for it to be borrowed
+   *     without first validating it, or zero to validate on every borrow
+   * @return a copy of this config with the given validation skip window
+   */
+  public PoolConfig withValidationSkipWindow(Duration validationSkipWindow) {
+    checkNotNegative(validationSkipWindow, "validation skip window");
+    return new PoolConfig(
+        minSize,
+        maxSize,
+        connectionTimeout,
+        idleTimeout,
+        maxLifetime,
+        validationSkipWindow,
+        validationTimeout);
+  }
+
+  /**
+   * @param validationTimeout how long to wait for `Connection.isValid()`, in whole seconds
+   * @return a copy of this config with the given validation timeout
+   */
+  public PoolConfig withValidationTimeout(Duration validationTimeout) {
+    check(
+        validationTimeout != null && validationTimeout.getSeconds() > 0,
+        "validation timeout must be at least one second");
+    return new PoolConfig(
+        minSize,
+        maxSize,
+        connectionTimeout,
+        idleTimeout,
+        maxLifetime,
+        validationSkipWindow,
+        validationTimeout);
+  }
+
+  public int getMinSize() {
+    return minSize;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public Duration getConnectionTimeout() {
+    return connectionTimeout;
+  }
+
+  public Duration getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public Duration getMaxLifetime() {
+    return maxLifetime;
+  }
+
+  public Duration getValidationSkipWindow() {
+    return validationSkipWindow;
+  }
+
+  public Duration getValidationTimeout() {
+    return validationTimeout;
+  }
+
+  private static void checkPositive(Duration duration, String name) {
+    Objects.requireNonNull(duration, name + " must not be null");
+    check(!duration.isNegative() && !duration.isZero(), name + " must be greater than zero");
+  }
+
+  private static void checkNotNegative(Duration duration, String name) {
+    Objects.requireNonNull(duration, name + " must not be null");
+    check(!duration.isNegative(), name + " must not be negative");
+  }
+}
@@ -0,0 +1,95 @@
+package simplejdbc;
+
+import java.time.Duration;
+
+/** A point-in-time snapshot of the state and history of a connection pool. */
+public final class PoolMetrics {
+
+  private final int totalConnections;
+  private final int idleConnections;
+  private final int pendingThreads;
+  private final long connectionsCreated;
+  private final long acquisitions;
+  private final long acquisitionTimeouts;
+  private final long totalAcquisitionNanos;
+  private final long maxAcquisitionNanos;
+
+  PoolMetrics(
+      int totalConnections,
+      int idleConnections,
+      int pendingThreads,
+      long connectionsCreated,
+      long acquisitions,
+      long acquisitionTimeouts,
+      long totalAcquisitionNanos,
+      long maxAcquisitionNanos) {
+    this.totalConnections = totalConnections;
+    this.idleConnections = idleConnections;
+    this.pendingThreads = pendingThreads;
+    this.connectionsCreated = connectionsCreated;
+    this.acquisitions = acquisitions;
+    this.acquisitionTimeouts = acquisitionTimeouts;
+    this.totalAcquisitionNanos = totalAcquisitionNanos;
+    this.maxAcquisitionNanos = maxAcquisitionNanos;
+  }
+
+  /** @return the number of open connections, whether in use or idle */
+  public int getTotalConnections() {
+    return totalConnections;
+  }
+
+  /** @return the number of open connections not currently in use */
+  public int getIdleConnections() {
+    return idleConnections;
+  }
+
+  /** @return the number of open connections currently in use */
+  public int getActiveConnections() {
+    return Math.max(0, totalConnections - idleConnections);
+  }
+
+  /** @return the number of threads waiting for a connection */
+  public int getPendingThreads() {
+    return pendingThreads;
+  }
+
+  /** @return the number of physical connections opened since the pool was created */
+  public long getConnectionsCreated() {
+    return connectionsCreated;
+  }
+
+  /** @return the number of connections successfully borrowed from the pool */
+  public long getAcquisitions() {
+    return acquisitions;
+  }
+
+  /** @return the number of borrows which failed, having waited the whole connection timeout */
+  public long getAcquisitionTimeouts() {
+    return acquisitionTimeouts;
+  }
+
+  /** @return the mean time taken to borrow a connection, including any wait or validation */
+  public Duration getMeanAcquisitionTime() {
+    return Duration.ofNanos(acquisitions == 0 ? 0 : totalAcquisitionNanos / acquisitions);
+  }
+
+  /** @return the longest time taken to borrow a connection */
+  public Duration getMaxAcquisitionTime() {
+    return Duration.ofNanos(maxAcquisitionNanos);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "PoolMetrics{total=%d, idle=%d, pending=%d, created=%d, acquisitions=%d, timeouts=%d,"
+            + " meanAcquisitionTime=%s, maxAcquisitionTime=%s}",
+        totalConnections,
+        idleConnections,
+        pendingThreads,
+        connectionsCreated,
+        acquisitions,
+        acquisitionTimeouts,
+        getMeanAcquisitionTime(),
+        getMaxAcquisitionTime());
+  }
+}
@@ -0,0 +1,89 @@
+package simplejdbc;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.sql.DataSource;
+
+/**
+ * A `SimpleJdbc` with its own pool of connections, for use with a `DataSource` which doesn't pool
+ * them itself (e.g. a plain driver `DataSource`). Must be closed, to close the pooled connections.
+ *
+ * @see SimpleJdbc#pooled(DataSource, PoolConfig)
+ */
+public final class PooledSimpleJdbc extends SimpleJdbc implements AutoCloseable {
+
+  private final ConnectionPool pool;
+  private final ThreadLocal<ConnectionPool.Entry> entryThreadLocal = new ThreadLocal<>();
+
+  PooledSimpleJdbc(
+      DataSource dataSource,
+      PoolConfig config,
+      ParameterSetters parameterSetters,
+      ColumnExtractors columnExtractors) {
+    super(parameterSetters, columnExtractors);
+    this.pool = new ConnectionPool(dataSource, config);
+  }
+
+  /** @return a snapshot of the pool's connections, and of the time taken to borrow them */
+  public PoolMetrics getMetrics() {
+    return pool.getMetrics();
+  }
+
+  /**
+   * Closes the pool's idle connections. Connections in use are closed once the calls using them
+   * complete, and no further connections are handed out.
+   */
+  @Override
+  public void close() {
+    pool.close();
+  }
+
+  @Override
+  int statement(String sql, Map<String, ?> bindings) {
+    return withConnection(conn -> statement(conn, sql, bindings));
+  }
+
+  @Override
+  int[] batchStatement(String sql, List<Map<String, ?>> batchedBindings) {
+    return withConnection(conn -> batchStatement(conn, sql, batchedBindings));
+  }
+
+  @Override
+  boolean canOpenConnections() {
+    return connectionThreadLocal.get() == null;
+  }
+
+  @Override
+  void sessionStateChanging() {
+    ConnectionPool.Entry entry = entryThreadLocal.get();
+    if (entry != null) {
+      entry.markDirty();
+    }
+  }
+
+  @Override
+  <T> T withConnection(Function<Connection, T> fn) {
+    if (connectionThreadLocal.get() != null) {
+      return fn.apply(connectionThreadLocal.get());
+    }
+    return limited(
+        () -> {
+          ConnectionPool.Entry entry = pool.borrow();
+          Throwable failure = null;
+          try {
+            connectionThreadLocal.set(entry.connection);
+            entryThreadLocal.set(entry);
+            return fn.apply(entry.connection);
+          } catch (Throwable ex) {
+            failure = ex;
+            throw ex;
+          } finally {
+            connectionThreadLocal.set(null);
+            entryThreadLocal.set(null);
+            pool.release(entry, failure);
+          }
+        });
+  }
+}
@@ -0,0 +1,185 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import simplejdbc.SimpleJdbc.QueryResultExtractor;
+
+/**
+ * A query (or statement) whose SQL has been parsed once, up front, to be executed many times with
+ * arguments given positionally: one per distinct named parameter, in order of first appearance.
+ *
+ * <p>Executions skip the named parameter parsing and binding map altogether, and the parameter
+ * setters are resolved once per combination of argument types rather than on every execution.
+ * Instances are immutable (bar that cache) and safe to share between threads.
+ *
+ * <pre>{@code
+ * PreparedQuery findName = jdbc.prepare("select name from person where id = :id");
+ * String name = findName.select(exactlyOne(row -> row.getString("name")), 123L);
+ * }</pre>
+ */
+public final class PreparedQuery {
+
+  private final SimpleJdbc jdbc;
+  private final String namedSql;
+  private final List<String> parameterNames;
+  private final String sql;
+  private final int[] argumentIndexes;
+  private final BindingPlan.Plans plans = new BindingPlan.Plans();
+  private volatile BindingPlan lastPlan;
+  private volatile int[] parameterTypes;
+
+  PreparedQuery(SimpleJdbc jdbc, String namedSql) {
+    check(namedSql != null && !namedSql.trim().isEmpty(), "sql must not be null or blank");
+    this.jdbc = jdbc;
+    this.namedSql = namedSql;
+    ParameterizedQuery.Template template = ParameterizedQuery.parse(namedSql);
+    List<String> sites = template.getParameterNames();
+    List<String> distinct = new ArrayList<>();
+    Map<String, Object> placeholders = new HashMap<>();
+    argumentIndexes = new int[sites.size()];
+    for (int i = 0; i < sites.size(); i++) {
+      int index = distinct.indexOf(sites.get(i));
+      if (index < 0) {
+        index = distinct.size();
+        distinct.add(sites.get(i));
+        placeholders.put(sites.get(i), null);
+      }
+      argumentIndexes[i] = index;
+    }
+    this.parameterNames = Collections.unmodifiableList(distinct);
+    this.sql = template.bind(placeholders, InListPadding.none()).getSql();
+  }
+
+  /**
+   * Executes the statement (e.g. an `insert` or `update`).
+   *
+   * @param args a value for each named parameter, in order of first appearance in the SQL
+   * @return the number of rows affected
+   */
+  public int execute(Object... args) {
+    checkArguments(args);
+    if (hasCollection(args)) {
+      return jdbc.statement(namedSql, toBindings(args));
+    }
+    List<Object> parameters = toParameters(args);
+    return jdbc.positionalStatement(sql, parameters, planFor(parameters));
+  }
+
+  /**
+   * Runs the query, handing its results to the extractor.
+   *
+   * @param extractor extracts the query's results
+   * @param args a value for each named parameter, in order of first appearance in the SQL
+   * @param <T> the type returned by the extractor
+   * @return the extracted results
+   */
+  public <T> T select(QueryResultExtractor<T> extractor, Object... args) {
+    Objects.requireNonNull(extractor, "extractor must not be null");
+    checkArguments(args);
+    if (hasCollection(args)) {
+      // Collections expand to a bind site per element, so the SQL can't be fixed in advance
+      return jdbc.query(namedSql, toBindings(args), extractor);
+    }
+    List<Object> parameters = toParameters(args);
+    return jdbc.positionalQuery(sql, parameters, planFor(parameters), extractor);
+  }
+
+  /**
+   * Prepares the statement on the given connection, so that (with drivers which prepare statements
+   * on the server) broken SQL is found now, and remembers the SQL type of each parameter, with
+   * which `null` arguments are then bound.
+   */
+  void warmUp(Connection conn) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+      ParameterMetaData metaData;
+      try {
+        metaData = stmt.getParameterMetaData();
+      } catch (SQLFeatureNotSupportedException ex) {
+        return;
+      }
+      if (metaData == null || metaData.getParameterCount() != argumentIndexes.length) {
+        return;
+      }
+      int[] types = new int[argumentIndexes.length];
+      try {
+        for (int i = 0; i < types.length; i++) {
+          types[i] = metaData.getParameterType(i + 1);
+        }
+      } catch (SQLException ex) {
+        // Some drivers (e.g. MySQL, without server-side prepares) can't tell parameter types
+        return;
+      }
+      parameterTypes = types;
+      lastPlan = null;
+    }
+  }
+
+  /** @return the distinct parameter names, in the order their arguments are given */
+  public List<String> getParameterNames() {
+    return parameterNames;
+  }
+
+  private void checkArguments(Object[] args) {
+    if (args == null || args.length != parameterNames.size()) {
+      StringJoiner names = new StringJoiner(", ", "(", ")");
+      parameterNames.forEach(name -> names.add(":" + name));
+      throw new SimpleJdbcException(
+          String.format(
+              "expected %d arguments %s, but got %d",
+              parameterNames.size(), names, args == null ? 0 : args.length));
+    }
+  }
+
+  private static boolean hasCollection(Object[] args) {
+    for (Object arg : args) {
+      if (arg instanceof Collection) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Map<String, Object> toBindings(Object[] args) {
+    Map<String, Object> bindings = new HashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      bindings.put(parameterNames.get(i), args[i]);
+    }
+    return bindings;
+  }
+
+  private List<Object> toParameters(Object[] args) {
+    Object[] parameters = new Object[argumentIndexes.length];
+    for (int i = 0; i < argumentIndexes.length; i++) {
+      parameters[i] = args[argumentIndexes[i]];
+    }
+    return Arrays.asList(parameters);
+  }
+
+  private BindingPlan planFor(List<Object> parameters) {
+    // Hot queries are mostly executed with the same argument types, so remember the last plan
+    BindingPlan plan = lastPlan;
+    if (plan == null || !plan.matches(parameters)) {
+      plan = jdbc.bindingPlan(plans, parameters);
+      int[] types = parameterTypes;
+      if (types != null) {
+        plan = plan.withNullTypes(types);
+      }
+      lastPlan = plan;
+    }
+    return plan;
+  }
+}
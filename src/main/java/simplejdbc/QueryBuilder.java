@@ -1,18 +1,32 @@
 package simplejdbc;
 
+import static simplejdbc.Util.check;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import simplejdbc.SimpleJdbc.QueryResultExtractor;
 import simplejdbc.SimpleJdbc.QueryRowResultExtractor;
 
 public class QueryBuilder {
 
+  private static final int DEFAULT_EXPORT_FETCH_SIZE = 1000;
+
   private final SimpleJdbc jdbc;
   private final String sql;
   private final Map<String, Object> bindings = new HashMap<>();
+  private StatementOptions options = StatementOptions.DEFAULT;
+  private int maxCollectionSize;
+  private Executor chunkExecutor;
+  private Duration timeout;
 
   QueryBuilder(SimpleJdbc jdbc, String sql) {
     this.jdbc = jdbc;
@@ -24,15 +38,211 @@ public class QueryBuilder {
     return this;
   }
 
+  /**
+   * Binds the given collection as a single SQL array parameter rather than expanding it into one
+   * bind site per element, e.g. for use with PostgreSQL's `where id = any(:ids)`.
+   *
+   * @param name the parameter name
+   * @param typeName the database type name of the array elements, e.g. `bigint`
+   * @param values the array elements
+   * @return this builder
+   * @see SqlArray
+   */
+  public QueryBuilder bindArray(String name, String typeName, Collection<?> values) {
+    return bind(name, SqlArray.of(typeName, values));
+  }
+
   public QueryBuilder bindAll(Map<String, ?> bindings) {
     Objects.requireNonNull(bindings, "bindings (map) must not be null");
     this.bindings.putAll(bindings);
     return this;
   }
 
+  /**
+   * Hints to the driver how many rows to fetch per round trip, so that large results can be
+   * streamed rather than loaded into memory all at once. Note that some drivers (e.g. PostgreSQL)
+   * only honor this inside a transaction.
+   *
+   * @param fetchSize the number of rows to fetch per round trip
+   * @return this builder
+   */
+  public QueryBuilder fetchSize(int fetchSize) {
+    options = options.withFetchSize(fetchSize);
+    return this;
+  }
+
+  /**
+   * Allows the query to be hedged, should it be run by a `HedgedSimpleJdbc`: issued again to
+   * another replica should the first be slow to return, and so possibly run twice. Only for
+   * queries which don't write (not e.g. `insert ... returning`, `select ... for update` or
+   * `nextval()`). Ignored by other `SimpleJdbc`s, and within a transaction or session.
+   *
+   * @return this builder
+   * @see HedgedSimpleJdbc
+   */
+  public QueryBuilder hedged() {
+    options = options.withHedging();
+    return this;
+  }
+
+  /**
+   * Splits the query into several, should a collection binding have more than `maxCollectionSize`
+   * elements (e.g. to stay within the database's bind parameter or `in` list limits). The rows of
+   * all chunks are presented to the extractor as if they came from a single query.
+   *
+   * <p>This is only suitable for queries whose results can simply be concatenated, such as lookups
+   * by `where id in (:ids)`, and not for queries which order, limit or aggregate across rows.
+   *
+   * <p>Chunks are sized so that, once padded by `SimpleJdbc.padInLists()`, their collections still
+   * expand to no more than `maxCollectionSize` bind sites.
+   *
+   * @param maxCollectionSize the most bind sites a collection binding may expand to per query
+   * @return this builder
+   */
+  public QueryBuilder chunkCollections(int maxCollectionSize) {
+    check(maxCollectionSize > 0, "max collection size must be greater than zero");
+    this.maxCollectionSize = maxCollectionSize;
+    return this;
+  }
+
+  /**
+   * Like {@link #chunkCollections(int)}, but runs the chunks in parallel on the given executor,
+   * each on its own connection, buffering each chunk's rows (off the heap, as a `BufferedResult`)
+   * until they are extracted. Should any chunk fail, the others are cancelled. Falls back to
+   * running the chunks one after another when a connection is already pinned to the current
+   * thread, e.g. inside a transaction.
+   *
+   * <p>As with `BufferedResult`, the rows are read through the `QueryRowResult` getters only:
+   * custom `ColumnExtractors` don't apply, and `toResultSet()` is not available.
+   *
+   * @param maxCollectionSize the most elements a collection binding may expand to per query
+   * @param executor the executor to run chunks on
+   * @return this builder
+   */
+  public QueryBuilder chunkCollections(int maxCollectionSize, Executor executor) {
+    this.chunkExecutor = Objects.requireNonNull(executor, "executor must not be null");
+    return chunkCollections(maxCollectionSize);
+  }
+
+  /**
+   * Cancels the query should it not complete (including the extraction of its rows) within the
+   * given time, throwing a `QueryTimeoutException`. Within `SimpleJdbc.withTimeout()`, the earlier
+   * deadline applies.
+   *
+   * @param timeout the time allowed
+   * @return this builder
+   */
+  public QueryBuilder timeout(Duration timeout) {
+    this.timeout = Deadline.checkTimeout(timeout);
+    return this;
+  }
+
+  /**
+   * Tails the query's rows as they are added, polling at the given interval (backing off while
+   * idle) for rows past the highest watermark seen so far, and delivering them in batches.
+   *
+   * @param watermarkColumn a unique column whose values only ever increase, e.g. an identity `id`
+   * @param interval how long to wait between polls while rows are arriving
+   * @param rowMapper reads each row
+   * @param consumer receives each batch of rows
+   * @return the running watch, to be closed when no longer needed
+   * @see #watch(WatchConfig, QueryRowResultExtractor, TableWatch.BatchConsumer)
+   */
+  public <T> TableWatch<T> watch(
+      String watermarkColumn,
+      Duration interval,
+      QueryRowResultExtractor<T> rowMapper,
+      TableWatch.BatchConsumer<T> consumer) {
+    return watch(WatchConfig.on(watermarkColumn).withInterval(interval), rowMapper, consumer);
+  }
+
+  /**
+   * Tails the query's rows as they are added (or changed), polling for rows past the highest
+   * watermark (and tie-breaker) seen so far. The query is wrapped, as `select * from (<sql>) w`,
+   * to filter and order by the watermark, so must not order its own rows. A timeout applies to
+   * each poll.
+   *
+   * @param config the watermark column, and how to poll, e.g. `WatchConfig.on("id")`
+   * @param rowMapper reads each row
+   * @param consumer receives each batch of rows, on the watch's own thread
+   * @return the running watch, to be closed when no longer needed
+   */
+  public <T> TableWatch<T> watch(
+      WatchConfig config,
+      QueryRowResultExtractor<T> rowMapper,
+      TableWatch.BatchConsumer<T> consumer) {
+    Objects.requireNonNull(config, "watch config must not be null");
+    Objects.requireNonNull(rowMapper, "row mapper must not be null");
+    Objects.requireNonNull(consumer, "consumer must not be null");
+    check(maxCollectionSize == 0, "watch() does not support chunkCollections()");
+    TableWatch<T> watch =
+        new TableWatch<>(jdbc, sql, bindings, timeout, config, rowMapper, consumer);
+    watch.start();
+    return watch;
+  }
+
   public <T> T select(QueryResultExtractor<T> extractor) {
     Objects.requireNonNull(extractor, "query result extractor must not be null");
-    return jdbc.query(sql, bindings, extractor);
+    return execute(options, chunkExecutor, extractor);
+  }
+
+  private <T> T execute(
+      StatementOptions options, Executor chunkExecutor, QueryResultExtractor<T> extractor) {
+    if (timeout != null) {
+      return Deadline.within(timeout, () -> executeNow(options, chunkExecutor, extractor));
+    }
+    return executeNow(options, chunkExecutor, extractor);
+  }
+
+  private <T> T executeNow(
+      StatementOptions options, Executor chunkExecutor, QueryResultExtractor<T> extractor) {
+    if (maxCollectionSize > 0) {
+      List<Map<String, ?>> chunks =
+          CollectionChunker.split(bindings, maxCollectionSize, jdbc.getInListPadding());
+      if (chunks.size() > 1) {
+        return jdbc.queryChunks(sql, chunks, options, chunkExecutor, extractor);
+      }
+    }
+    return jdbc.query(sql, bindings, options, extractor);
+  }
+
+  /**
+   * Streams every row of the query result to the given channel in the given format, without
+   * materializing the result. The channel is not closed.
+   *
+   * <p>Unless a {@link #fetchSize(int)} was given, rows are fetched 1000 at a time. Outside of a
+   * transaction, the export runs with auto-commit turned off (and then restored), as some drivers
+   * (e.g. PostgreSQL) otherwise ignore the fetch size, and read the whole result into memory.
+   *
+   * <p>With {@link #chunkCollections(int)}, the rows of every chunk are exported in turn (even
+   * given an executor). Should no chunk return any rows, nothing is written, not even a CSV header.
+   *
+   * @param target the channel to write to
+   * @param format the output format
+   * @return the number of rows written
+   */
+  public long exportTo(WritableByteChannel target, ExportFormat format) {
+    Objects.requireNonNull(target, "export target must not be null");
+    Objects.requireNonNull(format, "export format must not be null");
+    StatementOptions exportOptions =
+        options.hasFetchSize() ? options : options.withFetchSize(DEFAULT_EXPORT_FETCH_SIZE);
+    // Chunks are exported one after another, streamed rather than buffered
+    return jdbc.withCursor(
+        () -> execute(exportOptions, null, new ResultSetExporter(target, format)));
+  }
+
+  /**
+   * Streams every row of the query result to the given stream in the given format, without
+   * materializing the result. The stream is neither flushed nor closed.
+   *
+   * @param target the stream to write to
+   * @param format the output format
+   * @return the number of rows written
+   * @see #exportTo(WritableByteChannel, ExportFormat)
+   */
+  public long exportTo(OutputStream target, ExportFormat format) {
+    Objects.requireNonNull(target, "export target must not be null");
+    return exportTo(Channels.newChannel(target), format);
   }
 
   /**
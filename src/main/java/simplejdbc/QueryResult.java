@@ -20,6 +20,13 @@ public class QueryResult implements QueryRowResult {
     this.columnExtractors = columnExtractors;
   }
 
+  /** For subclasses which move across several underlying `ResultSet`s. */
+  QueryResult(ColumnExtractors columnExtractors) {
+    Objects.requireNonNull(columnExtractors, "ColumnExtractors not provided");
+    this.resultSet = null;
+    this.columnExtractors = columnExtractors;
+  }
+
   public boolean next() {
     try {
       return resultSet.next();
@@ -30,7 +37,7 @@ public class QueryResult implements QueryRowResult {
 
   public <T> T getObject(String columnLabel, Class<T> type) {
     try {
-      return columnExtractors.getExtractor(type).extract(resultSet, columnLabel);
+      return columnExtractors.getExtractor(type).extract(toResultSet(), columnLabel);
     } catch (SQLException ex) {
       throw new SimpleJdbcException(ex);
     }
@@ -2,9 +2,13 @@ package simplejdbc;
 
 import static simplejdbc.Util.check;
 
+import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import simplejdbc.SimpleJdbc.QueryResultExtractor;
 import simplejdbc.SimpleJdbc.QueryRowResultExtractor;
 
@@ -50,4 +54,93 @@ public class QueryResultExtractors {
       return result;
     };
   }
+
+  /**
+   * Extracts every row as an immutable `Map` from column label to value (as given by
+   * `ResultSet.getObject()`). The rows share a single index of the column labels, so each holds
+   * little more than an array of its values.
+   */
+  public static QueryResultExtractor<List<Map<String, Object>>> maps() {
+    return queryResult -> {
+      List<Map<String, Object>> rows = new ArrayList<>();
+      RowMap.Columns columns = null;
+      while (queryResult.next()) {
+        ResultSet resultSet = queryResult.toResultSet();
+        if (columns == null) {
+          columns = RowMap.Columns.of(resultSet.getMetaData());
+        }
+        rows.add(columns.read(resultSet));
+      }
+      return rows;
+    };
+  }
+
+  /**
+   * Folds the rows of a parent-child JOIN into parents holding their children, in one pass: each
+   * parent is created by the first row with its key, and every row's child is added to it. Rows may
+   * come in any order, though parents keep the order of their first rows.
+   *
+   * @param parentKey reads the parent's key from a row
+   * @param parentMapper creates the parent from the first row with its key
+   * @param childMapper creates the child from a row, or returns `null` where the row has none (e.g.
+   *     from a LEFT JOIN without a match)
+   * @param addChild adds a child to its parent
+   * @return an extractor of the parents
+   * @see #grouped(RowGroup)
+   */
+  public static <P, C> QueryResultExtractor<List<P>> grouped(
+      QueryRowResultExtractor<?> parentKey,
+      QueryRowResultExtractor<P> parentMapper,
+      QueryRowResultExtractor<C> childMapper,
+      BiConsumer<? super P, ? super C> addChild) {
+    return grouped(
+        RowGroup.by(parentKey, parentMapper).withChildren(RowGroup.of(childMapper), addChild));
+  }
+
+  /**
+   * Folds the rows of a JOIN into a graph of objects, nested as deeply as the given levels, in one
+   * pass. Objects are found again by key through a hash index at each level, so rows may come in
+   * any order, though objects keep the order of their first rows. This replaces a query for the
+   * parents, followed by a query per parent for its children.
+   *
+   * @param group the top level of the graph
+   * @return an extractor of the top level's objects
+   */
+  public static <T> QueryResultExtractor<List<T>> grouped(RowGroup<T> group) {
+    check(group != null, "group must not be null");
+    return queryResult -> {
+      List<T> returnValue = new ArrayList<>();
+      Map<Object, RowGroup.Node<T>> members = new HashMap<>();
+      while (queryResult.next()) {
+        T added = group.fold(queryResult, members);
+        if (added != null) {
+          returnValue.add(added);
+        }
+      }
+      return returnValue;
+    };
+  }
+
+  /**
+   * Buffers every row outside of the Java heap, for results too large to comfortably hold as
+   * objects, or which must be read more than once. Up to 64 MiB is held in direct memory, and the
+   * remainder in a memory-mapped temporary file.
+   *
+   * @see #buffered(long)
+   */
+  public static QueryResultExtractor<BufferedResult> buffered() {
+    return buffered(BufferedResult.DEFAULT_MEMORY_BUDGET);
+  }
+
+  /**
+   * Buffers every row outside of the Java heap. The returned result must be closed.
+   *
+   * @param memoryBudget the most bytes of direct memory to use, before spilling to a temporary
+   *     file
+   * @return an extractor of the buffered rows
+   */
+  public static QueryResultExtractor<BufferedResult> buffered(long memoryBudget) {
+    check(memoryBudget >= 0, "memory budget must not be negative");
+    return queryResult -> BufferedResult.from(queryResult, memoryBudget);
+  }
 }
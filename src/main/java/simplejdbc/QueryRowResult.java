@@ -1,6 +1,11 @@
 package simplejdbc;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.sql.ResultSet;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -64,6 +69,58 @@ public interface QueryRowResult {
     return getObject(columnLabel, LocalTime.class);
   }
 
+  /**
+   * Returns the column as a stream of bytes (e.g. a BLOB or bytea). Whether the value is streamed
+   * from the database or already buffered by the driver depends on the driver.
+   *
+   * @param columnLabel the label of the column
+   * @return the column value as an `InputStream`, or `null` if the column was `null`
+   */
+  default InputStream getBinaryStream(String columnLabel) {
+    return getObject(columnLabel, InputStream.class);
+  }
+
+  /**
+   * Returns the column as a stream of characters (e.g. a CLOB or text).
+   *
+   * @param columnLabel the label of the column
+   * @return the column value as a `Reader`, or `null` if the column was `null`
+   */
+  default Reader getCharacterStream(String columnLabel) {
+    return getObject(columnLabel, Reader.class);
+  }
+
+  /**
+   * Writes a binary column straight into the given channel (e.g. a `FileChannel` or socket),
+   * without materializing the whole value as a `byte[]`. The channel is not closed.
+   *
+   * @param columnLabel the label of the column
+   * @param target the channel to write the column value to
+   * @return the number of bytes written; zero if the column was `null`
+   */
+  default long transferBinaryTo(String columnLabel, WritableByteChannel target) {
+    try (InputStream in = getBinaryStream(columnLabel)) {
+      if (in == null) {
+        return 0;
+      }
+      ByteBuffer buffer = Util.copyBuffer();
+      byte[] chunk = buffer.array();
+      long total = 0;
+      int read;
+      while ((read = in.read(chunk)) != -1) {
+        buffer.clear();
+        buffer.limit(read);
+        while (buffer.hasRemaining()) {
+          target.write(buffer);
+        }
+        total += read;
+      }
+      return total;
+    } catch (IOException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+  }
+
   interface OptionalView {
 
     QueryRowResult box();
@@ -123,5 +180,13 @@ public interface QueryRowResult {
     default Optional<LocalTime> getLocalTime(String columnLabel) {
       return getObject(columnLabel, LocalTime.class);
     }
+
+    default Optional<InputStream> getBinaryStream(String columnLabel) {
+      return getObject(columnLabel, InputStream.class);
+    }
+
+    default Optional<Reader> getCharacterStream(String columnLabel) {
+      return getObject(columnLabel, Reader.class);
+    }
   }
 }
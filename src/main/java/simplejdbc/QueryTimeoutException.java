@@ -0,0 +1,19 @@
+package simplejdbc;
+
+import java.time.Duration;
+
+/** Thrown when a query or statement runs out of time, and has been cancelled. */
+public class QueryTimeoutException extends SimpleJdbcException {
+
+  private final Duration timeout;
+
+  QueryTimeoutException(Duration timeout, Throwable cause) {
+    super(String.format("query timed out after %d ms", timeout.toMillis()), cause);
+    this.timeout = timeout;
+  }
+
+  /** @return the timeout which ran out */
+  public Duration getTimeout() {
+    return timeout;
+  }
+}
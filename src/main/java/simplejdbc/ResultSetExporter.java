@@ -0,0 +1,471 @@
+package simplejdbc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import simplejdbc.SimpleJdbc.QueryResultExtractor;
+
+/**
+ * Streams every row of a query result to a channel as CSV or NDJSON, returning the number of rows
+ * written.
+ *
+ * <p>Values are encoded straight into a single reusable direct buffer, which is only handed to the
+ * channel once full. Numbers, booleans and date/time values are written digit by digit rather than
+ * going through an intermediate `String`, and text is UTF-8 encoded (and escaped) in place.
+ */
+class ResultSetExporter implements QueryResultExtractor<Long> {
+
+  private static final int BUFFER_SIZE = 256 * 1024;
+  // Room needed for the largest single fixed-width write (e.g. a long, or one escaped character)
+  private static final int MAX_FIXED_WIDTH = 32;
+
+  private static final byte[] NULL = ascii("null");
+  private static final byte[] TRUE = ascii("true");
+  private static final byte[] FALSE = ascii("false");
+  private static final byte[] LONG_MIN_VALUE = ascii(Long.toString(Long.MIN_VALUE));
+  private static final byte[] HEX = ascii("0123456789abcdef");
+
+  private enum ColumnKind {
+    BOOLEAN,
+    INTEGER,
+    FLOATING,
+    DECIMAL,
+    TIMESTAMP,
+    TIMESTAMP_WITH_TIMEZONE,
+    DATE,
+    TIME,
+    BINARY,
+    TEXT
+  }
+
+  private final WritableByteChannel target;
+  private final boolean json;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  ResultSetExporter(WritableByteChannel target, ExportFormat format) {
+    this.target = target;
+    this.json = format == ExportFormat.NDJSON;
+  }
+
+  @Override
+  public Long extract(QueryResult queryResult) throws SQLException {
+    // A chunked query's rows come from several result sets, the first only opened by next()
+    boolean hasRow = queryResult.next();
+    ResultSet resultSet = queryResult.toResultSet();
+    if (resultSet == null) {
+      return 0L;
+    }
+    ResultSetMetaData metaData = resultSet.getMetaData();
+    int columnCount = metaData.getColumnCount();
+    ColumnKind[] kinds = new ColumnKind[columnCount];
+    byte[][] prefixes = new byte[columnCount][];
+    for (int i = 0; i < columnCount; i++) {
+      kinds[i] = kindOf(metaData.getColumnType(i + 1));
+      String label = metaData.getColumnLabel(i + 1);
+      String separator = i == 0 ? "" : ",";
+      prefixes[i] =
+          (json ? separator + quoteJson(label) + ":" : separator).getBytes(StandardCharsets.UTF_8);
+    }
+    try {
+      if (!json) {
+        for (int i = 0; i < columnCount; i++) {
+          write(prefixes[i]);
+          writeText(metaData.getColumnLabel(i + 1));
+        }
+        writeByte('\n');
+      }
+      long rows = 0;
+      while (hasRow) {
+        resultSet = queryResult.toResultSet();
+        if (json) {
+          writeByte('{');
+        }
+        for (int i = 0; i < columnCount; i++) {
+          write(prefixes[i]);
+          writeValue(resultSet, i + 1, kinds[i]);
+        }
+        if (json) {
+          writeByte('}');
+        }
+        writeByte('\n');
+        rows++;
+        hasRow = queryResult.next();
+      }
+      flush();
+      return rows;
+    } catch (IOException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+  }
+
+  private static ColumnKind kindOf(int sqlType) {
+    switch (sqlType) {
+      case Types.BIT:
+      case Types.BOOLEAN:
+        return ColumnKind.BOOLEAN;
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIGINT:
+        return ColumnKind.INTEGER;
+      case Types.REAL:
+      case Types.FLOAT:
+      case Types.DOUBLE:
+        return ColumnKind.FLOATING;
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        return ColumnKind.DECIMAL;
+      case Types.TIMESTAMP:
+        return ColumnKind.TIMESTAMP;
+      case Types.TIMESTAMP_WITH_TIMEZONE:
+        return ColumnKind.TIMESTAMP_WITH_TIMEZONE;
+      case Types.DATE:
+        return ColumnKind.DATE;
+      case Types.TIME:
+        return ColumnKind.TIME;
+      case Types.BINARY:
+      case Types.VARBINARY:
+      case Types.LONGVARBINARY:
+      case Types.BLOB:
+        return ColumnKind.BINARY;
+      default:
+        return ColumnKind.TEXT;
+    }
+  }
+
+  private void writeValue(ResultSet rs, int column, ColumnKind kind)
+      throws SQLException, IOException {
+    switch (kind) {
+      case BOOLEAN:
+        boolean booleanValue = rs.getBoolean(column);
+        if (rs.wasNull()) {
+          writeNull();
+        } else {
+          write(booleanValue ? TRUE : FALSE);
+        }
+        return;
+      case INTEGER:
+        long longValue = rs.getLong(column);
+        if (rs.wasNull()) {
+          writeNull();
+        } else {
+          writeLong(longValue);
+        }
+        return;
+      case FLOATING:
+        double doubleValue = rs.getDouble(column);
+        if (rs.wasNull()) {
+          writeNull();
+        } else if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+          // Not representable as a JSON number
+          writeText(Double.toString(doubleValue));
+        } else {
+          writeAscii(Double.toString(doubleValue));
+        }
+        return;
+      case DECIMAL:
+        BigDecimal decimalValue = rs.getBigDecimal(column);
+        if (decimalValue == null) {
+          writeNull();
+        } else {
+          writeAscii(decimalValue.toPlainString());
+        }
+        return;
+      case TIMESTAMP:
+      case TIMESTAMP_WITH_TIMEZONE:
+        Timestamp timestamp = rs.getTimestamp(column);
+        if (timestamp == null) {
+          writeNull();
+        } else {
+          writeJsonQuote();
+          if (kind == ColumnKind.TIMESTAMP) {
+            writeDateTime(timestamp.toLocalDateTime());
+          } else {
+            writeDateTime(LocalDateTime.ofInstant(timestamp.toInstant(), ZoneOffset.UTC));
+            writeByte('Z');
+          }
+          writeJsonQuote();
+        }
+        return;
+      case DATE:
+        Date date = rs.getDate(column);
+        if (date == null) {
+          writeNull();
+        } else {
+          writeJsonQuote();
+          writeDate(date.toLocalDate());
+          writeJsonQuote();
+        }
+        return;
+      case TIME:
+        Time time = rs.getTime(column);
+        if (time == null) {
+          writeNull();
+        } else {
+          writeJsonQuote();
+          writeTime(time.toLocalTime());
+          writeJsonQuote();
+        }
+        return;
+      case BINARY:
+        byte[] bytes = rs.getBytes(column);
+        if (bytes == null) {
+          writeNull();
+        } else {
+          writeJsonQuote();
+          write(Base64.getEncoder().encode(bytes));
+          writeJsonQuote();
+        }
+        return;
+      default:
+        String text = rs.getString(column);
+        if (text == null) {
+          writeNull();
+        } else {
+          writeText(text);
+        }
+    }
+  }
+
+  private void writeNull() throws IOException {
+    if (json) {
+      write(NULL);
+    }
+  }
+
+  private void writeJsonQuote() throws IOException {
+    if (json) {
+      writeByte('"');
+    }
+  }
+
+  private void writeText(String text) throws IOException {
+    if (json) {
+      writeByte('"');
+      writeUtf8(text, true);
+      writeByte('"');
+    } else if (text.isEmpty() || needsCsvQuoting(text)) {
+      // An empty string is quoted to tell it apart from null
+      writeByte('"');
+      writeUtf8(text, true);
+      writeByte('"');
+    } else {
+      writeUtf8(text, false);
+    }
+  }
+
+  private static boolean needsCsvQuoting(String text) {
+    for (int i = 0, n = text.length(); i < n; i++) {
+      char c = text.charAt(i);
+      if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void writeUtf8(String text, boolean escape) throws IOException {
+    for (int i = 0, n = text.length(); i < n; i++) {
+      ensureRoom(MAX_FIXED_WIDTH);
+      char c = text.charAt(i);
+      if (c < 0x80) {
+        if (escape) {
+          writeEscapedAscii(c);
+        } else {
+          buffer.put((byte) c);
+        }
+      } else if (c < 0x800) {
+        buffer.put((byte) (0xC0 | (c >> 6)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < n
+          && Character.isLowSurrogate(text.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, text.charAt(++i));
+        buffer.put((byte) (0xF0 | (codePoint >> 18)));
+        buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+        buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+      } else if (Character.isSurrogate(c)) {
+        buffer.put((byte) '?');
+      } else {
+        buffer.put((byte) (0xE0 | (c >> 12)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      }
+    }
+  }
+
+  private void writeEscapedAscii(char c) {
+    if (!json) {
+      if (c == '"') {
+        buffer.put((byte) '"');
+      }
+      buffer.put((byte) c);
+      return;
+    }
+    switch (c) {
+      case '"':
+      case '\\':
+        buffer.put((byte) '\\').put((byte) c);
+        return;
+      case '\n':
+        buffer.put((byte) '\\').put((byte) 'n');
+        return;
+      case '\r':
+        buffer.put((byte) '\\').put((byte) 'r');
+        return;
+      case '\t':
+        buffer.put((byte) '\\').put((byte) 't');
+        return;
+      default:
+        if (c < 0x20) {
+          buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0');
+          buffer.put(HEX[c >> 4]).put(HEX[c & 0xF]);
+        } else {
+          buffer.put((byte) c);
+        }
+    }
+  }
+
+  private void writeLong(long value) throws IOException {
+    ensureRoom(MAX_FIXED_WIDTH);
+    if (value == Long.MIN_VALUE) {
+      buffer.put(LONG_MIN_VALUE);
+      return;
+    }
+    if (value < 0) {
+      buffer.put((byte) '-');
+      value = -value;
+    }
+    int digits = 1;
+    for (long remaining = value; remaining >= 10; remaining /= 10) {
+      digits++;
+    }
+    int end = buffer.position() + digits;
+    for (int position = end - 1; position >= buffer.position(); position--) {
+      buffer.put(position, (byte) ('0' + value % 10));
+      value /= 10;
+    }
+    buffer.position(end);
+  }
+
+  private void writePadded(int value, int width) throws IOException {
+    ensureRoom(MAX_FIXED_WIDTH);
+    int start = buffer.position();
+    for (int position = start + width - 1; position >= start; position--) {
+      buffer.put(position, (byte) ('0' + value % 10));
+      value /= 10;
+    }
+    buffer.position(start + width);
+  }
+
+  private void writeDate(LocalDate date) throws IOException {
+    int year = date.getYear();
+    if (year >= 0 && year <= 9999) {
+      writePadded(year, 4);
+    } else {
+      writeLong(year);
+    }
+    writeByte('-');
+    writePadded(date.getMonthValue(), 2);
+    writeByte('-');
+    writePadded(date.getDayOfMonth(), 2);
+  }
+
+  private void writeTime(LocalTime time) throws IOException {
+    writePadded(time.getHour(), 2);
+    writeByte(':');
+    writePadded(time.getMinute(), 2);
+    writeByte(':');
+    writePadded(time.getSecond(), 2);
+    int nanos = time.getNano();
+    if (nanos != 0) {
+      writeByte('.');
+      // Same precision rules as LocalTime.toString(): millis, micros or nanos
+      if (nanos % 1_000_000 == 0) {
+        writePadded(nanos / 1_000_000, 3);
+      } else if (nanos % 1_000 == 0) {
+        writePadded(nanos / 1_000, 6);
+      } else {
+        writePadded(nanos, 9);
+      }
+    }
+  }
+
+  private void writeDateTime(LocalDateTime dateTime) throws IOException {
+    writeDate(dateTime.toLocalDate());
+    writeByte('T');
+    writeTime(dateTime.toLocalTime());
+  }
+
+  private void writeAscii(String ascii) throws IOException {
+    for (int i = 0, n = ascii.length(); i < n; i++) {
+      ensureRoom(1);
+      buffer.put((byte) ascii.charAt(i));
+    }
+  }
+
+  private void writeByte(char c) throws IOException {
+    ensureRoom(1);
+    buffer.put((byte) c);
+  }
+
+  private void write(byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      if (!buffer.hasRemaining()) {
+        flush();
+      }
+      int count = Math.min(buffer.remaining(), bytes.length - offset);
+      buffer.put(bytes, offset, count);
+      offset += count;
+    }
+  }
+
+  private void ensureRoom(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      target.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private static String quoteJson(String text) {
+    StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+    for (int i = 0, n = text.length(); i < n; i++) {
+      char c = text.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  private static byte[] ascii(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+}
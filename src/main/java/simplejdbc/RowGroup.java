@@ -0,0 +1,162 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import simplejdbc.SimpleJdbc.QueryRowResultExtractor;
+
+/**
+ * One level of an object graph folded out of a JOIN result by `QueryResultExtractors.grouped()`:
+ * how to tell its objects apart, how to create each one from its first row, and the levels nested
+ * beneath it. Immutable, so may be shared and reused.
+ *
+ * <pre>{@code
+ * RowGroup<Order> orders =
+ *     RowGroup.by(row -> row.getLong("order_id"), row -> new Order(row.getLong("order_id")))
+ *         .withChildren(
+ *             RowGroup.by(row -> row.getLong("line_id"), row -> new Line(row.getString("sku"))),
+ *             Order::addLine);
+ * }</pre>
+ *
+ * @param <T> the type of object at this level
+ */
+public final class RowGroup<T> {
+
+  private final QueryRowResultExtractor<?> keyExtractor;
+  private final QueryRowResultExtractor<T> mapper;
+  private final List<Child<T, ?>> children;
+
+  private RowGroup(
+      QueryRowResultExtractor<?> keyExtractor,
+      QueryRowResultExtractor<T> mapper,
+      List<Child<T, ?>> children) {
+    this.keyExtractor = keyExtractor;
+    this.mapper = mapper;
+    this.children = children;
+  }
+
+  /**
+   * A level whose objects are told apart by key: the first row with a given key creates the object,
+   * and later rows with that key only add to its children. Rows with a `null` key (e.g. from a LEFT
+   * JOIN without a match) have no object at this level, nor beneath it.
+   *
+   * @param keyExtractor reads the object's key, e.g. its primary key, from a row
+   * @param mapper creates the object from the first row with its key
+   */
+  public static <T> RowGroup<T> by(
+      QueryRowResultExtractor<?> keyExtractor, QueryRowResultExtractor<T> mapper) {
+    check(keyExtractor != null, "key extractor must not be null");
+    check(mapper != null, "mapper must not be null");
+    return new RowGroup<>(keyExtractor, mapper, Collections.emptyList());
+  }
+
+  /**
+   * A level with one object per row, for leaves which are never repeated by the JOIN. Rows for
+   * which the mapper returns `null` have no object at this level.
+   *
+   * @param mapper creates the object from its row
+   */
+  public static <T> RowGroup<T> of(QueryRowResultExtractor<T> mapper) {
+    check(mapper != null, "mapper must not be null");
+    return new RowGroup<>(null, mapper, Collections.emptyList());
+  }
+
+  /**
+   * @param childGroup the level nested beneath this one
+   * @param addChild adds each new child object to its parent
+   * @return a copy of this level, with the given level nested beneath it
+   */
+  public <C> RowGroup<T> withChildren(
+      RowGroup<C> childGroup, BiConsumer<? super T, ? super C> addChild) {
+    check(childGroup != null, "child group must not be null");
+    check(addChild != null, "addChild must not be null");
+    List<Child<T, ?>> withChild = new ArrayList<>(children);
+    withChild.add(new Child<>(childGroup, addChild, children.size()));
+    return new RowGroup<>(keyExtractor, mapper, Collections.unmodifiableList(withChild));
+  }
+
+  /**
+   * Folds a row into the objects of this level, and those beneath it.
+   *
+   * @param members the objects of this level seen so far (under the same parent), by key; `null`
+   *     for a level without keys, whose objects are never looked up
+   * @return the object the row added to this level, or `null` if it added none
+   */
+  T fold(QueryRowResult row, Map<Object, Node<T>> members) throws SQLException {
+    Node<T> node;
+    boolean added = false;
+    if (keyExtractor == null) {
+      T value = mapper.extract(row);
+      if (value == null) {
+        return null;
+      }
+      node = new Node<>(value, children.size());
+      added = true;
+    } else {
+      Object key = keyExtractor.extract(row);
+      if (key == null) {
+        return null;
+      }
+      node = members.get(key);
+      if (node == null) {
+        T value = mapper.extract(row);
+        if (value == null) {
+          return null;
+        }
+        node = new Node<>(value, children.size());
+        members.put(key, node);
+        added = true;
+      }
+    }
+    for (int i = 0; i < children.size(); i++) {
+      children.get(i).fold(row, node);
+    }
+    return added ? node.value : null;
+  }
+
+  /** An object, and the objects of each level beneath it, by key. */
+  static final class Node<T> {
+    private final T value;
+    private final Map<?, ?>[] children;
+
+    private Node(T value, int childGroups) {
+      this.value = value;
+      this.children = new Map<?, ?>[childGroups];
+    }
+
+    @SuppressWarnings("unchecked")
+    private <C> Map<Object, Node<C>> children(int i) {
+      if (children[i] == null) {
+        children[i] = new HashMap<Object, Node<C>>();
+      }
+      return (Map<Object, Node<C>>) children[i];
+    }
+  }
+
+  private static final class Child<T, C> {
+    private final RowGroup<C> group;
+    private final BiConsumer<? super T, ? super C> addChild;
+    private final int index;
+
+    private Child(RowGroup<C> group, BiConsumer<? super T, ? super C> addChild, int index) {
+      this.group = group;
+      this.addChild = addChild;
+      this.index = index;
+    }
+
+    private void fold(QueryRowResult row, Node<T> parent) throws SQLException {
+      // Only keyed levels look their objects up, so only they need a map under each parent
+      C child =
+          group.fold(row, group.keyExtractor == null ? null : parent.<C>children(index));
+      if (child != null) {
+        addChild.accept(parent.value, child);
+      }
+    }
+  }
+}
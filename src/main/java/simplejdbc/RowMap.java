@@ -0,0 +1,118 @@
+package simplejdbc;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable row, as a `Map` from column label to value. Every row of a result shares one
+ * column index, so a row holds nothing but its values, rather than a hash table of its own.
+ */
+final class RowMap extends AbstractMap<String, Object> {
+
+  /** The column labels of a result, and where each one's value is found within a row. */
+  static final class Columns {
+    private final String[] labels;
+    private final int[] columnIndexes;
+    private final Map<String, Integer> positions;
+
+    private Columns(String[] labels, int[] columnIndexes, Map<String, Integer> positions) {
+      this.labels = labels;
+      this.columnIndexes = columnIndexes;
+      this.positions = positions;
+    }
+
+    static Columns of(ResultSetMetaData metaData) throws SQLException {
+      // Should a label be repeated (e.g. `id` from both sides of a join), the last one wins, just
+      // as it would when put() into a HashMap column by column
+      Map<String, Integer> lastIndexes = new HashMap<>();
+      List<String> labels = new ArrayList<>();
+      for (int i = 1; i <= metaData.getColumnCount(); i++) {
+        String label = metaData.getColumnLabel(i);
+        if (lastIndexes.put(label, i) == null) {
+          labels.add(label);
+        }
+      }
+      String[] labelArray = labels.toArray(new String[0]);
+      int[] columnIndexes = new int[labelArray.length];
+      Map<String, Integer> positions = new HashMap<>();
+      for (int i = 0; i < labelArray.length; i++) {
+        columnIndexes[i] = lastIndexes.get(labelArray[i]);
+        positions.put(labelArray[i], i);
+      }
+      return new Columns(labelArray, columnIndexes, positions);
+    }
+
+    RowMap read(ResultSet resultSet) throws SQLException {
+      Object[] values = new Object[labels.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = resultSet.getObject(columnIndexes[i]);
+      }
+      return new RowMap(this, values);
+    }
+  }
+
+  private final Columns columns;
+  private final Object[] values;
+
+  private RowMap(Columns columns, Object[] values) {
+    this.columns = columns;
+    this.values = values;
+  }
+
+  @Override
+  public Object get(Object key) {
+    Integer position = columns.positions.get(key);
+    return position == null ? null : values[position];
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return columns.positions.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return new Iterator<Entry<String, Object>>() {
+          private int position;
+
+          @Override
+          public boolean hasNext() {
+            return position < values.length;
+          }
+
+          @Override
+          public Entry<String, Object> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            int current = position++;
+            return new SimpleImmutableEntry<>(columns.labels[current], values[current]);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return values.length;
+      }
+    };
+  }
+}
@@ -0,0 +1,37 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+/** Identifies one shard (i.e. one database) of a `ShardedSimpleJdbc`. */
+public final class ShardId {
+
+  private final String name;
+
+  private ShardId(String name) {
+    this.name = name;
+  }
+
+  public static ShardId of(String name) {
+    check(name != null && !name.isEmpty(), "shard name must not be null or empty");
+    return new ShardId(name);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof ShardId && name.equals(((ShardId) o).name);
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
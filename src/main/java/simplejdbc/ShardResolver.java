@@ -0,0 +1,12 @@
+package simplejdbc;
+
+/** Decides which shard holds the data for a shard key (e.g. a tenant ID). */
+@FunctionalInterface
+public interface ShardResolver {
+
+  /**
+   * @param shardKey the shard key, as given to `ShardedSimpleJdbc.onShard()`
+   * @return the shard holding the key's data
+   */
+  ShardId resolve(Object shardKey);
+}
@@ -0,0 +1,208 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import simplejdbc.SimpleJdbc.QueryResultExtractor;
+import simplejdbc.SimpleJdbc.QueryRowResultExtractor;
+
+public class ShardedQueryBuilder {
+
+  private final ShardedSimpleJdbc jdbc;
+  private final String sql;
+  private final Map<String, Object> bindings = new HashMap<>();
+  private int fetchSize;
+
+  ShardedQueryBuilder(ShardedSimpleJdbc jdbc, String sql) {
+    this.jdbc = jdbc;
+    this.sql = sql;
+  }
+
+  public <T> ShardedQueryBuilder bind(String name, T value) {
+    bindings.put(name, value);
+    return this;
+  }
+
+  public ShardedQueryBuilder bindArray(String name, String typeName, Collection<?> values) {
+    return bind(name, SqlArray.of(typeName, values));
+  }
+
+  public ShardedQueryBuilder bindAll(Map<String, ?> bindings) {
+    Objects.requireNonNull(bindings, "bindings (map) must not be null");
+    this.bindings.putAll(bindings);
+    return this;
+  }
+
+  /** @see QueryBuilder#fetchSize(int) */
+  public ShardedQueryBuilder fetchSize(int fetchSize) {
+    check(fetchSize > 0, "fetch size must be greater than zero");
+    this.fetchSize = fetchSize;
+    return this;
+  }
+
+  /**
+   * Routes the query to the shard holding the given key's data.
+   *
+   * @param shardKey the shard key, e.g. a tenant ID
+   * @return the query, bound to run on that shard
+   */
+  public QueryBuilder onShard(Object shardKey) {
+    QueryBuilder query = jdbc.onShard(shardKey).query(sql).bindAll(bindings);
+    return fetchSize > 0 ? query.fetchSize(fetchSize) : query;
+  }
+
+  /**
+   * Runs the query on every shard in parallel (each on its own connection), gathering the results.
+   *
+   * @return the query, to be run across all shards
+   */
+  public AcrossAllShards acrossAllShards() {
+    StatementOptions options = StatementOptions.DEFAULT;
+    if (fetchSize > 0) {
+      options = options.withFetchSize(fetchSize);
+    }
+    return new AcrossAllShards(jdbc, sql, new HashMap<>(bindings), options);
+  }
+
+  public static final class AcrossAllShards {
+    private final ShardedSimpleJdbc jdbc;
+    private final String sql;
+    private final Map<String, Object> bindings;
+    private final StatementOptions options;
+    private int limit;
+
+    private AcrossAllShards(
+        ShardedSimpleJdbc jdbc,
+        String sql,
+        Map<String, Object> bindings,
+        StatementOptions options) {
+      this.jdbc = jdbc;
+      this.sql = sql;
+      this.bindings = bindings;
+      this.options = options;
+    }
+
+    /**
+     * Returns at most `limit` rows in total. As no shard can contribute more than that, each is
+     * asked for at most `limit` rows too (via `Statement.setMaxRows()`), sparing it from reading
+     * and sending rows which would be discarded.
+     *
+     * @param limit the most rows to return
+     * @return this builder
+     */
+    public AcrossAllShards limit(int limit) {
+      check(limit > 0, "limit must be greater than zero");
+      this.limit = limit;
+      return this;
+    }
+
+    /**
+     * Runs the query on every shard, extracting each shard's result separately (e.g. for partial
+     * aggregates to be combined by the caller).
+     *
+     * @param extractor extracts each shard's results
+     * @param <T> the type returned by the extractor
+     * @return each shard's extracted result, in the order the shards were given
+     */
+    public <T> Map<ShardId, T> select(QueryResultExtractor<T> extractor) {
+      Objects.requireNonNull(extractor, "query result extractor must not be null");
+      return jdbc.queryAll(sql, bindings, pushedDownOptions(), extractor);
+    }
+
+    /**
+     * Runs the query on every shard, concatenating the rows in the order the shards were given.
+     * With a {@link #limit(int)}, which rows are returned is arbitrary.
+     *
+     * @param rowExtractor a callback to process a QueryRowResult for each returned row
+     * @param <T> the type of object returned by the provided rowExtractor
+     * @return a `List` containing the mapped objects
+     */
+    public <T> List<T> selectList(QueryRowResultExtractor<T> rowExtractor) {
+      Objects.requireNonNull(rowExtractor, "row extractor must not be null");
+      List<T> rows = new ArrayList<>();
+      for (List<T> shardRows : select(rows(rowExtractor, null)).values()) {
+        rows.addAll(shardRows.subList(0, Math.min(shardRows.size(), remaining(rows))));
+      }
+      return rows;
+    }
+
+    /**
+     * Runs the query on every shard, merging the rows into a single order. The query must sort
+     * each shard's rows in that same order (i.e. `order by` the same key as the comparator), so
+     * that the rows can be merged as they are, rather than sorted all over again.
+     *
+     * @param rowExtractor a callback to process a QueryRowResult for each returned row
+     * @param order the order of the rows, matching the query's `order by`
+     * @param <T> the type of object returned by the provided rowExtractor
+     * @return a `List` containing the mapped objects, in order
+     * @throws SimpleJdbcException if a shard's rows are not in the given order
+     */
+    public <T> List<T> selectOrdered(
+        QueryRowResultExtractor<T> rowExtractor, Comparator<? super T> order) {
+      Objects.requireNonNull(rowExtractor, "row extractor must not be null");
+      Objects.requireNonNull(order, "order must not be null");
+      List<List<T>> shardRows = new ArrayList<>(select(rows(rowExtractor, order)).values());
+      return merge(shardRows, order, limit);
+    }
+
+    private StatementOptions pushedDownOptions() {
+      return limit > 0 ? options.withMaxRows(limit) : options;
+    }
+
+    private int remaining(List<?> rows) {
+      return limit > 0 ? limit - rows.size() : Integer.MAX_VALUE;
+    }
+
+    private <T> QueryResultExtractor<List<T>> rows(
+        QueryRowResultExtractor<T> rowExtractor, Comparator<? super T> order) {
+      return queryResult -> {
+        List<T> rows = new ArrayList<>();
+        while (remaining(rows) > 0 && queryResult.next()) {
+          T row = rowExtractor.extract(queryResult);
+          check(
+              order == null || rows.isEmpty() || order.compare(rows.get(rows.size() - 1), row) <= 0,
+              "rows are not in the order given to selectOrdered(); the query must order by the"
+                  + " same key");
+          rows.add(row);
+        }
+        return rows;
+      };
+    }
+  }
+
+  /** Merges already sorted lists, taking the head of whichever list is least, k-way. */
+  static <T> List<T> merge(List<List<T>> sortedLists, Comparator<? super T> order, int limit) {
+    int[] positions = new int[sortedLists.size()];
+    // Ties go to the earlier list, so the merge is stable
+    PriorityQueue<Integer> heads =
+        new PriorityQueue<>(
+            Math.max(1, sortedLists.size()),
+            Comparator.<Integer, T>comparing(
+                    list -> sortedLists.get(list).get(positions[list]), order)
+                .thenComparing(Comparator.naturalOrder()));
+    int total = 0;
+    for (int i = 0; i < sortedLists.size(); i++) {
+      total += sortedLists.get(i).size();
+      if (!sortedLists.get(i).isEmpty()) {
+        heads.add(i);
+      }
+    }
+    int size = limit > 0 ? Math.min(limit, total) : total;
+    List<T> merged = new ArrayList<>(size);
+    while (merged.size() < size) {
+      int list = heads.remove();
+      merged.add(sortedLists.get(list).get(positions[list]++));
+      if (positions[list] < sortedLists.get(list).size()) {
+        heads.add(list);
+      }
+    }
+    return merged;
+  }
+}
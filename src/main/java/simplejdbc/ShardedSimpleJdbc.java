@@ -0,0 +1,184 @@
+package simplejdbc;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static simplejdbc.Util.check;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import simplejdbc.SimpleJdbc.QueryResultExtractor;
+
+/**
+ * Data split across several databases (shards), e.g. by tenant. Operations for one shard key are
+ * routed to the shard holding it, and queries can be run across every shard at once.
+ *
+ * <pre>{@code
+ * ShardedSimpleJdbc jdbc = SimpleJdbc.sharded(dataSources, tenantId -> shardFor(tenantId));
+ * jdbc.onShard(tenantId).insert().into("invoice").set("tenant_id", tenantId)...execute();
+ * List<Invoice> latest =
+ *     jdbc.query("select * from invoice order by created_at desc")
+ *         .acrossAllShards()
+ *         .limit(100)
+ *         .selectOrdered(Invoice::fromRow, comparing(Invoice::getCreatedAt).reversed());
+ * }</pre>
+ *
+ * @see SimpleJdbc#sharded(Map, ShardResolver)
+ */
+public final class ShardedSimpleJdbc {
+
+  private static final class DefaultExecutor {
+    // Threads block on I/O for the life of a query, so there are plenty, but not so many that a
+    // burst of fan-outs opens a connection per shard per thread; beyond this, shard queries queue.
+    // Idle threads are reclaimed after a minute
+    private static final int MAX_THREADS = 64;
+    private static final ExecutorService INSTANCE = create();
+
+    private static ExecutorService create() {
+      ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(
+              MAX_THREADS,
+              MAX_THREADS,
+              1,
+              MINUTES,
+              new LinkedBlockingQueue<>(),
+              Util.daemonThreadFactory("simplejdbc-shard-fan-out"));
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+
+  private final Map<ShardId, SimpleJdbc> shards;
+  private final ShardResolver shardResolver;
+  private volatile Executor fanOutExecutor;
+
+  ShardedSimpleJdbc(Map<ShardId, SimpleJdbc> shards, ShardResolver shardResolver) {
+    check(!shards.isEmpty(), "at least one shard is required");
+    this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+    this.shardResolver = Objects.requireNonNull(shardResolver, "shard resolver must not be null");
+  }
+
+  /**
+   * Runs queries across all shards on the given executor, rather than on a shared pool of (at most
+   * 64) daemon threads. Should be configured before use.
+   *
+   * @param executor the executor to run each shard's query on
+   * @return this instance
+   */
+  public ShardedSimpleJdbc fanOutOn(Executor executor) {
+    this.fanOutExecutor = Objects.requireNonNull(executor, "executor must not be null");
+    return this;
+  }
+
+  /**
+   * @param shardKey the shard key, e.g. a tenant ID
+   * @return the shard holding the key's data, on which any operation may be run
+   */
+  public SimpleJdbc onShard(Object shardKey) {
+    ShardId shardId = shardResolver.resolve(shardKey);
+    SimpleJdbc shard = shardId == null ? null : shards.get(shardId);
+    if (shard == null) {
+      throw new SimpleJdbcException(
+          String.format("shard key %s resolved to unknown shard %s", shardKey, shardId));
+    }
+    return shard;
+  }
+
+  /**
+   * @param shardId the shard's ID
+   * @return the shard with the given ID
+   */
+  public SimpleJdbc shard(ShardId shardId) {
+    SimpleJdbc shard = shards.get(shardId);
+    check(shard != null, "unknown shard " + shardId);
+    return shard;
+  }
+
+  /** @return the IDs of every shard, in the order given when created */
+  public Set<ShardId> getShardIds() {
+    return shards.keySet();
+  }
+
+  public ShardedQueryBuilder query(String sql) {
+    return new ShardedQueryBuilder(this, sql);
+  }
+
+  /**
+   * Runs the query on every shard in parallel, returning each shard's extracted result. Should any
+   * shard fail, the queries still running on the others are cancelled, and those yet to start are
+   * not run at all.
+   */
+  <T> Map<ShardId, T> queryAll(
+      String sql,
+      Map<String, ?> bindings,
+      StatementOptions options,
+      QueryResultExtractor<T> extractor) {
+    Executor executor = fanOutExecutor == null ? DefaultExecutor.INSTANCE : fanOutExecutor;
+    Deadline deadline = Deadline.abortable();
+    CompletableFuture<ShardId> firstFailure = new CompletableFuture<>();
+    Map<ShardId, CompletableFuture<T>> futures = new LinkedHashMap<>();
+    shards.forEach(
+        (shardId, shard) -> {
+          CompletableFuture<T> future =
+              CompletableFuture.supplyAsync(
+                  Deadline.propagate(
+                      deadline, () -> shard.query(sql, bindings, options, extractor)),
+                  executor);
+          future.whenComplete(
+              (result, ex) -> {
+                if (ex != null) {
+                  firstFailure.complete(shardId);
+                }
+              });
+          futures.put(shardId, future);
+        });
+    CompletableFuture<Void> all =
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]));
+    try {
+      CompletableFuture.anyOf(all, firstFailure).join();
+    } catch (CompletionException ex) {
+      // A shard failed, and is found below
+    }
+    ShardId failed = firstFailure.getNow(null);
+    if (failed == null) {
+      failed = firstFailed(futures);
+    }
+    if (failed != null) {
+      futures.values().forEach(future -> future.cancel(false));
+      deadline.abort();
+      Throwable cause = failureOf(futures.get(failed));
+      if (cause instanceof QueryTimeoutException) {
+        throw (QueryTimeoutException) cause;
+      }
+      throw new SimpleJdbcException("query failed on shard " + failed, cause);
+    }
+    Map<ShardId, T> results = new LinkedHashMap<>();
+    futures.forEach((shardId, future) -> results.put(shardId, future.join()));
+    return results;
+  }
+
+  private static ShardId firstFailed(Map<ShardId, ? extends CompletableFuture<?>> futures) {
+    for (Map.Entry<ShardId, ? extends CompletableFuture<?>> future : futures.entrySet()) {
+      if (future.getValue().isCompletedExceptionally()) {
+        return future.getKey();
+      }
+    }
+    return null;
+  }
+
+  private static Throwable failureOf(CompletableFuture<?> future) {
+    try {
+      future.join();
+      return null;
+    } catch (CompletionException ex) {
+      return ex.getCause();
+    }
+  }
+}
@@ -1,21 +1,39 @@
 package simplejdbc;
 
+import static simplejdbc.Util.check;
+
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
+import simplejdbc.ChainedQueryResult.ResultSetSource;
 import simplejdbc.InsertBuilder.BatchInsert;
 
 public abstract class SimpleJdbc {
 
   protected final ThreadLocal<Connection> connectionThreadLocal = new ThreadLocal<>();
-  private final ParameterSetters parameterSetters;
   private final ColumnExtractors columnExtractors;
+  private final ParameterSetters parameterSetters;
+  private final ParameterizedQuery.Templates templates = new ParameterizedQuery.Templates();
+  private volatile InListPadding inListPadding = InListPadding.none();
+  private volatile ConcurrencyLimiter concurrencyLimiter;
+  private volatile Map<String, PreparedQuery> namedQueries = Collections.emptyMap();
+  private volatile UpsertBuilder.Dialect upsertDialect;
 
   public static SimpleJdbc using(DataSource dataSource) {
     return new DataSourceSimpleJdbc(
@@ -37,9 +55,121 @@ public abstract class SimpleJdbc {
     return new SingleConnectionSimpleJdbc(connection, parameterSetters, columnExtractors);
   }
 
-  private SimpleJdbc(ParameterSetters parameterSetters, ColumnExtractors columnExtractors) {
-    this.parameterSetters = parameterSetters;
+  /**
+   * Pools the connections of a `DataSource` which doesn't pool them itself (e.g. a plain driver
+   * `DataSource`), so that calls don't each open a new physical connection. There is no need for
+   * this with a pooling `DataSource` (e.g. HikariCP); use `using()` instead.
+   *
+   * @param dataSource the source of physical connections
+   * @param config the pool's settings, e.g. `PoolConfig.defaults()`
+   * @return an instance which must be closed, to close the pooled connections
+   */
+  public static PooledSimpleJdbc pooled(DataSource dataSource, PoolConfig config) {
+    return pooled(dataSource, config, ParameterSetters.defaults(), ColumnExtractors.defaults());
+  }
+
+  public static PooledSimpleJdbc pooled(
+      DataSource dataSource,
+      PoolConfig config,
+      ParameterSetters parameterSetters,
+      ColumnExtractors columnExtractors) {
+    Objects.requireNonNull(dataSource, "data source must not be null");
+    Objects.requireNonNull(config, "pool config must not be null");
+    return new PooledSimpleJdbc(dataSource, config, parameterSetters, columnExtractors);
+  }
+
+  /**
+   * Combines databases which each hold a share of the data (e.g. of some tenants), routing
+   * operations for a shard key to the shard holding it, and running queries across all of them.
+   *
+   * @param shards the `DataSource` of each shard
+   * @param shardResolver decides which shard holds a shard key
+   * @return an instance routing between the shards
+   */
+  public static ShardedSimpleJdbc sharded(
+      Map<ShardId, DataSource> shards, ShardResolver shardResolver) {
+    return sharded(
+        shards, shardResolver, ParameterSetters.defaults(), ColumnExtractors.defaults());
+  }
+
+  public static ShardedSimpleJdbc sharded(
+      Map<ShardId, DataSource> shards,
+      ShardResolver shardResolver,
+      ParameterSetters parameterSetters,
+      ColumnExtractors columnExtractors) {
+    Objects.requireNonNull(shards, "shards must not be null");
+    Map<ShardId, SimpleJdbc> shardJdbcs = new LinkedHashMap<>();
+    shards.forEach(
+        (shardId, dataSource) ->
+            shardJdbcs.put(
+                Objects.requireNonNull(shardId, "shard ID must not be null"),
+                using(
+                    Objects.requireNonNull(dataSource, "data source must not be null"),
+                    parameterSetters,
+                    columnExtractors)));
+    return new ShardedSimpleJdbc(shardJdbcs, shardResolver);
+  }
+
+  /**
+   * Hedges queries against a slow replica of a database: should a query not have returned its
+   * first results from the first replica within the policy's delay, it is issued again to another
+   * replica, and whichever returns first is used.
+   *
+   * @param replicas the `DataSource` of each replica; all but queries run on the first
+   * @param policy when, and how often, to hedge, e.g. `HedgePolicy.afterObservedP95(...)`
+   * @return an instance hedging its queries
+   */
+  public static HedgedSimpleJdbc hedged(List<DataSource> replicas, HedgePolicy policy) {
+    return hedged(replicas, policy, ParameterSetters.defaults(), ColumnExtractors.defaults());
+  }
+
+  public static HedgedSimpleJdbc hedged(
+      List<DataSource> replicas,
+      HedgePolicy policy,
+      ParameterSetters parameterSetters,
+      ColumnExtractors columnExtractors) {
+    Objects.requireNonNull(replicas, "replicas must not be null");
+    Objects.requireNonNull(policy, "hedge policy must not be null");
+    return new HedgedSimpleJdbc(replicas, policy, parameterSetters, columnExtractors);
+  }
+
+  SimpleJdbc(ParameterSetters parameterSetters, ColumnExtractors columnExtractors) {
     this.columnExtractors = columnExtractors;
+    this.parameterSetters = parameterSetters;
+  }
+
+  /**
+   * Pads every collection binding (e.g. `where id in (:ids)`) up to a bucketed size, so that lists
+   * of differing lengths share a statement shape, and with it server-side and driver statement
+   * caches. Should be configured before use.
+   *
+   * @param inListPadding the padding strategy, e.g. `InListPadding.powersOfTwo()`
+   * @return this instance
+   */
+  public SimpleJdbc padInLists(InListPadding inListPadding) {
+    this.inListPadding = Objects.requireNonNull(inListPadding, "in-list padding must not be null");
+    return this;
+  }
+
+  InListPadding getInListPadding() {
+    return inListPadding;
+  }
+
+  /**
+   * Bounds the operations which may use the database at once, adapting the bound to the latency
+   * they see, so that a slow database is not swamped by ever more waiting calls. Operations over
+   * the limit wait up to the limit's max wait for another to complete, and are otherwise rejected
+   * with a `ConcurrencyLimitExceededException`. An operation holds its place for as long as it
+   * holds a connection, so a transaction or session counts once. Has no effect on an instance
+   * using a single `Connection`. Should be configured before use.
+   *
+   * @param concurrencyLimit the limit's settings, e.g. `ConcurrencyLimit.defaults()`
+   * @return this instance
+   */
+  public SimpleJdbc limitConcurrency(ConcurrencyLimit concurrencyLimit) {
+    Objects.requireNonNull(concurrencyLimit, "concurrency limit must not be null");
+    this.concurrencyLimiter = new ConcurrencyLimiter(concurrencyLimit);
+    return this;
   }
 
   public QueryBuilder query(String sql) {
@@ -54,10 +184,120 @@ public abstract class SimpleJdbc {
     return new StatementBatchBuilder(this, sql);
   }
 
+  /**
+   * Parses the SQL once, returning a handle which can then be executed many times with positional
+   * arguments (one per distinct named parameter, in order of first appearance).
+   *
+   * @param sql the SQL, with named parameters
+   * @return a reusable, thread-safe prepared query
+   */
+  public PreparedQuery prepare(String sql) {
+    return new PreparedQuery(this, sql);
+  }
+
+  /**
+   * Combines the single-key lookups of concurrent callers into one query per batch of keys, with
+   * the default settings: keys are collected for up to 2 milliseconds, or until there are 100.
+   *
+   * @param sqlWithInList the SQL, with a single named parameter for the keys, e.g. `select * from
+   *     person where id in (:ids)`
+   * @param keyExtractor reads each row's key, to hand the row to whoever asked for it
+   * @param rowMapper reads each row
+   * @return a thread-safe loader, to be shared between callers
+   */
+  public <K, V> BatchLoader<K, V> batchLoader(
+      String sqlWithInList,
+      QueryRowResultExtractor<K> keyExtractor,
+      QueryRowResultExtractor<V> rowMapper) {
+    return batchLoader(sqlWithInList, keyExtractor, rowMapper, BatchLoaderConfig.defaults());
+  }
+
+  public <K, V> BatchLoader<K, V> batchLoader(
+      String sqlWithInList,
+      QueryRowResultExtractor<K> keyExtractor,
+      QueryRowResultExtractor<V> rowMapper,
+      BatchLoaderConfig config) {
+    Objects.requireNonNull(config, "batch loader config must not be null");
+    return new BatchLoader<>(prepare(sqlWithInList), keyExtractor, rowMapper, config);
+  }
+
+  /**
+   * Makes the statements of the registry available by name through {@link #named(String)},
+   * parsing each once, now. Should be configured before use.
+   *
+   * @param sqlRegistry the named statements, e.g. `SqlRegistry.load("sql/orders.sql")`
+   * @return this instance
+   */
+  public SimpleJdbc useSqlRegistry(SqlRegistry sqlRegistry) {
+    Objects.requireNonNull(sqlRegistry, "SQL registry must not be null");
+    Map<String, PreparedQuery> queries = new LinkedHashMap<>();
+    for (String name : sqlRegistry.getNames()) {
+      queries.put(name, prepare(sqlRegistry.getSql(name)));
+    }
+    this.namedQueries = Collections.unmodifiableMap(queries);
+    return this;
+  }
+
+  /**
+   * Prepares every statement of the SQL registry on one connection, e.g. at startup, so that
+   * (with drivers which prepare statements on the server) broken SQL is found now rather than
+   * under load, and the first executions don't pay to warm up. The SQL type of each parameter is
+   * remembered, and `null` arguments bound as that type.
+   *
+   * @throws SimpleJdbcException naming every statement which failed to prepare
+   */
+  public void warmUpSqlRegistry() {
+    Map<String, PreparedQuery> queries = namedQueries;
+    check(!queries.isEmpty(), "no SQL registry has been given to useSqlRegistry()");
+    withConnection(
+        conn -> {
+          Map<String, SQLException> failures = new LinkedHashMap<>();
+          queries.forEach(
+              (name, query) -> {
+                try {
+                  query.warmUp(conn);
+                } catch (SQLException ex) {
+                  failures.put(name, ex);
+                }
+              });
+          if (!failures.isEmpty()) {
+            SimpleJdbcException ex =
+                new SimpleJdbcException(
+                    "failed to prepare SQL named " + String.join(", ", failures.keySet()),
+                    failures.values().iterator().next());
+            failures.values().stream().skip(1).forEach(ex::addSuppressed);
+            throw ex;
+          }
+          return null;
+        });
+  }
+
+  /**
+   * @param name the name of a statement of the SQL registry, e.g. `orders.byCustomer`
+   * @return the statement, parsed once, to be executed with positional arguments
+   * @see PreparedQuery
+   */
+  public PreparedQuery named(String name) {
+    PreparedQuery query = namedQueries.get(name);
+    if (query == null) {
+      check(!namedQueries.isEmpty(), "no SQL registry has been given to useSqlRegistry()");
+      throw new SimpleJdbcException("no SQL named " + name);
+    }
+    return query;
+  }
+
+  public MultiQueryBuilder multiQuery() {
+    return new MultiQueryBuilder(this);
+  }
+
   public UpdateBuilder.Update update() {
     return UpdateBuilder.get(this);
   }
 
+  public UpdateBuilder.BatchUpdate batchUpdate() {
+    return UpdateBuilder.getBatch(this);
+  }
+
   public InsertBuilder.Insert insert() {
     return InsertBuilder.get(this);
   }
@@ -66,6 +306,26 @@ public abstract class SimpleJdbc {
     return InsertBuilder.get(this);
   }
 
+  public UpsertBuilder.Upsert upsert() {
+    return UpsertBuilder.get(this);
+  }
+
+  public UpsertBuilder.BatchUpsert batchUpsert() {
+    return UpsertBuilder.get(this);
+  }
+
+  /** @return the upsert dialect detected earlier, or null if it has yet to be */
+  UpsertBuilder.Dialect getUpsertDialect() {
+    return upsertDialect;
+  }
+
+  /** Detects the upsert dialect from the connection, remembering it for later upserts. */
+  UpsertBuilder.Dialect detectUpsertDialect(Connection conn) throws SQLException {
+    UpsertBuilder.Dialect dialect = UpsertBuilder.Dialect.of(conn);
+    upsertDialect = dialect;
+    return dialect;
+  }
+
   /**
    * Executes the operation given by `transactionalFn` in a DB transaction, triggering a ROLLBACK if
    * the operation throws an exception, or a COMMIT if successful
@@ -165,6 +425,7 @@ public abstract class SimpleJdbc {
   private <T> T transactionally(
       Connection conn, TransactionIsolationLevel isolationLevel, SqlSupplier<T> transactionalFn) {
     try {
+      sessionStateChanging();
       conn.setTransactionIsolation(isolationLevel.getMagicConstantValue());
       boolean autoCommit = conn.getAutoCommit();
       conn.setAutoCommit(false);
@@ -183,6 +444,111 @@ public abstract class SimpleJdbc {
     }
   }
 
+  /**
+   * Runs `fn` with a connection pinned to it, and auto-commit turned off (then restored), since
+   * some drivers (e.g. PostgreSQL) only fetch results `fetchSize` rows at a time within a
+   * transaction. Already within a transaction, `fn` is simply run.
+   */
+  <T> T withCursor(Supplier<T> fn) {
+    return withConnection(
+        conn -> {
+          try {
+            if (!conn.getAutoCommit()) {
+              return fn.get();
+            }
+            sessionStateChanging();
+            conn.setAutoCommit(false);
+            try {
+              T result = fn.get();
+              conn.commit();
+              return result;
+            } catch (Throwable ex) {
+              conn.rollback();
+              throw ex;
+            } finally {
+              conn.setAutoCommit(true);
+            }
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
+  /**
+   * Executes the operation given by `sessionFn` with a single connection pinned to it, so that
+   * every call within it reuses that connection (in auto-commit mode), instead of checking one out
+   * of the `DataSource` per call. Within a transaction, the transaction's connection is used.
+   *
+   * @param sessionFn the operation to run
+   */
+  public void session(SqlRunnable sessionFn) {
+    session(
+        () -> {
+          sessionFn.run();
+          return null;
+        });
+  }
+
+  /**
+   * Executes the operation given by `sessionFn` with a single connection pinned to it, returning a
+   * result. Every call within it reuses that connection (in auto-commit mode), instead of checking
+   * one out of the `DataSource` per call. Within a transaction, the transaction's connection is
+   * used.
+   *
+   * @param <T> type of value returned by invoking `sessionFn`
+   * @param sessionFn the operation to run
+   * @return value returned by invoking `sessionFn`
+   */
+  public <T> T session(SqlSupplier<T> sessionFn) {
+    return withConnection(
+        conn -> {
+          try {
+            return sessionFn.get();
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
+  /**
+   * Executes the operation given by `fn` with a deadline, `timeout` from now. Every statement run
+   * within it, including within nested transactions, is cancelled should the deadline pass before
+   * it completes, and a `QueryTimeoutException` thrown. A timeout within it (e.g. one given to
+   * `QueryBuilder.timeout()`) can shorten the deadline, but not extend it.
+   *
+   * @param timeout the time allowed, e.g. the remainder of a request's SLO
+   * @param fn the operation to run
+   */
+  public void withTimeout(Duration timeout, SqlRunnable fn) {
+    withTimeout(
+        timeout,
+        () -> {
+          fn.run();
+          return null;
+        });
+  }
+
+  /**
+   * Executes the operation given by `fn` with a deadline, `timeout` from now, returning a result.
+   *
+   * @param <T> type of value returned by invoking `fn`
+   * @param timeout the time allowed, e.g. the remainder of a request's SLO
+   * @param fn the operation to run
+   * @return value returned by invoking `fn`
+   * @see #withTimeout(Duration, SqlRunnable)
+   */
+  public <T> T withTimeout(Duration timeout, SqlSupplier<T> fn) {
+    return Deadline.within(
+        timeout,
+        () -> {
+          try {
+            return fn.get();
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
   public enum TransactionIsolationLevel {
     READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
     READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
@@ -206,7 +572,164 @@ public abstract class SimpleJdbc {
 
   abstract <T> T withConnection(Function<Connection, T> fn);
 
-  abstract <T> T query(String sql, Map<String, ?> bindings, QueryResultExtractor<T> extractor);
+  /**
+   * Called on the thread holding the current connection just before its session state (e.g. its
+   * isolation level or auto-commit) is changed, for a pool to restore it as it is returned.
+   */
+  void sessionStateChanging() {}
+
+  /** Runs `fn`, which opens a connection of its own, within the concurrency limit (if any). */
+  <T> T limited(Supplier<T> fn) {
+    ConcurrencyLimiter limiter = concurrencyLimiter;
+    return limiter == null ? fn.get() : limiter.run(fn);
+  }
+
+  <T> T query(String sql, Map<String, ?> bindings, QueryResultExtractor<T> extractor) {
+    return query(sql, bindings, StatementOptions.DEFAULT, extractor);
+  }
+
+  <T> T query(
+      String sql,
+      Map<String, ?> bindings,
+      StatementOptions options,
+      QueryResultExtractor<T> extractor) {
+    return withConnection(conn -> query(conn, sql, bindings, options, extractor));
+  }
+
+  /**
+   * Runs the query once per set of bindings, presenting the concatenated rows to the extractor as
+   * if they came from a single query.
+   *
+   * <p>Given an executor, and provided this thread does not already have a connection pinned (e.g.
+   * by a transaction), the chunks are run in parallel on separate connections. Each chunk's rows
+   * are then buffered, as a `BufferedResult` sharing its default memory budget with the other
+   * chunks, until the extractor reaches them. Should any chunk fail, the others are cancelled.
+   */
+  <T> T queryChunks(
+      String sql,
+      List<Map<String, ?>> chunkedBindings,
+      StatementOptions options,
+      Executor executor,
+      QueryResultExtractor<T> extractor) {
+    if (executor != null && canOpenConnections()) {
+      long memoryBudget = BufferedResult.DEFAULT_MEMORY_BUDGET / chunkedBindings.size();
+      Deadline deadline = Deadline.abortable();
+      List<CompletableFuture<BufferedResult>> chunks =
+          chunkedBindings.stream()
+              .map(
+                  bindings ->
+                      CompletableFuture.supplyAsync(
+                          Deadline.propagate(
+                              deadline,
+                              () ->
+                                  query(
+                                      sql,
+                                      bindings,
+                                      options,
+                                      rows -> BufferedResult.from(rows, memoryBudget))),
+                          executor))
+              .collect(Collectors.toList());
+      try (ParallelChunkResult result =
+          new ParallelChunkResult(chunks, deadline, columnExtractors)) {
+        return extractor.extract(result);
+      } catch (SQLException ex) {
+        throw new SimpleJdbcException(ex);
+      }
+    }
+    return withConnection(
+        conn ->
+            extractChained(
+                chunkedBindings.stream()
+                    .map(bindings -> (ResultSetSource) () -> openQuery(conn, sql, bindings, options))
+                    .collect(Collectors.toList()),
+                extractor));
+  }
+
+  /**
+   * Runs the queries on one connection, handing each one's results to its extractor. The queries
+   * are combined into a single statement when the driver supports multi-statement SQL text, and
+   * otherwise run one after the other.
+   */
+  void multiQuery(List<MultiQueryBuilder.Result<?>> queries) {
+    withConnection(
+        conn -> {
+          try {
+            if (queries.size() > 1
+                && MultiQueryBuilder.supportsMultiStatementText(conn.getMetaData())) {
+              combinedQuery(conn, queries);
+            } else {
+              for (MultiQueryBuilder.Result<?> query : queries) {
+                query(
+                    conn,
+                    query.getSql(),
+                    query.getBindings(),
+                    StatementOptions.DEFAULT,
+                    query::extract);
+              }
+            }
+            return null;
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
+  private void combinedQuery(Connection conn, List<MultiQueryBuilder.Result<?>> queries)
+      throws SQLException {
+    StringJoiner sql = new StringJoiner(";\n");
+    List<ParameterizedQuery> pqs = new ArrayList<>();
+    for (MultiQueryBuilder.Result<?> query : queries) {
+      ParameterizedQuery pq = parameterize(query.getSql(), query.getBindings());
+      sql.add(pq.getSql());
+      pqs.add(pq);
+    }
+    try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+      int offset = 0;
+      for (ParameterizedQuery pq : pqs) {
+        bindingPlan(pq).apply(stmt, offset, pq.getParameters());
+        offset += pq.getParameters().size();
+      }
+      timed(
+          stmt,
+          () -> {
+            boolean hasResultSet = stmt.execute();
+            for (MultiQueryBuilder.Result<?> query : queries) {
+              while (!hasResultSet) {
+                if (stmt.getUpdateCount() == -1) {
+                  throw new SimpleJdbcException(
+                      "multi-query returned fewer result sets than queries");
+                }
+                hasResultSet = stmt.getMoreResults();
+              }
+              try (ResultSet resultSet = stmt.getResultSet()) {
+                query.extract(QueryResult.from(resultSet, columnExtractors));
+              }
+              hasResultSet = stmt.getMoreResults();
+            }
+            return null;
+          });
+    }
+  }
+
+  /** Executes the statement once per set of bindings, returning the total rows affected. */
+  int statementChunks(String sql, List<Map<String, ?>> chunkedBindings) {
+    return withConnection(
+        conn ->
+            chunkedBindings.stream().mapToInt(bindings -> statement(conn, sql, bindings)).sum());
+  }
+
+  /** Whether this instance may open additional connections, e.g. to run queries in parallel. */
+  boolean canOpenConnections() {
+    return false;
+  }
+
+  private <T> T extractChained(List<ResultSetSource> sources, QueryResultExtractor<T> extractor) {
+    try (ChainedQueryResult result = new ChainedQueryResult(sources, columnExtractors)) {
+      return extractor.extract(result);
+    } catch (SQLException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+  }
 
   abstract int statement(String sql, Map<String, ?> bindings);
 
@@ -223,11 +746,6 @@ public abstract class SimpleJdbc {
       this.dataSource = dataSource;
     }
 
-    @Override
-    public <T> T query(String sql, Map<String, ?> bindings, QueryResultExtractor<T> extractor) {
-      return withConnection(conn -> query(conn, sql, bindings, extractor));
-    }
-
     @Override
     public int statement(String sql, Map<String, ?> bindings) {
       return withConnection(conn -> statement(conn, sql, bindings));
@@ -238,19 +756,31 @@ public abstract class SimpleJdbc {
       return withConnection(conn -> batchStatement(conn, sql, batchedBindings));
     }
 
+    @Override
+    boolean canOpenConnections() {
+      return connectionThreadLocal.get() == null;
+    }
+
     @Override
     <T> T withConnection(Function<Connection, T> fn) {
       if (connectionThreadLocal.get() != null) {
         return fn.apply(connectionThreadLocal.get());
       }
-      try (Connection conn = dataSource.getConnection()) {
-        connectionThreadLocal.set(conn);
-        return fn.apply(conn);
-      } catch (SQLException ex) {
-        throw new SimpleJdbcException(ex);
-      } finally {
-        connectionThreadLocal.set(null);
-      }
+      return limited(
+          () -> {
+            Deadline.checkCurrent();
+            try (Connection conn = dataSource.getConnection()) {
+              // The DataSource's own wait can't be capped, but once it has used up the deadline,
+              // fail now rather than running the statement only to time it out
+              Deadline.checkCurrent();
+              connectionThreadLocal.set(conn);
+              return fn.apply(conn);
+            } catch (SQLException ex) {
+              throw new SimpleJdbcException(ex);
+            } finally {
+              connectionThreadLocal.set(null);
+            }
+          });
     }
   }
 
@@ -265,11 +795,6 @@ public abstract class SimpleJdbc {
       this.connection = connection;
     }
 
-    @Override
-    public <T> T query(String sql, Map<String, ?> bindings, QueryResultExtractor<T> extractor) {
-      return query(connection, sql, bindings, extractor);
-    }
-
     @Override
     public int statement(String sql, Map<String, ?> bindings) {
       return statement(connection, sql, bindings);
@@ -287,63 +812,290 @@ public abstract class SimpleJdbc {
   }
 
   <T> T query(
-      Connection conn, String sql, Map<String, ?> bindings, QueryResultExtractor<T> extractor) {
-    ParameterizedQuery pq = ParameterizedQuery.from(sql, bindings);
-    try (PreparedStatement stmt = conn.prepareStatement(pq.getSql())) {
-      applyParameters(stmt, pq.getParameters());
-      try (ResultSet resultSet = stmt.executeQuery()) {
-        return extractor.extract(QueryResult.from(resultSet, columnExtractors));
-      }
+      Connection conn,
+      String sql,
+      Map<String, ?> bindings,
+      StatementOptions options,
+      QueryResultExtractor<T> extractor) {
+    try (PreparedStatement stmt = prepare(conn, sql, bindings, options)) {
+      return timed(
+          stmt,
+          () -> {
+            try (ResultSet resultSet = stmt.executeQuery()) {
+              return extractor.extract(QueryResult.from(resultSet, columnExtractors));
+            }
+          });
     } catch (SQLException ex) {
       throw new SimpleJdbcException(ex);
     }
   }
 
+  /** Opens a result set which, when closed, should have its statement closed along with it. */
+  private ResultSet openQuery(
+      Connection conn, String sql, Map<String, ?> bindings, StatementOptions options)
+      throws SQLException {
+    PreparedStatement stmt = prepare(conn, sql, bindings, options);
+    try {
+      return timed(stmt, stmt::executeQuery);
+    } catch (SQLException | RuntimeException ex) {
+      stmt.close();
+      throw ex;
+    }
+  }
+
+  PreparedStatement prepare(
+      Connection conn, String sql, Map<String, ?> bindings, StatementOptions options)
+      throws SQLException {
+    ParameterizedQuery pq = parameterize(sql, bindings);
+    PreparedStatement stmt = conn.prepareStatement(pq.getSql());
+    try {
+      options.applyTo(stmt);
+      applyParameters(stmt, pq);
+      return stmt;
+    } catch (SQLException | RuntimeException ex) {
+      stmt.close();
+      throw ex;
+    }
+  }
+
   int statement(Connection conn, String sql, Map<String, ?> bindings) {
-    ParameterizedQuery pq = ParameterizedQuery.from(sql, bindings);
+    ParameterizedQuery pq = parameterize(sql, bindings);
     try (PreparedStatement stmt = conn.prepareStatement(pq.getSql())) {
-      applyParameters(stmt, pq.getParameters());
-      return stmt.executeUpdate();
+      applyParameters(stmt, pq);
+      return timed(stmt, stmt::executeUpdate);
     } catch (SQLException ex) {
       throw new SimpleJdbcException(ex);
     }
   }
 
   int[] batchStatement(Connection conn, String sql, List<Map<String, ?>> bindingsBatch) {
+    return batchStatement(conn, parameterizeBatch(sql, bindingsBatch));
+  }
+
+  /**
+   * Executes rows already bound from one template (e.g. as they are added to a batch update) as a
+   * batch on one prepared statement.
+   */
+  int[] batchStatement(List<ParameterizedQuery> pqs) {
+    validateBatch(pqs);
+    return withConnection(conn -> batchStatement(conn, pqs));
+  }
+
+  private int[] batchStatement(Connection conn, List<ParameterizedQuery> pqs) {
+    try (PreparedStatement stmt = conn.prepareStatement(pqs.get(0).getSql())) {
+      addBatches(stmt, pqs);
+      return timed(stmt, stmt::executeBatch);
+    } catch (SQLException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+  }
+
+  /** Executes SQL which already has `?` bind sites, binding the parameters in order. */
+  int positionalStatement(String sql, BindingPlan.Plans plans, Object[] parameters) {
+    List<Object> parameterList = Arrays.asList(parameters);
+    return positionalStatement(sql, parameterList, bindingPlan(plans, parameterList));
+  }
+
+  /** As above, with the parameters' setters already resolved. */
+  int positionalStatement(String sql, List<Object> parameters, BindingPlan plan) {
+    return withConnection(
+        conn -> {
+          try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            plan.apply(stmt, parameters);
+            return timed(stmt, stmt::executeUpdate);
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
+  /** Runs a query which already has `?` bind sites, with the parameters' setters resolved. */
+  <T> T positionalQuery(
+      String sql, List<Object> parameters, BindingPlan plan, QueryResultExtractor<T> extractor) {
+    return withConnection(
+        conn -> {
+          try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            plan.apply(stmt, parameters);
+            return timed(
+                stmt,
+                () -> {
+                  try (ResultSet resultSet = stmt.executeQuery()) {
+                    return extractor.extract(QueryResult.from(resultSet, columnExtractors));
+                  }
+                });
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
+  /** @return the setters to bind parameters of these types to a statement, resolved only once */
+  BindingPlan bindingPlan(BindingPlan.Plans plans, List<Object> parameters) {
+    return plans.get(parameterSetters, parameters);
+  }
+
+  /** Executes SQL which already has `?` bind sites as a batch, one entry per parameter array. */
+  int[] positionalBatchStatement(
+      String sql, BindingPlan.Plans plans, List<Object[]> parametersBatch) {
+    return withConnection(
+        conn -> {
+          try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            BindingPlan plan = null;
+            for (Object[] parameters : parametersBatch) {
+              List<Object> parameterList = Arrays.asList(parameters);
+              if (plan == null || !plan.matches(parameterList)) {
+                plan = bindingPlan(plans, parameterList);
+              }
+              plan.apply(stmt, parameterList);
+              stmt.addBatch();
+            }
+            return timed(stmt, stmt::executeBatch);
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
+  /**
+   * Executes the statement, handing the keys generated by the database for the given columns (e.g.
+   * from an identity column or sequence default) to the extractor, in the same round trip.
+   */
+  <T> T statementReturningKeys(
+      String sql,
+      Map<String, ?> bindings,
+      String[] keyColumns,
+      QueryResultExtractor<T> keyExtractor) {
+    return withConnection(
+        conn -> {
+          ParameterizedQuery pq = parameterize(sql, bindings);
+          try (PreparedStatement stmt = conn.prepareStatement(pq.getSql(), keyColumns)) {
+            applyParameters(stmt, pq);
+            return timed(
+                stmt,
+                () -> {
+                  stmt.executeUpdate();
+                  return extractGeneratedKeys(stmt, keyExtractor);
+                });
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
+  /**
+   * Executes the batch, handing the keys generated by the database for the given columns to the
+   * extractor, one row per batch entry.
+   */
+  <T> T batchStatementReturningKeys(
+      String sql,
+      List<Map<String, ?>> bindingsBatch,
+      String[] keyColumns,
+      QueryResultExtractor<T> keyExtractor) {
+    List<ParameterizedQuery> pqs = parameterizeBatch(sql, bindingsBatch);
+    return withConnection(
+        conn -> {
+          try (PreparedStatement stmt = conn.prepareStatement(pqs.get(0).getSql(), keyColumns)) {
+            addBatches(stmt, pqs);
+            return timed(
+                stmt,
+                () -> {
+                  stmt.executeBatch();
+                  return extractGeneratedKeys(stmt, keyExtractor);
+                });
+          } catch (SQLException ex) {
+            throw new SimpleJdbcException(ex);
+          }
+        });
+  }
+
+  /**
+   * Runs the statement, cancelling it should the current deadline (if any) pass first. Any file
+   * bound to it has then been sent, or never will be, so is closed. Its execution time is the
+   * latency seen by the concurrency limit (if any).
+   */
+  static <T> T timed(PreparedStatement stmt, SqlSupplier<T> action) throws SQLException {
+    Deadline deadline = Deadline.current();
+    long startedAt = System.nanoTime();
+    try {
+      return deadline == null ? action.get() : deadline.enforce(stmt, action);
+    } finally {
+      ConcurrencyLimiter.recordStatement(System.nanoTime() - startedAt);
+      PathInputStream.closeBound();
+    }
+  }
+
+  /** Extracts the results of a query already run on `stmt`, leaving both open. */
+  <T> T extract(PreparedStatement stmt, ResultSet resultSet, QueryResultExtractor<T> extractor)
+      throws SQLException {
+    return timed(stmt, () -> extractor.extract(QueryResult.from(resultSet, columnExtractors)));
+  }
+
+  private <T> T extractGeneratedKeys(PreparedStatement stmt, QueryResultExtractor<T> keyExtractor)
+      throws SQLException {
+    try (ResultSet keys = stmt.getGeneratedKeys()) {
+      return keyExtractor.extract(QueryResult.from(keys, columnExtractors));
+    }
+  }
+
+  private List<ParameterizedQuery> parameterizeBatch(
+      String sql, List<Map<String, ?>> bindingsBatch) {
     if (bindingsBatch.isEmpty()) {
       throw new SimpleJdbcException("Empty batch");
     }
+    ParameterizedQuery.Template template = templates.get(sql);
     List<ParameterizedQuery> pqs =
         bindingsBatch.stream()
-            .map(bindings -> ParameterizedQuery.from(sql, bindings))
+            .map(bindings -> template.bind(bindings, inListPadding))
             .collect(Collectors.toList());
     validateBatch(pqs);
-    String parameterizedQuery = pqs.get(0).getSql();
-    try (PreparedStatement stmt = conn.prepareStatement(parameterizedQuery)) {
-      for (ParameterizedQuery pq : pqs) {
-        applyParameters(stmt, pq.getParameters());
-        stmt.addBatch();
+    return pqs;
+  }
+
+  private void addBatches(PreparedStatement stmt, List<ParameterizedQuery> pqs)
+      throws SQLException {
+    // Rows of a batch almost always share their parameter types, and so a plan
+    BindingPlan plan = null;
+    for (ParameterizedQuery pq : pqs) {
+      if (plan == null || !plan.matches(pq.getParameters())) {
+        plan = bindingPlan(pq);
       }
-      return stmt.executeBatch();
-    } catch (SQLException ex) {
-      throw new SimpleJdbcException(ex);
+      plan.apply(stmt, pq.getParameters());
+      stmt.addBatch();
     }
   }
 
-  private void applyParameters(PreparedStatement stmt, List<Object> parameters)
+  /** @return the SQL text's named parameters, located only once per distinct text */
+  ParameterizedQuery.Template template(String sql) {
+    return templates.get(sql);
+  }
+
+  /** Binds the named parameters, parsing each distinct SQL text only once. */
+  private ParameterizedQuery parameterize(String sql, Map<String, ?> bindings) {
+    return templates.get(sql).bind(bindings, inListPadding);
+  }
+
+  private BindingPlan bindingPlan(ParameterizedQuery pq) {
+    return bindingPlan(pq.getTemplate().getPlans(), pq.getParameters());
+  }
+
+  private void applyParameters(PreparedStatement stmt, ParameterizedQuery pq)
       throws SQLException {
-    int i = 0;
-    for (Object param : parameters) {
-      parameterSetters.getSetter(param).set(stmt, ++i, param);
-    }
+    bindingPlan(pq).apply(stmt, pq.getParameters());
   }
 
   private void validateBatch(List<ParameterizedQuery> parameterizedQueryList) {
-    if (parameterizedQueryList.stream().map(ParameterizedQuery::getSql).distinct().count() > 1) {
-      throw new SimpleJdbcException(
-          "Invalid batch - inconsistent sql parameterization. "
-              + "When binding parameters to a collection type in a batch, "
-              + "you must ensure each collection has the same length");
+    if (parameterizedQueryList.isEmpty()) {
+      throw new SimpleJdbcException("Empty batch");
+    }
+    // Rows without collections share one SQL text instance, so this is mostly identity checks
+    String sql = parameterizedQueryList.get(0).getSql();
+    for (ParameterizedQuery pq : parameterizedQueryList) {
+      if (!sql.equals(pq.getSql())) {
+        throw new SimpleJdbcException(
+            "Invalid batch - inconsistent sql parameterization. "
+                + "When binding parameters to a collection type in a batch, "
+                + "you must ensure each collection has the same length");
+      }
     }
   }
 
@@ -0,0 +1,69 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A collection to be bound as a single SQL array parameter (via `Connection.createArrayOf()`),
+ * rather than expanded into one bind site per element.
+ *
+ * <p>The SQL text is then identical regardless of how many elements there are, and is not subject
+ * to bind parameter limits. It requires a driver and database supporting arrays, for example
+ * PostgreSQL's `where id = any(:ids)`.
+ */
+public final class SqlArray {
+
+  private final String typeName;
+  private final List<Object> elements;
+
+  private SqlArray(String typeName, Collection<?> elements) {
+    this.typeName = typeName;
+    this.elements = Collections.unmodifiableList(new ArrayList<>(elements));
+  }
+
+  /**
+   * @param typeName the database type name of the array elements, e.g. `bigint` or `text`
+   * @param elements the array elements
+   * @return an array parameter value
+   */
+  public static SqlArray of(String typeName, Collection<?> elements) {
+    check(typeName != null && !typeName.isEmpty(), "array type name is required");
+    Objects.requireNonNull(elements, "array elements must not be null");
+    return new SqlArray(typeName, elements);
+  }
+
+  public String getTypeName() {
+    return typeName;
+  }
+
+  public List<Object> getElements() {
+    return elements;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof SqlArray)) {
+      return false;
+    }
+    SqlArray other = (SqlArray) o;
+    return typeName.equals(other.typeName) && elements.equals(other.elements);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(typeName, elements);
+  }
+
+  @Override
+  public String toString() {
+    return typeName + elements;
+  }
+}
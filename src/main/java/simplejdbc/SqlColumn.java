@@ -0,0 +1,17 @@
+package simplejdbc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Names the column of a record component, constructor parameter or field of a {@link SqlRow}
+ * type, where it isn't simply the name in `snake_case`.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+public @interface SqlColumn {
+  /** @return the column label */
+  String value();
+}
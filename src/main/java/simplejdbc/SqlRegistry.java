@@ -0,0 +1,144 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Named SQL statements, loaded once (e.g. at startup) from `.sql` files on the classpath, to be run
+ * by name through `SimpleJdbc.named()`. Instances are immutable and safe to share.
+ *
+ * <p>Each statement in a file starts with a `-- name:` header, and runs until the next:
+ *
+ * <pre>{@code
+ * -- name: orders.byCustomer
+ * select * from orders where customer_id = :customerId
+ *
+ * -- name: orders.cancel
+ * update orders set status = 'cancelled' where id = :id;
+ * }</pre>
+ *
+ * A file without any header holds a single statement, named after the file (e.g. `byCustomer` for
+ * `sql/orders/byCustomer.sql`). A trailing `;` is dropped, as many drivers reject it, except from
+ * PL/SQL blocks and the procedural statements which hold them (those starting `begin`, `declare`,
+ * or `create` a procedure, function, package, trigger or type), whose final `end;` needs it.
+ *
+ * @see SimpleJdbc#useSqlRegistry(SqlRegistry)
+ */
+public final class SqlRegistry {
+
+  private static final Pattern NAME_HEADER = Pattern.compile("^\\s*--\\s*name:\\s*(\\S+)\\s*$");
+  // Looked for past any leading comment lines
+  private static final Pattern BLOCK =
+      Pattern.compile(
+          "(--[^\\n]*\\n\\s*)*(begin|declare|create\\s+(or\\s+replace\\s+)?"
+              + "(procedure|function|package|trigger|type))\\b",
+          Pattern.CASE_INSENSITIVE);
+
+  private final Map<String, String> statements;
+
+  private SqlRegistry(Map<String, String> statements) {
+    this.statements = Collections.unmodifiableMap(statements);
+  }
+
+  /**
+   * Loads the named statements of the given classpath resources, using the thread's context class
+   * loader.
+   *
+   * @param resourcePaths the resources' paths, e.g. `sql/orders.sql`
+   * @return the statements of every resource
+   * @throws SimpleJdbcException if a resource is missing, or a name is given twice
+   */
+  public static SqlRegistry load(String... resourcePaths) {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (classLoader == null) {
+      classLoader = SqlRegistry.class.getClassLoader();
+    }
+    return load(classLoader, resourcePaths);
+  }
+
+  public static SqlRegistry load(ClassLoader classLoader, String... resourcePaths) {
+    Objects.requireNonNull(classLoader, "class loader must not be null");
+    check(resourcePaths != null && resourcePaths.length > 0, "at least one resource is required");
+    Map<String, String> statements = new LinkedHashMap<>();
+    for (String resourcePath : resourcePaths) {
+      Objects.requireNonNull(resourcePath, "resource path must not be null");
+      try (InputStream in = classLoader.getResourceAsStream(resourcePath)) {
+        check(in != null, "SQL resource not found: " + resourcePath);
+        parse(resourcePath, in, statements);
+      } catch (IOException ex) {
+        throw new SimpleJdbcException("failed to read SQL resource " + resourcePath, ex);
+      }
+    }
+    return new SqlRegistry(statements);
+  }
+
+  /** @return the name of every statement, in the order loaded */
+  public Set<String> getNames() {
+    return statements.keySet();
+  }
+
+  /**
+   * @param name the statement's name
+   * @return the statement's SQL
+   */
+  public String getSql(String name) {
+    String sql = statements.get(name);
+    check(sql != null, "no SQL named " + name);
+    return sql;
+  }
+
+  private static void parse(String resourcePath, InputStream in, Map<String, String> statements)
+      throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    String name = null;
+    StringBuilder sql = new StringBuilder();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      Matcher header = NAME_HEADER.matcher(line);
+      if (header.matches()) {
+        if (name == null) {
+          check(
+              sql.toString().trim().isEmpty(),
+              "SQL before the first '-- name:' header in " + resourcePath);
+        } else {
+          add(resourcePath, name, sql, statements);
+        }
+        name = header.group(1);
+        sql.setLength(0);
+      } else {
+        sql.append(line).append('\n');
+      }
+    }
+    add(resourcePath, name == null ? fileName(resourcePath) : name, sql, statements);
+  }
+
+  private static void add(
+      String resourcePath, String name, StringBuilder sql, Map<String, String> statements) {
+    String trimmed = sql.toString().trim();
+    if (trimmed.endsWith(";") && !BLOCK.matcher(trimmed).lookingAt()) {
+      trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+    }
+    check(!trimmed.isEmpty(), String.format("SQL named %s in %s is empty", name, resourcePath));
+    check(
+        statements.putIfAbsent(name, trimmed) == null,
+        String.format("duplicate SQL name %s in %s", name, resourcePath));
+  }
+
+  private static String fileName(String resourcePath) {
+    String fileName = resourcePath.substring(resourcePath.lastIndexOf('/') + 1);
+    int extension = fileName.lastIndexOf('.');
+    return extension > 0 ? fileName.substring(0, extension) : fileName;
+  }
+}
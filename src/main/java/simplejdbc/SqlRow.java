@@ -0,0 +1,26 @@
+package simplejdbc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class or record whose instances are read from (and written to) rows of a table, for the
+ * optional `simple-jdbc-processor` annotation processor. For a type `Order`, it generates an
+ * `OrderSqlRow` in the same package, holding plain Java code with no reflection:
+ *
+ * <ul>
+ *   <li>`OrderSqlRow.INSTANCE`, a `QueryRowResultExtractor<Order>`
+ *   <li>`OrderSqlRow.list()`, which extracts every row, looking up each column's index only once
+ *   <li>`OrderSqlRow.columns()` and `OrderSqlRow.toArguments(order)`, for a `PreparedInsert`
+ * </ul>
+ *
+ * <p>Records are created through their canonical constructor. Classes are created through their
+ * only non-private constructor with parameters, or else through a no-argument constructor, with
+ * their non-private, non-final fields then assigned. Columns are named after the components,
+ * parameters or fields in `snake_case`, unless given by {@link SqlColumn}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface SqlRow {}
@@ -1,5 +1,6 @@
 package simplejdbc;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -12,6 +13,7 @@ public class StatementBatchBuilder {
   private final SimpleJdbc jdbc;
   private final String sql;
   private final List<Map<String, ?>> batchedBindings = new ArrayList<>();
+  private Duration timeout;
 
   public StatementBatchBuilder(SimpleJdbc jdbc, String sql) {
     this.jdbc = jdbc;
@@ -47,7 +49,21 @@ public class StatementBatchBuilder {
     }
   }
 
+  /**
+   * Cancels the batch should it not complete within the given time, throwing a
+   * `QueryTimeoutException`. Within `SimpleJdbc.withTimeout()`, the earlier deadline applies.
+   *
+   * @param timeout the time allowed
+   * @return this builder
+   */
+  public StatementBatchBuilder timeout(Duration timeout) {
+    this.timeout = Deadline.checkTimeout(timeout);
+    return this;
+  }
+
   public int[] executeBatch() {
-    return jdbc.batchStatement(sql, batchedBindings);
+    return timeout == null
+        ? jdbc.batchStatement(sql, batchedBindings)
+        : Deadline.within(timeout, () -> jdbc.batchStatement(sql, batchedBindings));
   }
 }
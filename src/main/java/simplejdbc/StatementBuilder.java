@@ -1,6 +1,11 @@
 package simplejdbc;
 
+import static simplejdbc.Util.check;
+
+import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -9,6 +14,8 @@ public class StatementBuilder {
   private final SimpleJdbc jdbc;
   private final String sql;
   private final Map<String, Object> bindings = new HashMap<>();
+  private int maxCollectionSize;
+  private Duration timeout;
 
   public StatementBuilder(SimpleJdbc jdbc, String sql) {
     this.jdbc = jdbc;
@@ -20,13 +27,71 @@ public class StatementBuilder {
     return this;
   }
 
+  /**
+   * Binds the given collection as a single SQL array parameter rather than expanding it into one
+   * bind site per element, e.g. for use with PostgreSQL's `where id = any(:ids)`.
+   *
+   * @param name the parameter name
+   * @param typeName the database type name of the array elements, e.g. `bigint`
+   * @param values the array elements
+   * @return this builder
+   * @see SqlArray
+   */
+  public StatementBuilder bindArray(String name, String typeName, Collection<?> values) {
+    return bind(name, SqlArray.of(typeName, values));
+  }
+
   public StatementBuilder bindAll(Map<String, ?> bindings) {
     Objects.requireNonNull(bindings, "bindings (map) is must not be null");
     this.bindings.putAll(bindings);
     return this;
   }
 
+  /**
+   * Splits the statement into several, should a collection binding have more than
+   * `maxCollectionSize` elements (e.g. `delete from foo where id in (:ids)` with more IDs than the
+   * database allows bind parameters). The rows affected by each chunk are summed.
+   *
+   * <p>Unless run inside a transaction, chunks which have already run are not rolled back should a
+   * later chunk fail.
+   *
+   * <p>Chunks are sized so that, once padded by `SimpleJdbc.padInLists()`, their collections still
+   * expand to no more than `maxCollectionSize` bind sites.
+   *
+   * @param maxCollectionSize the most bind sites a collection binding may expand to per statement
+   * @return this builder
+   */
+  public StatementBuilder chunkCollections(int maxCollectionSize) {
+    check(maxCollectionSize > 0, "max collection size must be greater than zero");
+    this.maxCollectionSize = maxCollectionSize;
+    return this;
+  }
+
+  /**
+   * Cancels the statement should it not complete (every chunk of it, in total) within the given
+   * time, throwing a `QueryTimeoutException`. Within `SimpleJdbc.withTimeout()`, the earlier
+   * deadline applies.
+   *
+   * @param timeout the time allowed
+   * @return this builder
+   */
+  public StatementBuilder timeout(Duration timeout) {
+    this.timeout = Deadline.checkTimeout(timeout);
+    return this;
+  }
+
   public int execute() {
+    return timeout == null ? executeNow() : Deadline.within(timeout, this::executeNow);
+  }
+
+  private int executeNow() {
+    if (maxCollectionSize > 0) {
+      List<Map<String, ?>> chunks =
+          CollectionChunker.split(bindings, maxCollectionSize, jdbc.getInListPadding());
+      if (chunks.size() > 1) {
+        return jdbc.statementChunks(sql, chunks);
+      }
+    }
     return jdbc.statement(sql, bindings);
   }
 }
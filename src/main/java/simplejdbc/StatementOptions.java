@@ -0,0 +1,55 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/** Per-execution settings applied to a `PreparedStatement` before it is executed. */
+class StatementOptions {
+
+  static final StatementOptions DEFAULT = new StatementOptions(0, 0, false);
+
+  private final int fetchSize;
+  private final int maxRows;
+  private final boolean hedged;
+
+  private StatementOptions(int fetchSize, int maxRows, boolean hedged) {
+    this.fetchSize = fetchSize;
+    this.maxRows = maxRows;
+    this.hedged = hedged;
+  }
+
+  StatementOptions withFetchSize(int fetchSize) {
+    check(fetchSize > 0, "fetch size must be greater than zero");
+    return new StatementOptions(fetchSize, maxRows, hedged);
+  }
+
+  /** Caps the rows the driver returns, letting it stop reading (or tell the server to stop). */
+  StatementOptions withMaxRows(int maxRows) {
+    check(maxRows > 0, "max rows must be greater than zero");
+    return new StatementOptions(fetchSize, maxRows, hedged);
+  }
+
+  /** Allows a `HedgedSimpleJdbc` to run the query on a second replica should the first be slow. */
+  StatementOptions withHedging() {
+    return new StatementOptions(fetchSize, maxRows, true);
+  }
+
+  boolean hasFetchSize() {
+    return fetchSize > 0;
+  }
+
+  boolean isHedged() {
+    return hedged;
+  }
+
+  void applyTo(PreparedStatement stmt) throws SQLException {
+    if (fetchSize > 0) {
+      stmt.setFetchSize(fetchSize);
+    }
+    if (maxRows > 0) {
+      stmt.setMaxRows(maxRows);
+    }
+  }
+}
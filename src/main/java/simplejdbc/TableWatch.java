@@ -0,0 +1,326 @@
+package simplejdbc;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static simplejdbc.Util.check;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import simplejdbc.SimpleJdbc.QueryRowResultExtractor;
+
+/**
+ * Tails the rows of a query as they are added (or changed), by polling for rows past the highest
+ * watermark delivered so far, rather than re-running the whole query. The database then does work
+ * in proportion to the rate of change, not the size of the table. Rows are delivered in order of
+ * watermark (and tie-breaker), in batches, on a thread of the watch's own.
+ *
+ * <p>Delivery is at least once: a batch whose consumer throws is delivered again by the next
+ * poll, as are rows within the overlap of a watch resumed from a checkpoint. Polls which find no
+ * rows back off, doubling the wait up to the max interval, while a full batch is followed by
+ * another poll straight away.
+ *
+ * @param <T> the type of row delivered
+ * @see QueryBuilder#watch(WatchConfig, QueryRowResultExtractor, BatchConsumer)
+ */
+public final class TableWatch<T> implements AutoCloseable {
+
+  private static final String WATERMARK_PARAMETER = "simplejdbcWatermark";
+  private static final String TIE_BREAKER_PARAMETER = "simplejdbcTieBreaker";
+
+  /** Receives each batch of rows, with the checkpoint to store should it need to resume. */
+  public interface BatchConsumer<T> {
+    void accept(List<T> rows, WatchCheckpoint checkpoint) throws SQLException;
+  }
+
+  private final SimpleJdbc jdbc;
+  private final Map<String, Object> bindings;
+  private final Duration timeout;
+  private final WatchConfig config;
+  private final QueryRowResultExtractor<T> rowMapper;
+  private final BatchConsumer<T> consumer;
+  private final String firstSql;
+  private final String nextSql;
+  private final long intervalNanos;
+  private final long maxIntervalNanos;
+  // The (watermark, tie-breaker) of each row delivered within the overlap, so that a row changed
+  // again (with a later watermark) is delivered again
+  private final Set<List<Object>> delivered = new HashSet<>();
+  private final Object lock = new Object();
+  private volatile WatchCheckpoint checkpoint;
+  private volatile RuntimeException lastFailure;
+  private volatile boolean closed;
+  private long idleNanos;
+
+  TableWatch(
+      SimpleJdbc jdbc,
+      String sql,
+      Map<String, Object> bindings,
+      Duration timeout,
+      WatchConfig config,
+      QueryRowResultExtractor<T> rowMapper,
+      BatchConsumer<T> consumer) {
+    this.jdbc = jdbc;
+    this.bindings = new HashMap<>(bindings);
+    this.timeout = timeout;
+    this.config = config;
+    this.rowMapper = rowMapper;
+    this.consumer = consumer;
+    this.checkpoint = config.getStart();
+    check(
+        checkpoint == null
+            || (checkpoint.getTieBreaker() == null) == (config.getTieBreakerColumn() == null),
+        "the checkpoint to start after must have a tie-breaker if, and only if, the watch does");
+    // Rows may share a timestamp, and so could not be told apart within the overlap
+    check(
+        !(config.getOverlap() instanceof Duration) || config.getTieBreakerColumn() != null,
+        "an overlap on a timestamp watermark requires a tie-breaker");
+    String watermark = "w." + config.getWatermarkColumn();
+    String tieBreaker =
+        config.getTieBreakerColumn() == null ? null : "w." + config.getTieBreakerColumn();
+    String select = "select * from (" + sql + ") w";
+    String orderBy = " order by " + watermark + (tieBreaker == null ? "" : ", " + tieBreaker);
+    this.firstSql = select + orderBy;
+    String after = ":" + WATERMARK_PARAMETER;
+    if (config.getOverlap() != null) {
+      // Reads from the start of the overlap, skipping rows already delivered
+      this.nextSql = select + " where " + watermark + " >= " + after + orderBy;
+    } else if (tieBreaker == null) {
+      this.nextSql = select + " where " + watermark + " > " + after + orderBy;
+    } else {
+      this.nextSql =
+          String.format(
+              "%s where %s > %s or (%s = %s and %s > :%s)%s",
+              select,
+              watermark,
+              after,
+              watermark,
+              after,
+              tieBreaker,
+              TIE_BREAKER_PARAMETER,
+              orderBy);
+    }
+    this.intervalNanos = config.getInterval().toNanos();
+    this.maxIntervalNanos = config.getMaxInterval().toNanos();
+    this.idleNanos = intervalNanos;
+  }
+
+  void start() {
+    Util.daemonThreadFactory("simplejdbc-watch").newThread(this::run).start();
+  }
+
+  /** @return the checkpoint of the last batch delivered, if any */
+  public Optional<WatchCheckpoint> getCheckpoint() {
+    return Optional.ofNullable(checkpoint);
+  }
+
+  /** @return the failure of the last poll (of the query, or of the consumer), if it failed */
+  public Optional<RuntimeException> getLastFailure() {
+    return Optional.ofNullable(lastFailure);
+  }
+
+  /** Stops polling. A poll already underway is allowed to finish. */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      closed = true;
+      lock.notifyAll();
+    }
+  }
+
+  private void run() {
+    while (!closed) {
+      long waitNanos;
+      try {
+        waitNanos = poll();
+        lastFailure = null;
+      } catch (RuntimeException ex) {
+        lastFailure = ex;
+        waitNanos = backOff();
+      }
+      await(waitNanos);
+    }
+  }
+
+  private void await(long nanos) {
+    long until = System.nanoTime() + nanos;
+    synchronized (lock) {
+      long remaining;
+      while (!closed && (remaining = until - System.nanoTime()) > 0) {
+        try {
+          NANOSECONDS.timedWait(lock, remaining);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          closed = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Polls once, delivering any rows found to the consumer.
+   *
+   * @return how long to wait before polling again, in nanoseconds
+   */
+  long poll() {
+    WatchCheckpoint from = checkpoint;
+    Map<String, Object> parameters = new HashMap<>(bindings);
+    String sql = firstSql;
+    int maxRows = config.getBatchSize();
+    if (peeksPastBatch()) {
+      maxRows++;
+    }
+    if (from != null) {
+      sql = nextSql;
+      if (config.getOverlap() != null) {
+        parameters.put(WATERMARK_PARAMETER, overlapStart(from.getWatermark()));
+        // At most every row delivered within the overlap is read again, and skipped
+        maxRows += delivered.size();
+      } else {
+        parameters.put(WATERMARK_PARAMETER, from.getWatermark());
+        if (from.getTieBreaker() != null) {
+          parameters.put(TIE_BREAKER_PARAMETER, from.getTieBreaker());
+        }
+      }
+    }
+    StatementOptions options = StatementOptions.DEFAULT.withMaxRows(maxRows);
+    String query = sql;
+    Batch batch =
+        timeout == null
+            ? jdbc.query(query, parameters, options, this::read)
+            : Deadline.within(timeout, () -> jdbc.query(query, parameters, options, this::read));
+    if (batch.rows.isEmpty()) {
+      return backOff();
+    }
+    WatchCheckpoint next = batch.checkpoint(from);
+    try {
+      consumer.accept(Collections.unmodifiableList(batch.rows), next);
+    } catch (SQLException ex) {
+      throw new SimpleJdbcException(ex);
+    }
+    checkpoint = next;
+    if (config.getOverlap() != null) {
+      delivered.addAll(batch.keys);
+      forgetBefore(overlapStart(checkpoint.getWatermark()));
+    }
+    idleNanos = intervalNanos;
+    return batch.rows.size() >= config.getBatchSize() ? 0 : intervalNanos;
+  }
+
+  private long backOff() {
+    long wait = idleNanos;
+    idleNanos = Math.min(maxIntervalNanos, idleNanos * 2);
+    return wait;
+  }
+
+  /**
+   * Whether to read one row past a full batch. Without a tie-breaker or overlap, the next poll
+   * reads only rows past the batch's last watermark, so a row sharing that watermark would be lost.
+   */
+  private boolean peeksPastBatch() {
+    return config.getTieBreakerColumn() == null && config.getOverlap() == null;
+  }
+
+  private Batch read(QueryResult result) throws SQLException {
+    Batch batch = new Batch();
+    String tieBreakerColumn = config.getTieBreakerColumn();
+    Object previous = null;
+    while (batch.rows.size() < config.getBatchSize() && result.next()) {
+      ResultSet resultSet = result.toResultSet();
+      Object watermark = watermarkOf(resultSet);
+      Object tieBreaker =
+          tieBreakerColumn == null
+              ? null
+              : WatchCheckpoint.tieBreaker(resultSet.getObject(tieBreakerColumn));
+      if (tieBreakerColumn == null) {
+        checkUnique(watermark, previous);
+        previous = watermark;
+      }
+      List<Object> key = Arrays.asList(watermark, tieBreaker);
+      if (config.getOverlap() != null && delivered.contains(key)) {
+        continue;
+      }
+      batch.rows.add(rowMapper.extract(result));
+      batch.keys.add(key);
+      batch.watermark = watermark;
+      batch.tieBreaker = tieBreaker;
+    }
+    if (peeksPastBatch() && batch.rows.size() == config.getBatchSize() && result.next()) {
+      checkUnique(watermarkOf(result.toResultSet()), batch.watermark);
+    }
+    return batch;
+  }
+
+  private Object watermarkOf(ResultSet resultSet) throws SQLException {
+    String watermarkColumn = config.getWatermarkColumn();
+    return WatchCheckpoint.watermark(resultSet.getObject(watermarkColumn), watermarkColumn);
+  }
+
+  private void checkUnique(Object watermark, Object previous) {
+    if (watermark.equals(previous)) {
+      throw new SimpleJdbcException(
+          String.format(
+              "watermark %s is shared by more than one row, so rows would be skipped; watermark"
+                  + " column %s must be unique, or the watch given a tie-breaker",
+              watermark, config.getWatermarkColumn()));
+    }
+  }
+
+  private Object overlapStart(Object watermark) {
+    Object overlap = config.getOverlap();
+    if (watermark instanceof Long && overlap instanceof Long) {
+      return (Long) watermark - (Long) overlap;
+    }
+    if (watermark instanceof Instant && overlap instanceof Duration) {
+      return ((Instant) watermark).minus((Duration) overlap);
+    }
+    throw new SimpleJdbcException(
+        String.format(
+            "overlap %s does not apply to watermark %s; give a Duration for timestamps, and a"
+                + " long for numbers",
+            overlap, watermark));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void forgetBefore(Object watermark) {
+    Iterator<List<Object>> keys = delivered.iterator();
+    while (keys.hasNext()) {
+      if (((Comparable) keys.next().get(0)).compareTo(watermark) < 0) {
+        keys.remove();
+      }
+    }
+  }
+
+  private final class Batch {
+    private final List<T> rows = new ArrayList<>();
+    private final List<List<Object>> keys = new ArrayList<>();
+    private Object watermark;
+    private Object tieBreaker;
+
+    /** @return the later of the last row's position and the checkpoint before the batch */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private WatchCheckpoint checkpoint(WatchCheckpoint before) {
+      if (before != null) {
+        // Rows delivered late, within the overlap, come before the checkpoint
+        int compared = ((Comparable) watermark).compareTo(before.getWatermark());
+        if (compared == 0 && tieBreaker != null) {
+          compared = ((Comparable) tieBreaker).compareTo(before.getTieBreaker());
+        }
+        if (compared < 0) {
+          return before;
+        }
+      }
+      return WatchCheckpoint.at(watermark, tieBreaker);
+    }
+  }
+}
@@ -5,10 +5,16 @@ import static simplejdbc.Util.PARAMETER_NAME_REGEX;
 import static simplejdbc.Util.TABLE_NAME_REGEX;
 import static simplejdbc.Util.check;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.TreeMap;
 import java.util.stream.Stream;
 
 public class UpdateBuilder {
@@ -20,7 +26,8 @@ public class UpdateBuilder {
   static class Builder implements Update, UpdateTable, UpdateTableSet, UpdateTableConditions {
     private final SimpleJdbc jdbc;
     private String tableName;
-    private final Map<String, Object> columns = new HashMap<>();
+    // Sorted, so that updates setting the same columns always share the same SQL text
+    private final Map<String, Object> columns = new TreeMap<>();
     private String sqlConditions;
     private final Map<String, Object> parameters = new HashMap<>();
 
@@ -30,23 +37,14 @@ public class UpdateBuilder {
 
     @Override
     public UpdateTable table(String tableName) {
-      check(tableName != null, "table name must not be null");
-      check(!tableName.isEmpty(), "table name must not be blank");
-      check(
-          TABLE_NAME_REGEX.asPredicate().test(tableName),
-          "update() does not support table names containing spaces or special characters. Use statement() instead.");
+      checkTableName(tableName, "update()");
       this.tableName = tableName;
       return this;
     }
 
     @Override
     public UpdateTableSet set(String columnName, Object value) {
-      check(columnName != null, "column name must not be null");
-      check(!columnName.isEmpty(), "column name must not be blank");
-      check(
-          COLUMN_NAME_REGEX.asPredicate().test(columnName),
-          "update() does not support column names containing spaces or special characters. Use statement() instead.");
-      check(!(value instanceof Collection), "value must not be a collection type");
+      checkColumn(columnName, value, "update()");
       columns.put(columnName, value);
       return this;
     }
@@ -63,11 +61,7 @@ public class UpdateBuilder {
 
     @Override
     public UpdateTableConditions bind(String name, Object value) {
-      check(name != null, "bind parameter name must not be null");
-      check(!name.isEmpty(), "bind parameter name must not be blank");
-      check(
-          PARAMETER_NAME_REGEX.asPredicate().test(name),
-          "bind parameter name must not contain spaces or special characters");
+      checkParameterName(name);
       parameters.put(name, value);
       return this;
     }
@@ -82,11 +76,11 @@ public class UpdateBuilder {
     public int execute() {
       validateSqlConditions();
       Map<String, String> columnParameters = disambiguateColumnParameters();
-      return jdbc.statement(buildSql(columnParameters), parameters);
+      return jdbc.statement(buildSql(tableName, columnParameters, sqlConditions), parameters);
     }
 
     private Map<String, String> disambiguateColumnParameters() {
-      Map<String, String> columnParameters = new HashMap<>();
+      Map<String, String> columnParameters = new LinkedHashMap<>();
       columns.forEach(
           (columnName, value) -> {
             Stream.iterate(columnName, n -> "_" + n)
@@ -111,19 +105,181 @@ public class UpdateBuilder {
         ParameterizedQuery.from(sqlConditions, parameters);
       }
     }
+  }
+
+  static BatchBuilder getBatch(SimpleJdbc jdbc) {
+    return new BatchBuilder(jdbc);
+  }
+
+  /**
+   * Collects the rows of a batch update. The SQL, and which parameter each column is bound to, is
+   * worked out once from the first row; every row is then bound as it is added, and sent to the
+   * database every `batchSize` rows.
+   */
+  static class BatchBuilder
+      implements BatchUpdate,
+          BatchUpdateTable,
+          BatchUpdateTableSet,
+          BatchUpdateRow,
+          BatchUpdateRows {
+    static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final SimpleJdbc jdbc;
+    private String tableName;
+    private String sqlConditions;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private final Map<String, Object> columns = new TreeMap<>();
+    private final Map<String, Object> parameters = new HashMap<>();
+    // Worked out from the first row
+    private Set<String> columnNames;
+    private Set<String> parameterNames;
+    private Map<String, String> columnParameters;
+    private ParameterizedQuery.Template template;
+    private List<ParameterizedQuery> pending = new ArrayList<>();
+    private final List<int[]> updateCounts = new ArrayList<>();
+
+    private BatchBuilder(SimpleJdbc jdbc) {
+      this.jdbc = jdbc;
+    }
+
+    @Override
+    public BatchBuilder table(String tableName) {
+      checkTableName(tableName, "batchUpdate()");
+      this.tableName = tableName;
+      return this;
+    }
+
+    @Override
+    public BatchBuilder set(String columnName, Object value) {
+      checkColumn(columnName, value, "batchUpdate()");
+      columns.put(columnName, value);
+      return this;
+    }
+
+    @Override
+    public BatchBuilder where(String sqlConditions) {
+      check(
+          sqlConditions != null && !sqlConditions.trim().isEmpty(),
+          "where() condition must not be null or blank");
+      this.sqlConditions = sqlConditions;
+      return this;
+    }
 
-    private String buildSql(Map<String, String> columnParameters) {
-      StringJoiner statement =
-          new StringJoiner(
-              ", ",
-              "update " + tableName + " set ",
-              sqlConditions == null ? "" : " where " + sqlConditions);
-      columnParameters.forEach(
-          (columnName, columnParamName) -> statement.add(columnName + " = :" + columnParamName));
-      return statement.toString();
+    @Override
+    public BatchBuilder bind(String name, Object value) {
+      checkParameterName(name);
+      parameters.put(name, value);
+      return this;
+    }
+
+    @Override
+    public BatchBuilder addBatch() {
+      check(!columns.isEmpty(), "must set() at least one column");
+      if (template == null) {
+        plan();
+      } else {
+        check(
+            columns.keySet().equals(columnNames) && parameters.keySet().equals(parameterNames),
+            "every batch entry must set() the same columns and bind() the same parameters");
+      }
+      Map<String, Object> bindings = new HashMap<>(parameters);
+      columns.forEach((c, value) -> bindings.put(columnParameters.get(c), value));
+      pending.add(template.bind(bindings, jdbc.getInListPadding()));
+      columns.clear();
+      parameters.clear();
+      if (pending.size() >= batchSize) {
+        flush();
+      }
+      return this;
+    }
+
+    private void plan() {
+      // Same check as for single updates: every parameter of the condition must be bound
+      ParameterizedQuery.from(sqlConditions, parameters);
+
+      columnNames = new HashSet<>(columns.keySet());
+      parameterNames = new HashSet<>(parameters.keySet());
+      columnParameters = new LinkedHashMap<>();
+      Set<String> usedNames = new HashSet<>(parameterNames);
+      for (String columnName : columns.keySet()) {
+        String name = columnName;
+        while (!usedNames.add(name)) {
+          name = "_" + name;
+        }
+        columnParameters.put(columnName, name);
+      }
+      template = jdbc.template(buildSql(tableName, columnParameters, sqlConditions));
+    }
+
+    @Override
+    public BatchBuilder batchSize(int batchSize) {
+      check(batchSize > 0, "batch size must be greater than zero");
+      this.batchSize = batchSize;
+      if (pending.size() >= batchSize) {
+        flush();
+      }
+      return this;
+    }
+
+    @Override
+    public int[] executeBatch() {
+      if (!pending.isEmpty()) {
+        flush();
+      }
+      int[] all = new int[updateCounts.stream().mapToInt(counts -> counts.length).sum()];
+      int from = 0;
+      for (int[] counts : updateCounts) {
+        System.arraycopy(counts, 0, all, from, counts.length);
+        from += counts.length;
+      }
+      return all;
+    }
+
+    private void flush() {
+      updateCounts.add(jdbc.batchStatement(pending));
+      pending = new ArrayList<>();
     }
   }
 
+  private static void checkTableName(String tableName, String method) {
+    check(tableName != null, "table name must not be null");
+    check(!tableName.isEmpty(), "table name must not be blank");
+    check(
+        TABLE_NAME_REGEX.asPredicate().test(tableName),
+        method
+            + " does not support table names containing spaces or special characters. Use statement() instead.");
+  }
+
+  private static void checkColumn(String columnName, Object value, String method) {
+    check(columnName != null, "column name must not be null");
+    check(!columnName.isEmpty(), "column name must not be blank");
+    check(
+        COLUMN_NAME_REGEX.asPredicate().test(columnName),
+        method
+            + " does not support column names containing spaces or special characters. Use statement() instead.");
+    check(!(value instanceof Collection), "value must not be a collection type");
+  }
+
+  private static void checkParameterName(String name) {
+    check(name != null, "bind parameter name must not be null");
+    check(!name.isEmpty(), "bind parameter name must not be blank");
+    check(
+        PARAMETER_NAME_REGEX.asPredicate().test(name),
+        "bind parameter name must not contain spaces or special characters");
+  }
+
+  private static String buildSql(
+      String tableName, Map<String, String> columnParameters, String sqlConditions) {
+    StringJoiner statement =
+        new StringJoiner(
+            ", ",
+            "update " + tableName + " set ",
+            sqlConditions == null ? "" : " where " + sqlConditions);
+    columnParameters.forEach(
+        (columnName, columnParamName) -> statement.add(columnName + " = :" + columnParamName));
+    return statement.toString();
+  }
+
   public interface Update {
     UpdateTable table(String tableName);
   }
@@ -143,4 +299,44 @@ public class UpdateBuilder {
 
     int execute();
   }
+
+  public interface BatchUpdate {
+    BatchUpdateTable table(String tableName);
+  }
+
+  public interface BatchUpdateTable {
+    BatchUpdateTableSet set(String columnName, Object value);
+
+    /** Gives the condition up front, with every row then supplied via set()/bind()/addBatch() */
+    BatchUpdateRows where(String sqlConditions);
+  }
+
+  public interface BatchUpdateTableSet {
+    BatchUpdateTableSet set(String columnName, Object value);
+
+    BatchUpdateRow where(String sqlConditions);
+  }
+
+  public interface BatchUpdateRow {
+    BatchUpdateRow set(String columnName, Object value);
+
+    BatchUpdateRow bind(String name, Object value);
+
+    BatchUpdateRows addBatch();
+  }
+
+  public interface BatchUpdateRows {
+    BatchUpdateRow set(String columnName, Object value);
+
+    BatchUpdateRow bind(String name, Object value);
+
+    /**
+     * Sends the rows to the database every `batchSize` rows (1000 unless given) as they are added,
+     * each lot on its own prepared statement, rather than all at once. Best given before the rows.
+     */
+    BatchUpdateRows batchSize(int batchSize);
+
+    /** Sends any rows not yet sent, returning the update counts of every row, in order */
+    int[] executeBatch();
+  }
 }
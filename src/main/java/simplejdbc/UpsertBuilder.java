@@ -0,0 +1,396 @@
+package simplejdbc;
+
+import static simplejdbc.Util.COLUMN_NAME_REGEX;
+import static simplejdbc.Util.TABLE_NAME_REGEX;
+import static simplejdbc.Util.check;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class UpsertBuilder {
+
+  static Builder get(SimpleJdbc jdbc) {
+    return new Builder(jdbc);
+  }
+
+  static class Builder
+      implements Upsert,
+          UpsertInto,
+          UpsertOnConflict,
+          UpsertSet,
+          BatchUpsert,
+          BatchUpsertInto,
+          BatchUpsertOnConflict,
+          BatchUpsertSet {
+    private final SimpleJdbc jdbc;
+    private Dialect dialect;
+    private boolean affectedRows;
+    private String tableName;
+    private List<String> keyColumns;
+    // Sorted, so that upserts setting the same columns always share the same SQL text
+    private Map<String, Object> columnValues = new TreeMap<>();
+    private final List<Map<String, ?>> batch = new ArrayList<>();
+
+    private Builder(SimpleJdbc jdbc) {
+      this.jdbc = jdbc;
+    }
+
+    @Override
+    public Builder dialect(Dialect dialect) {
+      check(dialect != null, "dialect must not be null");
+      this.dialect = dialect;
+      return this;
+    }
+
+    @Override
+    public Builder useAffectedRows() {
+      this.affectedRows = true;
+      return this;
+    }
+
+    @Override
+    public Builder into(String tableName) {
+      check(tableName != null && !tableName.isEmpty(), "table name is required");
+      check(
+          TABLE_NAME_REGEX.asPredicate().test(tableName),
+          "upsert() does not support table names which contain spaces or special characters. Use statement() instead.");
+      this.tableName = tableName;
+      return this;
+    }
+
+    @Override
+    public Builder onConflict(String... keyColumns) {
+      check(keyColumns != null && keyColumns.length > 0, "at least one conflict column is required");
+      for (String keyColumn : keyColumns) {
+        checkColumnName(keyColumn);
+      }
+      this.keyColumns = Arrays.asList(keyColumns);
+      return this;
+    }
+
+    @Override
+    public Builder set(String columnName, Object value) {
+      checkColumnName(columnName);
+      check(!(value instanceof Collection), "value must not be a collection type");
+      columnValues.put(columnName, value);
+      return this;
+    }
+
+    @Override
+    public Builder addBatch() {
+      batch.add(columnValues);
+      columnValues = new TreeMap<>();
+      return this;
+    }
+
+    @Override
+    public UpsertResult execute() {
+      checkColumns(columnValues.keySet());
+      return withDialect(
+          dialect -> {
+            String sql = buildSql(dialect, columnValues.keySet());
+            if (dialect == Dialect.POSTGRESQL) {
+              // xmax is only zero for freshly inserted row versions
+              List<Boolean> inserted =
+                  jdbc.query(
+                      sql + " returning (xmax = 0) as upsert_inserted",
+                      columnValues,
+                      QueryResultExtractors.list(row -> row.getBoolean("upsert_inserted")));
+              int insertedCount = (int) inserted.stream().filter(Boolean.TRUE::equals).count();
+              return new UpsertResult(
+                  inserted.size(),
+                  OptionalInt.of(insertedCount),
+                  OptionalInt.of(inserted.size() - insertedCount));
+            }
+            return UpsertResult.fromUpdateCounts(
+                dialect, affectedRows, new int[] {jdbc.statement(sql, columnValues)});
+          });
+    }
+
+    @Override
+    public UpsertResult executeBatch() {
+      if (batch.isEmpty()) {
+        return new UpsertResult(0, OptionalInt.of(0), OptionalInt.of(0));
+      }
+      Set<String> columns = batch.get(0).keySet();
+      checkColumns(columns);
+      for (Map<String, ?> row : batch) {
+        check(row.keySet().equals(columns), "every batch entry must set() the same columns");
+      }
+      return withDialect(
+          dialect ->
+              UpsertResult.fromUpdateCounts(
+                  dialect, affectedRows, jdbc.batchStatement(buildSql(dialect, columns), batch)));
+    }
+
+    private <T> T withDialect(Function<Dialect, T> fn) {
+      Dialect known = dialect != null ? dialect : jdbc.getUpsertDialect();
+      if (known != null) {
+        return fn.apply(known);
+      }
+      return jdbc.withConnection(
+          conn -> {
+            try {
+              return fn.apply(jdbc.detectUpsertDialect(conn));
+            } catch (SQLException ex) {
+              throw new SimpleJdbcException(ex);
+            }
+          });
+    }
+
+    private void checkColumns(Set<String> columns) {
+      check(keyColumns != null, "onConflict() columns are required");
+      check(
+          columns.containsAll(keyColumns),
+          "every onConflict() column must also be set(), but got " + keyColumns);
+    }
+
+    private static void checkColumnName(String columnName) {
+      check(columnName != null && !columnName.isEmpty(), "column name is required");
+      check(
+          COLUMN_NAME_REGEX.asPredicate().test(columnName),
+          "upsert() does not support column names which contain spaces or special characters. Use statement() instead.");
+    }
+
+    private String buildSql(Dialect dialect, Set<String> columns) {
+      List<String> updateColumns =
+          columns.stream().filter(c -> !keyColumns.contains(c)).collect(Collectors.toList());
+      String columnList = String.join(", ", columns);
+      String parameterList = join(columns, c -> ":" + c);
+      switch (dialect) {
+        case POSTGRESQL:
+          return String.format(
+              "insert into %s (%s) values (%s) on conflict (%s) %s",
+              tableName,
+              columnList,
+              parameterList,
+              String.join(", ", keyColumns),
+              updateColumns.isEmpty()
+                  ? "do nothing"
+                  : "do update set " + join(updateColumns, c -> c + " = excluded." + c));
+        case MYSQL:
+          // MySQL resolves conflicts on any unique key, so the conflict columns aren't named
+          return String.format(
+              "insert into %s (%s) values (%s) on duplicate key update %s",
+              tableName,
+              columnList,
+              parameterList,
+              updateColumns.isEmpty()
+                  ? join(keyColumns, c -> c + " = " + c)
+                  : join(updateColumns, c -> c + " = values(" + c + ")"));
+        case ORACLE:
+          return buildMerge(
+              tableName + " upsert_target",
+              "(select " + join(columns, c -> ":" + c + " as " + c) + " from dual) upsert_source",
+              columns,
+              updateColumns);
+        case SQL_SERVER:
+          // SQL Server insists on MERGE statements being terminated
+          return buildMerge(
+                  tableName + " as upsert_target",
+                  "(values (" + parameterList + ")) as upsert_source (" + columnList + ")",
+                  columns,
+                  updateColumns)
+              + ";";
+        default:
+          return buildMerge(
+              tableName + " as upsert_target",
+              "(values (" + parameterList + ")) as upsert_source (" + columnList + ")",
+              columns,
+              updateColumns);
+      }
+    }
+
+    private String buildMerge(
+        String target, String source, Set<String> columns, List<String> updateColumns) {
+      StringBuilder sql =
+          new StringBuilder("merge into ")
+              .append(target)
+              .append(" using ")
+              .append(source)
+              .append(" on (")
+              .append(
+                  keyColumns.stream()
+                      .map(c -> "upsert_target." + c + " = upsert_source." + c)
+                      .collect(Collectors.joining(" and ")))
+              .append(")");
+      if (!updateColumns.isEmpty()) {
+        sql.append(" when matched then update set ")
+            .append(join(updateColumns, c -> "upsert_target." + c + " = upsert_source." + c));
+      }
+      return sql.append(" when not matched then insert (")
+          .append(String.join(", ", columns))
+          .append(") values (")
+          .append(join(columns, c -> "upsert_source." + c))
+          .append(")")
+          .toString();
+    }
+
+    private static String join(Collection<String> columns, Function<String, String> fn) {
+      StringJoiner joiner = new StringJoiner(", ");
+      columns.forEach(c -> joiner.add(fn.apply(c)));
+      return joiner.toString();
+    }
+  }
+
+  /**
+   * The SQL flavor used to express an upsert. Unless specified, detected from a connection the first
+   * time it's needed, and remembered by the `SimpleJdbc` instance.
+   */
+  public enum Dialect {
+    /** `insert ... on conflict (...) do update` */
+    POSTGRESQL,
+    /** `insert ... on duplicate key update` (also MariaDB) */
+    MYSQL,
+    /** `merge into ... using (select ... from dual)` */
+    ORACLE,
+    /** `merge into ... using (values ...);` */
+    SQL_SERVER,
+    /** Standard SQL `merge into ... using (values ...)`, e.g. for H2 and DB2 */
+    STANDARD;
+
+    static Dialect of(Connection conn) throws SQLException {
+      return fromProductName(conn.getMetaData().getDatabaseProductName());
+    }
+
+    static Dialect fromProductName(String productName) {
+      String name = productName == null ? "" : productName.toLowerCase(Locale.ROOT);
+      if (name.contains("postgres")) {
+        return POSTGRESQL;
+      }
+      if (name.contains("mysql") || name.contains("mariadb")) {
+        return MYSQL;
+      }
+      if (name.contains("oracle")) {
+        return ORACLE;
+      }
+      if (name.contains("sql server")) {
+        return SQL_SERVER;
+      }
+      return STANDARD;
+    }
+  }
+
+  /**
+   * The outcome of an upsert. Whether rows were inserted or updated can only be told apart for
+   * some dialects: PostgreSQL (single rows only) and MySQL given {@link Upsert#useAffectedRows()}
+   * (unless the driver rewrites batches).
+   */
+  public static final class UpsertResult {
+    private final int rowsAffected;
+    private final OptionalInt inserted;
+    private final OptionalInt updated;
+
+    UpsertResult(int rowsAffected, OptionalInt inserted, OptionalInt updated) {
+      this.rowsAffected = rowsAffected;
+      this.inserted = inserted;
+      this.updated = updated;
+    }
+
+    static UpsertResult fromUpdateCounts(
+        Dialect dialect, boolean affectedRows, int[] updateCounts) {
+      boolean mysql = dialect == Dialect.MYSQL;
+      int rowsAffected = 0;
+      int inserted = 0;
+      int updated = 0;
+      // Unless the driver reports affected rows, an unchanged row reports 1 (the row found), just
+      // as an inserted row does
+      boolean breakdownKnown = mysql && affectedRows;
+      for (int count : updateCounts) {
+        if (count < 0) {
+          // e.g. Statement.SUCCESS_NO_INFO
+          breakdownKnown = false;
+          continue;
+        }
+        // MySQL reports 1 for an inserted row, 2 for an updated row and 0 for an unchanged row
+        if (count == 1) {
+          inserted++;
+        } else if (count == 2) {
+          updated++;
+        }
+        rowsAffected += mysql ? Math.min(count, 1) : count;
+      }
+      return breakdownKnown
+          ? new UpsertResult(rowsAffected, OptionalInt.of(inserted), OptionalInt.of(updated))
+          : new UpsertResult(rowsAffected, OptionalInt.empty(), OptionalInt.empty());
+    }
+
+    /** @return the number of rows inserted or updated */
+    public int getRowsAffected() {
+      return rowsAffected;
+    }
+
+    /** @return the number of rows inserted, if the dialect reports it */
+    public OptionalInt getInserted() {
+      return inserted;
+    }
+
+    /** @return the number of rows updated, if the dialect reports it */
+    public OptionalInt getUpdated() {
+      return updated;
+    }
+  }
+
+  public interface Upsert {
+    Upsert dialect(Dialect dialect);
+
+    /**
+     * Declares that the driver reports the rows an upsert changed rather than the rows it found
+     * (e.g. MySQL Connector/J or MariaDB Connector/J given `useAffectedRows=true`), so that a MySQL
+     * upsert's inserted and updated rows can be told apart. Otherwise they are reported as unknown,
+     * since a row left unchanged reports the same count as one inserted.
+     */
+    Upsert useAffectedRows();
+
+    UpsertInto into(String tableName);
+  }
+
+  public interface UpsertInto {
+    UpsertOnConflict onConflict(String... keyColumns);
+  }
+
+  public interface UpsertOnConflict {
+    UpsertSet set(String columnName, Object value);
+  }
+
+  public interface UpsertSet extends UpsertOnConflict {
+    UpsertResult execute();
+  }
+
+  public interface BatchUpsert {
+    BatchUpsert dialect(Dialect dialect);
+
+    /** @see Upsert#useAffectedRows() */
+    BatchUpsert useAffectedRows();
+
+    BatchUpsertInto into(String tableName);
+  }
+
+  public interface BatchUpsertInto {
+    BatchUpsertOnConflict onConflict(String... keyColumns);
+  }
+
+  public interface BatchUpsertOnConflict {
+    BatchUpsertSet set(String columnName, Object value);
+
+    UpsertResult executeBatch();
+  }
+
+  public interface BatchUpsertSet {
+    BatchUpsertSet set(String columnName, Object value);
+
+    BatchUpsertOnConflict addBatch();
+  }
+}
@@ -1,5 +1,7 @@
 package simplejdbc;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Pattern;
 
 public class Util {
@@ -8,9 +10,29 @@ public class Util {
   static final Pattern COLUMN_NAME_REGEX = Pattern.compile("^\\w+$");
   static final Pattern PARAMETER_NAME_REGEX = COLUMN_NAME_REGEX;
 
+  private static final ThreadLocal<ByteBuffer> COPY_BUFFER =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+
   static void check(boolean predicate, String message) {
     if (!predicate) {
       throw new SimpleJdbcException(message);
     }
   }
+
+  /**
+   * @return this thread's buffer for copying a stream in chunks, allocated once per thread rather
+   *     than once per copy; not to be held on to past the copy
+   */
+  static ByteBuffer copyBuffer() {
+    return COPY_BUFFER.get();
+  }
+
+  /** Creates threads with the given name which don't keep the JVM alive. */
+  static ThreadFactory daemonThreadFactory(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
 }
@@ -0,0 +1,180 @@
+package simplejdbc;
+
+import static simplejdbc.Util.check;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * How far a `TableWatch` has read: the watermark (and tie-breaker) of the last row it delivered.
+ * Handed to the consumer with each batch, to be stored alongside whatever the batch produced, and
+ * given back to `WatchConfig.startingAfter()` to resume from there after a restart.
+ *
+ * <p>Watermarks are numbers or instants, and tie-breakers numbers or strings. `toString()` writes
+ * the checkpoint as a string, which `parse()` reads back, e.g. `t:2024-05-01T12:00:00Z,n:1042`.
+ */
+public final class WatchCheckpoint {
+
+  private final Object watermark;
+  private final Object tieBreaker;
+
+  private WatchCheckpoint(Object watermark, Object tieBreaker) {
+    this.watermark = watermark;
+    this.tieBreaker = tieBreaker;
+  }
+
+  /**
+   * @param watermark the watermark of the last row delivered
+   * @return a checkpoint for a watch without a tie-breaker column
+   */
+  public static WatchCheckpoint of(long watermark) {
+    return new WatchCheckpoint(watermark, null);
+  }
+
+  public static WatchCheckpoint of(Instant watermark) {
+    Objects.requireNonNull(watermark, "watermark must not be null");
+    return new WatchCheckpoint(watermark, null);
+  }
+
+  /**
+   * @param watermark the watermark of the last row delivered
+   * @param tieBreaker the tie-breaker of the last row delivered
+   * @return a checkpoint for a watch with a tie-breaker column
+   */
+  public static WatchCheckpoint of(long watermark, Object tieBreaker) {
+    return new WatchCheckpoint(watermark, tieBreaker(tieBreaker));
+  }
+
+  public static WatchCheckpoint of(Instant watermark, Object tieBreaker) {
+    Objects.requireNonNull(watermark, "watermark must not be null");
+    return new WatchCheckpoint(watermark, tieBreaker(tieBreaker));
+  }
+
+  /**
+   * @param checkpoint a checkpoint, as written by `toString()`
+   * @return the checkpoint
+   * @throws SimpleJdbcException if the string is not a checkpoint
+   */
+  public static WatchCheckpoint parse(String checkpoint) {
+    Objects.requireNonNull(checkpoint, "checkpoint must not be null");
+    int comma = checkpoint.indexOf(',');
+    String watermark = comma < 0 ? checkpoint : checkpoint.substring(0, comma);
+    try {
+      Object tieBreaker = comma < 0 ? null : parseValue(checkpoint.substring(comma + 1), true);
+      return new WatchCheckpoint(parseValue(watermark, false), tieBreaker);
+    } catch (NumberFormatException | DateTimeException ex) {
+      throw new SimpleJdbcException("invalid watch checkpoint: " + checkpoint, ex);
+    }
+  }
+
+  /** @return a `Long` or `Instant` */
+  public Object getWatermark() {
+    return watermark;
+  }
+
+  /** @return a `Long` or `String`, or null for a watch without a tie-breaker column */
+  public Object getTieBreaker() {
+    return tieBreaker;
+  }
+
+  /** For a watermark and tie-breaker already read with `watermark()` and `tieBreaker()`. */
+  static WatchCheckpoint at(Object watermark, Object tieBreaker) {
+    return new WatchCheckpoint(watermark, tieBreaker);
+  }
+
+  /**
+   * Reads a row's watermark as a `Long` or an `Instant`, whichever the column holds, so that it
+   * can be compared, bound back as a parameter, and written as a string.
+   */
+  static Object watermark(Object value, String column) {
+    check(value != null, "watermark column " + column + " must not be null");
+    if (value instanceof Number) {
+      return toLong((Number) value, column);
+    }
+    if (value instanceof Timestamp) {
+      return ((Timestamp) value).toInstant();
+    }
+    if (value instanceof OffsetDateTime) {
+      return ((OffsetDateTime) value).toInstant();
+    }
+    if (value instanceof Instant) {
+      return value;
+    }
+    throw new SimpleJdbcException(
+        String.format(
+            "unsupported type %s of watermark column %s; expected a number or timestamp",
+            value.getClass().getName(), column));
+  }
+
+  /** Reads a row's tie-breaker as a `Long` or a `String`. */
+  static Object tieBreaker(Object value) {
+    check(value != null, "tie-breaker must not be null");
+    if (value instanceof Number) {
+      return toLong((Number) value, "tie-breaker");
+    }
+    check(
+        value instanceof String,
+        String.format(
+            "unsupported tie-breaker type %s; expected a number or string",
+            value.getClass().getName()));
+    return value;
+  }
+
+  // e.g. a BigDecimal from an Oracle NUMBER column, which must then hold a whole number
+  private static long toLong(Number value, String name) {
+    if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+      return value.longValue();
+    }
+    try {
+      return new BigDecimal(value.toString()).longValueExact();
+    } catch (ArithmeticException ex) {
+      throw new SimpleJdbcException(name + " must be a whole number, but was " + value, ex);
+    }
+  }
+
+  private static Object parseValue(String value, boolean tieBreaker) {
+    if (value.startsWith("n:")) {
+      return Long.parseLong(value.substring(2));
+    }
+    if (!tieBreaker && value.startsWith("t:")) {
+      return Instant.parse(value.substring(2));
+    }
+    if (tieBreaker && value.startsWith("s:")) {
+      return value.substring(2);
+    }
+    throw new NumberFormatException("unknown value type: " + value);
+  }
+
+  private static String format(Object value) {
+    if (value instanceof Long) {
+      return "n:" + value;
+    }
+    return (value instanceof Instant ? "t:" : "s:") + value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof WatchCheckpoint)) {
+      return false;
+    }
+    WatchCheckpoint that = (WatchCheckpoint) o;
+    return watermark.equals(that.watermark) && Objects.equals(tieBreaker, that.tieBreaker);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(watermark, tieBreaker);
+  }
+
+  @Override
+  public String toString() {
+    return tieBreaker == null ? format(watermark) : format(watermark) + "," + format(tieBreaker);
+  }
+}
@@ -0,0 +1,190 @@
+package simplejdbc;
+
+import static simplejdbc.Util.COLUMN_NAME_REGEX;
+import static simplejdbc.Util.check;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for `QueryBuilder.watch()`: which column orders the rows, how often to poll, and where
+ * to start. Instances are immutable; each `with` method returns a modified copy.
+ *
+ * <pre>{@code
+ * WatchConfig config =
+ *     WatchConfig.on("updated_at")
+ *         .withTieBreaker("id")
+ *         .withOverlap(Duration.ofSeconds(5))
+ *         .startingAfter(WatchCheckpoint.parse(storedCheckpoint));
+ * }</pre>
+ */
+public final class WatchConfig {
+
+  private final String watermarkColumn;
+  private final String tieBreakerColumn;
+  private final Duration interval;
+  private final Duration maxInterval;
+  private final int batchSize;
+  private final Object overlap;
+  private final WatchCheckpoint start;
+
+  private WatchConfig(
+      String watermarkColumn,
+      String tieBreakerColumn,
+      Duration interval,
+      Duration maxInterval,
+      int batchSize,
+      Object overlap,
+      WatchCheckpoint start) {
+    this.watermarkColumn = watermarkColumn;
+    this.tieBreakerColumn = tieBreakerColumn;
+    this.interval = interval;
+    this.maxInterval = maxInterval;
+    this.batchSize = batchSize;
+    this.overlap = overlap;
+    this.start = start;
+  }
+
+  /**
+   * Watches a query's rows in order of a column which only ever increases as rows are added or
+   * changed, e.g. an identity `id`, or an `updated_at` (with a tie-breaker). Polls every second
+   * while rows are arriving, backing off to every 30 seconds while none are, in batches of up to
+   * 500 rows, starting from the first row.
+   *
+   * @param watermarkColumn the column's label, which must hold numbers or timestamps, and be
+   *     unique unless a tie-breaker is given
+   * @return the default settings for the column
+   */
+  public static WatchConfig on(String watermarkColumn) {
+    checkColumn(watermarkColumn, "watermark column");
+    return new WatchConfig(
+        watermarkColumn, null, Duration.ofSeconds(1), Duration.ofSeconds(30), 500, null, null);
+  }
+
+  /**
+   * @param tieBreakerColumn a unique column (e.g. the primary key), holding numbers or strings,
+   *     which orders rows with the same watermark
+   * @return a copy of these settings with the given tie-breaker
+   */
+  public WatchConfig withTieBreaker(String tieBreakerColumn) {
+    checkColumn(tieBreakerColumn, "tie-breaker column");
+    return new WatchConfig(
+        watermarkColumn, tieBreakerColumn, interval, maxInterval, batchSize, overlap, start);
+  }
+
+  /**
+   * @param interval how long to wait between polls while rows are arriving; raises the max
+   *     interval to match, if need be
+   * @return a copy of these settings with the given interval
+   */
+  public WatchConfig withInterval(Duration interval) {
+    checkPositive(interval, "interval");
+    Duration max = interval.compareTo(maxInterval) > 0 ? interval : maxInterval;
+    return new WatchConfig(
+        watermarkColumn, tieBreakerColumn, interval, max, batchSize, overlap, start);
+  }
+
+  /**
+   * @param maxInterval the longest to wait between polls, as the wait doubles with each poll which
+   *     finds no rows
+   * @return a copy of these settings with the given maximum interval
+   */
+  public WatchConfig withMaxInterval(Duration maxInterval) {
+    checkPositive(maxInterval, "max interval");
+    check(maxInterval.compareTo(interval) >= 0, "max interval must not be less than interval");
+    return new WatchConfig(
+        watermarkColumn, tieBreakerColumn, interval, maxInterval, batchSize, overlap, start);
+  }
+
+  /**
+   * @param batchSize the most rows to deliver at once; should a poll find as many, the next is run
+   *     straight away
+   * @return a copy of these settings with the given batch size
+   */
+  public WatchConfig withBatchSize(int batchSize) {
+    check(batchSize > 0, "batch size must be greater than zero");
+    return new WatchConfig(
+        watermarkColumn, tieBreakerColumn, interval, maxInterval, batchSize, overlap, start);
+  }
+
+  /**
+   * Re-reads rows up to the given time behind the last watermark on each poll, to catch rows
+   * whose transactions committed after rows with later timestamps had already been read. Rows
+   * already delivered are skipped, so the watch must also be given a tie-breaker.
+   *
+   * @param overlap how long a transaction may take to commit, for a timestamp watermark
+   * @return a copy of these settings with the given overlap
+   */
+  public WatchConfig withOverlap(Duration overlap) {
+    checkPositive(overlap, "overlap");
+    return new WatchConfig(
+        watermarkColumn, tieBreakerColumn, interval, maxInterval, batchSize, overlap, start);
+  }
+
+  /**
+   * Re-reads rows up to the given count of numbers behind the last watermark on each poll, to
+   * catch rows whose transactions (having taken their ids earlier) committed after rows with
+   * later ids had already been read. Rows already delivered are skipped.
+   *
+   * @param overlap how far behind the watermark to re-read, for a numeric watermark
+   * @return a copy of these settings with the given overlap
+   */
+  public WatchConfig withOverlap(long overlap) {
+    check(overlap > 0, "overlap must be greater than zero");
+    return new WatchConfig(
+        watermarkColumn, tieBreakerColumn, interval, maxInterval, batchSize, overlap, start);
+  }
+
+  /**
+   * @param checkpoint a checkpoint handed to the consumer (e.g. by an earlier run), after which to
+   *     start
+   * @return a copy of these settings starting after the given checkpoint
+   */
+  public WatchConfig startingAfter(WatchCheckpoint checkpoint) {
+    Objects.requireNonNull(checkpoint, "checkpoint must not be null");
+    return new WatchConfig(
+        watermarkColumn, tieBreakerColumn, interval, maxInterval, batchSize, overlap, checkpoint);
+  }
+
+  public String getWatermarkColumn() {
+    return watermarkColumn;
+  }
+
+  /** @return the tie-breaker column, or null if none */
+  public String getTieBreakerColumn() {
+    return tieBreakerColumn;
+  }
+
+  public Duration getInterval() {
+    return interval;
+  }
+
+  public Duration getMaxInterval() {
+    return maxInterval;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /** @return a `Duration` or `Long` overlap, or null if none */
+  public Object getOverlap() {
+    return overlap;
+  }
+
+  /** @return the checkpoint to start after, or null to start from the first row */
+  public WatchCheckpoint getStart() {
+    return start;
+  }
+
+  private static void checkColumn(String column, String name) {
+    check(
+        column != null && COLUMN_NAME_REGEX.asPredicate().test(column),
+        name + " must not be blank or contain spaces or special characters");
+  }
+
+  private static void checkPositive(Duration duration, String name) {
+    Objects.requireNonNull(duration, name + " must not be null");
+    check(!duration.isNegative() && !duration.isZero(), name + " must be greater than zero");
+  }
+}
@@ -0,0 +1,131 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchLoaderTest {
+
+  private DataSource dataSource;
+  private Connection connection;
+  private PreparedStatement statement;
+  private ResultSet resultSet;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    dataSource = mock(DataSource.class);
+    connection = mock(Connection.class);
+    statement = mock(PreparedStatement.class);
+    resultSet = mock(ResultSet.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.getAutoCommit()).thenReturn(true);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    when(statement.executeQuery()).thenReturn(resultSet);
+  }
+
+  @Test
+  void load_combinesKeysIntoOneQuery() throws SQLException {
+    when(resultSet.next()).thenReturn(true, true, false);
+    when(resultSet.getLong("id")).thenReturn(2L, 1L);
+    when(resultSet.getString("name")).thenReturn("two", "one");
+    BatchLoader<Long, String> loader = loader(Duration.ofMillis(50), 100);
+
+    CompletableFuture<Optional<String>> one = loader.load(1L);
+    CompletableFuture<Optional<String>> two = loader.load(2L);
+    CompletableFuture<Optional<String>> three = loader.load(3L);
+
+    assertThat(one.join()).hasValue("one");
+    assertThat(two.join()).hasValue("two");
+    assertThat(three.join()).isEmpty();
+    verify(connection).prepareStatement("select id, name from person where id in (?,?,?)");
+    verify(statement).setLong(1, 1L);
+    verify(statement).setLong(2, 2L);
+    verify(statement).setLong(3, 3L);
+    verify(statement, times(1)).executeQuery();
+  }
+
+  @Test
+  void load_sameKeyTwice_sharesFuture() {
+    when(resultSet.next()).thenReturn(false);
+    BatchLoader<Long, String> loader = loader(Duration.ofMillis(50), 100);
+
+    assertThat(loader.load(1L)).isSameInstanceAs(loader.load(1L));
+  }
+
+  @Test
+  void load_whenBatchIsFull_loadsWithoutWaiting() throws SQLException {
+    when(resultSet.next()).thenReturn(false);
+    BatchLoader<Long, String> loader = loader(Duration.ofHours(1), 2);
+
+    loader.load(1L);
+    loader.load(2L).join();
+
+    verify(connection).prepareStatement("select id, name from person where id in (?,?)");
+  }
+
+  @Test
+  void load_whenQueryFails_failsEveryKey() throws SQLException {
+    when(statement.executeQuery()).thenThrow(new SQLException("connection reset"));
+    BatchLoader<Long, String> loader = loader(Duration.ofMillis(10), 100);
+
+    CompletableFuture<Optional<String>> one = loader.load(1L);
+    CompletableFuture<Optional<String>> two = loader.load(2L);
+
+    CompletionException ex = assertThrows(CompletionException.class, one::join);
+    assertThat(ex).hasCauseThat().isInstanceOf(SimpleJdbcException.class);
+    assertThrows(CompletionException.class, two::join);
+  }
+
+  @Test
+  void scope_loadsEachKeyOnce() throws SQLException {
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getLong("id")).thenReturn(1L);
+    when(resultSet.getString("name")).thenReturn("one");
+    BatchLoader.Scope<Long, String> scope = loader(Duration.ZERO, 100).scope();
+
+    CompletableFuture<Optional<String>> first = scope.load(1L);
+    first.join();
+
+    assertThat(scope.load(1L)).isSameInstanceAs(first);
+    verify(statement, times(1)).executeQuery();
+  }
+
+  @Test
+  void batchLoader_withoutSingleParameter_throws() {
+    SimpleJdbc jdbc = SimpleJdbc.using(dataSource);
+
+    SimpleJdbcException ex =
+        assertThrows(
+            SimpleJdbcException.class,
+            () -> jdbc.batchLoader("select * from person", row -> 1, row -> 1));
+
+    assertThat(ex)
+        .hasMessageThat()
+        .isEqualTo("batch loader SQL must have exactly one named parameter, for the keys");
+  }
+
+  private BatchLoader<Long, String> loader(Duration maxDelay, int maxBatchSize) {
+    return SimpleJdbc.using(dataSource)
+        .batchLoader(
+            "select id, name from person where id in (:ids)",
+            row -> row.getLong("id"),
+            row -> row.getString("name"),
+            BatchLoaderConfig.defaults().withMaxDelay(maxDelay).withMaxBatchSize(maxBatchSize));
+  }
+}
@@ -0,0 +1,103 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BindingPlanTest {
+
+  private ParameterSetters parameterSetters;
+  private BindingPlan.Plans plans;
+
+  @BeforeEach
+  void setup() {
+    parameterSetters = ParameterSetters.defaults();
+    plans = new BindingPlan.Plans();
+  }
+
+  @Test
+  void sameTypes_reusesPlan() {
+    BindingPlan plan = plans.get(parameterSetters, Arrays.asList(1, "a"));
+
+    assertThat(plans.get(parameterSetters, Arrays.asList(2, "b"))).isSameInstanceAs(plan);
+    assertThat(plan.matches(Arrays.asList(3, "c"))).isTrue();
+  }
+
+  @Test
+  void differentTypes_resolveNewPlan() {
+    BindingPlan plan = plans.get(parameterSetters, Arrays.asList(1, "a"));
+
+    assertThat(plans.get(parameterSetters, Arrays.asList(1L, "a"))).isNotSameInstanceAs(plan);
+    assertThat(plans.get(parameterSetters, Arrays.asList(null, "a"))).isNotSameInstanceAs(plan);
+    assertThat(plan.matches(Arrays.asList(null, "a"))).isFalse();
+  }
+
+  @Test
+  void alternatingTypes_keepBothPlans() {
+    BindingPlan ints = plans.get(parameterSetters, Arrays.asList(1));
+    BindingPlan longs = plans.get(parameterSetters, Arrays.asList(1L));
+
+    assertThat(plans.get(parameterSetters, Arrays.asList(2))).isSameInstanceAs(ints);
+    assertThat(plans.get(parameterSetters, Arrays.asList(2L))).isSameInstanceAs(longs);
+  }
+
+  @Test
+  void templates_parseEachSqlTextOnce_andKeepTheirOwnPlans() {
+    ParameterizedQuery.Templates templates = new ParameterizedQuery.Templates();
+    ParameterizedQuery.Template template = templates.get("select :a");
+
+    assertThat(templates.get("select :a")).isSameInstanceAs(template);
+    assertThat(templates.get("select :a + 1").getPlans())
+        .isNotSameInstanceAs(template.getPlans());
+  }
+
+  @Test
+  void cache_pastItsLimit_evictsEntriesNotUsedLately() {
+    LruCache<Integer, String> cache = new LruCache<>(4);
+    for (int i = 0; i < 4; i++) {
+      cache.put(i, "v" + i);
+    }
+    cache.get(0);
+
+    cache.put(4, "v4");
+
+    assertThat(cache.size()).isEqualTo(4);
+    assertThat(cache.get(0)).isEqualTo("v0");
+    assertThat(cache.get(4)).isEqualTo("v4");
+  }
+
+  @Test
+  void registeringSetter_invalidatesPlans() {
+    BindingPlan plan = plans.get(parameterSetters, Arrays.asList(1));
+
+    parameterSetters.registerSetter(Integer.class, (ps, index, value) -> ps.setLong(index, value));
+
+    assertThat(plan.matches(Arrays.asList(1))).isFalse();
+    assertThat(plans.get(parameterSetters, Arrays.asList(1))).isNotSameInstanceAs(plan);
+  }
+
+  @Test
+  void apply_bindsEachParameterWithItsSetter() throws SQLException {
+    PreparedStatement stmt = mock(PreparedStatement.class);
+    List<Object> parameters = Arrays.asList(1, null, "a");
+
+    plans.get(parameterSetters, parameters).apply(stmt, parameters);
+
+    verify(stmt).setInt(1, 1);
+    verify(stmt).setNull(2, Types.NULL);
+    verify(stmt).setString(3, "a");
+  }
+
+  @Test
+  void nullSetter_isShared() {
+    assertThat(parameterSetters.getSetter(null)).isSameInstanceAs(parameterSetters.getSetter(null));
+  }
+}
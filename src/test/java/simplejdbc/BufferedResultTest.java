@@ -0,0 +1,152 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BufferedResultTest {
+
+  private ResultSet resultSet;
+  private ResultSetMetaData metaData;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    resultSet = mock(ResultSet.class);
+    metaData = mock(ResultSetMetaData.class);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(metaData.getColumnCount()).thenReturn(5);
+    when(metaData.getColumnLabel(1)).thenReturn("ID");
+    when(metaData.getColumnLabel(2)).thenReturn("name");
+    when(metaData.getColumnLabel(3)).thenReturn("amount");
+    when(metaData.getColumnLabel(4)).thenReturn("created");
+    when(metaData.getColumnLabel(5)).thenReturn("data");
+    when(resultSet.next()).thenReturn(true, true, false);
+    when(resultSet.getObject(1)).thenReturn(1L, 2L);
+    when(resultSet.getObject(2)).thenReturn("a", null);
+    when(resultSet.getObject(3)).thenReturn(new BigDecimal("12.50"), new BigDecimal("-3"));
+    when(resultSet.getObject(4))
+        .thenReturn(
+            Timestamp.valueOf(LocalDateTime.of(2020, 1, 2, 3, 4, 5, 6)),
+            Timestamp.valueOf(LocalDateTime.of(2021, 1, 1, 0, 0)));
+    when(resultSet.getObject(5)).thenReturn(new byte[] {1, 2, 3}, new byte[0]);
+  }
+
+  @Test
+  void buffered_readsBackEveryRowAndValue() throws Exception {
+    try (BufferedResult rows = extract(1024)) {
+      assertThat(rows.getRowCount()).isEqualTo(2);
+
+      BufferedResult.Cursor cursor = rows.cursor();
+      assertThat(cursor.next()).isTrue();
+      assertThat(cursor.getLong("id")).isEqualTo(1L);
+      assertThat(cursor.getString("name")).isEqualTo("a");
+      assertThat(cursor.getBigDecimal("amount")).isEqualTo(new BigDecimal("12.50"));
+      assertThat(cursor.getLocalDateTime("created"))
+          .isEqualTo(LocalDateTime.of(2020, 1, 2, 3, 4, 5, 6));
+      try (InputStream data = cursor.getBinaryStream("data")) {
+        assertThat(ByteStreams.toByteArray(data)).isEqualTo(new byte[] {1, 2, 3});
+      }
+
+      assertThat(cursor.next()).isTrue();
+      assertThat(cursor.getInteger("id")).isEqualTo(2);
+      assertThat(cursor.getString("name")).isNull();
+      assertThat(cursor.opt().getString("name").isPresent()).isFalse();
+      assertThat(cursor.getBigDecimal("amount")).isEqualTo(new BigDecimal("-3"));
+      assertThat(cursor.getObject("data", byte[].class)).isEmpty();
+
+      assertThat(cursor.next()).isFalse();
+    }
+  }
+
+  @Test
+  void buffered_withNoMemoryBudget_spillsToFile() throws Exception {
+    try (BufferedResult rows = extract(0)) {
+      BufferedResult.Cursor cursor = rows.cursor();
+      assertThat(cursor.next()).isTrue();
+      assertThat(cursor.getString("name")).isEqualTo("a");
+      assertThat(cursor.next()).isTrue();
+      assertThat(cursor.getLong("id")).isEqualTo(2L);
+      assertThat(cursor.next()).isFalse();
+    }
+  }
+
+  @Test
+  void cursors_areIndependent() throws Exception {
+    try (BufferedResult rows = extract(1024)) {
+      BufferedResult.Cursor first = rows.cursor();
+      BufferedResult.Cursor second = rows.cursor();
+      first.next();
+      first.next();
+      second.next();
+
+      assertThat(first.getLong("id")).isEqualTo(2L);
+      assertThat(second.getLong("id")).isEqualTo(1L);
+    }
+  }
+
+  @Test
+  void getObject_withUnconvertibleType_throws() throws Exception {
+    try (BufferedResult rows = extract(1024)) {
+      BufferedResult.Cursor cursor = rows.cursor();
+      cursor.next();
+
+      SimpleJdbcException ex =
+          assertThrows(SimpleJdbcException.class, () -> cursor.getLocalDateTime("name"));
+      assertThat(ex).hasMessageThat().contains("buffered column 'name' holds a");
+    }
+  }
+
+  @Test
+  void getObject_beforeFirstRow_throws() throws Exception {
+    try (BufferedResult rows = extract(1024)) {
+      BufferedResult.Cursor cursor = rows.cursor();
+
+      SimpleJdbcException ex =
+          assertThrows(SimpleJdbcException.class, () -> cursor.getLong("id"));
+      assertThat(ex).hasMessageThat().isEqualTo("cursor is not positioned on a row");
+    }
+  }
+
+  @Test
+  void cursor_afterClose_throws() throws Exception {
+    BufferedResult rows = extract(1024);
+    rows.close();
+
+    SimpleJdbcException ex = assertThrows(SimpleJdbcException.class, rows::cursor);
+    assertThat(ex).hasMessageThat().isEqualTo("buffered result is closed");
+  }
+
+  @Test
+  void cursorNext_afterClose_throws() throws Exception {
+    BufferedResult rows = extract(0);
+    BufferedResult.Cursor cursor = rows.cursor();
+    cursor.next();
+    rows.close();
+
+    SimpleJdbcException ex = assertThrows(SimpleJdbcException.class, cursor::next);
+    assertThat(ex).hasMessageThat().isEqualTo("buffered result is closed");
+    assertThrows(SimpleJdbcException.class, () -> cursor.getLong("id"));
+  }
+
+  @Test
+  void buffered_withNegativeMemoryBudget_throws() {
+    assertThrows(SimpleJdbcException.class, () -> QueryResultExtractors.buffered(-1));
+  }
+
+  private BufferedResult extract(long memoryBudget) throws SQLException {
+    return QueryResultExtractors.buffered(memoryBudget)
+        .extract(QueryResult.from(resultSet, ColumnExtractors.defaults()));
+  }
+}
@@ -0,0 +1,81 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static simplejdbc.TestUtil.assertException;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CollectionChunkerTest {
+
+  @Test
+  void withNoOversizedCollection_returnsBindingsUnchanged() {
+    Map<String, ?> bindings = ImmutableMap.of("ids", ImmutableList.of(1, 2), "name", "foo");
+
+    assertThat(CollectionChunker.split(bindings, 2)).containsExactly(bindings);
+  }
+
+  @Test
+  void withOversizedCollection_splitsIntoChunks_keepingOtherBindings() {
+    List<Map<String, ?>> chunks =
+        CollectionChunker.split(
+            ImmutableMap.of("ids", ImmutableList.of(1, 2, 3, 4, 5), "name", "foo"), 2);
+
+    assertThat(chunks)
+        .containsExactly(
+            ImmutableMap.of("ids", ImmutableList.of(1, 2), "name", "foo"),
+            ImmutableMap.of("ids", ImmutableList.of(3, 4), "name", "foo"),
+            ImmutableMap.of("ids", ImmutableList.of(5), "name", "foo"))
+        .inOrder();
+  }
+
+  @Test
+  void withPadding_sizesChunksSoThatTheirPaddedSizeFits() {
+    List<Map<String, ?>> chunks =
+        CollectionChunker.split(
+            ImmutableMap.of("ids", ImmutableList.of(1, 2, 3, 4, 5, 6, 7)),
+            6,
+            InListPadding.powersOfTwo());
+
+    assertThat(chunks)
+        .containsExactly(
+            ImmutableMap.of("ids", ImmutableList.of(1, 2, 3, 4)),
+            ImmutableMap.of("ids", ImmutableList.of(5, 6, 7)))
+        .inOrder();
+  }
+
+  @Test
+  void withPadding_whenPaddedSizeExceedsTheMax_splits() {
+    // 1000 elements would be padded to 1024 bind sites
+    List<Map<String, ?>> chunks =
+        CollectionChunker.split(
+            ImmutableMap.of("ids", Collections.nCopies(1000, 1)),
+            1000,
+            InListPadding.powersOfTwo());
+
+    assertThat(chunks).hasSize(2);
+    assertThat((List<?>) chunks.get(0).get("ids")).hasSize(512);
+    assertThat((List<?>) chunks.get(1).get("ids")).hasSize(488);
+  }
+
+  @Test
+  void withSeveralOversizedCollections_throws() {
+    assertException(
+        () ->
+            CollectionChunker.split(
+                ImmutableMap.of("a", ImmutableList.of(1, 2, 3), "b", ImmutableList.of(1, 2, 3)),
+                2),
+        "only one collection binding may exceed the chunk size, but both :a and :b do");
+  }
+
+  @Test
+  void withNonPositiveChunkSize_throws() {
+    assertException(
+        () -> CollectionChunker.split(ImmutableMap.of(), 0),
+        "max collection size must be greater than zero");
+  }
+}
@@ -0,0 +1,136 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+  @Test
+  void run_overLimit_withoutWait_isRejected() throws Exception {
+    ConcurrencyLimiter limiter = limiter(1, Duration.ZERO);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    CompletableFuture<Void> holder = runAsync(limiter, running, finish);
+    running.await(10, TimeUnit.SECONDS);
+
+    ConcurrencyLimitExceededException ex =
+        assertThrows(ConcurrencyLimitExceededException.class, () -> limiter.run(() -> 1));
+
+    assertThat(ex.getLimit()).isEqualTo(1);
+    assertThat(ex).hasMessageThat().startsWith("concurrency limit of 1 reached");
+    finish.countDown();
+    holder.get(10, TimeUnit.SECONDS);
+    assertThat(limiter.run(() -> 2)).isEqualTo(2);
+  }
+
+  @Test
+  void run_overLimit_waitsForRelease() throws Exception {
+    ConcurrencyLimiter limiter = limiter(1, Duration.ofSeconds(10));
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    runAsync(limiter, running, finish);
+    running.await(10, TimeUnit.SECONDS);
+
+    CompletableFuture<Integer> waiting = CompletableFuture.supplyAsync(() -> limiter.run(() -> 2));
+    finish.countDown();
+
+    assertThat(waiting.get(10, TimeUnit.SECONDS)).isEqualTo(2);
+  }
+
+  @Test
+  void run_whenQueryTimesOut_cutsLimit() {
+    ConcurrencyLimiter limiter = limiter(20, Duration.ZERO);
+
+    assertThrows(
+        QueryTimeoutException.class,
+        () ->
+            limiter.run(
+                () -> {
+                  throw new QueryTimeoutException(Duration.ofSeconds(1), null);
+                }));
+
+    assertThat(limiter.getLimit()).isEqualTo(18);
+  }
+
+  @Test
+  void run_withSteadyLatencyAtLimit_raisesLimit() {
+    ConcurrencyLimiter limiter = limiter(1, Duration.ZERO);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.run(
+          () -> {
+            ConcurrencyLimiter.recordStatement(TimeUnit.MILLISECONDS.toNanos(1));
+            return 1;
+          });
+    }
+
+    assertThat(limiter.getLimit()).isGreaterThan(1);
+  }
+
+  @Test
+  void run_withoutStatements_leavesLimit() {
+    ConcurrencyLimiter limiter = limiter(1, Duration.ZERO);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.run(() -> 1);
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(1);
+  }
+
+  @Test
+  void limitConcurrency_countsTransactionOnce() throws SQLException {
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+    SimpleJdbc jdbc =
+        SimpleJdbc.using(dataSource)
+            .limitConcurrency(
+                ConcurrencyLimit.defaults()
+                    .withMinLimit(1)
+                    .withInitialLimit(1)
+                    .withMaxLimit(1)
+                    .withMaxWait(Duration.ZERO));
+
+    int result = jdbc.transactionally(() -> jdbc.session(() -> 1));
+
+    assertThat(result).isEqualTo(1);
+  }
+
+  @Test
+  void withMaxLimit_belowMinLimit_throws() {
+    assertThrows(
+        SimpleJdbcException.class,
+        () -> ConcurrencyLimit.defaults().withMinLimit(5).withMaxLimit(4));
+  }
+
+  private static ConcurrencyLimiter limiter(int limit, Duration maxWait) {
+    return new ConcurrencyLimiter(
+        ConcurrencyLimit.defaults().withMinLimit(1).withInitialLimit(limit).withMaxWait(maxWait));
+  }
+
+  private static CompletableFuture<Void> runAsync(
+      ConcurrencyLimiter limiter, CountDownLatch running, CountDownLatch finish) {
+    return CompletableFuture.runAsync(
+        () ->
+            limiter.run(
+                () -> {
+                  running.countDown();
+                  try {
+                    return finish.await(10, TimeUnit.SECONDS);
+                  } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                  }
+                }));
+  }
+}
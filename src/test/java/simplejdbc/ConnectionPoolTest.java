@@ -0,0 +1,226 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTest {
+
+  private DataSource dataSource;
+  private Connection first;
+  private Connection second;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    dataSource = mock(DataSource.class);
+    first = mock(Connection.class);
+    second = mock(Connection.class);
+    when(dataSource.getConnection()).thenReturn(first, second);
+  }
+
+  @Test
+  void borrow_reusesReturnedConnection() throws SQLException {
+    try (ConnectionPool pool = new ConnectionPool(dataSource, PoolConfig.defaults())) {
+      ConnectionPool.Entry entry = pool.borrow();
+      pool.release(entry);
+      ConnectionPool.Entry again = pool.borrow();
+
+      assertThat(again.connection).isSameInstanceAs(first);
+      verify(dataSource, times(1)).getConnection();
+      assertThat(pool.getMetrics().getAcquisitions()).isEqualTo(2);
+      assertThat(pool.getMetrics().getConnectionsCreated()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void borrow_whileInUse_opensAnotherConnection() {
+    try (ConnectionPool pool = new ConnectionPool(dataSource, PoolConfig.defaults())) {
+      ConnectionPool.Entry a = pool.borrow();
+      ConnectionPool.Entry b = pool.borrow();
+
+      assertThat(a.connection).isSameInstanceAs(first);
+      assertThat(b.connection).isSameInstanceAs(second);
+      assertThat(pool.getMetrics().getActiveConnections()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void borrow_atMaxSize_timesOut() {
+    PoolConfig config =
+        PoolConfig.defaults().withMaxSize(1).withConnectionTimeout(Duration.ofMillis(10));
+    try (ConnectionPool pool = new ConnectionPool(dataSource, config)) {
+      pool.borrow();
+
+      SimpleJdbcException ex = assertThrows(SimpleJdbcException.class, pool::borrow);
+      assertThat(ex).hasMessageThat().startsWith("timed out after 10 ms");
+      assertThat(pool.getMetrics().getAcquisitionTimeouts()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void borrow_atMaxSize_waitsNoLongerThanTheDeadline() {
+    PoolConfig config =
+        PoolConfig.defaults().withMaxSize(1).withConnectionTimeout(Duration.ofSeconds(30));
+    try (ConnectionPool pool = new ConnectionPool(dataSource, config)) {
+      pool.borrow();
+
+      long start = System.nanoTime();
+      assertThrows(
+          QueryTimeoutException.class, () -> Deadline.within(Duration.ofMillis(20), pool::borrow));
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+      assertThat(pool.getMetrics().getAcquisitionTimeouts()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void borrow_withinValidationSkipWindow_skipsValidation() throws SQLException {
+    try (ConnectionPool pool = new ConnectionPool(dataSource, PoolConfig.defaults())) {
+      pool.release(pool.borrow());
+      pool.borrow();
+
+      verify(first, never()).isValid(anyInt());
+    }
+  }
+
+  @Test
+  void borrow_ofInvalidConnection_replacesIt() throws SQLException {
+    when(first.isValid(anyInt())).thenReturn(false);
+    PoolConfig config = PoolConfig.defaults().withValidationSkipWindow(Duration.ZERO);
+    try (ConnectionPool pool = new ConnectionPool(dataSource, config)) {
+      pool.release(pool.borrow());
+      ConnectionPool.Entry entry = pool.borrow();
+
+      assertThat(entry.connection).isSameInstanceAs(second);
+      verify(first).close();
+    }
+  }
+
+  @Test
+  void release_ofClosedConnection_removesIt() throws SQLException {
+    when(first.isClosed()).thenReturn(true);
+    try (ConnectionPool pool = new ConnectionPool(dataSource, PoolConfig.defaults())) {
+      pool.release(pool.borrow());
+
+      assertThat(pool.getMetrics().getTotalConnections()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  void release_restoresTheSessionStateTheConnectionWasOpenedWith() throws SQLException {
+    when(first.getAutoCommit()).thenReturn(true, false);
+    when(first.getTransactionIsolation())
+        .thenReturn(Connection.TRANSACTION_READ_COMMITTED, Connection.TRANSACTION_SERIALIZABLE);
+    when(first.isReadOnly()).thenReturn(false, true);
+    try (ConnectionPool pool = new ConnectionPool(dataSource, PoolConfig.defaults())) {
+      ConnectionPool.Entry entry = pool.borrow();
+      entry.markDirty();
+      pool.release(entry);
+
+      verify(first).rollback();
+      verify(first).setAutoCommit(true);
+      verify(first).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      verify(first).setReadOnly(false);
+      assertThat(pool.getMetrics().getIdleConnections()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void release_ofConnectionNotMarkedDirty_leavesItsSessionStateUnchecked() throws SQLException {
+    try (ConnectionPool pool = new ConnectionPool(dataSource, PoolConfig.defaults())) {
+      pool.release(pool.borrow());
+
+      // Once, as the connection was opened
+      verify(first).getTransactionIsolation();
+      verify(first).getAutoCommit();
+      assertThat(pool.getMetrics().getIdleConnections()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void release_afterConnectionError_removesIt() throws SQLException {
+    try (ConnectionPool pool = new ConnectionPool(dataSource, PoolConfig.defaults())) {
+      pool.release(pool.borrow(), new SimpleJdbcException(new SQLException("boom", "42601")));
+      pool.release(
+          pool.borrow(), new SimpleJdbcException(new SQLException("connection lost", "08006")));
+
+      verify(first).close();
+      assertThat(pool.getMetrics().getTotalConnections()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  void close_closesIdleConnections_andRefusesBorrows() throws SQLException {
+    ConnectionPool pool = new ConnectionPool(dataSource, PoolConfig.defaults());
+    ConnectionPool.Entry idle = pool.borrow();
+    ConnectionPool.Entry inUse = pool.borrow();
+    pool.release(idle);
+
+    pool.close();
+
+    verify(first).close();
+    verify(second, never()).close();
+    pool.release(inUse);
+    verify(second).close();
+    SimpleJdbcException ex = assertThrows(SimpleJdbcException.class, pool::borrow);
+    assertThat(ex).hasMessageThat().isEqualTo("connection pool is closed");
+  }
+
+  @Test
+  void pooled_runsCallsOnPooledConnection() throws SQLException {
+    try (PooledSimpleJdbc jdbc = SimpleJdbc.pooled(dataSource, PoolConfig.defaults())) {
+      jdbc.withConnection(conn -> conn);
+      jdbc.withConnection(conn -> conn);
+
+      verify(dataSource, times(1)).getConnection();
+      verify(first, never()).close();
+    }
+    verify(first).close();
+  }
+
+  @Test
+  void pooled_transactionally_checksTheSessionStateAsTheConnectionIsReturned()
+      throws SQLException {
+    try (PooledSimpleJdbc jdbc = SimpleJdbc.pooled(dataSource, PoolConfig.defaults())) {
+      jdbc.withConnection(conn -> conn);
+      verify(first, times(1)).getTransactionIsolation();
+
+      jdbc.transactionally(() -> {});
+
+      verify(first, times(2)).getTransactionIsolation();
+    }
+  }
+
+  @Test
+  void poolConfig_rejectsInvalidSizes() {
+    assertThrows(SimpleJdbcException.class, () -> PoolConfig.defaults().withMaxSize(0));
+    assertThrows(SimpleJdbcException.class, () -> PoolConfig.defaults().withMinSize(-1));
+    assertThrows(
+        SimpleJdbcException.class,
+        () -> PoolConfig.defaults().withConnectionTimeout(Duration.ZERO));
+  }
+
+  @Test
+  void poolConfig_sizes_canBeGivenInEitherOrder() {
+    PoolConfig config = PoolConfig.defaults().withMinSize(20).withMaxSize(50);
+
+    assertThat(config.getMinSize()).isEqualTo(20);
+    assertThat(config.getMaxSize()).isEqualTo(50);
+    SimpleJdbcException ex =
+        assertThrows(
+            SimpleJdbcException.class,
+            () -> new ConnectionPool(dataSource, PoolConfig.defaults().withMinSize(11)));
+    assertThat(ex).hasMessageThat().isEqualTo("min size must not be greater than max size");
+  }
+}
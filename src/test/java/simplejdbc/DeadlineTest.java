@@ -0,0 +1,145 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+  private PreparedStatement statement;
+  private CountDownLatch cancelled;
+  private SimpleJdbc jdbc;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    Connection connection = mock(Connection.class);
+    statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    cancelled = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              cancelled.countDown();
+              return null;
+            })
+        .when(statement)
+        .cancel();
+    jdbc = SimpleJdbc.using(connection);
+  }
+
+  @Test
+  void timeout_cancelsStatement_andThrowsQueryTimeoutException() throws SQLException {
+    blockUntilCancelled();
+
+    QueryTimeoutException ex =
+        assertThrows(
+            QueryTimeoutException.class,
+            () -> jdbc.statement("some statement").timeout(Duration.ofMillis(50)).execute());
+
+    assertThat(ex.getTimeout()).isEqualTo(Duration.ofMillis(50));
+    assertThat(ex).hasMessageThat().isEqualTo("query timed out after 50 ms");
+    verify(statement).cancel();
+    verify(statement).setQueryTimeout(1);
+  }
+
+  @Test
+  void withTimeout_appliesToNestedCalls_andEarliestDeadlineWins() throws SQLException {
+    blockUntilCancelled();
+
+    QueryTimeoutException ex =
+        assertThrows(
+            QueryTimeoutException.class,
+            () ->
+                jdbc.withTimeout(
+                    Duration.ofMillis(50),
+                    () ->
+                        jdbc.transactionally(
+                            () ->
+                                jdbc.statement("some statement")
+                                    .timeout(Duration.ofMinutes(1))
+                                    .execute())));
+
+    assertThat(ex.getTimeout()).isEqualTo(Duration.ofMillis(50));
+  }
+
+  @Test
+  void withTimeout_alreadyExpired_throwsWithoutExecuting() throws SQLException {
+    QueryTimeoutException ex =
+        assertThrows(
+            QueryTimeoutException.class,
+            () ->
+                jdbc.withTimeout(
+                    Duration.ofNanos(1),
+                    () -> {
+                      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                      jdbc.statement("some statement").execute();
+                    }));
+
+    assertThat(ex.getTimeout()).isEqualTo(Duration.ofNanos(1));
+    verify(statement, never()).executeUpdate();
+  }
+
+  @Test
+  void driverTimeout_isReportedAsQueryTimeoutException() throws SQLException {
+    when(statement.executeUpdate()).thenThrow(new SQLTimeoutException("driver timeout"));
+
+    QueryTimeoutException ex =
+        assertThrows(
+            QueryTimeoutException.class,
+            () -> jdbc.statement("some statement").timeout(Duration.ofSeconds(5)).execute());
+
+    assertThat(ex).hasCauseThat().isInstanceOf(SQLTimeoutException.class);
+  }
+
+  @Test
+  void statementCompletingInTime_isNotCancelled() throws SQLException {
+    when(statement.executeUpdate()).thenReturn(1);
+
+    int updated = jdbc.statement("some statement").timeout(Duration.ofSeconds(5)).execute();
+
+    assertThat(updated).isEqualTo(1);
+    verify(statement, never()).cancel();
+  }
+
+  @Test
+  void withoutTimeout_doesNotSetQueryTimeout() throws SQLException {
+    jdbc.statement("some statement", ImmutableMap.of());
+
+    verify(statement, never()).setQueryTimeout(anyInt());
+  }
+
+  @Test
+  void timeout_mustBePositive() {
+    assertThrows(
+        SimpleJdbcException.class, () -> jdbc.query("some query").timeout(Duration.ZERO));
+  }
+
+  private void blockUntilCancelled() throws SQLException {
+    doAnswer(
+            invocation -> {
+              if (cancelled.await(10, TimeUnit.SECONDS)) {
+                throw new SQLException("canceling statement due to user request");
+              }
+              return 1;
+            })
+        .when(statement)
+        .executeUpdate();
+  }
+}
@@ -0,0 +1,242 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HedgedSimpleJdbcTest {
+
+  private PreparedStatement firstStatement;
+  private PreparedStatement secondStatement;
+  private DataSource firstReplica;
+  private DataSource secondReplica;
+  private Connection firstConnection;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    firstStatement = mockStatement(1);
+    secondStatement = mockStatement(2);
+    firstConnection = mockConnection(firstStatement);
+    firstReplica = mockDataSource(firstConnection);
+    secondReplica = mockDataSource(mockConnection(secondStatement));
+  }
+
+  @Test
+  void query_whenFirstReplicaReturnsInTime_isNotHedged() throws SQLException {
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ofSeconds(10)));
+
+    int value = jdbc.query("some query").hedged().selectExactlyOne(this::value);
+
+    assertThat(value).isEqualTo(1);
+    verify(secondReplica, never()).getConnection();
+    verify(firstConnection).close();
+    assertThat(jdbc.getMetrics().getHedges()).isEqualTo(0);
+  }
+
+  @Test
+  void query_whenFirstReplicaIsSlow_usesHedge_andCancelsFirst() throws SQLException {
+    blockUntilCancelled(firstStatement);
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ofMillis(20)));
+
+    int value = jdbc.query("some query").hedged().selectExactlyOne(this::value);
+
+    assertThat(value).isEqualTo(2);
+    verify(firstStatement).cancel();
+    verify(firstConnection).close();
+    HedgeMetrics metrics = jdbc.getMetrics();
+    assertThat(metrics.getHedges()).isEqualTo(1);
+    assertThat(metrics.getHedgesWon()).isEqualTo(1);
+  }
+
+  @Test
+  void query_whenBudgetIsSpent_isNotHedged() throws SQLException {
+    blockUntilCancelled(firstStatement);
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ZERO).withMaxHedgeRatio(0));
+
+    assertThrows(
+        QueryTimeoutException.class,
+        () ->
+            jdbc.query("some query")
+                .hedged()
+                .timeout(Duration.ofMillis(50))
+                .selectExactlyOne(this::value));
+
+    verify(secondReplica, never()).getConnection();
+  }
+
+  @Test
+  void query_whenFirstReplicaFails_andHedgeSent_usesHedge() throws SQLException {
+    when(firstReplica.getConnection())
+        .thenAnswer(
+            invocation -> {
+              TimeUnit.MILLISECONDS.sleep(100);
+              throw new SQLException("replica down");
+            });
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ofMillis(10)));
+
+    int value = jdbc.query("some query").hedged().selectExactlyOne(this::value);
+
+    assertThat(value).isEqualTo(2);
+  }
+
+  @Test
+  void query_whenFirstReplicaFailsBeforeHedge_throws() throws SQLException {
+    when(firstReplica.getConnection()).thenThrow(new SQLException("replica down"));
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ofSeconds(10)));
+
+    SimpleJdbcException ex =
+        assertThrows(
+            SimpleJdbcException.class,
+            () -> jdbc.query("some query").hedged().selectExactlyOne(this::value));
+
+    assertThat(ex).hasCauseThat().hasMessageThat().isEqualTo("replica down");
+    verify(secondReplica, never()).getConnection();
+  }
+
+  @Test
+  void query_whenFirstReplicaIsSlowToConnect_returnsOnceTheHedgeWins() throws SQLException {
+    CountDownLatch released = new CountDownLatch(1);
+    when(firstReplica.getConnection())
+        .thenAnswer(
+            invocation -> {
+              released.await(10, TimeUnit.SECONDS);
+              return firstConnection;
+            });
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ofMillis(10)));
+
+    int value = jdbc.query("some query").hedged().selectExactlyOne(this::value);
+
+    assertThat(value).isEqualTo(2);
+    assertThat(jdbc.getMetrics().getHedgesWon()).isEqualTo(1);
+    released.countDown();
+  }
+
+  @Test
+  void query_notMarkedHedged_runsOnFirstReplica() throws SQLException {
+    blockUntilCancelled(firstStatement);
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ZERO));
+
+    assertThrows(
+        QueryTimeoutException.class,
+        () ->
+            jdbc.query("insert into t default values returning id")
+                .timeout(Duration.ofMillis(50))
+                .selectExactlyOne(this::value));
+
+    verify(secondReplica, never()).getConnection();
+    assertThat(jdbc.getMetrics().getQueries()).isEqualTo(0);
+  }
+
+  @Test
+  void statements_runOnFirstReplica() throws SQLException {
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ZERO));
+
+    jdbc.statement("some statement", ImmutableMap.of());
+
+    verify(firstStatement).executeUpdate();
+    verify(secondReplica, never()).getConnection();
+  }
+
+  @Test
+  void upsert_isNeverHedged() throws SQLException {
+    HedgedSimpleJdbc jdbc = hedged(HedgePolicy.afterDelay(Duration.ZERO));
+
+    jdbc.upsert()
+        .dialect(UpsertBuilder.Dialect.POSTGRESQL)
+        .into("person")
+        .onConflict("id")
+        .set("id", 1)
+        .set("name", "Ada")
+        .execute();
+
+    verify(firstStatement).executeQuery();
+    verify(secondReplica, never()).getConnection();
+    assertThat(jdbc.getMetrics().getHedges()).isEqualTo(0);
+  }
+
+  @Test
+  void hedged_withOneReplica_throws() {
+    SimpleJdbcException ex =
+        assertThrows(
+            SimpleJdbcException.class,
+            () ->
+                SimpleJdbc.hedged(
+                    ImmutableList.of(firstReplica), HedgePolicy.afterDelay(Duration.ZERO)));
+
+    assertThat(ex)
+        .hasMessageThat()
+        .isEqualTo("at least two replicas are required to hedge queries");
+  }
+
+  @Test
+  void withMaxHedgeRatio_outOfRange_throws() {
+    assertThrows(
+        SimpleJdbcException.class,
+        () -> HedgePolicy.afterDelay(Duration.ZERO).withMaxHedgeRatio(1.5));
+  }
+
+  private HedgedSimpleJdbc hedged(HedgePolicy policy) {
+    return SimpleJdbc.hedged(ImmutableList.of(firstReplica, secondReplica), policy);
+  }
+
+  private Integer value(QueryRowResult row) {
+    return row.getInteger("value");
+  }
+
+  private static void blockUntilCancelled(PreparedStatement statement) throws SQLException {
+    CountDownLatch cancelled = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              cancelled.countDown();
+              return null;
+            })
+        .when(statement)
+        .cancel();
+    doAnswer(
+            invocation -> {
+              cancelled.await(10, TimeUnit.SECONDS);
+              throw new SQLException("canceling statement due to user request");
+            })
+        .when(statement)
+        .executeQuery();
+  }
+
+  private static PreparedStatement mockStatement(int value) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getInt("value")).thenReturn(value);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(statement.executeQuery()).thenReturn(resultSet);
+    return statement;
+  }
+
+  private static Connection mockConnection(PreparedStatement statement) throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    return connection;
+  }
+
+  private static DataSource mockDataSource(Connection connection) throws SQLException {
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    return dataSource;
+  }
+}
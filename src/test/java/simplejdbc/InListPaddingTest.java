@@ -0,0 +1,51 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static simplejdbc.TestUtil.assertException;
+
+import org.junit.jupiter.api.Test;
+
+class InListPaddingTest {
+
+  @Test
+  void none_doesNotPad() {
+    assertThat(InListPadding.none().paddedSize(0)).isEqualTo(0);
+    assertThat(InListPadding.none().paddedSize(7)).isEqualTo(7);
+  }
+
+  @Test
+  void powersOfTwo_roundsUpToNextPowerOfTwo() {
+    InListPadding padding = InListPadding.powersOfTwo();
+
+    assertThat(padding.paddedSize(0)).isEqualTo(0);
+    assertThat(padding.paddedSize(1)).isEqualTo(1);
+    assertThat(padding.paddedSize(2)).isEqualTo(2);
+    assertThat(padding.paddedSize(3)).isEqualTo(4);
+    assertThat(padding.paddedSize(8)).isEqualTo(8);
+    assertThat(padding.paddedSize(9)).isEqualTo(16);
+    assertThat(padding.paddedSize(1000)).isEqualTo(1024);
+  }
+
+  @Test
+  void ladder_roundsUpToNextRung_andToMultiplesOfLargestRungBeyondIt() {
+    InListPadding padding = InListPadding.ladder(100, 10, 50);
+
+    assertThat(padding.paddedSize(0)).isEqualTo(0);
+    assertThat(padding.paddedSize(1)).isEqualTo(10);
+    assertThat(padding.paddedSize(10)).isEqualTo(10);
+    assertThat(padding.paddedSize(11)).isEqualTo(50);
+    assertThat(padding.paddedSize(100)).isEqualTo(100);
+    assertThat(padding.paddedSize(101)).isEqualTo(200);
+    assertThat(padding.paddedSize(250)).isEqualTo(300);
+  }
+
+  @Test
+  void ladder_withoutSizes_throws() {
+    assertException(() -> InListPadding.ladder(), "at least one ladder size is required");
+  }
+
+  @Test
+  void ladder_withNonPositiveSize_throws() {
+    assertException(() -> InListPadding.ladder(0, 10), "ladder sizes must be greater than zero");
+  }
+}
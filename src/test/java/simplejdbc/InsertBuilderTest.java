@@ -1,9 +1,12 @@
 package simplejdbc;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.verify;
 import static simplejdbc.TestUtil.assertException;
@@ -138,4 +141,114 @@ class InsertBuilderTest {
   void insertBatch_withBatchSizeOfZero_ok() {
     assertThat(simpleJdbc.batchInsert().into("table").executeBatch()).isEmpty();
   }
+
+  @Test
+  void insertReturningKeys_resultsInExpectedCoreCall() {
+    doReturn(42L).when(simpleJdbc).statementReturningKeys(anyString(), anyMap(), any(), any());
+
+    long key = simpleJdbc.insert().into("table").set("column", 123).executeReturningLongKey("id");
+
+    assertThat(key).isEqualTo(42L);
+    verify(simpleJdbc)
+        .statementReturningKeys(
+            eq("insert into table (column) values (:column)"),
+            eq(ImmutableMap.of("column", 123)),
+            aryEq(new String[] {"id"}),
+            any());
+  }
+
+  @Test
+  void insertBatchReturningKeys_resultsInExpectedCoreCall() {
+    doReturn(new long[] {1L, 2L})
+        .when(simpleJdbc)
+        .batchStatementReturningKeys(anyString(), anyList(), any(), any());
+
+    long[] keys =
+        simpleJdbc
+            .batchInsert()
+            .into("table")
+            .set("column", 123)
+            .addBatch()
+            .set("column", 456)
+            .addBatch()
+            .executeBatchReturningLongKeys("id");
+
+    assertThat(keys).asList().containsExactly(1L, 2L).inOrder();
+    verify(simpleJdbc)
+        .batchStatementReturningKeys(
+            eq("insert into table (column) values (:column)"),
+            eq(ImmutableList.of(ImmutableMap.of("column", 123), ImmutableMap.of("column", 456))),
+            aryEq(new String[] {"id"}),
+            any());
+  }
+
+  @Test
+  void insertBatchReturningKeys_withBatchSizeOfZero_ok() {
+    assertThat(simpleJdbc.batchInsert().into("table").executeBatchReturningLongKeys("id"))
+        .isEmpty();
+  }
+
+  @Test
+  void insertReturningKeys_withoutKeyColumns_throws() {
+    assertException(
+        () -> simpleJdbc.insert().into("table").set("column", 1).executeReturningKeys(row -> 1),
+        "at least one key column is required");
+  }
+
+  @Test
+  void insert_columnsSetInAnyOrder_resultInSameSql() {
+    doReturn(0).when(simpleJdbc).statement(anyString(), anyMap());
+
+    simpleJdbc.insert().into("table").set("otherColumn", "someValue").set("column", 123).execute();
+
+    verify(simpleJdbc)
+        .statement(
+            "insert into table (column, otherColumn) values (:column, :otherColumn)",
+            ImmutableMap.of("column", 123, "otherColumn", "someValue"));
+  }
+
+  @Test
+  void preparedInsert_resultsInExpectedCoreCall() {
+    doReturn(1).when(simpleJdbc).positionalStatement(anyString(), any(), any());
+
+    InsertBuilder.PreparedInsert insert =
+        simpleJdbc.insert().into("table").columns("otherColumn", "column").prepare();
+    insert.execute("someValue", 123);
+
+    assertThat(insert.getSql()).isEqualTo("insert into table (otherColumn, column) values (?, ?)");
+    verify(simpleJdbc)
+        .positionalStatement(
+            eq("insert into table (otherColumn, column) values (?, ?)"),
+            any(),
+            aryEq(new Object[] {"someValue", 123}));
+  }
+
+  @Test
+  void preparedInsertBatch_resultsInExpectedCoreCall() {
+    doReturn(new int[] {1, 1})
+        .when(simpleJdbc)
+        .positionalBatchStatement(anyString(), any(), anyList());
+    ImmutableList<Object[]> rows = ImmutableList.of(new Object[] {1, "a"}, new Object[] {2, "b"});
+
+    simpleJdbc.insert().into("table").columns("column", "otherColumn").prepare().executeBatch(rows);
+
+    verify(simpleJdbc)
+        .positionalBatchStatement(
+            eq("insert into table (column, otherColumn) values (?, ?)"), any(), eq(rows));
+  }
+
+  @Test
+  void preparedInsert_wrongNumberOfValues_throws() {
+    assertException(
+        () ->
+            simpleJdbc.insert().into("table").columns("column", "otherColumn").prepare().execute(1),
+        "expected 2 values, but got 1");
+  }
+
+  @Test
+  void columns_givenTwice_throws() {
+    assertException(
+        () -> simpleJdbc.insert().into("table").columns("column", "column"),
+        "each column may only be given once");
+  }
 }
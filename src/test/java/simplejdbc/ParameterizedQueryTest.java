@@ -84,6 +84,34 @@ class ParameterizedQueryTest {
     assertThat(result.getParameters()).containsExactly(1, 2, 3).inOrder();
   }
 
+  @Test
+  void withParameterBoundToCollection_andPadding_repeatsLastValueUpToPaddedSize() {
+    ParameterizedQuery result =
+        ParameterizedQuery.from(
+            "select * from foo where id in (:foo)",
+            ImmutableMap.of("foo", Arrays.asList(1, 2, 3)),
+            InListPadding.powersOfTwo());
+
+    assertThat(result.getSql()).isEqualTo("select * from foo where id in (?,?,?,?)");
+    assertThat(result.getParameters()).containsExactly(1, 2, 3, 3).inOrder();
+  }
+
+  @Test
+  void withParameterBoundToCollection_andPadding_sizesInSameBucketShareSql() {
+    ParameterizedQuery five =
+        ParameterizedQuery.from(
+            "select * from foo where id in (:foo)",
+            ImmutableMap.of("foo", Arrays.asList(1, 2, 3, 4, 5)),
+            InListPadding.powersOfTwo());
+    ParameterizedQuery seven =
+        ParameterizedQuery.from(
+            "select * from foo where id in (:foo)",
+            ImmutableMap.of("foo", Arrays.asList(1, 2, 3, 4, 5, 6, 7)),
+            InListPadding.powersOfTwo());
+
+    assertThat(five.getSql()).isEqualTo(seven.getSql());
+  }
+
   @Test
   void withStringThatLooksLikeParameter_doesNotGetConfused() {
     ParameterizedQuery result =
@@ -103,4 +131,21 @@ class ParameterizedQueryTest {
     assertThat(result.getSql()).isEqualTo("not_a_param::string ?::jsonb");
     assertThat(result.getParameters()).containsExactly(123);
   }
+
+  @Test
+  void parsedTemplate_boundToSeveralBindings_matchesFrom() {
+    String query = "select :a, :c::text where :a in (:list)";
+    ParameterizedQuery.Template template = ParameterizedQuery.parse(query);
+
+    assertThat(template.getParameterNames()).containsExactly("a", "c", "a", "list").inOrder();
+    for (int i = 0; i < 3; i++) {
+      ImmutableMap<String, Object> bindings =
+          ImmutableMap.of("a", i, "c", "x", "list", Arrays.asList(1, 2, 3).subList(0, i + 1));
+      ParameterizedQuery bound = template.bind(bindings, InListPadding.none());
+      ParameterizedQuery expected = ParameterizedQuery.from(query, bindings);
+
+      assertThat(bound.getSql()).isEqualTo(expected.getSql());
+      assertThat(bound.getParameters()).isEqualTo(expected.getParameters());
+    }
+  }
 }
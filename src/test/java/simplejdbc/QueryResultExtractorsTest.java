@@ -0,0 +1,163 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueryResultExtractorsTest {
+
+  private ResultSet resultSet;
+  private ResultSetMetaData metaData;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    resultSet = mock(ResultSet.class);
+    metaData = mock(ResultSetMetaData.class);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+  }
+
+  @Test
+  void maps_extractsEachRowAsMapOfColumnLabelToValue() throws SQLException {
+    when(metaData.getColumnCount()).thenReturn(2);
+    when(metaData.getColumnLabel(1)).thenReturn("id");
+    when(metaData.getColumnLabel(2)).thenReturn("name");
+    when(resultSet.next()).thenReturn(true, true, false);
+    when(resultSet.getObject(1)).thenReturn(1, 2);
+    when(resultSet.getObject(2)).thenReturn("a", null);
+
+    List<Map<String, Object>> rows = extractMaps();
+
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0)).containsExactly("id", 1, "name", "a").inOrder();
+    assertThat(rows.get(0)).isEqualTo(ImmutableMap.of("id", 1, "name", "a"));
+    assertThat(rows.get(1).get("id")).isEqualTo(2);
+    assertThat(rows.get(1).containsKey("name")).isTrue();
+    assertThat(rows.get(1).get("name")).isNull();
+    assertThat(rows.get(1).get("missing")).isNull();
+    assertThat(rows.get(0).hashCode()).isEqualTo(new HashMap<>(rows.get(0)).hashCode());
+  }
+
+  @Test
+  void maps_withRepeatedColumnLabel_keepsLastValue() throws SQLException {
+    when(metaData.getColumnCount()).thenReturn(3);
+    when(metaData.getColumnLabel(1)).thenReturn("id");
+    when(metaData.getColumnLabel(2)).thenReturn("name");
+    when(metaData.getColumnLabel(3)).thenReturn("id");
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getObject(1)).thenReturn(1);
+    when(resultSet.getObject(2)).thenReturn("a");
+    when(resultSet.getObject(3)).thenReturn(3);
+
+    List<Map<String, Object>> rows = extractMaps();
+
+    assertThat(rows.get(0)).containsExactly("id", 3, "name", "a").inOrder();
+  }
+
+  @Test
+  void maps_areImmutable() throws SQLException {
+    when(metaData.getColumnCount()).thenReturn(1);
+    when(metaData.getColumnLabel(1)).thenReturn("id");
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getObject(1)).thenReturn(1);
+
+    Map<String, Object> row = extractMaps().get(0);
+
+    assertThrows(UnsupportedOperationException.class, () -> row.put("id", 2));
+    assertThrows(UnsupportedOperationException.class, () -> row.remove("id"));
+  }
+
+  @Test
+  void maps_withNoRows_returnsEmptyList() throws SQLException {
+    when(resultSet.next()).thenReturn(false);
+
+    assertThat(extractMaps()).isEmpty();
+  }
+
+  @Test
+  void grouped_foldsJoinIntoParentsWithChildren() throws SQLException {
+    when(resultSet.next()).thenReturn(true, true, true, false);
+    when(resultSet.getString("order_id")).thenReturn("o1", "o2", "o1");
+    when(resultSet.getString("order_name")).thenReturn("first", "second");
+    when(resultSet.getString("line_id")).thenReturn("l1", null, "l2");
+
+    List<Item> orders =
+        QueryResultExtractors.grouped(
+                row -> row.getString("order_id"),
+                row -> new Item(row.getString("order_name")),
+                row -> Item.orNull(row.getString("line_id")),
+                Item::add)
+            .extract(QueryResult.from(resultSet, ColumnExtractors.defaults()));
+
+    assertThat(orders).hasSize(2);
+    assertThat(orders.get(0).name).isEqualTo("first");
+    assertThat(orders.get(0).childNames()).containsExactly("l1", "l2").inOrder();
+    assertThat(orders.get(1).name).isEqualTo("second");
+    assertThat(orders.get(1).children).isEmpty();
+  }
+
+  @Test
+  void grouped_withNestedGroups_deduplicatesAtEachLevel() throws SQLException {
+    when(resultSet.next()).thenReturn(true, true, true, true, false);
+    when(resultSet.getString("order_id")).thenReturn("o1", "o2", "o1", "o1");
+    when(resultSet.getString("order_name")).thenReturn("first", "second");
+    when(resultSet.getString("line_id")).thenReturn("l1", null, "l1", "l2");
+    when(resultSet.getString("sku")).thenReturn("a", "b");
+    when(resultSet.getString("tag")).thenReturn("t1", "t2", null);
+    RowGroup<Item> lines =
+        RowGroup.by(row -> row.getString("line_id"), row -> new Item(row.getString("sku")))
+            .withChildren(RowGroup.of(row -> Item.orNull(row.getString("tag"))), Item::add);
+    RowGroup<Item> orders =
+        RowGroup.by(row -> row.getString("order_id"), row -> new Item(row.getString("order_name")))
+            .withChildren(lines, Item::add);
+
+    List<Item> result =
+        QueryResultExtractors.grouped(orders)
+            .extract(QueryResult.from(resultSet, ColumnExtractors.defaults()));
+
+    assertThat(result).hasSize(2);
+    Item first = result.get(0);
+    assertThat(first.childNames()).containsExactly("a", "b").inOrder();
+    assertThat(first.children.get(0).childNames()).containsExactly("t1", "t2").inOrder();
+    assertThat(first.children.get(1).children).isEmpty();
+    assertThat(result.get(1).children).isEmpty();
+  }
+
+  private static final class Item {
+    private final String name;
+    private final List<Item> children = new ArrayList<>();
+
+    private Item(String name) {
+      this.name = name;
+    }
+
+    private static Item orNull(String name) {
+      return name == null ? null : new Item(name);
+    }
+
+    private void add(Item child) {
+      children.add(child);
+    }
+
+    private List<String> childNames() {
+      return children.stream().map(child -> child.name).collect(Collectors.toList());
+    }
+  }
+
+  private List<Map<String, Object>> extractMaps() throws SQLException {
+    return QueryResultExtractors.maps()
+        .extract(QueryResult.from(resultSet, ColumnExtractors.defaults()));
+  }
+}
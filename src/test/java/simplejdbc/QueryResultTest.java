@@ -3,6 +3,8 @@ package simplejdbc;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.InputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -75,7 +77,11 @@ class QueryResultTest {
         Arguments.of(
             (BiFunction<QueryResult, String, ?>) QueryResult::getLocalDate, LocalDate.class),
         Arguments.of(
-            (BiFunction<QueryResult, String, ?>) QueryResult::getLocalTime, LocalTime.class));
+            (BiFunction<QueryResult, String, ?>) QueryResult::getLocalTime, LocalTime.class),
+        Arguments.of(
+            (BiFunction<QueryResult, String, ?>) QueryResult::getBinaryStream, InputStream.class),
+        Arguments.of(
+            (BiFunction<QueryResult, String, ?>) QueryResult::getCharacterStream, Reader.class));
   }
 
   @ParameterizedTest(name = "optional_getter_dispatch_works - {1}")
@@ -120,6 +126,12 @@ class QueryResultTest {
             LocalDate.class),
         Arguments.of(
             (BiFunction<QueryResult, String, ?>) (qr, s) -> qr.opt().getLocalTime(s),
-            LocalTime.class));
+            LocalTime.class),
+        Arguments.of(
+            (BiFunction<QueryResult, String, ?>) (qr, s) -> qr.opt().getBinaryStream(s),
+            InputStream.class),
+        Arguments.of(
+            (BiFunction<QueryResult, String, ?>) (qr, s) -> qr.opt().getCharacterStream(s),
+            Reader.class));
   }
 }
@@ -0,0 +1,91 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class ResultSetExporterTest {
+
+  private ResultSet resultSet;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    resultSet = Mockito.mock(ResultSet.class);
+    ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(metaData.getColumnCount()).thenReturn(4);
+    when(metaData.getColumnLabel(1)).thenReturn("id");
+    when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+    when(metaData.getColumnLabel(2)).thenReturn("name");
+    when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+    when(metaData.getColumnLabel(3)).thenReturn("created");
+    when(metaData.getColumnType(3)).thenReturn(Types.TIMESTAMP);
+    when(metaData.getColumnLabel(4)).thenReturn("active");
+    when(metaData.getColumnType(4)).thenReturn(Types.BOOLEAN);
+
+    when(resultSet.next()).thenReturn(true, true, false);
+    when(resultSet.getLong(1)).thenReturn(1L, -20L);
+    when(resultSet.getString(2)).thenReturn("plain", "with, \"quotes\"");
+    when(resultSet.getTimestamp(3))
+        .thenReturn(Timestamp.valueOf(LocalDateTime.of(2022, 1, 2, 3, 4, 5, 120_000_000)), null);
+    when(resultSet.getBoolean(4)).thenReturn(true, false);
+    // wasNull() is only consulted after getLong() and getBoolean()
+    when(resultSet.wasNull()).thenReturn(false, false, false, true);
+  }
+
+  @Test
+  void csv_writesHeaderAndQuotesOnlyWhereNeeded() throws SQLException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = export(out, ExportFormat.CSV);
+
+    assertThat(rows).isEqualTo(2);
+    assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+        .isEqualTo(
+            "id,name,created,active\n"
+                + "1,plain,2022-01-02T03:04:05.120,true\n"
+                + "-20,\"with, \"\"quotes\"\"\",,\n");
+  }
+
+  @Test
+  void ndjson_writesOneObjectPerRow() throws SQLException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = export(out, ExportFormat.NDJSON);
+
+    assertThat(rows).isEqualTo(2);
+    assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+        .isEqualTo(
+            "{\"id\":1,\"name\":\"plain\",\"created\":\"2022-01-02T03:04:05.120\",\"active\":true}\n"
+                + "{\"id\":-20,\"name\":\"with, \\\"quotes\\\"\",\"created\":null,\"active\":null}\n");
+  }
+
+  @Test
+  void text_isEncodedAsUtf8() throws SQLException {
+    when(resultSet.getString(2)).thenReturn("caf\u00e9 \u20ac \ud83d\ude00", "");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    export(out, ExportFormat.CSV);
+
+    assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8))
+        .contains("caf\u00e9 \u20ac \ud83d\ude00");
+    assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).contains("-20,\"\",,");
+  }
+
+  private long export(ByteArrayOutputStream out, ExportFormat format) throws SQLException {
+    return new ResultSetExporter(Channels.newChannel(out), format)
+        .extract(QueryResult.from(resultSet, ColumnExtractors.defaults()));
+  }
+}
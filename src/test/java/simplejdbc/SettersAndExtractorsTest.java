@@ -2,7 +2,21 @@ package simplejdbc;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -12,9 +26,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.stream.Stream;
 import javax.sql.DataSource;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -74,7 +90,84 @@ class SettersAndExtractorsTest extends DatabaseContainerTest {
         Arguments.of(LocalTime.class, null));
   }
 
-  private <T> T setAndExtract(Class<T> type, T value) throws SQLException {
+  private static final byte[] BINARY_PAYLOAD = "some binary payload".getBytes(StandardCharsets.UTF_8);
+
+  @ParameterizedTest
+  @MethodSource
+  void setBinary_extractAsStream_bytesShouldMatch(Object value) throws SQLException, IOException {
+    try (InputStream extracted = setAndExtract(InputStream.class, value)) {
+      assertThat(ByteStreams.toByteArray(extracted)).isEqualTo(BINARY_PAYLOAD);
+    }
+  }
+
+  private static Stream<Arguments> setBinary_extractAsStream_bytesShouldMatch() {
+    ByteBuffer direct = ByteBuffer.allocateDirect(BINARY_PAYLOAD.length);
+    direct.put(BINARY_PAYLOAD).flip();
+    return Stream.of(
+        Arguments.of(new ByteArrayInputStream(BINARY_PAYLOAD)),
+        Arguments.of(ByteBuffer.wrap(BINARY_PAYLOAD)),
+        Arguments.of(direct),
+        Arguments.of(tempFileContaining(BINARY_PAYLOAD)));
+  }
+
+  @Test
+  void setBinary_extractNull_returnsNull() throws SQLException {
+    assertThat(setAndExtract(InputStream.class, null)).isNull();
+    assertThat(setAndExtract(Reader.class, null)).isNull();
+  }
+
+  @Test
+  void setCharacters_extractAsReader_textShouldMatch() throws SQLException, IOException {
+    try (Reader extracted = setAndExtract(Reader.class, new StringReader("some text payload"))) {
+      assertThat(CharStreams.toString(extracted)).isEqualTo("some text payload");
+    }
+  }
+
+  @Test
+  void setArray_bindsWholeCollectionAsOneParameter() throws SQLException {
+    SqlArray ids = SqlArray.of("bigint", Arrays.asList(1L, 2L, 3L));
+    try (Connection conn = dataSource.getConnection();
+        PreparedStatement pstmt =
+            conn.prepareStatement("select count(*) as thing from unnest(?) where 2 = any(?)")) {
+      parameterSetters.getSetter(ids).set(pstmt, 1, ids);
+      parameterSetters.getSetter(ids).set(pstmt, 2, ids);
+      try (ResultSet rs = pstmt.executeQuery()) {
+        rs.next();
+        assertThat(columnExtractors.getExtractor(Long.class).extract(rs, "thing")).isEqualTo(3L);
+      }
+    }
+  }
+
+  @Test
+  void getSetter_resolvesTheMostSpecificRegisteredSupertype() {
+    ParameterSetters.ParameterSetter<Serializable> serializableSetter = (ps, index, value) -> {};
+    ParameterSetters.ParameterSetter<Number> numberSetter = (ps, index, value) -> {};
+    ParameterSetters.ParameterSetter<Named> namedSetter = (ps, index, value) -> {};
+    parameterSetters
+        .registerSetter(Serializable.class, serializableSetter)
+        .registerSetter(Number.class, numberSetter)
+        .registerSetter(Named.class, namedSetter);
+
+    // A superclass wins over interfaces, and a nearer interface over those it extends
+    assertThat(parameterSetters.getSetter(BigInteger.ONE)).isSameInstanceAs(numberSetter);
+    assertThat(parameterSetters.getSetter(new Thing())).isSameInstanceAs(namedSetter);
+  }
+
+  private interface Named extends Serializable {}
+
+  private static class Thing implements Named {}
+
+  private static Path tempFileContaining(byte[] bytes) {
+    try {
+      Path file = Files.createTempFile("simplejdbc", ".bin");
+      file.toFile().deleteOnExit();
+      return Files.write(file, bytes);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private <T> T setAndExtract(Class<T> type, Object value) throws SQLException {
     try (Connection conn = dataSource.getConnection();
         PreparedStatement pstmt = conn.prepareStatement("select ? as thing")) {
       parameterSetters.getSetter(value).set(pstmt, 1, value);
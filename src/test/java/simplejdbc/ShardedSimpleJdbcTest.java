@@ -0,0 +1,203 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedSimpleJdbcTest {
+
+  private static final ShardId SHARD_A = ShardId.of("a");
+  private static final ShardId SHARD_B = ShardId.of("b");
+
+  private PreparedStatement statementA;
+  private PreparedStatement statementB;
+  private ShardedSimpleJdbc jdbc;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    statementA = mockStatement(1, 3, 5);
+    statementB = mockStatement(2, 4);
+    jdbc =
+        SimpleJdbc.sharded(
+            ImmutableMap.of(
+                SHARD_A, mockDataSource(statementA), SHARD_B, mockDataSource(statementB)),
+            tenant -> "tenant-b".equals(tenant) ? SHARD_B : SHARD_A);
+  }
+
+  @Test
+  void onShard_routesToResolvedShard() {
+    List<Integer> rows = jdbc.query("some query").onShard("tenant-b").selectList(this::value);
+
+    assertThat(rows).containsExactly(2, 4).inOrder();
+  }
+
+  @Test
+  void onShard_withUnknownShard_throws() {
+    ShardedSimpleJdbc unresolvable =
+        SimpleJdbc.sharded(
+            ImmutableMap.of(SHARD_A, mock(DataSource.class)), tenant -> ShardId.of("z"));
+
+    SimpleJdbcException ex =
+        assertThrows(SimpleJdbcException.class, () -> unresolvable.onShard("tenant"));
+    assertThat(ex).hasMessageThat().isEqualTo("shard key tenant resolved to unknown shard z");
+  }
+
+  @Test
+  void acrossAllShards_selectList_concatenatesInShardOrder() {
+    List<Integer> rows = jdbc.query("some query").acrossAllShards().selectList(this::value);
+
+    assertThat(rows).containsExactly(1, 3, 5, 2, 4).inOrder();
+  }
+
+  @Test
+  void acrossAllShards_selectOrdered_mergesRows() {
+    List<Integer> rows =
+        jdbc.query("some query")
+            .acrossAllShards()
+            .selectOrdered(this::value, Comparator.naturalOrder());
+
+    assertThat(rows).containsExactly(1, 2, 3, 4, 5).inOrder();
+  }
+
+  @Test
+  void acrossAllShards_withLimit_pushesLimitDownToEachShard() throws SQLException {
+    List<Integer> rows =
+        jdbc.query("some query")
+            .acrossAllShards()
+            .limit(3)
+            .selectOrdered(this::value, Comparator.naturalOrder());
+
+    assertThat(rows).containsExactly(1, 2, 3).inOrder();
+    verify(statementA).setMaxRows(3);
+    verify(statementB).setMaxRows(3);
+  }
+
+  @Test
+  void acrossAllShards_selectOrdered_withUnorderedRows_throws() {
+    SimpleJdbcException ex =
+        assertThrows(
+            SimpleJdbcException.class,
+            () ->
+                jdbc.query("some query")
+                    .acrossAllShards()
+                    .selectOrdered(this::value, Comparator.reverseOrder()));
+
+    assertThat(ex).hasMessageThat().startsWith("query failed on shard a");
+    assertThat(ex).hasCauseThat().hasMessageThat().startsWith("rows are not in the order");
+  }
+
+  @Test
+  void acrossAllShards_select_extractsEachShardSeparately() {
+    Map<ShardId, Integer> counts =
+        jdbc.query("some query")
+            .acrossAllShards()
+            .select(
+                queryResult -> {
+                  int count = 0;
+                  while (queryResult.next()) {
+                    count++;
+                  }
+                  return count;
+                });
+
+    assertThat(counts).containsExactly(SHARD_A, 3, SHARD_B, 2).inOrder();
+  }
+
+  @Test
+  void acrossAllShards_whenOneShardFails_cancelsTheOthers() throws SQLException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    PreparedStatement slow = mock(PreparedStatement.class);
+    doAnswer(
+            invocation -> {
+              cancelled.countDown();
+              return null;
+            })
+        .when(slow)
+        .cancel();
+    when(slow.executeQuery())
+        .thenAnswer(
+            invocation -> {
+              started.countDown();
+              cancelled.await(5, TimeUnit.SECONDS);
+              throw new SQLException("canceling statement due to user request");
+            });
+    PreparedStatement failing = mock(PreparedStatement.class);
+    when(failing.executeQuery())
+        .thenAnswer(
+            invocation -> {
+              started.await(5, TimeUnit.SECONDS);
+              throw new SQLException("boom");
+            });
+    ShardedSimpleJdbc sharded =
+        SimpleJdbc.sharded(
+            ImmutableMap.of(SHARD_A, mockDataSource(slow), SHARD_B, mockDataSource(failing)),
+            tenant -> SHARD_A);
+
+    SimpleJdbcException ex =
+        assertThrows(
+            SimpleJdbcException.class,
+            () -> sharded.query("some query").acrossAllShards().selectList(this::value));
+
+    assertThat(ex).hasMessageThat().isEqualTo("query failed on shard b");
+    verify(slow).cancel();
+  }
+
+  @Test
+  void merge_isStableAndHonorsLimit() {
+    List<String> merged =
+        ShardedQueryBuilder.merge(
+            ImmutableList.<List<String>>of(
+                ImmutableList.of("a1", "c1"), ImmutableList.of(), ImmutableList.of("a2", "b2")),
+            Comparator.comparing((String s) -> s.charAt(0)),
+            3);
+
+    assertThat(merged).containsExactly("a1", "a2", "b2").inOrder();
+  }
+
+  private Integer value(QueryRowResult row) {
+    return row.getInteger("value");
+  }
+
+  private static PreparedStatement mockStatement(Integer... values) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    Boolean[] hasMore = new Boolean[values.length];
+    for (int i = 0; i < values.length; i++) {
+      hasMore[i] = i + 1 < values.length;
+    }
+    when(resultSet.next()).thenReturn(values.length > 0, hasMore);
+    Integer[] rest = new Integer[Math.max(0, values.length - 1)];
+    System.arraycopy(values, 1, rest, 0, rest.length);
+    when(resultSet.getInt("value")).thenReturn(values[0], rest);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(statement.executeQuery()).thenReturn(resultSet);
+    return statement;
+  }
+
+  private static DataSource mockDataSource(PreparedStatement statement) throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    return dataSource;
+  }
+}
@@ -2,17 +2,26 @@ package simplejdbc;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,14 +30,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import simplejdbc.SimpleJdbc.QueryResultExtractor;
 
 abstract class SimpleJdbcTest {
 
   protected Connection connection;
-  private PreparedStatement preparedStatement;
-  private ResultSet resultSet;
+  protected PreparedStatement preparedStatement;
+  protected ResultSet resultSet;
   protected ParameterSetters parameterSetters;
   protected ColumnExtractors columnExtractors;
 
@@ -57,6 +67,60 @@ abstract class SimpleJdbcTest {
     assertThat(ex).hasCauseThat().isInstanceOf(SQLException.class);
   }
 
+  @Test
+  void exportTo_outsideTransaction_turnsOffAutoCommitForTheFetchSize() throws SQLException {
+    when(connection.getAutoCommit()).thenReturn(true);
+    when(resultSet.getMetaData()).thenReturn(Mockito.mock(ResultSetMetaData.class));
+
+    getSubject().query("select * from t").exportTo(new ByteArrayOutputStream(), ExportFormat.CSV);
+
+    InOrder inOrder = Mockito.inOrder(connection, preparedStatement);
+    inOrder.verify(connection).setAutoCommit(false);
+    inOrder.verify(preparedStatement).setFetchSize(1000);
+    inOrder.verify(preparedStatement).executeQuery();
+    inOrder.verify(connection).commit();
+    inOrder.verify(connection).setAutoCommit(true);
+  }
+
+  @Test
+  void exportTo_withChunkedCollection_exportsTheRowsOfEveryChunk() throws SQLException {
+    ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+    when(metaData.getColumnCount()).thenReturn(1);
+    when(metaData.getColumnLabel(1)).thenReturn("id");
+    when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(resultSet.next()).thenReturn(true, true, false, true, false);
+    when(resultSet.getLong(1)).thenReturn(1L, 2L, 3L);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows =
+        getSubject()
+            .query("select id from t where id in (:ids)")
+            .bind("ids", ImmutableList.of(1L, 2L, 3L))
+            .chunkCollections(2)
+            .exportTo(out, ExportFormat.CSV);
+
+    assertThat(rows).isEqualTo(3);
+    assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("id\n1\n2\n3\n");
+    verify(connection).prepareStatement("select id from t where id in (?,?)");
+    verify(connection).prepareStatement("select id from t where id in (?)");
+  }
+
+  @Test
+  void select_withChunkedCollectionAndPadding_keepsPaddedChunksWithinTheMax()
+      throws SQLException {
+    getSubject()
+        .padInLists(InListPadding.powersOfTwo())
+        .query("select id from t where id in (:ids)")
+        .bind("ids", ImmutableList.of(1L, 2L, 3L, 4L, 5L))
+        .chunkCollections(3)
+        .selectList(row -> row.getLong("id"));
+
+    verify(connection, times(2)).prepareStatement("select id from t where id in (?,?)");
+    verify(connection).prepareStatement("select id from t where id in (?)");
+    verify(connection, never()).prepareStatement("select id from t where id in (?,?,?,?)");
+  }
+
   @Test
   void update_SQLException_wrappedInCustomException() throws SQLException {
     when(connection.prepareStatement(anyString())).thenThrow(new SQLException("test"));
@@ -162,6 +226,197 @@ abstract class SimpleJdbcTest {
     verify(preparedStatement).executeBatch();
   }
 
+  @Test
+  void multiQuery_withMultiStatementSupport_sendsOneCombinedStatement() throws SQLException {
+    DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(metaData.supportsMultipleResultSets()).thenReturn(true);
+    when(metaData.getDatabaseProductName()).thenReturn("PostgreSQL");
+    ResultSet otherResultSet = Mockito.mock(ResultSet.class);
+    when(preparedStatement.execute()).thenReturn(true);
+    when(preparedStatement.getResultSet()).thenReturn(resultSet, otherResultSet);
+    when(preparedStatement.getMoreResults()).thenReturn(true, false);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getInt("a")).thenReturn(1);
+    when(otherResultSet.next()).thenReturn(true, false);
+    when(otherResultSet.getString("b")).thenReturn("two");
+
+    MultiQueryBuilder multiQuery = getSubject().multiQuery();
+    MultiQueryBuilder.Result<Integer> a =
+        multiQuery.add(
+            "select a from x where y = :y;",
+            ImmutableMap.of("y", 5),
+            QueryResultExtractors.exactlyOne(row -> row.getInteger("a")));
+    MultiQueryBuilder.Result<String> b =
+        multiQuery.add(
+            "select b from z where c = :c",
+            ImmutableMap.of("c", "see"),
+            QueryResultExtractors.exactlyOne(row -> row.getString("b")));
+    multiQuery.execute();
+
+    verify(connection)
+        .prepareStatement("select a from x where y = ?;\nselect b from z where c = ?");
+    verify(preparedStatement).setInt(1, 5);
+    verify(preparedStatement).setString(2, "see");
+    assertThat(a.get()).isEqualTo(1);
+    assertThat(b.get()).isEqualTo("two");
+    verify(resultSet).close();
+    verify(otherResultSet).close();
+    verify(preparedStatement).close();
+  }
+
+  @Test
+  void multiQuery_withoutMultiStatementSupport_runsQueriesSequentially() throws SQLException {
+    DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(metaData.supportsMultipleResultSets()).thenReturn(true);
+    when(metaData.getDatabaseProductName()).thenReturn("Oracle");
+    when(resultSet.next()).thenReturn(true, false, true, false);
+    when(resultSet.getInt("n")).thenReturn(1, 2);
+
+    MultiQueryBuilder multiQuery = getSubject().multiQuery();
+    MultiQueryBuilder.Result<Integer> first =
+        multiQuery.add(
+            "select n from x", QueryResultExtractors.exactlyOne(row -> row.getInteger("n")));
+    MultiQueryBuilder.Result<Integer> second =
+        multiQuery.add(
+            "select n from y", QueryResultExtractors.exactlyOne(row -> row.getInteger("n")));
+    multiQuery.execute();
+
+    verify(connection).prepareStatement("select n from x");
+    verify(connection).prepareStatement("select n from y");
+    assertThat(first.get()).isEqualTo(1);
+    assertThat(second.get()).isEqualTo(2);
+  }
+
+  @Test
+  void multiQuery_resultBeforeExecute_throws() {
+    MultiQueryBuilder.Result<Object> result =
+        getSubject().multiQuery().add("select 1", qr -> null);
+
+    SimpleJdbcException ex = assertThrows(SimpleJdbcException.class, result::get);
+    assertThat(ex).hasMessageThat().isEqualTo("multi-query has not been executed yet");
+  }
+
+  @Test
+  void preparedQuery_bindsArgumentsByDistinctParameterOrder() throws SQLException {
+    PreparedQuery query = getSubject().prepare("select :a, :b where x = :a");
+
+    assertThat(query.getParameterNames()).containsExactly("a", "b").inOrder();
+    query.select(qr -> null, 789, "foo");
+    query.select(qr -> null, null, "bar");
+
+    verify(connection, times(2)).prepareStatement("select ?, ? where x = ?");
+    verify(preparedStatement, times(2)).setInt(anyInt(), eq(789));
+    verify(preparedStatement).setString(2, "foo");
+    verify(preparedStatement).setNull(1, Types.NULL);
+    verify(preparedStatement).setNull(3, Types.NULL);
+    verify(preparedStatement).setString(2, "bar");
+    verify(preparedStatement, times(2)).executeQuery();
+  }
+
+  @Test
+  void preparedQuery_withCollectionArgument_expandsBindSites() throws SQLException {
+    getSubject().prepare("update t set x = 1 where id in (:ids)").execute(ImmutableList.of(1, 2));
+
+    verify(connection).prepareStatement("update t set x = 1 where id in (?,?)");
+    verify(preparedStatement).setInt(1, 1);
+    verify(preparedStatement).setInt(2, 2);
+    verify(preparedStatement).executeUpdate();
+  }
+
+  @Test
+  void preparedQuery_withWrongNumberOfArguments_throws() {
+    PreparedQuery query = getSubject().prepare("select :a, :b");
+
+    SimpleJdbcException ex =
+        assertThrows(SimpleJdbcException.class, () -> query.select(qr -> null, 1));
+    assertThat(ex).hasMessageThat().isEqualTo("expected 2 arguments (:a, :b), but got 1");
+  }
+
+  @Test
+  void positionalStatement_appliesParametersInOrder() throws SQLException {
+    getSubject()
+        .positionalStatement(
+            "insert into t (a, b) values (?, ?)", new BindingPlan.Plans(), new Object[] {789, 456});
+
+    verify(connection).prepareStatement("insert into t (a, b) values (?, ?)");
+    verify(preparedStatement).setInt(1, 789);
+    verify(preparedStatement).setInt(2, 456);
+    verify(preparedStatement).executeUpdate();
+    verify(preparedStatement).close();
+  }
+
+  @Test
+  void batchedUpdate_withDifferentTypesPerRow_bindsEachRowWithItsOwnSetters() throws SQLException {
+    getSubject()
+        .batchStatement(
+            "update t set x = :x",
+            ImmutableList.of(
+                ImmutableMap.of("x", 1), ImmutableMap.of("x", "a"), ImmutableMap.of("x", 2)));
+
+    verify(preparedStatement).setInt(1, 1);
+    verify(preparedStatement).setString(1, "a");
+    verify(preparedStatement).setInt(1, 2);
+    verify(preparedStatement, times(3)).addBatch();
+  }
+
+  @Test
+  void batchedUpdate_withBatchSize_flushesOneStatementEveryBatchSizeEntries() throws SQLException {
+    when(preparedStatement.executeBatch()).thenReturn(new int[] {1, 1}, new int[] {1});
+
+    int[] updateCounts =
+        getSubject()
+            .batchStatement(
+                "update t set x = :x",
+                ImmutableList.of(
+                    ImmutableMap.of("x", 1), ImmutableMap.of("x", 2), ImmutableMap.of("x", 3)),
+                2);
+
+    assertThat(updateCounts).asList().containsExactly(1, 1, 1);
+    verify(connection, times(1)).prepareStatement("update t set x = ?");
+    verify(preparedStatement, times(3)).addBatch();
+    verify(preparedStatement, times(2)).executeBatch();
+    verify(preparedStatement).close();
+  }
+
+  @Test
+  void select_withChunkedCollection_runsQueryPerChunk_andConcatenatesRows() throws SQLException {
+    when(resultSet.getStatement()).thenReturn(preparedStatement);
+    when(resultSet.next()).thenReturn(true, false, true, false);
+    when(resultSet.getInt("id")).thenReturn(1, 2);
+
+    List<Integer> ids =
+        getSubject()
+            .query("select id from foo where id in (:ids)")
+            .bind("ids", ImmutableList.of(1, 2, 3))
+            .chunkCollections(2)
+            .selectList(row -> row.getInteger("id"));
+
+    assertThat(ids).containsExactly(1, 2).inOrder();
+    verify(connection).prepareStatement("select id from foo where id in (?,?)");
+    verify(connection).prepareStatement("select id from foo where id in (?)");
+    verify(resultSet, times(2)).close();
+    verify(preparedStatement, times(2)).close();
+  }
+
+  @Test
+  void update_withChunkedCollection_runsStatementPerChunk_andSumsRowsAffected()
+      throws SQLException {
+    when(preparedStatement.executeUpdate()).thenReturn(2, 1);
+
+    int rowsAffected =
+        getSubject()
+            .statement("delete from foo where id in (:ids)")
+            .bind("ids", ImmutableList.of(1, 2, 3))
+            .chunkCollections(2)
+            .execute();
+
+    assertThat(rowsAffected).isEqualTo(3);
+    verify(connection).prepareStatement("delete from foo where id in (?,?)");
+    verify(connection).prepareStatement("delete from foo where id in (?)");
+  }
+
   @Test
   void select_queryResultExtractor_hasAccessToProvidedColumnExtractors() {
     columnExtractors.registerExtractor(Integer.class, (resultSet, columnLabel) -> 12345);
@@ -233,13 +488,33 @@ abstract class SimpleJdbcTest {
             sql, ImmutableMap.of("bind", 123, "variables", 456), queryResultExtractor);
       }
 
+      @Test
+      void bindArray_test() {
+        String sql = "some sql with = any(:ids)";
+        QueryResultExtractor<Object> queryResultExtractor = qr -> null;
+        subject
+            .query(sql)
+            .bindArray("ids", "bigint", ImmutableList.of(1L, 2L))
+            .select(queryResultExtractor);
+
+        assertQueryExecution(
+            sql,
+            ImmutableMap.of("ids", SqlArray.of("bigint", ImmutableList.of(1L, 2L))),
+            queryResultExtractor);
+      }
+
       private void assertQueryExecution(
           String sql, Map<String, ?> bindings, QueryResultExtractor<?> queryResultExtractor) {
         ArgumentCaptor<String> sqlArg = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Map<String, ?>> bindingsArg = ArgumentCaptor.forClass(Map.class);
         ArgumentCaptor<QueryResultExtractor<?>> qrArg =
             ArgumentCaptor.forClass(QueryResultExtractor.class);
-        verify(subject).query(sqlArg.capture(), bindingsArg.capture(), qrArg.capture());
+        verify(subject)
+            .query(
+                sqlArg.capture(),
+                bindingsArg.capture(),
+                any(StatementOptions.class),
+                qrArg.capture());
 
         assertThat(sqlArg.getValue()).isEqualTo(sql);
         assertThat(bindingsArg.getValue()).isEqualTo(bindings);
@@ -402,14 +677,85 @@ abstract class SimpleJdbcTest {
       return subject;
     }
 
+    private DataSource dataSource;
+
     @BeforeEach
     void setup() throws SQLException {
-      DataSource dataSource = Mockito.mock(DataSource.class);
+      dataSource = Mockito.mock(DataSource.class);
       when(dataSource.getConnection()).thenReturn(connection);
 
       subject = SimpleJdbc.using(dataSource, parameterSetters, columnExtractors);
     }
 
+    @Test
+    void session_reusesOneConnection() throws SQLException {
+      String result =
+          subject.session(
+              () -> {
+                subject.statement("some statement", ImmutableMap.of());
+                subject.query("some query", ImmutableMap.of(), qr -> null);
+                return "result";
+              });
+
+      assertThat(result).isEqualTo("result");
+      verify(dataSource, times(1)).getConnection();
+      verify(connection, times(1)).close();
+      verify(connection, never()).setAutoCommit(false);
+    }
+
+    @Test
+    void session_whenSQLExceptionThrown_emitsWrapped_andClosesConnection() throws SQLException {
+      RuntimeException ex =
+          assertThrows(
+              RuntimeException.class,
+              () ->
+                  subject.session(
+                      () -> {
+                        throw new SQLException("test");
+                      }));
+
+      assertThat(ex).hasCauseThat().isInstanceOf(SQLException.class);
+      verify(connection).close();
+    }
+
+    @Test
+    void select_withChunksInParallel_readsBufferedRowsByLabel() throws SQLException {
+      ResultSetMetaData metaData = Mockito.mock(ResultSetMetaData.class);
+      when(metaData.getColumnCount()).thenReturn(1);
+      when(metaData.getColumnName(1)).thenReturn("id");
+      when(metaData.getColumnLabel(1)).thenReturn("foo_id");
+      when(resultSet.getMetaData()).thenReturn(metaData);
+      when(resultSet.next()).thenReturn(true, true, false, true, false);
+      when(resultSet.getObject(1)).thenReturn(1L, 2L, 3L);
+
+      List<Long> ids =
+          subject
+              .query("select id as foo_id from foo where id in (:ids)")
+              .bind("ids", ImmutableList.of(1, 2, 3))
+              .chunkCollections(2, Runnable::run)
+              .selectList(row -> row.getLong("foo_id"));
+
+      assertThat(ids).containsExactly(1L, 2L, 3L).inOrder();
+      verify(connection, times(2)).close();
+    }
+
+    @Test
+    void select_withChunksInParallel_whenAChunkFails_throwsItsFailure() throws SQLException {
+      when(preparedStatement.executeQuery()).thenThrow(new SQLException("chunk failed"));
+
+      SimpleJdbcException ex =
+          assertThrows(
+              SimpleJdbcException.class,
+              () ->
+                  subject
+                      .query("select id from foo where id in (:ids)")
+                      .bind("ids", ImmutableList.of(1, 2, 3))
+                      .chunkCollections(2, Runnable::run)
+                      .selectList(row -> row.getLong("id")));
+
+      assertThat(ex).hasCauseThat().hasMessageThat().isEqualTo("chunk failed");
+    }
+
     @Test
     @Override
     void batchedUpdate_closesResources() throws SQLException {
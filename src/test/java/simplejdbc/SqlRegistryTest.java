@@ -0,0 +1,135 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Types;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SqlRegistryTest {
+
+  private Connection connection;
+  private PreparedStatement statement;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    connection = mock(Connection.class);
+    statement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+  }
+
+  @Test
+  void load_readsNamedStatements() {
+    SqlRegistry registry = SqlRegistry.load("sql/orders.sql", "sql/customerById.sql");
+
+    assertThat(registry.getNames())
+        .containsExactly("orders.byCustomer", "orders.cancel", "customerById")
+        .inOrder();
+    assertThat(registry.getSql("orders.byCustomer"))
+        .isEqualTo(
+            "-- Most recent first\n"
+                + "select id, total from orders\n"
+                + "where customer_id = :customerId\n"
+                + "order by created_at desc");
+    assertThat(registry.getSql("customerById"))
+        .isEqualTo("select id, name from customer where id = :id");
+  }
+
+  @Test
+  void load_keepsTrailingSemicolonOfBlocks() {
+    SqlRegistry registry = SqlRegistry.load("sql/blocks.sql");
+
+    assertThat(registry.getSql("blocks.anonymous")).endsWith("end;");
+    assertThat(registry.getSql("blocks.procedure")).endsWith("end;");
+    assertThat(registry.getSql("blocks.select")).isEqualTo("select 'begin' from dual");
+  }
+
+  @Test
+  void load_missingResource_throws() {
+    SimpleJdbcException ex =
+        assertThrows(SimpleJdbcException.class, () -> SqlRegistry.load("sql/missing.sql"));
+
+    assertThat(ex).hasMessageThat().isEqualTo("SQL resource not found: sql/missing.sql");
+  }
+
+  @Test
+  void load_duplicateName_throws() {
+    SimpleJdbcException ex =
+        assertThrows(
+            SimpleJdbcException.class, () -> SqlRegistry.load("sql/orders.sql", "sql/orders.sql"));
+
+    assertThat(ex)
+        .hasMessageThat()
+        .isEqualTo("duplicate SQL name orders.byCustomer in sql/orders.sql");
+  }
+
+  @Test
+  void load_sqlBeforeFirstHeader_throws() {
+    SimpleJdbcException ex =
+        assertThrows(SimpleJdbcException.class, () -> SqlRegistry.load("sql/headless.sql"));
+
+    assertThat(ex)
+        .hasMessageThat()
+        .isEqualTo("SQL before the first '-- name:' header in sql/headless.sql");
+  }
+
+  @Test
+  void named_executesStatement() throws SQLException {
+    SimpleJdbc jdbc =
+        SimpleJdbc.using(connection).useSqlRegistry(SqlRegistry.load("sql/orders.sql"));
+
+    jdbc.named("orders.cancel").execute(12L);
+
+    verify(connection).prepareStatement("update orders set status = 'cancelled' where id = ?");
+    verify(statement).setLong(1, 12L);
+  }
+
+  @Test
+  void named_unknownName_throws() {
+    SimpleJdbc jdbc =
+        SimpleJdbc.using(connection).useSqlRegistry(SqlRegistry.load("sql/orders.sql"));
+
+    SimpleJdbcException ex =
+        assertThrows(SimpleJdbcException.class, () -> jdbc.named("orders.missing"));
+
+    assertThat(ex).hasMessageThat().isEqualTo("no SQL named orders.missing");
+  }
+
+  @Test
+  void warmUp_bindsNullsAsDeclaredType() throws SQLException {
+    ParameterMetaData metaData = mock(ParameterMetaData.class);
+    when(metaData.getParameterCount()).thenReturn(1);
+    when(metaData.getParameterType(1)).thenReturn(Types.BIGINT);
+    when(statement.getParameterMetaData()).thenReturn(metaData);
+    SimpleJdbc jdbc =
+        SimpleJdbc.using(connection).useSqlRegistry(SqlRegistry.load("sql/customerById.sql"));
+
+    jdbc.warmUpSqlRegistry();
+    jdbc.named("customerById").execute((Object) null);
+
+    verify(statement).setNull(1, Types.BIGINT);
+  }
+
+  @Test
+  void warmUp_whenStatementFailsToPrepare_namesIt() throws SQLException {
+    when(statement.getParameterMetaData())
+        .thenThrow(new SQLSyntaxErrorException("syntax error at or near \"form\""));
+    SimpleJdbc jdbc =
+        SimpleJdbc.using(connection).useSqlRegistry(SqlRegistry.load("sql/customerById.sql"));
+
+    SimpleJdbcException ex = assertThrows(SimpleJdbcException.class, jdbc::warmUpSqlRegistry);
+
+    assertThat(ex).hasMessageThat().isEqualTo("failed to prepare SQL named customerById");
+    assertThat(ex).hasCauseThat().isInstanceOf(SQLSyntaxErrorException.class);
+  }
+}
@@ -0,0 +1,252 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableWatchTest {
+
+  private DataSource dataSource;
+  private Connection connection;
+  private PreparedStatement statement;
+  private ResultSet resultSet;
+  private final List<List<String>> batches = new ArrayList<>();
+  private final List<WatchCheckpoint> checkpoints = new ArrayList<>();
+
+  @BeforeEach
+  void setup() throws SQLException {
+    dataSource = mock(DataSource.class);
+    connection = mock(Connection.class);
+    statement = mock(PreparedStatement.class);
+    resultSet = mock(ResultSet.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.getAutoCommit()).thenReturn(true);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    when(statement.executeQuery()).thenReturn(resultSet);
+  }
+
+  @Test
+  void poll_first_readsFromTheStartInWatermarkOrder() throws SQLException {
+    when(resultSet.next()).thenReturn(true, true, false);
+    when(resultSet.getObject("id")).thenReturn(1L, 2L);
+    when(resultSet.getString("name")).thenReturn("one", "two");
+    TableWatch<String> watch = watch(WatchConfig.on("id"));
+
+    assertThat(watch.poll()).isEqualTo(Duration.ofSeconds(1).toNanos());
+
+    verify(connection).prepareStatement("select * from (select * from person) w order by w.id");
+    // One row past the batch is read, to check it doesn't share the batch's last watermark
+    verify(statement).setMaxRows(501);
+    assertThat(batches).containsExactly(asList("one", "two"));
+    assertThat(checkpoints).containsExactly(WatchCheckpoint.of(2));
+    assertThat(watch.getCheckpoint()).hasValue(WatchCheckpoint.of(2));
+  }
+
+  @Test
+  void poll_afterCheckpoint_readsPastTheWatermark() throws SQLException {
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getObject("id")).thenReturn(43L);
+    when(resultSet.getString("name")).thenReturn("next");
+    TableWatch<String> watch = watch(WatchConfig.on("id").startingAfter(WatchCheckpoint.of(42)));
+
+    watch.poll();
+
+    verify(connection)
+        .prepareStatement("select * from (select * from person) w where w.id > ? order by w.id");
+    verify(statement).setLong(1, 42L);
+    assertThat(checkpoints).containsExactly(WatchCheckpoint.of(43));
+  }
+
+  @Test
+  void poll_withTieBreaker_readsPastTheWatermarkAndTieBreaker() throws SQLException {
+    Instant updatedAt = Instant.parse("2024-05-01T12:00:00Z");
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getObject("updated_at")).thenReturn(Timestamp.from(updatedAt));
+    when(resultSet.getObject("id")).thenReturn(8);
+    when(resultSet.getString("name")).thenReturn("eight");
+    TableWatch<String> watch =
+        watch(
+            WatchConfig.on("updated_at")
+                .withTieBreaker("id")
+                .startingAfter(WatchCheckpoint.of(updatedAt, 7L)));
+
+    watch.poll();
+
+    verify(connection)
+        .prepareStatement(
+            "select * from (select * from person) w where w.updated_at > ? or (w.updated_at = ?"
+                + " and w.id > ?) order by w.updated_at, w.id");
+    verify(statement).setLong(3, 7L);
+    assertThat(checkpoints).containsExactly(WatchCheckpoint.of(updatedAt, 8L));
+  }
+
+  @Test
+  void poll_withOverlap_skipsRowsAlreadyDelivered() throws SQLException {
+    when(resultSet.next()).thenReturn(true, true, false, true, true, true, false);
+    when(resultSet.getObject("id")).thenReturn(10L, 12L, 10L, 11L, 12L);
+    when(resultSet.getString("name")).thenReturn("ten", "twelve", "eleven");
+    TableWatch<String> watch = watch(WatchConfig.on("id").withOverlap(5));
+
+    watch.poll();
+    watch.poll();
+
+    verify(connection)
+        .prepareStatement("select * from (select * from person) w where w.id >= ? order by w.id");
+    verify(statement).setLong(1, 7L);
+    verify(statement).setMaxRows(502);
+    // The late row is delivered, but the checkpoint does not move back
+    assertThat(batches).containsExactly(asList("ten", "twelve"), asList("eleven")).inOrder();
+    assertThat(checkpoints).containsExactly(WatchCheckpoint.of(12), WatchCheckpoint.of(12));
+  }
+
+  @Test
+  void poll_withOverlap_deliversARowChangedAgainWithinTheOverlap() throws SQLException {
+    Instant first = Instant.parse("2024-05-01T12:00:00Z");
+    Instant second = first.plusSeconds(1);
+    when(resultSet.next()).thenReturn(true, false, true, true, false);
+    when(resultSet.getObject("updated_at"))
+        .thenReturn(Timestamp.from(first), Timestamp.from(first), Timestamp.from(second));
+    when(resultSet.getObject("id")).thenReturn(8);
+    when(resultSet.getString("name")).thenReturn("eight", "eight again");
+    TableWatch<String> watch =
+        watch(
+            WatchConfig.on("updated_at")
+                .withTieBreaker("id")
+                .withOverlap(Duration.ofSeconds(5)));
+
+    watch.poll();
+    watch.poll();
+
+    assertThat(batches).containsExactly(asList("eight"), asList("eight again")).inOrder();
+    assertThat(checkpoints)
+        .containsExactly(WatchCheckpoint.of(first, 8L), WatchCheckpoint.of(second, 8L))
+        .inOrder();
+  }
+
+  @Test
+  void poll_withoutTieBreaker_whenWatermarkRepeatsPastTheBatch_fails() throws SQLException {
+    when(resultSet.next()).thenReturn(true, true, true);
+    when(resultSet.getObject("id")).thenReturn(1L, 2L, 2L);
+    when(resultSet.getString("name")).thenReturn("one", "two");
+    TableWatch<String> watch = watch(WatchConfig.on("id").withBatchSize(2));
+
+    SimpleJdbcException ex = assertThrows(SimpleJdbcException.class, watch::poll);
+
+    assertThat(ex).hasMessageThat().startsWith("watermark 2 is shared by more than one row");
+    assertThat(batches).isEmpty();
+  }
+
+  @Test
+  void poll_whenIdle_backsOffUpToTheMaxInterval() throws SQLException {
+    when(resultSet.next()).thenReturn(false);
+    TableWatch<String> watch =
+        watch(
+            WatchConfig.on("id")
+                .withInterval(Duration.ofSeconds(1))
+                .withMaxInterval(Duration.ofSeconds(3)));
+
+    assertThat(watch.poll()).isEqualTo(Duration.ofSeconds(1).toNanos());
+    assertThat(watch.poll()).isEqualTo(Duration.ofSeconds(2).toNanos());
+    assertThat(watch.poll()).isEqualTo(Duration.ofSeconds(3).toNanos());
+    assertThat(watch.poll()).isEqualTo(Duration.ofSeconds(3).toNanos());
+    assertThat(batches).isEmpty();
+  }
+
+  @Test
+  void poll_whenBatchIsFull_pollsAgainStraightAway() throws SQLException {
+    when(resultSet.next()).thenReturn(true, true, true);
+    when(resultSet.getObject("id")).thenReturn(1L, 2L, 3L);
+    when(resultSet.getString("name")).thenReturn("one", "two");
+    TableWatch<String> watch = watch(WatchConfig.on("id").withBatchSize(2));
+
+    assertThat(watch.poll()).isEqualTo(0L);
+    assertThat(batches).containsExactly(asList("one", "two"));
+  }
+
+  @Test
+  void poll_whenConsumerFails_keepsTheCheckpoint() throws SQLException {
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getObject("id")).thenReturn(1L);
+    when(resultSet.getString("name")).thenReturn("one");
+    TableWatch<String> watch =
+        new TableWatch<>(
+            SimpleJdbc.using(dataSource),
+            "select * from person",
+            Collections.emptyMap(),
+            null,
+            WatchConfig.on("id"),
+            row -> row.getString("name"),
+            (rows, checkpoint) -> {
+              throw new SQLException("boom");
+            });
+
+    assertThrows(SimpleJdbcException.class, watch::poll);
+    assertThat(watch.getCheckpoint()).isEmpty();
+  }
+
+  @Test
+  void checkpoint_roundTripsThroughString() {
+    WatchCheckpoint numeric = WatchCheckpoint.of(1042);
+    WatchCheckpoint timestamp = WatchCheckpoint.of(Instant.parse("2024-05-01T12:00:00Z"), "a,b");
+
+    assertThat(numeric.toString()).isEqualTo("n:1042");
+    assertThat(timestamp.toString()).isEqualTo("t:2024-05-01T12:00:00Z,s:a,b");
+    assertThat(WatchCheckpoint.parse(numeric.toString())).isEqualTo(numeric);
+    assertThat(WatchCheckpoint.parse(timestamp.toString())).isEqualTo(timestamp);
+    assertThrows(SimpleJdbcException.class, () -> WatchCheckpoint.parse("1042"));
+  }
+
+  @Test
+  void watch_checkpointWithoutTieBreaker_throws() {
+    WatchConfig config =
+        WatchConfig.on("updated_at")
+            .withTieBreaker("id")
+            .startingAfter(WatchCheckpoint.of(Instant.EPOCH));
+
+    assertThrows(SimpleJdbcException.class, () -> watch(config));
+  }
+
+  @Test
+  void watch_timestampOverlapWithoutTieBreaker_throws() {
+    WatchConfig config = WatchConfig.on("updated_at").withOverlap(Duration.ofSeconds(5));
+
+    assertThrows(SimpleJdbcException.class, () -> watch(config));
+  }
+
+  private TableWatch<String> watch(WatchConfig config) {
+    return new TableWatch<>(
+        SimpleJdbc.using(dataSource),
+        "select * from person",
+        Collections.emptyMap(),
+        null,
+        config,
+        row -> row.getString("name"),
+        (rows, checkpoint) -> {
+          batches.add(new ArrayList<>(rows));
+          checkpoints.add(checkpoint);
+        });
+  }
+
+  private static List<String> asList(String... values) {
+    List<String> list = new ArrayList<>();
+    Collections.addAll(list, values);
+    return list;
+  }
+}
@@ -1,17 +1,23 @@
 package simplejdbc;
 
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static simplejdbc.TestUtil.assertException;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.List;
 import javax.sql.DataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableList;
+import simplejdbc.UpdateBuilder.BatchUpdateRows;
 
 class UpdateBuilderTest {
   private SimpleJdbc simpleJdbc;
@@ -193,6 +199,16 @@ class UpdateBuilderTest {
             ImmutableMap.of("_columnName", "columnValue", "columnName", "bindValue"));
   }
 
+  @Test
+  void execute_columnsSetInAnyOrder_resultInSameSql() {
+    doReturn(0).when(simpleJdbc).statement(anyString(), anyMap());
+
+    simpleJdbc.update().table("tableName").set("b", 2).set("a", 1).executeUnconditionally();
+
+    verify(simpleJdbc)
+        .statement("update tableName set a = :a, b = :b", ImmutableMap.of("a", 1, "b", 2));
+  }
+
   @Test
   void execute_withUnboundParameter_throws() {
     assertException(
@@ -218,4 +234,142 @@ class UpdateBuilderTest {
                 .execute(),
         "no binding provided for parameter :columnName");
   }
+
+  @Test
+  void batchUpdate_makesExpectedSimpleJdbcCoreCall() {
+    doReturn(new int[] {1, 1}).when(simpleJdbc).batchStatement(anyList());
+
+    int[] updateCounts =
+        simpleJdbc
+            .batchUpdate()
+            .table("tableName")
+            .set("columnName", "a")
+            .where("id = :id")
+            .bind("id", 1)
+            .addBatch()
+            .set("columnName", "b")
+            .bind("id", 2)
+            .addBatch()
+            .executeBatch();
+
+    List<List<ParameterizedQuery>> batches = sentBatches(1);
+    assertThat(updateCounts).asList().containsExactly(1, 1);
+    assertRows(
+        batches.get(0),
+        "update tableName set columnName = ? where id = ?",
+        ImmutableList.of("a", 1),
+        ImmutableList.of("b", 2));
+  }
+
+  @Test
+  void batchUpdate_withConditionFirst_andColumnConflictingParameterName_makesExpectedCoreCall() {
+    doReturn(new int[] {1, 1}).when(simpleJdbc).batchStatement(anyList());
+
+    simpleJdbc
+        .batchUpdate()
+        .table("tableName")
+        .where("id = :id")
+        .batchSize(500)
+        .set("id", 10)
+        .bind("id", 1)
+        .addBatch()
+        .set("id", 20)
+        .bind("id", 2)
+        .addBatch()
+        .executeBatch();
+
+    assertRows(
+        sentBatches(1).get(0),
+        "update tableName set id = ? where id = ?",
+        ImmutableList.of(10, 1),
+        ImmutableList.of(20, 2));
+  }
+
+  @Test
+  void batchUpdate_sendsRowsEveryBatchSizeRows_asTheyAreAdded() {
+    doReturn(new int[] {1, 1}, new int[] {0}).when(simpleJdbc).batchStatement(anyList());
+
+    BatchUpdateRows rows =
+        simpleJdbc
+            .batchUpdate()
+            .table("tableName")
+            .where("id = :id")
+            .batchSize(2)
+            .set("columnName", "a")
+            .bind("id", 1)
+            .addBatch()
+            .set("columnName", "b")
+            .bind("id", 2)
+            .addBatch();
+    List<List<ParameterizedQuery>> sent = sentBatches(1);
+    int[] updateCounts = rows.set("columnName", "c").bind("id", 3).addBatch().executeBatch();
+
+    assertThat(sent.get(0)).hasSize(2);
+    List<List<ParameterizedQuery>> batches = sentBatches(2);
+    assertRows(
+        batches.get(1),
+        "update tableName set columnName = ? where id = ?",
+        ImmutableList.of("c", 3));
+    assertThat(updateCounts).asList().containsExactly(1, 1, 0).inOrder();
+  }
+
+  @Test
+  void batchUpdate_withInconsistentRows_throws() {
+    assertException(
+        () ->
+            simpleJdbc
+                .batchUpdate()
+                .table("tableName")
+                .where("id = :id")
+                .set("a", 1)
+                .bind("id", 1)
+                .addBatch()
+                .set("b", 2)
+                .bind("id", 2)
+                .addBatch(),
+        "every batch entry must set() the same columns and bind() the same parameters");
+  }
+
+  @Test
+  void batchUpdate_withUnboundParameter_throws() {
+    assertException(
+        () ->
+            simpleJdbc
+                .batchUpdate()
+                .table("tableName")
+                .set("columnName", "columnValue")
+                .where("foo = :foo")
+                .addBatch()
+                .executeBatch(),
+        "no binding provided for parameter :foo");
+  }
+
+  @Test
+  void batchUpdate_withNonPositiveBatchSize_throws() {
+    assertException(
+        () -> simpleJdbc.batchUpdate().table("tableName").where("id = :id").batchSize(0),
+        "batch size must be greater than zero");
+  }
+
+  @Test
+  void batchUpdate_withBatchSizeOfZero_ok() {
+    assertThat(simpleJdbc.batchUpdate().table("tableName").where("id = :id").executeBatch())
+        .isEmpty();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<List<ParameterizedQuery>> sentBatches(int times) {
+    ArgumentCaptor<List<ParameterizedQuery>> batchArg = ArgumentCaptor.forClass(List.class);
+    verify(simpleJdbc, times(times)).batchStatement(batchArg.capture());
+    return batchArg.getAllValues();
+  }
+
+  private static void assertRows(
+      List<ParameterizedQuery> batch, String expectedSql, List<?>... expectedParameters) {
+    assertThat(batch).hasSize(expectedParameters.length);
+    for (int i = 0; i < batch.size(); i++) {
+      assertThat(batch.get(i).getSql()).isEqualTo(expectedSql);
+      assertThat(batch.get(i).getParameters()).isEqualTo(expectedParameters[i]);
+    }
+  }
 }
@@ -0,0 +1,341 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static simplejdbc.TestUtil.assertException;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.OptionalInt;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mockito;
+import simplejdbc.UpsertBuilder.Dialect;
+import simplejdbc.UpsertBuilder.UpsertResult;
+
+class UpsertBuilderTest {
+
+  private DataSource dataSource;
+  private SimpleJdbc simpleJdbc;
+
+  @BeforeEach
+  void setup() {
+    dataSource = Mockito.mock(DataSource.class);
+    simpleJdbc = Mockito.spy(SimpleJdbc.using(dataSource));
+  }
+
+  @Test
+  void into_tableNameWithSpaces_throws() {
+    assertException(
+        () -> simpleJdbc.upsert().into("table name"),
+        "upsert() does not support table names which contain spaces or special characters. Use statement() instead.");
+  }
+
+  @Test
+  void onConflict_noColumns_throws() {
+    assertException(
+        () -> simpleJdbc.upsert().into("table").onConflict(),
+        "at least one conflict column is required");
+  }
+
+  @Test
+  void execute_conflictColumnNotSet_throws() {
+    assertException(
+        () ->
+            simpleJdbc
+                .upsert()
+                .dialect(Dialect.POSTGRESQL)
+                .into("table")
+                .onConflict("id")
+                .set("column", 1)
+                .execute(),
+        "every onConflict() column must also be set(), but got [id]");
+  }
+
+  @Test
+  void upsert_postgresql_resultsInExpectedCoreCall() {
+    doReturn(ImmutableList.of(false))
+        .when(simpleJdbc)
+        .query(anyString(), anyMap(), any(QueryResultExtractor.class));
+
+    UpsertResult result =
+        simpleJdbc
+            .upsert()
+            .dialect(Dialect.POSTGRESQL)
+            .into("table")
+            .onConflict("id")
+            .set("id", 1)
+            .set("column", "value")
+            .execute();
+
+    verify(simpleJdbc)
+        .query(
+            eq(
+                "insert into table (column, id) values (:column, :id) on conflict (id) do update set column = excluded.column returning (xmax = 0) as upsert_inserted"),
+            eq(ImmutableMap.of("id", 1, "column", "value")),
+            any(QueryResultExtractor.class));
+    assertThat(result.getRowsAffected()).isEqualTo(1);
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.of(0));
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.of(1));
+  }
+
+  @Test
+  void upsert_mysql_resultsInExpectedCoreCall() {
+    doReturn(1).when(simpleJdbc).statement(anyString(), anyMap());
+
+    UpsertResult result =
+        simpleJdbc
+            .upsert()
+            .dialect(Dialect.MYSQL)
+            .useAffectedRows()
+            .into("table")
+            .onConflict("id")
+            .set("id", 1)
+            .set("column", "value")
+            .execute();
+
+    verify(simpleJdbc)
+        .statement(
+            "insert into table (column, id) values (:column, :id) on duplicate key update column = values(column)",
+            ImmutableMap.of("id", 1, "column", "value"));
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.of(1));
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.of(0));
+  }
+
+  @Test
+  void upsert_oracle_resultsInExpectedCoreCall() {
+    doReturn(1).when(simpleJdbc).statement(anyString(), anyMap());
+
+    UpsertResult result =
+        simpleJdbc
+            .upsert()
+            .dialect(Dialect.ORACLE)
+            .into("table")
+            .onConflict("id")
+            .set("id", 1)
+            .set("column", "value")
+            .execute();
+
+    verify(simpleJdbc)
+        .statement(
+            "merge into table upsert_target using (select :column as column, :id as id from dual) upsert_source"
+                + " on (upsert_target.id = upsert_source.id)"
+                + " when matched then update set upsert_target.column = upsert_source.column"
+                + " when not matched then insert (column, id) values (upsert_source.column, upsert_source.id)",
+            ImmutableMap.of("id", 1, "column", "value"));
+    assertThat(result.getRowsAffected()).isEqualTo(1);
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.empty());
+  }
+
+  @Test
+  void upsert_onlyConflictColumns_doesNotUpdate() {
+    doReturn(1).when(simpleJdbc).statement(anyString(), anyMap());
+
+    simpleJdbc
+        .upsert()
+        .dialect(Dialect.STANDARD)
+        .into("table")
+        .onConflict("id")
+        .set("id", 1)
+        .execute();
+
+    verify(simpleJdbc)
+        .statement(
+            "merge into table as upsert_target using (values (:id)) as upsert_source (id)"
+                + " on (upsert_target.id = upsert_source.id)"
+                + " when not matched then insert (id) values (upsert_source.id)",
+            ImmutableMap.of("id", 1));
+  }
+
+  @Test
+  void upsert_detectsDialectFromConnection() throws SQLException {
+    Connection connection = mock(Connection.class);
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(metaData.getDatabaseProductName()).thenReturn("MariaDB");
+    doReturn(2).when(simpleJdbc).statement(anyString(), anyMap());
+
+    UpsertResult result =
+        simpleJdbc.upsert().into("table").onConflict("id").set("id", 1).set("n", 2).execute();
+
+    verify(simpleJdbc)
+        .statement(
+            "insert into table (id, n) values (:id, :n) on duplicate key update n = values(n)",
+            ImmutableMap.of("id", 1, "n", 2));
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.of(1));
+  }
+
+  @Test
+  void upsert_detectsDialectOnlyOnce() throws SQLException {
+    Connection connection = mock(Connection.class);
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(metaData.getDatabaseProductName()).thenReturn("MariaDB");
+    doReturn(1).when(simpleJdbc).statement(anyString(), anyMap());
+
+    simpleJdbc.upsert().into("table").onConflict("id").set("id", 1).set("n", 2).execute();
+    simpleJdbc.upsert().into("table").onConflict("id").set("id", 2).set("n", 3).execute();
+
+    verify(metaData, times(1)).getDatabaseProductName();
+  }
+
+  @Test
+  void upsert_columnsSetInAnyOrder_shareTheSameSql() {
+    doReturn(1).when(simpleJdbc).statement(anyString(), anyMap());
+
+    simpleJdbc
+        .upsert()
+        .dialect(Dialect.MYSQL)
+        .into("table")
+        .onConflict("id")
+        .set("id", 1)
+        .set("n", 2)
+        .execute();
+    simpleJdbc
+        .upsert()
+        .dialect(Dialect.MYSQL)
+        .into("table")
+        .onConflict("id")
+        .set("n", 3)
+        .set("id", 2)
+        .execute();
+
+    verify(simpleJdbc, times(2))
+        .statement(
+            eq("insert into table (id, n) values (:id, :n) on duplicate key update n = values(n)"),
+            anyMap());
+  }
+
+  @Test
+  void upsert_mysql_withoutAffectedRows_breakdownUnknown() {
+    // With the driver's default of reporting found rows, an unchanged row also reports 1
+    doReturn(1).when(simpleJdbc).statement(anyString(), anyMap());
+
+    UpsertResult result =
+        simpleJdbc
+            .upsert()
+            .dialect(Dialect.MYSQL)
+            .into("table")
+            .onConflict("id")
+            .set("id", 1)
+            .set("column", "value")
+            .execute();
+
+    assertThat(result.getRowsAffected()).isEqualTo(1);
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.empty());
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.empty());
+  }
+
+  @Test
+  void upsertBatch_resultsInExpectedCoreCall() {
+    doReturn(new int[] {1, 2, 0}).when(simpleJdbc).batchStatement(anyString(), anyList());
+
+    UpsertResult result =
+        simpleJdbc
+            .batchUpsert()
+            .dialect(Dialect.MYSQL)
+            .useAffectedRows()
+            .into("table")
+            .onConflict("id")
+            .set("id", 1)
+            .set("column", "a")
+            .addBatch()
+            .set("id", 2)
+            .set("column", "b")
+            .addBatch()
+            .set("id", 3)
+            .set("column", "c")
+            .addBatch()
+            .executeBatch();
+
+    verify(simpleJdbc)
+        .batchStatement(
+            "insert into table (column, id) values (:column, :id) on duplicate key update column = values(column)",
+            ImmutableList.of(
+                ImmutableMap.of("id", 1, "column", "a"),
+                ImmutableMap.of("id", 2, "column", "b"),
+                ImmutableMap.of("id", 3, "column", "c")));
+    assertThat(result.getRowsAffected()).isEqualTo(2);
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.of(1));
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.of(1));
+  }
+
+  @Test
+  void upsertBatch_noInfoUpdateCounts_breakdownUnknown() {
+    doReturn(new int[] {Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO})
+        .when(simpleJdbc)
+        .batchStatement(anyString(), anyList());
+
+    UpsertResult result =
+        simpleJdbc
+            .batchUpsert()
+            .dialect(Dialect.MYSQL)
+            .useAffectedRows()
+            .into("table")
+            .onConflict("id")
+            .set("id", 1)
+            .addBatch()
+            .set("id", 2)
+            .addBatch()
+            .executeBatch();
+
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.empty());
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.empty());
+  }
+
+  @Test
+  void upsertBatch_mismatchedColumns_throws() {
+    assertException(
+        () ->
+            simpleJdbc
+                .batchUpsert()
+                .dialect(Dialect.POSTGRESQL)
+                .into("table")
+                .onConflict("id")
+                .set("id", 1)
+                .addBatch()
+                .set("id", 2)
+                .set("column", "b")
+                .addBatch()
+                .executeBatch(),
+        "every batch entry must set() the same columns");
+  }
+
+  @Test
+  void upsertBatch_withBatchSizeOfZero_ok() {
+    assertThat(
+            simpleJdbc.batchUpsert().into("table").onConflict("id").executeBatch().getRowsAffected())
+        .isEqualTo(0);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "PostgreSQL, POSTGRESQL",
+    "MySQL, MYSQL",
+    "MariaDB, MYSQL",
+    "Oracle, ORACLE",
+    "Microsoft SQL Server, SQL_SERVER",
+    "H2, STANDARD",
+  })
+  void dialect_fromProductName(String productName, Dialect expected) {
+    assertThat(Dialect.fromProductName(productName)).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,75 @@
+package simplejdbc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.OptionalInt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import simplejdbc.UpsertBuilder.UpsertResult;
+
+public class UpsertsTest extends DatabaseContainerTest {
+
+  private SimpleJdbc jdbc;
+
+  @BeforeEach
+  void setup() {
+    jdbc = SimpleJdbc.using(getDataSource());
+    jdbc.statement("create table if not exists upserted (id int primary key, name varchar)")
+        .execute();
+    jdbc.statement("truncate upserted").execute();
+  }
+
+  @Test
+  void upsert_ofNewRow_isReportedAsInserted() {
+    UpsertResult result = upsert(1, "Ada");
+
+    assertThat(result.getRowsAffected()).isEqualTo(1);
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.of(1));
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.of(0));
+  }
+
+  @Test
+  void upsert_ofExistingRow_isReportedAsUpdated() {
+    upsert(1, "Ada");
+
+    UpsertResult result = upsert(1, "Grace");
+
+    assertThat(result.getRowsAffected()).isEqualTo(1);
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.of(0));
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.of(1));
+    String name =
+        jdbc.query("select name from upserted where id = 1")
+            .selectExactlyOne(row -> row.getString("name"));
+    assertThat(name).isEqualTo("Grace");
+  }
+
+  @Test
+  void upsert_ofUnchangedRow_isReportedAsUpdated() {
+    upsert(1, "Ada");
+
+    UpsertResult result = upsert(1, "Ada");
+
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.of(0));
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.of(1));
+  }
+
+  @Test
+  void upsert_ofKeyOnly_whenRowExists_affectsNoRows() {
+    upsert(1, "Ada");
+
+    UpsertResult result = jdbc.upsert().into("upserted").onConflict("id").set("id", 1).execute();
+
+    assertThat(result.getRowsAffected()).isEqualTo(0);
+    assertThat(result.getInserted()).isEqualTo(OptionalInt.of(0));
+    assertThat(result.getUpdated()).isEqualTo(OptionalInt.of(0));
+  }
+
+  private UpsertResult upsert(int id, String name) {
+    return jdbc.upsert()
+        .into("upserted")
+        .onConflict("id")
+        .set("id", id)
+        .set("name", name)
+        .execute();
+  }
+}
@@ -0,0 +1,15 @@
+-- name: blocks.anonymous
+-- Archives in one round trip
+begin
+  insert into orders_archive select * from orders where id = :id;
+  delete from orders where id = :id;
+end;
+
+-- name: blocks.procedure
+create or replace procedure touch(p_id number) as
+begin
+  update orders set updated_at = sysdate where id = p_id;
+end;
+
+-- name: blocks.select
+select 'begin' from dual;
@@ -0,0 +1 @@
+select id, name from customer where id = :id
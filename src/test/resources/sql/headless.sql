@@ -0,0 +1,4 @@
+select 1
+
+-- name: orders.late
+select 2
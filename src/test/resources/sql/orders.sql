@@ -0,0 +1,8 @@
+-- name: orders.byCustomer
+-- Most recent first
+select id, total from orders
+where customer_id = :customerId
+order by created_at desc;
+
+-- name: orders.cancel
+update orders set status = 'cancelled' where id = :id